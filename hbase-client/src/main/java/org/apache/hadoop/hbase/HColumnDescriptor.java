@@ -89,7 +89,14 @@ public class HColumnDescriptor implements Comparable<HColumnDescriptor> {
      * on-disk compaction does after the data is flushed to disk). This policy is most useful for
      * applications with high data churn or small working sets.
      */
-    EAGER
+    EAGER,
+    /**
+     * Adaptive policy picks between the basic and the eager policy on every in-memory
+     * compaction, from how much of the newest data would be eliminated. Stores whose cells are
+     * updated over and over are compacted eagerly, while append-mostly stores only get their
+     * index compacted.
+     */
+    ADAPTIVE
   }
 
   // These constants are used as FileInfo keys
@@ -152,6 +152,49 @@ public abstract class Filter {
    */
   abstract public Cell transformCell(final Cell v) throws IOException;
 
+  /**
+   * Filters a batch of consecutive Cells of one row, such as the decoded Cells of a block, the
+   * same as calling {@link #filterKeyValue(Cell)} on them one at a time, and
+   * {@link #transformCell(Cell)} on those included. Evaluation stops after the first Cell whose
+   * code is other than {@link ReturnCode#INCLUDE} or {@link ReturnCode#SKIP}, since the caller
+   * then moves past the Cells that follow it.
+   *
+   * Like filterKeyValue, this can assume that filterRowKey has already been called for the row
+   * and that {@link #filterAllRemaining()} was false. This implementation adapts filterKeyValue;
+   * filters can override it to save the per Cell dispatch.
+   *
+   * The scan path does not call this yet, and the method may change until it does.
+   *
+   * @param cells the Cells, with random access; included Cells are replaced by their
+   *          transformation
+   * @param codes receives the code of every Cell evaluated, at the index of the Cell
+   * @return the number of Cells evaluated, from the first
+   * @throws IOException in case an I/O or an filter specific failure needs to be signaled.
+   */
+  @InterfaceStability.Evolving
+  public int filterCells(List<Cell> cells, ReturnCode[] codes) throws IOException {
+    int size = cells.size();
+    for (int i = 0; i < size; i++) {
+      Cell cell = cells.get(i);
+      ReturnCode code = filterKeyValue(cell);
+      codes[i] = code;
+      switch (code) {
+      case INCLUDE:
+        cells.set(i, transformCell(cell));
+        break;
+      case SKIP:
+        break;
+      case INCLUDE_AND_NEXT_COL:
+      case INCLUDE_AND_SEEK_NEXT_ROW:
+        cells.set(i, transformCell(cell));
+        return i + 1;
+      default:
+        return i + 1;
+      }
+    }
+    return size;
+  }
+
   /**
    * Return codes for filterValue().
    */
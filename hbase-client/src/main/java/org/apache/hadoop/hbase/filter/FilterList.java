@@ -81,6 +81,13 @@ final public class FilterList extends FilterBase {
    */
   private Cell transformedCell = null;
 
+  /**
+   * With MUST_PASS_ONE, the code each filter returned for the last Cell given to
+   * {@link #filterKeyValue(Cell)}, null if it had no more to filter. Lets
+   * {@link #getNextCellHint(Cell)} seek to the first Cell any of the filters may include.
+   */
+  private ReturnCode[] lastCodes = null;
+
   /**
    * Constructor that takes a set of {@link Filter}s. The default operator
    * MUST_PASS_ALL is assumed.
@@ -309,6 +316,16 @@ final public class FilterList extends FilterBase {
      * be skipped.
      */
     boolean seenNonHintReturnCode = false;
+    /*
+     * If no filter includes the Cell, and none only skips it, all of them can move further on.
+     * When one has a hint, the FilterList seeks to the least position any of them moves to.
+     */
+    boolean seenHintReturnCode = false;
+    boolean seenSkipReturnCode = false;
+    if (operator == Operator.MUST_PASS_ONE
+        && (lastCodes == null || lastCodes.length != listize)) {
+      lastCodes = new ReturnCode[listize];
+    }
     for (int i = 0; i < listize; i++) {
       Filter filter = filters.get(i);
       if (operator == Operator.MUST_PASS_ALL) {
@@ -332,10 +349,12 @@ final public class FilterList extends FilterBase {
       } else if (operator == Operator.MUST_PASS_ONE) {
         if (filter.filterAllRemaining()) {
           seenNonHintReturnCode = true;
+          lastCodes[i] = null;
           continue;
         }
 
         ReturnCode localRC = filter.filterKeyValue(c);
+        lastCodes[i] = localRC;
         if (localRC != ReturnCode.SEEK_NEXT_USING_HINT) {
           seenNonHintReturnCode = true;
         }
@@ -354,10 +373,12 @@ final public class FilterList extends FilterBase {
         case NEXT_ROW:
           break;
         case SKIP:
+          seenSkipReturnCode = true;
           break;
         case NEXT_COL:
           break;
         case SEEK_NEXT_USING_HINT:
+          seenHintReturnCode = true;
           break;
         default:
           throw new IllegalStateException("Received code is not valid.");
@@ -375,9 +396,111 @@ final public class FilterList extends FilterBase {
     if (operator == Operator.MUST_PASS_ONE && !seenNonHintReturnCode) {
       return ReturnCode.SEEK_NEXT_USING_HINT;
     }
+    /*
+     * Otherwise, when the other filters only skip the rest of the column or row, seek to the
+     * least of their positions and the hints. Reversed scans go through rows backwards, so the
+     * ends of the column and row are not ahead of the hints there.
+     */
+    if (operator == Operator.MUST_PASS_ONE && rc == ReturnCode.SKIP && seenHintReturnCode
+        && !seenSkipReturnCode && !isReversed()) {
+      return ReturnCode.SEEK_NEXT_USING_HINT;
+    }
     return rc;
   }
 
+  /**
+   * When every filter of the list has a per Cell result that depends on the Cell and the row
+   * only, evaluates the batch one filter at a time rather than one Cell at a time. Otherwise
+   * filters would see Cells in another order than with {@link #filterKeyValue(Cell)}, so this
+   * falls back to it.
+   */
+  @Override
+  @InterfaceStability.Evolving
+  public int filterCells(List<Cell> cells, ReturnCode[] codes) throws IOException {
+    int size = cells.size();
+    if (isEmpty() || size == 0 || !isBatchable(this)) {
+      return super.filterCells(cells, codes);
+    }
+    ReturnCode[] childCodes = new ReturnCode[size];
+    int evaluated = size;
+    int listize = filters.size();
+    if (operator == Operator.MUST_PASS_ALL) {
+      for (int i = 0; i < listize; i++) {
+        if (filters.get(i).filterAllRemaining()) {
+          codes[0] = ReturnCode.NEXT_ROW;
+          evaluated = 1;
+          break;
+        }
+      }
+      if (evaluated == size) {
+        Arrays.fill(codes, 0, size, ReturnCode.INCLUDE);
+        for (int i = 0; i < listize; i++) {
+          // No filter here changes the Cells, nor looks at Cells past where another stopped
+          int childEvaluated = filters.get(i).filterCells(
+            evaluated == size ? cells : cells.subList(0, evaluated), childCodes);
+          for (int j = 0; j < childEvaluated; j++) {
+            if (codes[j] == ReturnCode.INCLUDE) {
+              codes[j] = childCodes[j];
+            }
+          }
+          evaluated = Math.min(evaluated, childEvaluated);
+        }
+        // The first code that moves on from the batch ends it
+        for (int j = 0; j < evaluated; j++) {
+          if (codes[j] != ReturnCode.INCLUDE && codes[j] != ReturnCode.SKIP) {
+            evaluated = j + 1;
+            break;
+          }
+        }
+      }
+    } else {
+      // Each filter sees every Cell, so the list includes a Cell if any filter does
+      Arrays.fill(codes, 0, size, ReturnCode.SKIP);
+      for (int i = 0; i < listize; i++) {
+        Filter filter = filters.get(i);
+        if (filter.filterAllRemaining()) {
+          continue;
+        }
+        int from = 0;
+        while (from < size) {
+          int childEvaluated = filter.filterCells(
+            from == 0 ? cells : cells.subList(from, size), childCodes);
+          for (int j = 0; j < childEvaluated; j++) {
+            if (childCodes[j] == ReturnCode.INCLUDE) {
+              codes[from + j] = ReturnCode.INCLUDE;
+            }
+          }
+          from += childEvaluated;
+        }
+      }
+    }
+    // As if the last Cell went through filterKeyValue, which no filter here seeks from
+    this.referenceCell = cells.get(evaluated - 1);
+    this.transformedCell = this.referenceCell;
+    if (lastCodes != null) {
+      Arrays.fill(lastCodes, null);
+    }
+    return evaluated;
+  }
+
+  /**
+   * @return whether the per Cell result of the filter depends on the Cell and the row only, and
+   *         it neither transforms Cells nor seeks using a hint
+   */
+  private static boolean isBatchable(Filter filter) {
+    Class<?> clazz = filter.getClass();
+    if (clazz == FilterList.class) {
+      for (Filter child : ((FilterList) filter).getFilters()) {
+        if (!isBatchable(child)) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return clazz == ValueFilter.class || clazz == QualifierFilter.class
+        || clazz == PrefixFilter.class;
+  }
+
   /**
    * Filters that never filter by modifying the returned List of Cells can
    * inherit this implementation that does nothing.
@@ -494,11 +617,22 @@ final public class FilterList extends FilterBase {
 
     // If any condition can pass, we need to keep the min hint
     int listize = filters.size();
+    boolean hasLastCodes = lastCodes != null && lastCodes.length == listize
+        && currentCell != null && referenceCell != null
+        && CellUtil.equals(currentCell, referenceCell);
     for (int i = 0; i < listize; i++) {
       if (filters.get(i).filterAllRemaining()) {
         continue;
       }
-      Cell curKeyHint = filters.get(i).getNextCellHint(currentCell);
+      // Filters done with the column or row of the Cell may include any Cell after it
+      Cell curKeyHint;
+      if (hasLastCodes && lastCodes[i] == ReturnCode.NEXT_COL) {
+        curKeyHint = CellUtil.createLastOnRowCol(currentCell);
+      } else if (hasLastCodes && lastCodes[i] == ReturnCode.NEXT_ROW) {
+        curKeyHint = CellUtil.createLastOnRow(currentCell);
+      } else {
+        curKeyHint = filters.get(i).getNextCellHint(currentCell);
+      }
       if (curKeyHint == null) {
         // If we ever don't have a hint and this is must-pass-one, then no hint
         return null;
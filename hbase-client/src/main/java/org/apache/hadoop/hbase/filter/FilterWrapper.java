@@ -122,6 +122,11 @@ final public class FilterWrapper extends Filter {
     return this.filter.transformCell(v);
   }
 
+  @Override
+  public int filterCells(List<Cell> cells, ReturnCode[] codes) throws IOException {
+    return this.filter.filterCells(cells, codes);
+  }
+
   @Override
   public boolean hasFilterRow() {
     return this.filter.hasFilterRow();
@@ -19,7 +19,10 @@
 
 package org.apache.hadoop.hbase.filter;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.hadoop.hbase.ByteBufferCell;
 import org.apache.hadoop.hbase.Cell;
@@ -83,6 +86,25 @@ public class PrefixFilter extends FilterBase {
     return ReturnCode.INCLUDE;
   }
 
+  @Override
+  @InterfaceStability.Evolving
+  public int filterCells(List<Cell> cells, ReturnCode[] codes) throws IOException {
+    if (getClass() != PrefixFilter.class) {
+      // A subclass may filter or transform differently
+      return super.filterCells(cells, codes);
+    }
+    // The whole row passes or not
+    if (cells.isEmpty()) {
+      return 0;
+    }
+    if (filterRow) {
+      codes[0] = ReturnCode.NEXT_ROW;
+      return 1;
+    }
+    Arrays.fill(codes, 0, cells.size(), ReturnCode.INCLUDE);
+    return cells.size();
+  }
+
   public boolean filterRow() {
     return filterRow;
   }
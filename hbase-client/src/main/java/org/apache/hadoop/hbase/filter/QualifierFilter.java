@@ -21,6 +21,7 @@ package org.apache.hadoop.hbase.filter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
@@ -69,6 +70,23 @@ public class QualifierFilter extends CompareFilter {
     return ReturnCode.INCLUDE;
   }
 
+  @Override
+  @InterfaceStability.Evolving
+  public int filterCells(List<Cell> cells, ReturnCode[] codes) throws IOException {
+    if (getClass() != QualifierFilter.class) {
+      // A subclass may filter or transform differently
+      return super.filterCells(cells, codes);
+    }
+    int size = cells.size();
+    for (int i = 0; i < size; i++) {
+      Cell cell = cells.get(i);
+      codes[i] = cell.getQualifierLength() > 0
+          && compareQualifier(this.compareOp, this.comparator, cell)
+          ? ReturnCode.SKIP : ReturnCode.INCLUDE;
+    }
+    return size;
+  }
+
   public static Filter createFilterFromArguments(ArrayList<byte []> filterArguments) {
     ArrayList<?> arguments = CompareFilter.extractArguments(filterArguments);
     CompareOp compareOp = (CompareOp)arguments.get(0);
@@ -21,6 +21,8 @@ package org.apache.hadoop.hbase.filter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellComparator;
@@ -195,6 +197,30 @@ public class SingleColumnValueFilter extends FilterBase {
     return ReturnCode.INCLUDE;
   }
 
+  @Override
+  @InterfaceStability.Evolving
+  public int filterCells(List<Cell> cells, ReturnCode[] codes) throws IOException {
+    if (getClass() != SingleColumnValueFilter.class
+        && getClass() != SingleColumnValueExcludeFilter.class) {
+      // A subclass may filter or transform differently
+      return super.filterCells(cells, codes);
+    }
+    int size = cells.size();
+    for (int i = 0; i < size; i++) {
+      if (this.matchedColumn) {
+        // All the rest of the row passes
+        Arrays.fill(codes, i, size, ReturnCode.INCLUDE);
+        return size;
+      }
+      ReturnCode code = filterKeyValue(cells.get(i));
+      codes[i] = code;
+      if (code == ReturnCode.NEXT_ROW) {
+        return i + 1;
+      }
+    }
+    return size;
+  }
+
   private boolean filterColumnValue(final Cell cell) {
     int compareResult = CellComparator.compareValue(cell, this.comparator);
     switch (this.compareOp) {
@@ -21,6 +21,7 @@ package org.apache.hadoop.hbase.filter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
@@ -65,6 +66,21 @@ public class ValueFilter extends CompareFilter {
     return ReturnCode.INCLUDE;
   }
 
+  @Override
+  @InterfaceStability.Evolving
+  public int filterCells(List<Cell> cells, ReturnCode[] codes) throws IOException {
+    if (getClass() != ValueFilter.class) {
+      // A subclass may filter or transform differently
+      return super.filterCells(cells, codes);
+    }
+    int size = cells.size();
+    for (int i = 0; i < size; i++) {
+      codes[i] = compareValue(this.compareOp, this.comparator, cells.get(i))
+          ? ReturnCode.SKIP : ReturnCode.INCLUDE;
+    }
+    return size;
+  }
+
   public static Filter createFilterFromArguments(ArrayList<byte []> filterArguments) {
     @SuppressWarnings("rawtypes")  // for arguments
     ArrayList arguments = CompareFilter.extractArguments(filterArguments);
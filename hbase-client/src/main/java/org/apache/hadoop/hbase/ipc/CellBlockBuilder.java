@@ -218,6 +218,19 @@ class CellBlockBuilder {
    */
   public ByteBufferListOutputStream buildCellBlockStream(Codec codec, CompressionCodec compressor,
       CellScanner cellScanner, ByteBufferPool pool) throws IOException {
+    return buildCellBlockStream(codec, compressor, cellScanner, pool, 0);
+  }
+
+  /**
+   * As {@link #buildCellBlockStream(Codec, CompressionCodec, CellScanner, ByteBufferPool)}, but
+   * cell data of at least <code>minSliceSize</code> bytes held in direct ByteBuffers is not copied:
+   * the returned stream refers to that memory instead (see
+   * {@link ByteBufferListOutputStream#getSliceCount()}). Such data is only sliced when there is no
+   * <code>compressor</code>.
+   * @param minSliceSize 0 to always copy
+   */
+  public ByteBufferListOutputStream buildCellBlockStream(Codec codec, CompressionCodec compressor,
+      CellScanner cellScanner, ByteBufferPool pool, int minSliceSize) throws IOException {
     if (cellScanner == null) {
       return null;
     }
@@ -225,7 +238,7 @@ class CellBlockBuilder {
       throw new CellScannerButNoCodecException();
     }
     assert pool != null;
-    ByteBufferListOutputStream bbos = new ByteBufferListOutputStream(pool);
+    ByteBufferListOutputStream bbos = new ByteBufferListOutputStream(pool, minSliceSize);
     encodeCellsTo(bbos, cellScanner, codec, compressor);
     if (bbos.size() == 0) {
       bbos.releaseResources();
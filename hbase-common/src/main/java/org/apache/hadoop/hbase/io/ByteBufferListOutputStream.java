@@ -33,6 +33,9 @@ import org.apache.hadoop.hbase.util.ByteBufferUtils;
  * needed, from the passed pool. When pool is not giving a ByteBuffer it will create one on heap.
  * Make sure to call {@link #releaseResources()} method once the Stream usage is over and
  * data is transferred to the wanted destination.
+ * <p>
+ * Optionally, large writes from direct ByteBuffers are not copied: a read-only slice of the
+ * source is put in the list instead (see {@link #ByteBufferListOutputStream(ByteBufferPool, int)}).
  * Not thread safe!
  */
 @InterfaceAudience.Private
@@ -49,8 +52,22 @@ public class ByteBufferListOutputStream extends ByteBufferOutputStream {
 
   private boolean lastBufFlipped = false;// Indicate whether the curBuf/lastBuf is flipped already
 
+  private final int minSliceSize;
+  private int slices = 0;
+
   public ByteBufferListOutputStream(ByteBufferPool pool) {
+    this(pool, 0);
+  }
+
+  /**
+   * @param minSliceSize writes from a direct ByteBuffer of at least this many bytes are added to
+   *          the list as a read-only slice of the source instead of being copied. The caller must
+   *          then keep the source memory unchanged until the buffers have been consumed. 0 to
+   *          always copy.
+   */
+  public ByteBufferListOutputStream(ByteBufferPool pool, int minSliceSize) {
     this.pool = pool;
+    this.minSliceSize = minSliceSize;
     allocateNewBuffer();
   }
 
@@ -163,6 +180,10 @@ public class ByteBufferListOutputStream extends ByteBufferOutputStream {
 
   @Override
   public void write(ByteBuffer b, int off, int len) throws IOException {
+    if (minSliceSize > 0 && len >= minSliceSize && b.isDirect()) {
+      addSlice(b, off, len);
+      return;
+    }
     int toWrite = 0;
     while (len > 0) {
       toWrite = Math.min(len, this.curBuf.remaining());
@@ -174,4 +195,33 @@ public class ByteBufferListOutputStream extends ByteBufferOutputStream {
       }
     }
   }
+
+  /**
+   * @return number of buffers in the list that are slices of written ByteBuffers rather than
+   *         our own
+   */
+  public int getSliceCount() {
+    return slices;
+  }
+
+  private void addSlice(ByteBuffer b, int off, int len) {
+    ByteBuffer slice = b.asReadOnlyBuffer();
+    slice.clear();
+    slice.position(off);
+    slice.limit(off + len);
+    slice = slice.slice();
+    this.slices++;
+    if (this.curBuf.position() == 0) {
+      // Nothing in the current buffer yet; just put the slice before it.
+      this.allBufs.add(this.allBufs.size() - 1, slice);
+      return;
+    }
+    // Later writes go to what is left of the current buffer, after the slice. The last buffer
+    // is so always one of our own, which RpcServer may append the response header to.
+    ByteBuffer rest = this.curBuf.slice();
+    this.curBuf.flip();
+    this.allBufs.add(slice);
+    this.allBufs.add(rest);
+    this.curBuf = rest;
+  }
 }
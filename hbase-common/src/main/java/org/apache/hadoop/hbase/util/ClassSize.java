@@ -94,6 +94,12 @@ public class ClassSize {
   /** Overhead for Cell Array Entry */
   public static final int CELL_ARRAY_MAP_ENTRY;
 
+  /** Overhead for CellChunkMap */
+  public static final int CELL_CHUNK_MAP;
+
+  /** Size of a CellChunkMap index record, kept in a chunk rather than on the heap */
+  public static final int CELL_CHUNK_MAP_ENTRY;
+
   /** Overhead for ReentrantReadWriteLock */
   public static final int REENTRANT_LOCK;
 
@@ -297,6 +303,16 @@ public class ClassSize {
     // REFERENCE in the CellArrayMap all the rest is counted in KeyValue.heapSize()
     CELL_ARRAY_MAP_ENTRY = align(REFERENCE);
 
+    // CELL_CHUNK_MAP is the size of an instance of CellChunkMap class, which extends
+    // CellFlatMap class. CellFlatMap holds the comparator, the min and max cell indexes and the
+    // descending flag; CellChunkMap adds refs to two arrays (of data chunks and of index chunks)
+    // and the number of records per chunk, so OBJECT + 3*INT + BOOLEAN + 3*REFERENCE + 2*ARRAY
+    CELL_CHUNK_MAP = align(OBJECT + 3*Bytes.SIZEOF_INT + Bytes.SIZEOF_BOOLEAN + 3*REFERENCE)
+        + align(2*ARRAY);
+
+    // chunk index, offset and length of the cell, and its sequence id
+    CELL_CHUNK_MAP_ENTRY = 3*Bytes.SIZEOF_INT + Bytes.SIZEOF_LONG;
+
     REENTRANT_LOCK = align(OBJECT + (3 * REFERENCE));
 
     ATOMIC_LONG = align(OBJECT + Bytes.SIZEOF_LONG);
@@ -74,4 +74,40 @@ public class TestByteBufferListOutputStream {
     bbos.releaseResources();
     assertEquals(3, pool.getQueueSize());
   }
+
+  @Test
+  public void testSlicesLargeDirectWrites() throws Exception {
+    ByteBufferPool pool = new ByteBufferPool(16, 3);
+    ByteBufferListOutputStream bbos = new ByteBufferListOutputStream(pool, 8);
+    ByteBuffer direct = ByteBuffer.allocateDirect(20);
+    direct.put(Bytes.toBytes("0123456789abcdefghij"));
+    bbos.writeInt(7);
+    bbos.write(direct, 2, 12);// Big enough, not copied
+    bbos.write(direct, 0, 4);// Too small, copied
+    bbos.write(ByteBuffer.wrap(Bytes.toBytes("on heap buffer")), 0, 14);// Not direct, copied
+    assertEquals(1, bbos.getSliceCount());
+    assertEquals(4 + 12 + 4 + 14, bbos.size());
+    List<ByteBuffer> allBufs = bbos.getByteBuffers();
+    assertEquals(4, allBufs.size());
+    assertEquals(7, allBufs.get(0).getInt());
+    assertEquals(0, allBufs.get(0).remaining());
+    ByteBuffer slice = allBufs.get(1);
+    assertTrue(slice.isReadOnly());
+    byte[] bActual = new byte[12];
+    slice.duplicate().get(bActual);
+    assertEquals("23456789abcd", Bytes.toString(bActual));
+    // The slice is the source memory itself
+    direct.put(2, (byte) 'X');
+    assertEquals('X', slice.get(0));
+    // Writes after the slice go on in the rest of the first pooled buffer, then a new one
+    ByteBuffer rest = allBufs.get(2);
+    assertEquals(12, rest.remaining());
+    bActual = new byte[4];
+    rest.get(bActual);
+    assertEquals("0123", Bytes.toString(bActual));
+    assertEquals(6, allBufs.get(3).remaining());
+    assertEquals(2, bbos.bufsFromPool.size());
+    bbos.releaseResources();
+    assertEquals(2, pool.getQueueSize());
+  }
 }
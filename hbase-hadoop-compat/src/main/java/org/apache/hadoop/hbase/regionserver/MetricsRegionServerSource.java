@@ -147,6 +147,12 @@ public interface MetricsRegionServerSource extends BaseSource, JvmPauseMonitorSo
    */
   void updateFlushTime(long t);
 
+  /**
+   * Update the store flush time histogram
+   * @param t time it took to write the snapshot of one store, in milliseconds
+   */
+  void updateStoreFlushTime(long t);
+
   /**
    * Update the flush memstore size histogram
    * @param bytes the number of bytes in the memstore
@@ -299,6 +305,91 @@ public interface MetricsRegionServerSource extends BaseSource, JvmPauseMonitorSo
   String BLOCK_CACHE_FAILED_INSERTION_COUNT = "blockCacheFailedInsertionCount";
   String BLOCK_CACHE_FAILED_INSERTION_COUNT_DESC = "Number of times that a block cache " +
       "insertion failed. Usually due to size restrictions.";
+  String BLOCK_CACHE_WRITER_QUEUE_FULL_COUNT = "blockCacheWriterQueueFullCount";
+  String BLOCK_CACHE_WRITER_QUEUE_FULL_COUNT_DESC = "Number of blocks not cached because the " +
+      "bucket cache writers were falling behind and their queue was full.";
+  String BLOCK_CACHE_READAHEAD_COUNT = "blockCacheReadaheadCount";
+  String BLOCK_CACHE_READAHEAD_COUNT_DESC = "Number of data blocks read into the block cache " +
+      "ahead of sequential scanners.";
+  String BLOCK_CACHE_READAHEAD_HIT_COUNT = "blockCacheReadaheadHitCount";
+  String BLOCK_CACHE_READAHEAD_HIT_COUNT_DESC = "Number of blocks read ahead that the scanner " +
+      "went on to read.";
+  String BLOCK_CACHE_READAHEAD_WASTED_COUNT = "blockCacheReadaheadWastedCount";
+  String BLOCK_CACHE_READAHEAD_WASTED_COUNT_DESC = "Number of blocks read ahead that the " +
+      "scanner skipped or never got to.";
+  String HFILE_STREAM_POOL_READ_COUNT = "hfileStreamPoolReadCount";
+  String HFILE_STREAM_POOL_READ_COUNT_DESC = "Number of HFile block reads done on an extra " +
+      "pooled stream as the file's stream was busy.";
+  String HFILE_STREAM_POOL_FALLBACK_COUNT = "hfileStreamPoolFallbackCount";
+  String HFILE_STREAM_POOL_FALLBACK_COUNT_DESC = "Number of HFile block reads that fell back " +
+      "to a positional read as all pooled streams of the file were busy.";
+  String HFILE_STREAM_POOL_OPEN_COUNT = "hfileStreamPoolOpenCount";
+  String HFILE_STREAM_POOL_OPEN_COUNT_DESC = "Number of extra pooled HFile streams open.";
+  String HFILE_STREAM_POOL_BUSY_COUNT = "hfileStreamPoolBusyCount";
+  String HFILE_STREAM_POOL_BUSY_COUNT_DESC = "Number of extra pooled HFile streams being " +
+      "read from.";
+  String BLOOM_CHUNK_CACHE_SIZE = "bloomChunkCacheSize";
+  String BLOOM_CHUNK_CACHE_SIZE_DESC = "Heap used by the Bloom filter chunk cache.";
+  String BLOOM_CHUNK_CACHE_HIT_COUNT = "bloomChunkCacheHitCount";
+  String BLOOM_CHUNK_CACHE_HIT_COUNT_DESC = "Number of Bloom filter chunk reads served by the " +
+      "Bloom filter chunk cache.";
+  String BLOOM_CHUNK_CACHE_MISS_COUNT = "bloomChunkCacheMissCount";
+  String BLOOM_CHUNK_CACHE_MISS_COUNT_DESC = "Number of Bloom filter chunk reads that missed " +
+      "the Bloom filter chunk cache.";
+  String IN_MEMORY_FLATTEN_COUNT = "inMemoryFlattenCount";
+  String IN_MEMORY_FLATTEN_COUNT_DESC = "Number of memstore segments flattened by in-memory " +
+      "compaction.";
+  String IN_MEMORY_MERGE_COUNT = "inMemoryMergeCount";
+  String IN_MEMORY_MERGE_COUNT_DESC = "Number of times in-memory compaction merged the " +
+      "indexes of the memstore segments.";
+  String IN_MEMORY_COMPACTION_COUNT = "inMemoryCompactionCount";
+  String IN_MEMORY_COMPACTION_COUNT_DESC = "Number of times in-memory compaction compacted the " +
+      "data of the memstore segments.";
+  String IN_MEMORY_FLATTEN_TIME = "inMemoryFlattenTime";
+  String IN_MEMORY_FLATTEN_TIME_DESC = "Time spent flattening memstore segments, in milliseconds.";
+  String IN_MEMORY_MERGE_TIME = "inMemoryMergeTime";
+  String IN_MEMORY_MERGE_TIME_DESC = "Time spent merging memstore segment indexes, in " +
+      "milliseconds.";
+  String IN_MEMORY_COMPACTION_TIME = "inMemoryCompactionTime";
+  String IN_MEMORY_COMPACTION_TIME_DESC = "Time spent compacting memstore segment data, in " +
+      "milliseconds.";
+  String IN_MEMORY_FLATTEN_FREED_SIZE = "inMemoryFlattenFreedSize";
+  String IN_MEMORY_FLATTEN_FREED_SIZE_DESC = "Memory freed by flattening memstore segments, in " +
+      "bytes.";
+  String IN_MEMORY_MERGE_FREED_SIZE = "inMemoryMergeFreedSize";
+  String IN_MEMORY_MERGE_FREED_SIZE_DESC = "Memory freed by merging memstore segment indexes, in " +
+      "bytes.";
+  String IN_MEMORY_COMPACTION_FREED_SIZE = "inMemoryCompactionFreedSize";
+  String IN_MEMORY_COMPACTION_FREED_SIZE_DESC = "Memory freed by compacting memstore segment " +
+      "data, in bytes.";
+  String SCAN_REQUESTS_PER_SECOND = "scanRequestsPerSecond";
+  String SCAN_REQUESTS_PER_SECOND_DESC = "Number of rpc scan requests per second.";
+  String SCAN_BYTES_PER_REQUEST = "scanBytesPerRequest";
+  String SCAN_BYTES_PER_REQUEST_DESC = "Average bytes of cells returned per rpc scan request " +
+      "over the last period.";
+  String SCAN_SIZE_LIMIT_IN_USE = "scanSizeLimitInUse";
+  String SCAN_SIZE_LIMIT_IN_USE_DESC = "Sum of the adapted size limits of the rpc scan " +
+      "requests being served, in bytes.";
+  String SCAN_SIZE_LIMIT_REDUCED_COUNT = "scanSizeLimitReducedCount";
+  String SCAN_SIZE_LIMIT_REDUCED_COUNT_DESC = "Number of rpc scan requests given a size limit " +
+      "lower than the one of the client, for its consumption rate or the memory budget.";
+  String BLOCK_CACHE_UNPACK_COUNT = "blockCacheUnpackCount";
+  String BLOCK_CACHE_UNPACK_COUNT_DESC = "Number of times a block cached compressed had to be " +
+      "unpacked on a cache hit.";
+  String BLOCK_CACHE_UNPACK_TIME = "blockCacheUnpackTime";
+  String BLOCK_CACHE_UNPACK_TIME_DESC = "Milliseconds spent unpacking blocks cached compressed.";
+  String BLOCK_CACHE_UNPACKED_HIT_COUNT = "blockCacheUnpackedHitCount";
+  String BLOCK_CACHE_UNPACKED_HIT_COUNT_DESC = "Number of cache hits on blocks cached compressed " +
+      "that were served from a recently unpacked copy.";
+  String BLOCK_CACHE_ADMITTED_COUNT = "blockCacheAdmittedCount";
+  String BLOCK_CACHE_ADMITTED_COUNT_DESC = "Number of data blocks the admission policy let " +
+      "into a full block cache.";
+  String BLOCK_CACHE_REJECTED_COUNT = "blockCacheRejectedCount";
+  String BLOCK_CACHE_REJECTED_COUNT_DESC = "Number of data blocks the admission policy kept " +
+      "out of a full block cache.";
+  String BLOCK_CACHE_REJECTED_REQUEST_COUNT = "blockCacheRejectedRequestCount";
+  String BLOCK_CACHE_REJECTED_REQUEST_COUNT_DESC = "Approximate number of block cache misses " +
+      "on blocks the admission policy recently kept out.";
   String BLOCK_CACHE_DATA_MISS_COUNT = "blockCacheDataMissCount";
   String BLOCK_CACHE_ENCODED_DATA_MISS_COUNT = "blockCacheEncodedDataMissCount";
   String BLOCK_CACHE_LEAF_INDEX_MISS_COUNT = "blockCacheLeafIndexMissCount";
@@ -425,6 +516,9 @@ public interface MetricsRegionServerSource extends BaseSource, JvmPauseMonitorSo
 
   String FLUSH_TIME = "flushTime";
   String FLUSH_TIME_DESC = "Histogram for the time in millis for memstore flush";
+  String STORE_FLUSH_TIME = "storeFlushTime";
+  String STORE_FLUSH_TIME_DESC = "Histogram for the time in millis to write the snapshot of " +
+      "one store in a memstore flush";
   String FLUSH_MEMSTORE_SIZE = "flushMemstoreSize";
   String FLUSH_MEMSTORE_SIZE_DESC = "Histogram for number of bytes in the memstore for a flush";
   String FLUSH_OUTPUT_SIZE = "flushOutputSize";
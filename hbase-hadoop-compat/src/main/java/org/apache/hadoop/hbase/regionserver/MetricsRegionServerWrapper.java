@@ -268,6 +268,157 @@ public interface MetricsRegionServerWrapper {
    */
   long getBlockCacheFailedInsertions();
 
+  /**
+   * Number of blocks not cached because a bucket cache writer queue was full.
+   */
+  long getBlockCacheWriterQueueFullCount();
+
+  /**
+   * Number of data blocks read into the block cache ahead of sequential scanners.
+   */
+  long getBlockCacheReadaheadCount();
+
+  /**
+   * Number of blocks read ahead that the scanner went on to read.
+   */
+  long getBlockCacheReadaheadHitCount();
+
+  /**
+   * Number of blocks read ahead that the scanner skipped or never got to.
+   */
+  long getBlockCacheReadaheadWastedCount();
+
+  /**
+   * Number of HFile block reads done on an extra pooled stream as the file's stream was busy.
+   */
+  long getHFileStreamPoolReadCount();
+
+  /**
+   * Number of HFile block reads that fell back to a positional read as all pooled streams of
+   * the file were busy.
+   */
+  long getHFileStreamPoolFallbackCount();
+
+  /**
+   * Number of extra pooled HFile streams open.
+   */
+  long getHFileStreamPoolOpenCount();
+
+  /**
+   * Number of extra pooled HFile streams being read from.
+   */
+  long getHFileStreamPoolBusyCount();
+
+  /**
+   * Heap used by the Bloom filter chunk cache.
+   */
+  long getBloomChunkCacheSize();
+
+  /**
+   * Number of Bloom filter chunk reads served by the Bloom filter chunk cache.
+   */
+  long getBloomChunkCacheHitCount();
+
+  /**
+   * Number of Bloom filter chunk reads that missed the Bloom filter chunk cache.
+   */
+  long getBloomChunkCacheMissCount();
+
+  /**
+   * Number of memstore segments flattened by in-memory compaction.
+   */
+  long getInMemoryFlattenCount();
+
+  /**
+   * Number of times in-memory compaction merged the indexes of the memstore segments.
+   */
+  long getInMemoryMergeCount();
+
+  /**
+   * Number of times in-memory compaction compacted the data of the memstore segments.
+   */
+  long getInMemoryCompactionCount();
+
+  /**
+   * Time spent flattening memstore segments, in milliseconds.
+   */
+  long getInMemoryFlattenTime();
+
+  /**
+   * Time spent merging memstore segment indexes, in milliseconds.
+   */
+  long getInMemoryMergeTime();
+
+  /**
+   * Time spent compacting memstore segment data, in milliseconds.
+   */
+  long getInMemoryCompactionTime();
+
+  /**
+   * Memory freed by flattening memstore segments, in bytes.
+   */
+  long getInMemoryFlattenFreedSize();
+
+  /**
+   * Memory freed by merging memstore segment indexes, in bytes.
+   */
+  long getInMemoryMergeFreedSize();
+
+  /**
+   * Memory freed by compacting memstore segment data, in bytes.
+   */
+  long getInMemoryCompactionFreedSize();
+
+  /**
+   * Get the number of rpc scan requests per second.
+   */
+  double getScanRequestsPerSecond();
+
+  /**
+   * Average bytes of cells returned per rpc scan request over the last period.
+   */
+  long getScanBytesPerRequest();
+
+  /**
+   * Sum of the adapted size limits of the rpc scan requests being served, in bytes.
+   */
+  long getScanSizeLimitInUse();
+
+  /**
+   * Number of rpc scan requests given a size limit lower than the one of the client.
+   */
+  long getScanSizeLimitReducedCount();
+
+  /**
+   * Number of times a block cached packed had to be unpacked on a cache hit.
+   */
+  long getBlockCacheUnpackCount();
+
+  /**
+   * Milliseconds spent unpacking blocks cached packed.
+   */
+  long getBlockCacheUnpackTime();
+
+  /**
+   * Number of cache hits on packed blocks served from a recently unpacked copy.
+   */
+  long getBlockCacheUnpackedHitCount();
+
+  /**
+   * Number of data blocks the admission policy let into a full block cache.
+   */
+  long getBlockCacheAdmittedCount();
+
+  /**
+   * Number of data blocks the admission policy kept out of a full block cache.
+   */
+  long getBlockCacheRejectedCount();
+
+  /**
+   * Approximate number of misses on blocks the admission policy recently kept out.
+   */
+  long getBlockCacheRejectedRequestCount();
+
   /**
    * Force a re-computation of the metrics.
    */
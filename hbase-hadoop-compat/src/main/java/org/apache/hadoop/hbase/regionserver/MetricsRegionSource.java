@@ -43,6 +43,42 @@ public interface MetricsRegionSource extends Comparable<MetricsRegionSource> {
   String COPROCESSOR_EXECUTION_STATISTICS_DESC = "Statistics for coprocessor execution times";
   String REPLICA_ID = "replicaid";
   String REPLICA_ID_DESC = "The replica ID of a region. 0 is primary, otherwise is secondary";
+  String ROW_LOCK_CONTENTION_COUNT = "rowLockContentionCount";
+  String ROW_LOCK_CONTENTION_COUNT_DESC = "Number of row locks that had to be waited for";
+  String ROW_LOCK_WAIT_TIME = "rowLockWaitTime";
+  String ROW_LOCK_WAIT_TIME_DESC = "Time spent waiting for row locks, in microseconds";
+  String COALESCED_INCREMENT_COUNT = "coalescedIncrementCount";
+  String COALESCED_INCREMENT_COUNT_DESC = "Number of increments that went through coalescing";
+  String COALESCED_INCREMENT_APPLY_COUNT = "coalescedIncrementApplyCount";
+  String COALESCED_INCREMENT_APPLY_COUNT_DESC =
+      "Number of merged increments applied for the coalesced increments";
+  String INCREMENT_COALESCING_RATIO = "incrementCoalescingRatio";
+  String INCREMENT_COALESCING_RATIO_DESC =
+      "Coalesced increments per merged increment applied";
+  String COLUMN_STATS_SCAN_COUNT = "columnStatsScanCount";
+  String COLUMN_STATS_SCAN_COUNT_DESC =
+      "Number of store scans with explicit columns or a column range filter";
+  String COLUMN_STATS_PRUNED_FILES_COUNT = "columnStatsPrunedFilesCount";
+  String COLUMN_STATS_PRUNED_FILES_COUNT_DESC =
+      "Number of store files scans skipped as the files had none of the scanned columns";
+  String COLUMN_STATS_PRUNED_FILES_PER_SCAN = "columnStatsPrunedFilesPerScan";
+  String COLUMN_STATS_PRUNED_FILES_PER_SCAN_DESC =
+      "Store files skipped by column per store scan with explicit columns or a column range";
+  String BLOOM_FILTER_REQUEST_COUNT = "bloomFilterRequestCount";
+  String BLOOM_FILTER_REQUEST_COUNT_DESC =
+      "Number of store file reads the family's Bloom filter was asked about";
+  String BLOOM_FILTER_NEGATIVE_COUNT = "bloomFilterNegativeCount";
+  String BLOOM_FILTER_NEGATIVE_COUNT_DESC =
+      "Number of store file reads the family's Bloom filter skipped";
+  String BLOOM_FILTER_FALSE_POSITIVE_COUNT = "bloomFilterFalsePositiveCount";
+  String BLOOM_FILTER_FALSE_POSITIVE_COUNT_DESC =
+      "Number of store file reads the family's Bloom filter let through that found no such row";
+  String BLOOM_FILTER_FALSE_POSITIVE_PERCENT = "bloomFilterFalsePositivePercent";
+  String BLOOM_FILTER_FALSE_POSITIVE_PERCENT_DESC =
+      "False positives as a percentage of the reads for rows not in the store file";
+  String BLOOM_FILTER_CHECK_TIME = "bloomFilterCheckTime";
+  String BLOOM_FILTER_CHECK_TIME_DESC =
+      "Time spent checking the family's Bloom filters, in microseconds";
 
   /**
    * Close the region's metrics as this region is closing.
@@ -18,6 +18,8 @@
 
 package org.apache.hadoop.hbase.regionserver;
 
+import java.util.Collection;
+
 /**
  * Interface of class that will wrap an HRegion and export numbers so they can be
  * used in MetricsRegionSource
@@ -119,6 +121,63 @@ public interface MetricsRegionWrapper {
 
   int getRegionHashCode();
 
+  /**
+   * @return number of row locks of this region that had to be waited for
+   */
+  long getRowLockContentionCount();
+
+  /**
+   * @return time spent waiting for row locks of this region, in microseconds
+   */
+  long getRowLockWaitTime();
+
+  /**
+   * @return number of increments of this region that went through increment coalescing
+   */
+  long getCoalescedIncrementCount();
+
+  /**
+   * @return number of merged increments applied for the coalesced increments of this region
+   */
+  long getCoalescedIncrementApplyCount();
+
+  /**
+   * @return number of store scans of this region with explicit columns or a column range filter
+   */
+  long getColumnStatsScanCount();
+
+  /**
+   * @return number of store files scans of this region skipped as the files had none of the
+   *         scanned columns
+   */
+  long getColumnStatsPrunedFilesCount();
+
+  /**
+   * @return names of the column families of this region that have a Bloom filter
+   */
+  Collection<String> getBloomFilterFamilies();
+
+  /**
+   * @return number of store file reads the family's Bloom filter was asked about
+   */
+  long getBloomFilterRequestCount(String family);
+
+  /**
+   * @return number of store file reads the family's Bloom filter skipped
+   */
+  long getBloomFilterNegativeCount(String family);
+
+  /**
+   * @return number of store file reads the family's Bloom filter let through that found no
+   *         such row
+   */
+  long getBloomFilterFalsePositiveCount(String family);
+
+  /**
+   * @return time spent checking the family's Bloom filters, in microseconds
+   */
+  long getBloomFilterCheckTime(String family);
+
   /**
    * Get the replica id of this region.
    */
@@ -64,6 +64,10 @@ public interface MetricsWALSource extends BaseSource {
       "How many times a log roll was requested due to too few DN's in the write pipeline.";
   String WRITTEN_BYTES = "writtenBytes";
   String WRITTEN_BYTES_DESC = "Size (in bytes) of the data written to the WAL.";
+  String SYNC_EDITS = "syncEdits";
+  String SYNC_EDITS_DESC = "Number of edits made durable by one sync of the WAL.";
+  String SYNC_SIZE = "syncSize";
+  String SYNC_SIZE_DESC = "Size (in bytes) of the edits made durable by one sync of the WAL.";
 
   /**
    * Add the append size.
@@ -90,6 +94,11 @@ public interface MetricsWALSource extends BaseSource {
    */
   void incrementSyncTime(long time);
 
+  /**
+   * Add the number and size of the edits one sync of the wal made durable.
+   */
+  void incrementSyncBatch(long edits, long bytes);
+
   void incrementLogRollRequested();
 
   void incrementLowReplicationLogRoll();
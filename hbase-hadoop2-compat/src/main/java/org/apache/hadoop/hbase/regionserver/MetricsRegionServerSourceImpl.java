@@ -57,6 +57,7 @@ public class MetricsRegionServerSourceImpl
 
   // flush related metrics
   private final MetricHistogram flushTimeHisto;
+  private final MetricHistogram storeFlushTimeHisto;
   private final MetricHistogram flushMemstoreSizeHisto;
   private final MetricHistogram flushOutputSizeHisto;
   private final MutableFastCounter flushedMemstoreBytes;
@@ -117,6 +118,8 @@ public class MetricsRegionServerSourceImpl
     scanTimeHisto = getMetricsRegistry().newTimeHistogram(SCAN_TIME_KEY);
 
     flushTimeHisto = getMetricsRegistry().newTimeHistogram(FLUSH_TIME, FLUSH_TIME_DESC);
+    storeFlushTimeHisto = getMetricsRegistry().newTimeHistogram(STORE_FLUSH_TIME,
+      STORE_FLUSH_TIME_DESC);
     flushMemstoreSizeHisto = getMetricsRegistry()
         .newSizeHistogram(FLUSH_MEMSTORE_SIZE, FLUSH_MEMSTORE_SIZE_DESC);
     flushOutputSizeHisto = getMetricsRegistry().newSizeHistogram(FLUSH_OUTPUT_SIZE,
@@ -254,6 +257,11 @@ public class MetricsRegionServerSourceImpl
     flushTimeHisto.add(t);
   }
 
+  @Override
+  public void updateStoreFlushTime(long t) {
+    storeFlushTimeHisto.add(t);
+  }
+
   @Override
   public void updateFlushMemstoreSize(long bytes) {
     flushMemstoreSizeHisto.add(bytes);
@@ -416,6 +424,67 @@ public class MetricsRegionServerSourceImpl
               BLOCK_CACHE_EXPRESS_HIT_PERCENT_DESC), rsWrap.getBlockCacheHitCachingPercent())
           .addCounter(Interns.info(BLOCK_CACHE_FAILED_INSERTION_COUNT,
               BLOCK_CACHE_FAILED_INSERTION_COUNT_DESC),rsWrap.getBlockCacheFailedInsertions())
+          .addCounter(Interns.info(BLOCK_CACHE_WRITER_QUEUE_FULL_COUNT,
+              BLOCK_CACHE_WRITER_QUEUE_FULL_COUNT_DESC),
+              rsWrap.getBlockCacheWriterQueueFullCount())
+          .addCounter(Interns.info(BLOCK_CACHE_READAHEAD_COUNT, BLOCK_CACHE_READAHEAD_COUNT_DESC),
+              rsWrap.getBlockCacheReadaheadCount())
+          .addCounter(Interns.info(BLOCK_CACHE_READAHEAD_HIT_COUNT,
+              BLOCK_CACHE_READAHEAD_HIT_COUNT_DESC), rsWrap.getBlockCacheReadaheadHitCount())
+          .addCounter(Interns.info(BLOCK_CACHE_READAHEAD_WASTED_COUNT,
+              BLOCK_CACHE_READAHEAD_WASTED_COUNT_DESC), rsWrap.getBlockCacheReadaheadWastedCount())
+          .addCounter(Interns.info(HFILE_STREAM_POOL_READ_COUNT,
+              HFILE_STREAM_POOL_READ_COUNT_DESC), rsWrap.getHFileStreamPoolReadCount())
+          .addCounter(Interns.info(HFILE_STREAM_POOL_FALLBACK_COUNT,
+              HFILE_STREAM_POOL_FALLBACK_COUNT_DESC), rsWrap.getHFileStreamPoolFallbackCount())
+          .addGauge(Interns.info(HFILE_STREAM_POOL_OPEN_COUNT, HFILE_STREAM_POOL_OPEN_COUNT_DESC),
+              rsWrap.getHFileStreamPoolOpenCount())
+          .addGauge(Interns.info(HFILE_STREAM_POOL_BUSY_COUNT, HFILE_STREAM_POOL_BUSY_COUNT_DESC),
+              rsWrap.getHFileStreamPoolBusyCount())
+          .addGauge(Interns.info(BLOOM_CHUNK_CACHE_SIZE, BLOOM_CHUNK_CACHE_SIZE_DESC),
+              rsWrap.getBloomChunkCacheSize())
+          .addCounter(Interns.info(BLOOM_CHUNK_CACHE_HIT_COUNT, BLOOM_CHUNK_CACHE_HIT_COUNT_DESC),
+              rsWrap.getBloomChunkCacheHitCount())
+          .addCounter(Interns.info(BLOOM_CHUNK_CACHE_MISS_COUNT,
+              BLOOM_CHUNK_CACHE_MISS_COUNT_DESC), rsWrap.getBloomChunkCacheMissCount())
+          .addCounter(Interns.info(IN_MEMORY_FLATTEN_COUNT, IN_MEMORY_FLATTEN_COUNT_DESC),
+              rsWrap.getInMemoryFlattenCount())
+          .addCounter(Interns.info(IN_MEMORY_MERGE_COUNT, IN_MEMORY_MERGE_COUNT_DESC),
+              rsWrap.getInMemoryMergeCount())
+          .addCounter(Interns.info(IN_MEMORY_COMPACTION_COUNT, IN_MEMORY_COMPACTION_COUNT_DESC),
+              rsWrap.getInMemoryCompactionCount())
+          .addCounter(Interns.info(IN_MEMORY_FLATTEN_TIME, IN_MEMORY_FLATTEN_TIME_DESC),
+              rsWrap.getInMemoryFlattenTime())
+          .addCounter(Interns.info(IN_MEMORY_MERGE_TIME, IN_MEMORY_MERGE_TIME_DESC),
+              rsWrap.getInMemoryMergeTime())
+          .addCounter(Interns.info(IN_MEMORY_COMPACTION_TIME, IN_MEMORY_COMPACTION_TIME_DESC),
+              rsWrap.getInMemoryCompactionTime())
+          .addCounter(Interns.info(IN_MEMORY_FLATTEN_FREED_SIZE, IN_MEMORY_FLATTEN_FREED_SIZE_DESC),
+              rsWrap.getInMemoryFlattenFreedSize())
+          .addCounter(Interns.info(IN_MEMORY_MERGE_FREED_SIZE, IN_MEMORY_MERGE_FREED_SIZE_DESC),
+              rsWrap.getInMemoryMergeFreedSize())
+          .addCounter(Interns.info(IN_MEMORY_COMPACTION_FREED_SIZE,
+              IN_MEMORY_COMPACTION_FREED_SIZE_DESC), rsWrap.getInMemoryCompactionFreedSize())
+          .addGauge(Interns.info(SCAN_REQUESTS_PER_SECOND, SCAN_REQUESTS_PER_SECOND_DESC),
+              rsWrap.getScanRequestsPerSecond())
+          .addGauge(Interns.info(SCAN_BYTES_PER_REQUEST, SCAN_BYTES_PER_REQUEST_DESC),
+              rsWrap.getScanBytesPerRequest())
+          .addGauge(Interns.info(SCAN_SIZE_LIMIT_IN_USE, SCAN_SIZE_LIMIT_IN_USE_DESC),
+              rsWrap.getScanSizeLimitInUse())
+          .addCounter(Interns.info(SCAN_SIZE_LIMIT_REDUCED_COUNT,
+              SCAN_SIZE_LIMIT_REDUCED_COUNT_DESC), rsWrap.getScanSizeLimitReducedCount())
+          .addCounter(Interns.info(BLOCK_CACHE_UNPACK_COUNT, BLOCK_CACHE_UNPACK_COUNT_DESC),
+              rsWrap.getBlockCacheUnpackCount())
+          .addCounter(Interns.info(BLOCK_CACHE_UNPACK_TIME, BLOCK_CACHE_UNPACK_TIME_DESC),
+              rsWrap.getBlockCacheUnpackTime())
+          .addCounter(Interns.info(BLOCK_CACHE_UNPACKED_HIT_COUNT,
+              BLOCK_CACHE_UNPACKED_HIT_COUNT_DESC), rsWrap.getBlockCacheUnpackedHitCount())
+          .addCounter(Interns.info(BLOCK_CACHE_ADMITTED_COUNT, BLOCK_CACHE_ADMITTED_COUNT_DESC),
+              rsWrap.getBlockCacheAdmittedCount())
+          .addCounter(Interns.info(BLOCK_CACHE_REJECTED_COUNT, BLOCK_CACHE_REJECTED_COUNT_DESC),
+              rsWrap.getBlockCacheRejectedCount())
+          .addCounter(Interns.info(BLOCK_CACHE_REJECTED_REQUEST_COUNT,
+              BLOCK_CACHE_REJECTED_REQUEST_COUNT_DESC), rsWrap.getBlockCacheRejectedRequestCount())
           .addCounter(Interns.info(BLOCK_CACHE_DATA_MISS_COUNT, ""), rsWrap.getDataMissCount())
           .addCounter(Interns.info(BLOCK_CACHE_LEAF_INDEX_MISS_COUNT, ""),
               rsWrap.getLeafIndexMissCount())
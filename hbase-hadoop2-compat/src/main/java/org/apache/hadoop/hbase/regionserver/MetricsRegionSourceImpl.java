@@ -45,6 +45,7 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
   private final DynamicMetricsRegistry registry;
 
   private final String regionNamePrefix;
+  private final String regionFamilyPrefix;
   private final String regionPutKey;
   private final String regionDeleteKey;
   private final String regionGetKey;
@@ -80,6 +81,10 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
         "_table_" + regionWrapper.getTableName() +
         "_region_" + regionWrapper.getRegionName()  +
         "_metric_";
+    regionFamilyPrefix = "Namespace_" + regionWrapper.getNamespace() +
+        "_table_" + regionWrapper.getTableName() +
+        "_region_" + regionWrapper.getRegionName() +
+        "_family_";
 
     String suffix = "Count";
 
@@ -273,9 +278,67 @@ public class MetricsRegionSourceImpl implements MetricsRegionSource {
       mrb.addCounter(Interns.info(regionNamePrefix + MetricsRegionSource.REPLICA_ID,
               MetricsRegionSource.REPLICA_ID_DESC),
           this.regionWrapper.getReplicaId());
+      mrb.addCounter(Interns.info(regionNamePrefix + MetricsRegionSource.ROW_LOCK_CONTENTION_COUNT,
+              MetricsRegionSource.ROW_LOCK_CONTENTION_COUNT_DESC),
+          this.regionWrapper.getRowLockContentionCount());
+      mrb.addCounter(Interns.info(regionNamePrefix + MetricsRegionSource.ROW_LOCK_WAIT_TIME,
+              MetricsRegionSource.ROW_LOCK_WAIT_TIME_DESC),
+          this.regionWrapper.getRowLockWaitTime());
+      long coalescedIncrements = this.regionWrapper.getCoalescedIncrementCount();
+      long coalescedIncrementApplies = this.regionWrapper.getCoalescedIncrementApplyCount();
+      mrb.addCounter(Interns.info(regionNamePrefix + MetricsRegionSource.COALESCED_INCREMENT_COUNT,
+              MetricsRegionSource.COALESCED_INCREMENT_COUNT_DESC),
+          coalescedIncrements);
+      mrb.addCounter(Interns.info(
+              regionNamePrefix + MetricsRegionSource.COALESCED_INCREMENT_APPLY_COUNT,
+              MetricsRegionSource.COALESCED_INCREMENT_APPLY_COUNT_DESC),
+          coalescedIncrementApplies);
+      mrb.addGauge(Interns.info(regionNamePrefix + MetricsRegionSource.INCREMENT_COALESCING_RATIO,
+              MetricsRegionSource.INCREMENT_COALESCING_RATIO_DESC),
+          coalescedIncrementApplies == 0 ? 0.0
+              : (double) coalescedIncrements / coalescedIncrementApplies);
+      long columnStatsScans = this.regionWrapper.getColumnStatsScanCount();
+      long columnStatsPrunedFiles = this.regionWrapper.getColumnStatsPrunedFilesCount();
+      mrb.addCounter(Interns.info(regionNamePrefix + MetricsRegionSource.COLUMN_STATS_SCAN_COUNT,
+              MetricsRegionSource.COLUMN_STATS_SCAN_COUNT_DESC),
+          columnStatsScans);
+      mrb.addCounter(Interns.info(
+              regionNamePrefix + MetricsRegionSource.COLUMN_STATS_PRUNED_FILES_COUNT,
+              MetricsRegionSource.COLUMN_STATS_PRUNED_FILES_COUNT_DESC),
+          columnStatsPrunedFiles);
+      mrb.addGauge(Interns.info(
+              regionNamePrefix + MetricsRegionSource.COLUMN_STATS_PRUNED_FILES_PER_SCAN,
+              MetricsRegionSource.COLUMN_STATS_PRUNED_FILES_PER_SCAN_DESC),
+          columnStatsScans == 0 ? 0.0 : (double) columnStatsPrunedFiles / columnStatsScans);
+      for (String family : this.regionWrapper.getBloomFilterFamilies()) {
+        snapshotBloomFilter(mrb, family);
+      }
     }
   }
 
+  private void snapshotBloomFilter(MetricsRecordBuilder mrb, String family) {
+    String prefix = regionFamilyPrefix + family + "_metric_";
+    long negatives = this.regionWrapper.getBloomFilterNegativeCount(family);
+    long falsePositives = this.regionWrapper.getBloomFilterFalsePositiveCount(family);
+    mrb.addCounter(Interns.info(prefix + MetricsRegionSource.BLOOM_FILTER_REQUEST_COUNT,
+            MetricsRegionSource.BLOOM_FILTER_REQUEST_COUNT_DESC),
+        this.regionWrapper.getBloomFilterRequestCount(family));
+    mrb.addCounter(Interns.info(prefix + MetricsRegionSource.BLOOM_FILTER_NEGATIVE_COUNT,
+            MetricsRegionSource.BLOOM_FILTER_NEGATIVE_COUNT_DESC),
+        negatives);
+    mrb.addCounter(Interns.info(prefix + MetricsRegionSource.BLOOM_FILTER_FALSE_POSITIVE_COUNT,
+            MetricsRegionSource.BLOOM_FILTER_FALSE_POSITIVE_COUNT_DESC),
+        falsePositives);
+    mrb.addCounter(Interns.info(prefix + MetricsRegionSource.BLOOM_FILTER_CHECK_TIME,
+            MetricsRegionSource.BLOOM_FILTER_CHECK_TIME_DESC),
+        this.regionWrapper.getBloomFilterCheckTime(family));
+    // Reads for rows not in a file are the negatives plus the false positives.
+    long absent = negatives + falsePositives;
+    mrb.addGauge(Interns.info(prefix + MetricsRegionSource.BLOOM_FILTER_FALSE_POSITIVE_PERCENT,
+            MetricsRegionSource.BLOOM_FILTER_FALSE_POSITIVE_PERCENT_DESC),
+        absent == 0 ? 0.0 : falsePositives * 100.0 / absent);
+  }
+
   @Override
   public int hashCode() {
     return hashCode;
@@ -36,6 +36,8 @@ public class MetricsWALSourceImpl extends BaseSourceImpl implements MetricsWALSo
   private final MetricHistogram appendSizeHisto;
   private final MetricHistogram appendTimeHisto;
   private final MetricHistogram syncTimeHisto;
+  private final MetricHistogram syncEditsHisto;
+  private final MetricHistogram syncSizeHisto;
   private final MutableFastCounter appendCount;
   private final MutableFastCounter slowAppendCount;
   private final MutableFastCounter logRollRequested;
@@ -59,6 +61,8 @@ public class MetricsWALSourceImpl extends BaseSourceImpl implements MetricsWALSo
     slowAppendCount =
         this.getMetricsRegistry().newCounter(SLOW_APPEND_COUNT, SLOW_APPEND_COUNT_DESC, 0l);
     syncTimeHisto = this.getMetricsRegistry().newTimeHistogram(SYNC_TIME, SYNC_TIME_DESC);
+    syncEditsHisto = this.getMetricsRegistry().newHistogram(SYNC_EDITS, SYNC_EDITS_DESC);
+    syncSizeHisto = this.getMetricsRegistry().newSizeHistogram(SYNC_SIZE, SYNC_SIZE_DESC);
     logRollRequested =
         this.getMetricsRegistry().newCounter(ROLL_REQUESTED, ROLL_REQUESTED_DESC, 0L);
     lowReplicationLogRollRequested = this.getMetricsRegistry()
@@ -91,6 +95,12 @@ public class MetricsWALSourceImpl extends BaseSourceImpl implements MetricsWALSo
     syncTimeHisto.add(time);
   }
 
+  @Override
+  public void incrementSyncBatch(long edits, long bytes) {
+    syncEditsHisto.add(edits);
+    syncSizeHisto.add(bytes);
+  }
+
   @Override
   public void incrementLogRollRequested() {
     logRollRequested.incr();
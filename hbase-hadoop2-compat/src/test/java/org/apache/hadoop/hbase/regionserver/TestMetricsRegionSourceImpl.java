@@ -22,6 +22,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Collection;
+import java.util.Collections;
 
 import org.apache.hadoop.hbase.CompatibilitySingletonFactory;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
@@ -166,6 +168,61 @@ public class TestMetricsRegionSourceImpl {
       return regionName.hashCode();
     }
 
+    @Override
+    public long getRowLockContentionCount() {
+      return 0;
+    }
+
+    @Override
+    public long getRowLockWaitTime() {
+      return 0;
+    }
+
+    @Override
+    public long getCoalescedIncrementCount() {
+      return 0;
+    }
+
+    @Override
+    public long getCoalescedIncrementApplyCount() {
+      return 0;
+    }
+
+    @Override
+    public long getColumnStatsScanCount() {
+      return 0;
+    }
+
+    @Override
+    public long getColumnStatsPrunedFilesCount() {
+      return 0;
+    }
+
+    @Override
+    public Collection<String> getBloomFilterFamilies() {
+      return Collections.emptyList();
+    }
+
+    @Override
+    public long getBloomFilterRequestCount(String family) {
+      return 0;
+    }
+
+    @Override
+    public long getBloomFilterNegativeCount(String family) {
+      return 0;
+    }
+
+    @Override
+    public long getBloomFilterFalsePositiveCount(String family) {
+      return 0;
+    }
+
+    @Override
+    public long getBloomFilterCheckTime(String family) {
+      return 0;
+    }
+
     /**
      * Always return 0 for testing
      */
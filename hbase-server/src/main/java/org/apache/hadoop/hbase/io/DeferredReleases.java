@@ -0,0 +1,94 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * Holds back the release of cached blocks and memstore chunks that an RPC response is still
+ * going to be sent from.
+ * <p>
+ * Normally the cells of a response are copied into the cellblock, and the scanners let go of the
+ * memory the cells came from once the response is built (see
+ * {@link org.apache.hadoop.hbase.regionserver.Shipper}). When the cellblock instead points into
+ * that memory, the RPC server runs the shipped or close callback of the call between
+ * {@link #begin()} and {@link #end()}. Block returns and memstore scanner closes done by the
+ * callback on that thread are then recorded here, and only done by {@link #release()} once the
+ * response has been written out.
+ */
+@InterfaceAudience.Private
+public final class DeferredReleases {
+  private static final Log LOG = LogFactory.getLog(DeferredReleases.class);
+
+  private static final ThreadLocal<DeferredReleases> CURRENT = new ThreadLocal<>();
+
+  private final List<Runnable> releases = new ArrayList<>();
+
+  private DeferredReleases() {
+  }
+
+  /**
+   * Starts recording the releases asked for by this thread.
+   */
+  public static DeferredReleases begin() {
+    DeferredReleases deferred = new DeferredReleases();
+    CURRENT.set(deferred);
+    return deferred;
+  }
+
+  /**
+   * Stops recording; releases asked for by this thread are done right away again.
+   */
+  public void end() {
+    CURRENT.remove();
+  }
+
+  /**
+   * @return the releases being recorded for this thread, or null if releases should be done now
+   */
+  public static DeferredReleases current() {
+    return CURRENT.get();
+  }
+
+  public void add(Runnable release) {
+    releases.add(release);
+  }
+
+  public boolean isEmpty() {
+    return releases.isEmpty();
+  }
+
+  /**
+   * Does all the recorded releases. Call once, after {@link #end()}.
+   */
+  public void release() {
+    for (Runnable release : releases) {
+      try {
+        release.run();
+      } catch (RuntimeException e) {
+        LOG.warn("Failed a deferred release", e);
+      }
+    }
+    releases.clear();
+  }
+}
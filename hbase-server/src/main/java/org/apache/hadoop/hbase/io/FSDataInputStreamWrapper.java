@@ -216,6 +216,19 @@ public class FSDataInputStreamWrapper {
     }
   }
 
+  /**
+   * Opens another stream on the same file, with or without FS-level checksum like the one
+   * {@link #getStream(boolean)} returns. Thread-safe. The caller has to close it.
+   * @return the new stream, or null if this wrapper was made around given streams
+   */
+  public FSDataInputStream openStream(boolean useHBaseChecksum) throws IOException {
+    if (hfs == null) {
+      return null;
+    }
+    FileSystem fs = useHBaseChecksum ? hfs.getNoChecksumFs() : hfs;
+    return (link != null) ? link.open(fs) : fs.open(path);
+  }
+
   public HFileSystem getHfs() {
     return this.hfs;
   }
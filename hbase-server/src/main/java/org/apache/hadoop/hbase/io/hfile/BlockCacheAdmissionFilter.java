@@ -0,0 +1,85 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * Decides whether a block is worth caching once a cache is full, so that one large scan can not
+ * push the hot working set out. A cache reports every lookup and every eviction it makes to its
+ * filter, and asks it before inserting a block while under memory pressure.
+ * <p>
+ * The policy is chosen with {@link CacheConfig#BLOCKCACHE_ADMISSION_POLICY_KEY}.
+ */
+@InterfaceAudience.Private
+public interface BlockCacheAdmissionFilter {
+
+  /** Admits everything; the behaviour of a cache without a filter. */
+  BlockCacheAdmissionFilter NONE = new BlockCacheAdmissionFilter() {
+    @Override
+    public void recordAccess(BlockCacheKey cacheKey, boolean hit) {
+    }
+
+    @Override
+    public boolean admit(BlockCacheKey cacheKey, boolean inMemory) {
+      return true;
+    }
+
+    @Override
+    public void onEviction(BlockCacheKey cacheKey) {
+    }
+  };
+
+  /**
+   * Called for every lookup the cache serves, hit or miss. Repeated lookups done for double
+   * checked locking should not be reported.
+   */
+  void recordAccess(BlockCacheKey cacheKey, boolean hit);
+
+  /**
+   * Called before a block is inserted into a cache that is under memory pressure.
+   * @return false if the block should not be cached
+   */
+  boolean admit(BlockCacheKey cacheKey, boolean inMemory);
+
+  /**
+   * Called when the cache evicts a block to make room for others. Not called for blocks that
+   * are dropped because their file went away.
+   */
+  void onEviction(BlockCacheKey cacheKey);
+
+  /**
+   * @param expectedBlocks roughly how many blocks the cache holds when full
+   * @param stats where the filter reports what it admitted and rejected
+   * @return the filter configured for a cache
+   */
+  static BlockCacheAdmissionFilter create(Configuration conf, long expectedBlocks,
+      CacheStats stats) {
+    String policy = conf.get(CacheConfig.BLOCKCACHE_ADMISSION_POLICY_KEY,
+      CacheConfig.DEFAULT_BLOCKCACHE_ADMISSION_POLICY);
+    if ("tinylfu".equalsIgnoreCase(policy)) {
+      return new TinyLfuAdmissionFilter(expectedBlocks, stats);
+    }
+    if (!"none".equalsIgnoreCase(policy)) {
+      throw new IllegalArgumentException("Unknown " + CacheConfig.BLOCKCACHE_ADMISSION_POLICY_KEY
+          + ": " + policy + "; expected none or tinylfu");
+    }
+    return NONE;
+  }
+}
@@ -0,0 +1,79 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * An on-heap cache of Bloom filter chunks with a size budget of its own (see
+ * {@link CacheConfig#BLOOM_CHUNK_CACHE_SIZE_KEY}).
+ * <p>
+ * A compound Bloom filter keeps its index of chunks in memory and loads the chunks on demand.
+ * In the block cache those chunks compete with data blocks: a scan can push them out, and point
+ * gets then pay a read for the chunk before they can even decide to skip a file. With this cache
+ * configured, chunks are read around the block cache and kept here instead, where only other
+ * Bloom chunks can evict them. Chunks of a file are dropped when the file is closed.
+ */
+@InterfaceAudience.Private
+public class BloomChunkCache {
+
+  private final LruBlockCache cache;
+
+  public BloomChunkCache(long maxSize, long chunkSize, Configuration conf) {
+    this.cache = new LruBlockCache(maxSize, chunkSize, true, conf);
+  }
+
+  /**
+   * @return the chunk cached under cacheKey, or null
+   */
+  public HFileBlock getChunk(BlockCacheKey cacheKey) {
+    return (HFileBlock) cache.getBlock(cacheKey, true, false, true);
+  }
+
+  /**
+   * Keeps a chunk just read. The chunk must not share memory with another cache.
+   */
+  public void cacheChunk(BlockCacheKey cacheKey, HFileBlock chunk) {
+    assert !chunk.usesSharedMemory();
+    cache.cacheBlock(cacheKey, chunk);
+  }
+
+  public int evictBlocksByHfileName(String hfileName) {
+    return cache.evictBlocksByHfileName(hfileName);
+  }
+
+  public void shutdown() {
+    cache.shutdown();
+  }
+
+  /**
+   * @return hit and miss counts of the chunk lookups
+   */
+  public CacheStats getStats() {
+    return cache.getStats();
+  }
+
+  public long getBlockCount() {
+    return cache.getBlockCount();
+  }
+
+  public long getCurrentSize() {
+    return cache.getCurrentSize();
+  }
+}
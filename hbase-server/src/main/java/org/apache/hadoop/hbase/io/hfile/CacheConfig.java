@@ -31,6 +31,7 @@ import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.io.hfile.BlockType.BlockCategory;
 import org.apache.hadoop.hbase.io.hfile.bucket.BucketCache;
+import org.apache.hadoop.hbase.util.BloomFilterFactory;
 import org.apache.hadoop.hbase.util.ReflectionUtils;
 import org.apache.hadoop.util.StringUtils;
 
@@ -83,6 +84,22 @@ public class CacheConfig {
   public static final String CACHE_DATA_BLOCKS_COMPRESSED_KEY =
       "hbase.block.data.cachecompressed";
 
+  /**
+   * Size of the on-heap cache of recently unpacked data blocks kept when data blocks are cached
+   * compressed; see {@link UnpackedBlockCache}. A float that is either a fraction of the heap
+   * (if &lt; 1.0) or a size in megabytes. 0, the default, disables it. Like the other settings
+   * read from the store configuration, {@link #CACHE_DATA_BLOCKS_COMPRESSED_KEY} can be set per
+   * column family through the family's configuration, so only chosen families need be packed.
+   */
+  public static final String UNPACKED_BLOCK_CACHE_SIZE_KEY = "hbase.blockcache.unpacked.size";
+
+  /**
+   * Size of the on-heap cache that keeps Bloom filter chunks apart from the block cache; see
+   * {@link BloomChunkCache}. A float that is either a fraction of the heap (if &lt; 1.0) or a
+   * size in megabytes. 0, the default, disables it and Bloom chunks go to the block cache.
+   */
+  public static final String BLOOM_CHUNK_CACHE_SIZE_KEY = "hbase.blockcache.bloom.size";
+
   /**
    * Configuration key to evict all blocks of a given file from the block cache
    * when the file is closed.
@@ -124,12 +141,32 @@ public class CacheConfig {
    */
   public static final String BUCKET_CACHE_BUCKETS_KEY = "hbase.bucketcache.bucket.sizes";
 
+  /**
+   * Number of bucket cache tiers. The first tier is the one configured with
+   * BUCKET_CACHE_IOENGINE_KEY and BUCKET_CACHE_SIZE_KEY. Each further tier N, counting from 2, is
+   * configured with <code>hbase.bucketcache.tier.N.ioengine</code>,
+   * <code>hbase.bucketcache.tier.N.size</code> and optionally
+   * <code>hbase.bucketcache.tier.N.persistent.path</code>; all other settings are shared with the
+   * first tier. Blocks evicted from a tier are demoted to the tier below it, and blocks found in a
+   * lower tier are promoted back to the tier above. Order tiers from fastest to slowest, e.g.
+   * <code>offheap</code> then <code>file:</code> on flash.
+   */
+  public static final String BUCKET_CACHE_TIERS_KEY = "hbase.bucketcache.tiers";
+
+  /**
+   * @return the configuration key of the given setting for bucket cache tier <code>tier</code>
+   */
+  public static String getBucketCacheTierKey(int tier, String setting) {
+    return "hbase.bucketcache.tier." + tier + "." + setting;
+  }
+
   /**
    * Defaults for Bucket cache
    */
   public static final boolean DEFAULT_BUCKET_CACHE_COMBINED = true;
   public static final int DEFAULT_BUCKET_CACHE_WRITER_THREADS = 3;
   public static final int DEFAULT_BUCKET_CACHE_WRITER_QUEUE = 64;
+  public static final int DEFAULT_BUCKET_CACHE_TIERS = 1;
 
  /**
    * Configuration key to prefetch all blocks of a given file into the block cache
@@ -138,6 +175,12 @@ public class CacheConfig {
   public static final String PREFETCH_BLOCKS_ON_OPEN_KEY =
       "hbase.rs.prefetchblocksonopen";
 
+  /**
+   * Configuration key for the most data blocks a scanner reading a file sequentially may have
+   * loaded into the block cache ahead of it. 0 turns scan readahead off.
+   */
+  public static final String READAHEAD_MAX_BLOCKS_KEY = "hbase.hfile.readahead.max.blocks";
+
   /**
    * The target block size used by blockcache instances. Defaults to
    * {@link HConstants#DEFAULT_BLOCKSIZE}.
@@ -146,6 +189,13 @@ public class CacheConfig {
    */
   public static final String BLOCKCACHE_BLOCKSIZE_KEY = "hbase.offheapcache.minblocksize";
 
+  /**
+   * Admission policy applied in front of the L1 and L2 block caches once they are full; one of
+   * "none" or "tinylfu". See {@link BlockCacheAdmissionFilter}.
+   */
+  public static final String BLOCKCACHE_ADMISSION_POLICY_KEY = "hbase.blockcache.admission.policy";
+  public static final String DEFAULT_BLOCKCACHE_ADMISSION_POLICY = "none";
+
   private static final String EXTERNAL_BLOCKCACHE_KEY = "hbase.blockcache.use.external";
   private static final boolean EXTERNAL_BLOCKCACHE_DEFAULT = false;
 
@@ -183,6 +233,7 @@ public class CacheConfig {
   public static final boolean DEFAULT_EVICT_ON_CLOSE = false;
   public static final boolean DEFAULT_CACHE_DATA_COMPRESSED = false;
   public static final boolean DEFAULT_PREFETCH_ON_OPEN = false;
+  public static final int DEFAULT_READAHEAD_MAX_BLOCKS = 0;
 
   /** Local reference to the block cache, null if completely disabled */
   private final BlockCache blockCache;
@@ -458,6 +509,21 @@ public class CacheConfig {
     return isBlockCacheEnabled() && this.cacheDataOnRead && this.cacheDataCompressed;
   }
 
+  /**
+   * @return the cache of unpacked copies of blocks cached compressed, or null if there is none
+   */
+  public UnpackedBlockCache getUnpackedBlockCache() {
+    return isBlockCacheEnabled() ? GLOBAL_UNPACKED_CACHE_INSTANCE : null;
+  }
+
+  /**
+   * @return the cache Bloom filter chunks are kept in apart from the block cache, or null if
+   *     there is none
+   */
+  public BloomChunkCache getBloomChunkCache() {
+    return isBlockCacheEnabled() ? GLOBAL_BLOOM_CHUNK_CACHE_INSTANCE : null;
+  }
+
   /**
    * @return true if this {@link BlockCategory} should be compressed in blockcache, false otherwise
    */
@@ -545,6 +611,10 @@ public class CacheConfig {
   @VisibleForTesting
   static BlockCache GLOBAL_BLOCK_CACHE_INSTANCE;
   private static LruBlockCache GLOBAL_L1_CACHE_INSTANCE;
+  @VisibleForTesting
+  static UnpackedBlockCache GLOBAL_UNPACKED_CACHE_INSTANCE;
+  @VisibleForTesting
+  static BloomChunkCache GLOBAL_BLOOM_CHUNK_CACHE_INSTANCE;
 
   /** Boolean whether we have disabled the block cache entirely. */
   @VisibleForTesting
@@ -566,6 +636,33 @@ public class CacheConfig {
     return (long) (xmx * cachePercentage);
   }
 
+  /**
+   * @param c Configuration to use.
+   * @param xmx Max heap memory
+   * @return The unpacked block cache, or null if not configured.
+   */
+  private static UnpackedBlockCache getUnpackedBlockCache(Configuration c, long xmx) {
+    float size = c.getFloat(UNPACKED_BLOCK_CACHE_SIZE_KEY, 0F);
+    long unpackedCacheSize = (long) (size < 1 ? xmx * size : size * 1024 * 1024);
+    if (unpackedCacheSize <= 0) return null;
+    int blockSize = c.getInt(BLOCKCACHE_BLOCKSIZE_KEY, HConstants.DEFAULT_BLOCKSIZE);
+    LOG.info("Allocating unpacked block cache size=" + StringUtils.byteDesc(unpackedCacheSize));
+    return new UnpackedBlockCache(unpackedCacheSize, blockSize, c);
+  }
+
+  /**
+   * @param c Configuration to use.
+   * @param xmx Max heap memory
+   * @return The Bloom chunk cache, or null if not configured.
+   */
+  private static BloomChunkCache getBloomChunkCache(Configuration c, long xmx) {
+    float size = c.getFloat(BLOOM_CHUNK_CACHE_SIZE_KEY, 0F);
+    long bloomCacheSize = (long) (size < 1 ? xmx * size : size * 1024 * 1024);
+    if (bloomCacheSize <= 0) return null;
+    LOG.info("Allocating Bloom chunk cache size=" + StringUtils.byteDesc(bloomCacheSize));
+    return new BloomChunkCache(bloomCacheSize, BloomFilterFactory.getBloomBlockSize(c), c);
+  }
+
   /**
    * @param c Configuration to use.
    * @return An L1 instance.  Currently an instance of LruBlockCache.
@@ -644,23 +741,43 @@ public class CacheConfig {
     String bucketCacheIOEngineName = c.get(BUCKET_CACHE_IOENGINE_KEY, null);
     if (bucketCacheIOEngineName == null || bucketCacheIOEngineName.length() <= 0) return null;
 
+    if (c.get("hbase.bucketcache.percentage.in.combinedcache") != null) {
+      LOG.warn("Configuration 'hbase.bucketcache.percentage.in.combinedcache' is no longer "
+          + "respected. See comments in http://hbase.apache.org/book.html#_changes_of_note");
+    }
+    BucketCache l2 = createBucketCache(c, xmx, bucketCacheIOEngineName, BUCKET_CACHE_SIZE_KEY,
+      c.get(BUCKET_CACHE_PERSISTENT_PATH_KEY));
+    int tiers = c.getInt(BUCKET_CACHE_TIERS_KEY, DEFAULT_BUCKET_CACHE_TIERS);
+    BucketCache upper = l2;
+    for (int tier = 2; tier <= tiers; tier++) {
+      String ioEngineName = c.get(getBucketCacheTierKey(tier, "ioengine"));
+      if (ioEngineName == null || ioEngineName.length() <= 0) {
+        throw new IllegalStateException(getBucketCacheTierKey(tier, "ioengine") + " is not set; "
+            + BUCKET_CACHE_TIERS_KEY + " is " + tiers);
+      }
+      BucketCache lower = createBucketCache(c, xmx, ioEngineName,
+        getBucketCacheTierKey(tier, "size"), c.get(getBucketCacheTierKey(tier, "persistent.path")));
+      LOG.info("Bucket cache tier " + tier + ": " + ioEngineName);
+      upper.setVictimCache(lower);
+      upper = lower;
+    }
+    return l2;
+  }
+
+  private static BucketCache createBucketCache(Configuration c, long xmx, String ioEngineName,
+      String sizeKey, String persistentPath) {
     int blockSize = c.getInt(BLOCKCACHE_BLOCKSIZE_KEY, HConstants.DEFAULT_BLOCKSIZE);
-    float bucketCachePercentage = c.getFloat(BUCKET_CACHE_SIZE_KEY, 0F);
+    float bucketCachePercentage = c.getFloat(sizeKey, 0F);
     long bucketCacheSize = (long) (bucketCachePercentage < 1? xmx * bucketCachePercentage:
       bucketCachePercentage * 1024 * 1024);
     if (bucketCacheSize <= 0) {
       throw new IllegalStateException("bucketCacheSize <= 0; Check " +
-        BUCKET_CACHE_SIZE_KEY + " setting and/or server java heap size");
-    }
-    if (c.get("hbase.bucketcache.percentage.in.combinedcache") != null) {
-      LOG.warn("Configuration 'hbase.bucketcache.percentage.in.combinedcache' is no longer "
-          + "respected. See comments in http://hbase.apache.org/book.html#_changes_of_note");
+        sizeKey + " setting and/or server java heap size");
     }
     int writerThreads = c.getInt(BUCKET_CACHE_WRITER_THREADS_KEY,
       DEFAULT_BUCKET_CACHE_WRITER_THREADS);
     int writerQueueLen = c.getInt(BUCKET_CACHE_WRITER_QUEUE_KEY,
       DEFAULT_BUCKET_CACHE_WRITER_QUEUE);
-    String persistentPath = c.get(BUCKET_CACHE_PERSISTENT_PATH_KEY);
     String[] configuredBucketSizes = c.getStrings(BUCKET_CACHE_BUCKETS_KEY);
     int [] bucketSizes = null;
     if (configuredBucketSizes != null) {
@@ -675,9 +792,9 @@ public class CacheConfig {
         "hbase.bucketcache.ioengine.errors.tolerated.duration",
         BucketCache.DEFAULT_ERROR_TOLERATION_DURATION);
       // Bucket cache logs its stats on creation internal to the constructor.
-      bucketCache = new BucketCache(bucketCacheIOEngineName,
+      bucketCache = new BucketCache(ioEngineName,
         bucketCacheSize, blockSize, bucketSizes, writerThreads, writerQueueLen, persistentPath,
-        ioErrorsTolerationDuration);
+        ioErrorsTolerationDuration, c);
     } catch (IOException ioex) {
       LOG.error("Can't instantiate bucket cache", ioex); throw new RuntimeException(ioex);
     }
@@ -698,6 +815,8 @@ public class CacheConfig {
     LruBlockCache l1 = getL1(conf, xmx);
     // blockCacheDisabled is set as a side-effect of getL1(), so check it again after the call.
     if (blockCacheDisabled) return null;
+    GLOBAL_UNPACKED_CACHE_INSTANCE = getUnpackedBlockCache(conf, xmx);
+    GLOBAL_BLOOM_CHUNK_CACHE_INSTANCE = getBloomChunkCache(conf, xmx);
     BlockCache l2 = getL2(conf, xmx);
     if (l2 == null) {
       GLOBAL_BLOCK_CACHE_INSTANCE = l1;
@@ -728,5 +847,7 @@ public class CacheConfig {
   static synchronized void clearGlobalInstances() {
     GLOBAL_L1_CACHE_INSTANCE = null;
     GLOBAL_BLOCK_CACHE_INSTANCE = null;
+    GLOBAL_UNPACKED_CACHE_INSTANCE = null;
+    GLOBAL_BLOOM_CHUNK_CACHE_INSTANCE = null;
   }
 }
@@ -74,6 +74,30 @@ public class CacheStats {
   /** The total number of blocks that were not inserted. */
   private final AtomicLong failedInserts = new AtomicLong(0);
 
+  /** Blocks this cache took from the tier below it, and blocks it handed down to it */
+  private final LongAdder promotedCount = new LongAdder();
+  private final LongAdder demotedCount = new LongAdder();
+
+  /**
+   * Data blocks read into the cache ahead of a sequential scanner, and how many of those the
+   * scanner went on to read or passed by
+   */
+  private final LongAdder readaheadCount = new LongAdder();
+  private final LongAdder readaheadHitCount = new LongAdder();
+  private final LongAdder readaheadWastedCount = new LongAdder();
+
+  /** Blocks not cached because the queue to the cache's writers was full */
+  private final LongAdder writerQueueFullCount = new LongAdder();
+
+  /** Data blocks an admission filter let into a full cache */
+  private final LongAdder admittedCount = new LongAdder();
+
+  /** Data blocks an admission filter kept out of a full cache */
+  private final LongAdder rejectedCount = new LongAdder();
+
+  /** Cache misses on blocks an admission filter recently kept out (approximate) */
+  private final LongAdder rejectedRequestCount = new LongAdder();
+
   /** Per Block Type Counts */
   private final LongAdder dataMissCount = new LongAdder();
   private final LongAdder leafIndexMissCount = new LongAdder();
@@ -121,6 +145,14 @@ public class CacheStats {
    * Keep running age at eviction time
    */
   private FastLongHistogram ageAtEviction;
+  /**
+   * Time taken by each eviction run, in microseconds
+   */
+  private FastLongHistogram evictionTime;
+  /**
+   * Time taken to read out each block served from slower media, in microseconds
+   */
+  private FastLongHistogram hitTime;
   private long startTime = System.nanoTime();
 
   public CacheStats(final String name) {
@@ -134,6 +166,8 @@ public class CacheStats {
     this.requestCounts =  new long[numPeriodsInWindow];
     this.requestCachingCounts =  new long[numPeriodsInWindow];
     this.ageAtEviction = new FastLongHistogram();
+    this.evictionTime = new FastLongHistogram();
+    this.hitTime = new FastLongHistogram();
   }
 
   @Override
@@ -145,7 +179,16 @@ public class CacheStats {
       ", evictedBlockCount=" + getEvictedCount() +
       ", primaryMissCount=" + getPrimaryMissCount() +
       ", primaryHitCount=" + getPrimaryHitCount() +
-      ", evictedAgeMean=" + snapshot.getMean();
+      ", evictedAgeMean=" + snapshot.getMean() +
+      ", evictionTimeMeanMicros=" + getEvictionTimeSnapshot().getMean() +
+      ", admittedCount=" + getAdmittedCount() +
+      ", rejectedCount=" + getRejectedCount() +
+      ", rejectedRequestCount=" + getRejectedRequestCount() +
+      ", promotedCount=" + getPromotedCount() +
+      ", demotedCount=" + getDemotedCount() +
+      ", readaheadCount=" + getReadaheadCount() +
+      ", readaheadHitCount=" + getReadaheadHitCount() +
+      ", readaheadWastedCount=" + getReadaheadWastedCount();
   }
 
 
@@ -247,6 +290,60 @@ public class CacheStats {
     evictionCount.increment();
   }
 
+  /**
+   * @param nanos how long an eviction run took
+   */
+  public void evictionTime(long nanos) {
+    this.evictionTime.add(nanos / 1000, 1);
+  }
+
+  /**
+   * @param nanos how long reading out a cached block took
+   */
+  public void hitTime(long nanos) {
+    this.hitTime.add(nanos / 1000, 1);
+  }
+
+  public void promoted() {
+    promotedCount.increment();
+  }
+
+  public void demoted() {
+    demotedCount.increment();
+  }
+
+  public long getPromotedCount() {
+    return promotedCount.sum();
+  }
+
+  public long getDemotedCount() {
+    return demotedCount.sum();
+  }
+
+  public void readahead() {
+    readaheadCount.increment();
+  }
+
+  public void readaheadHit() {
+    readaheadHitCount.increment();
+  }
+
+  public void readaheadWasted() {
+    readaheadWastedCount.increment();
+  }
+
+  public long getReadaheadCount() {
+    return readaheadCount.sum();
+  }
+
+  public long getReadaheadHitCount() {
+    return readaheadHitCount.sum();
+  }
+
+  public long getReadaheadWastedCount() {
+    return readaheadWastedCount.sum();
+  }
+
   public void evicted(final long t, boolean primary) {
     if (t > this.startTime) {
       this.ageAtEviction.add((t - this.startTime) / BlockCacheUtil.NANOS_PER_SECOND, 1);
@@ -411,6 +508,47 @@ public class CacheStats {
     return failedInserts.get();
   }
 
+  public void writerQueueFull() {
+    writerQueueFullCount.increment();
+  }
+
+  public long getWriterQueueFullCount() {
+    return writerQueueFullCount.sum();
+  }
+
+  public void admissionAdmitted() {
+    admittedCount.increment();
+  }
+
+  public void admissionRejected() {
+    rejectedCount.increment();
+  }
+
+  public void admissionRejectedRequest() {
+    rejectedRequestCount.increment();
+  }
+
+  public long getAdmittedCount() {
+    return admittedCount.sum();
+  }
+
+  public long getRejectedCount() {
+    return rejectedCount.sum();
+  }
+
+  public long getRejectedRequestCount() {
+    return rejectedRequestCount.sum();
+  }
+
+  /**
+   * @return the fraction of rejected blocks that were asked for again while the filter still
+   *         remembered rejecting them; low values mean the rejections were cheap
+   */
+  public double getRejectedRequestRatio() {
+    long rejected = getRejectedCount();
+    return rejected == 0 ? 0 : ((double) getRejectedRequestCount() / rejected);
+  }
+
   public void rollMetricsPeriod() {
     hitCounts[windowIndex] = getHitCount() - lastHitCount;
     lastHitCount = getHitCount();
@@ -457,6 +595,21 @@ public class CacheStats {
     return new AgeSnapshot(this.ageAtEviction);
   }
 
+  /**
+   * @return distribution of the time taken by eviction runs, in microseconds
+   */
+  public AgeSnapshot getEvictionTimeSnapshot() {
+    return new AgeSnapshot(this.evictionTime);
+  }
+
+  /**
+   * @return distribution of the time taken to read out cached blocks, in microseconds; only
+   *         kept by caches that have to read blocks from slower media
+   */
+  public AgeSnapshot getHitTimeSnapshot() {
+    return new AgeSnapshot(this.hitTime);
+  }
+
   private static long sum(long[] counts) {
     return Arrays.stream(counts).sum();
   }
@@ -0,0 +1,259 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Approximate recency for the {@link LruBlockCache} clock eviction mode.
+ * <p>
+ * Blocks are spread over a fixed number of shards by key hash. Each shard keeps its blocks in
+ * insertion order in a circular array, with the clock hand at the head. A cache hit only sets the
+ * block's reference bit ({@link LruCachedBlock#reference()}), so reads neither lock nor allocate.
+ * Sweeping a shard takes blocks off the head: a referenced block has its bit cleared and goes
+ * back on the tail for a second chance, anything else is a victim. Each sweep stops once it has
+ * found enough victims, so the cost of an eviction run follows the number of blocks evicted and
+ * not the size of the cache.
+ * <p>
+ * In-memory blocks also get a second chance for as long as they use no more than their share of
+ * the cache.
+ */
+@InterfaceAudience.Private
+class ClockEvictionRings {
+
+  private static final int INITIAL_SHARD_CAPACITY = 16;
+
+  private final Shard[] shards;
+  private final int shardMask;
+
+  /** Bytes held by in-memory blocks across all shards */
+  private final AtomicLong memorySize = new AtomicLong();
+
+  /** Shard the next eviction run starts from, so runs do not always hit the same shard first */
+  private int nextShard;
+
+  /**
+   * @param shards number of shards, rounded up to a power of two
+   * @param expectedBlocks roughly how many blocks the cache holds when full
+   */
+  ClockEvictionRings(int shards, long expectedBlocks) {
+    int count = Integer.highestOneBit(Math.max(shards, 1) - 1) << 1;
+    count = Math.max(count, 1);
+    this.shards = new Shard[count];
+    this.shardMask = count - 1;
+    long perShard = Math.max(expectedBlocks / count, INITIAL_SHARD_CAPACITY);
+    int capacity = (int) Math.min(Long.highestOneBit(perShard - 1) << 1, 1 << 30);
+    for (int i = 0; i < count; i++) {
+      this.shards[i] = new Shard(capacity);
+    }
+  }
+
+  /**
+   * Puts a newly cached block on the tail of its shard.
+   */
+  void add(LruCachedBlock cb) {
+    shardOf(cb).add(cb);
+    if (cb.getPriority() == BlockPriority.MEMORY) {
+      memorySize.addAndGet(cb.heapSize());
+    }
+  }
+
+  /**
+   * Forgets a block removed from the cache. Blocks a sweep already took out of their ring are
+   * left alone.
+   */
+  void remove(LruCachedBlock cb) {
+    if (shardOf(cb).remove(cb) && cb.getPriority() == BlockPriority.MEMORY) {
+      memorySize.addAndGet(-cb.heapSize());
+    }
+  }
+
+  void clear() {
+    for (Shard shard : shards) {
+      shard.clear();
+    }
+    memorySize.set(0);
+  }
+
+  /**
+   * Moves the clock hands until victims worth at least bytesToFree have been found, or every
+   * block has been looked at twice. Victims are taken out of the rings but are still in the cache;
+   * the caller evicts them once the shard locks are released.
+   * @param maxMemorySize in-memory blocks are only victims once they hold more than this
+   * @param victims filled with the blocks to evict
+   * @return the heap size of the victims
+   */
+  long sweep(long bytesToFree, long maxMemorySize, List<LruCachedBlock> victims) {
+    long found = 0;
+    int start = nextShard;
+    // First spread the work over all shards, then take whatever is still missing from anywhere.
+    long share = bytesToFree / shards.length + 1;
+    for (int pass = 0; pass < 2 && found < bytesToFree; pass++) {
+      for (int i = 0; i < shards.length && found < bytesToFree; i++) {
+        Shard shard = shards[(start + i) & shardMask];
+        long want = pass == 0 ? Math.min(share, bytesToFree - found) : bytesToFree - found;
+        found += shard.sweep(want, maxMemorySize, victims);
+      }
+    }
+    nextShard = (start + 1) & shardMask;
+    return found;
+  }
+
+  @VisibleForTesting
+  int getShardCount() {
+    return shards.length;
+  }
+
+  @VisibleForTesting
+  long getMemorySize() {
+    return memorySize.get();
+  }
+
+  private Shard shardOf(LruCachedBlock cb) {
+    int h = cb.getCacheKey().hashCode() * 0x9e3779b9;
+    return shards[(h ^ (h >>> 16)) & shardMask];
+  }
+
+  /**
+   * A circular array of blocks in insertion order. Removed blocks leave a null behind that the
+   * hand skips over; the array is compacted rather than grown when mostly nulls.
+   */
+  private final class Shard {
+    private final ReentrantLock lock = new ReentrantLock();
+    private LruCachedBlock[] ring;
+    /** Position of the clock hand; the oldest slot */
+    private int head;
+    /** Slots in use from head on, including nulls left by removals */
+    private int count;
+    /** Slots holding a block */
+    private int live;
+
+    Shard(int capacity) {
+      this.ring = new LruCachedBlock[capacity];
+    }
+
+    void add(LruCachedBlock cb) {
+      lock.lock();
+      try {
+        if (count == ring.length) {
+          resize(live < ring.length / 2 ? ring.length : ring.length * 2);
+        }
+        append(cb);
+        live++;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    boolean remove(LruCachedBlock cb) {
+      lock.lock();
+      try {
+        int slot = cb.getClockSlot();
+        if (slot < 0 || slot >= ring.length || ring[slot] != cb) {
+          return false;
+        }
+        ring[slot] = null;
+        cb.setClockSlot(-1);
+        live--;
+        return true;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    void clear() {
+      lock.lock();
+      try {
+        for (int i = 0; i < ring.length; i++) {
+          if (ring[i] != null) {
+            ring[i].setClockSlot(-1);
+            ring[i] = null;
+          }
+        }
+        head = 0;
+        count = 0;
+        live = 0;
+      } finally {
+        lock.unlock();
+      }
+    }
+
+    long sweep(long bytesToFree, long maxMemorySize, List<LruCachedBlock> victims) {
+      long found = 0;
+      lock.lock();
+      try {
+        int budget = count * 2;
+        int mask = ring.length - 1;
+        while (found < bytesToFree && count > 0 && budget-- > 0) {
+          LruCachedBlock cb = ring[head];
+          ring[head] = null;
+          head = (head + 1) & mask;
+          count--;
+          if (cb == null) {
+            continue;
+          }
+          boolean memory = cb.getPriority() == BlockPriority.MEMORY;
+          if (cb.clearReference() || (memory && memorySize.get() <= maxMemorySize)) {
+            // Second chance; there is room as we just took a slot off the head.
+            append(cb);
+            continue;
+          }
+          cb.setClockSlot(-1);
+          live--;
+          if (memory) {
+            memorySize.addAndGet(-cb.heapSize());
+          }
+          victims.add(cb);
+          found += cb.heapSize();
+        }
+      } finally {
+        lock.unlock();
+      }
+      return found;
+    }
+
+    private void append(LruCachedBlock cb) {
+      int slot = (head + count) & (ring.length - 1);
+      ring[slot] = cb;
+      cb.setClockSlot(slot);
+      count++;
+    }
+
+    /** Copies the live blocks, oldest first, into a new array of the given capacity. */
+    private void resize(int capacity) {
+      LruCachedBlock[] old = ring;
+      int oldHead = head;
+      int oldCount = count;
+      ring = new LruCachedBlock[capacity];
+      head = 0;
+      count = 0;
+      for (int i = 0; i < oldCount; i++) {
+        LruCachedBlock cb = old[(oldHead + i) & (old.length - 1)];
+        if (cb != null) {
+          append(cb);
+        }
+      }
+    }
+  }
+}
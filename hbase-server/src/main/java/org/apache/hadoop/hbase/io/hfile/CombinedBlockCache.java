@@ -18,7 +18,9 @@
  */
 package org.apache.hadoop.hbase.io.hfile;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.io.HeapSize;
@@ -36,28 +38,49 @@ import com.google.common.annotations.VisibleForTesting;
  * first from the smaller lruCache before looking for the block in the l2Cache.  Blocks evicted
  * from lruCache are put into the bucket cache. 
  * Metrics are the combined size and hits and misses of both caches.
- * 
+ * <p>
+ * The bucket cache may have further tiers below it (see {@link BucketCache#setVictimCache}),
+ * which it manages itself. They are counted in the size and metrics here too.
  */
 @InterfaceAudience.Private
 public class CombinedBlockCache implements ResizableBlockCache, HeapSize {
   protected final LruBlockCache lruCache;
   protected final BlockCache l2Cache;
   protected final CombinedCacheStats combinedCacheStats;
+  /** The lruCache, the l2Cache, and the tiers below the l2Cache, in order */
+  private final BlockCache[] tiers;
 
   public CombinedBlockCache(LruBlockCache lruCache, BlockCache l2Cache) {
     this.lruCache = lruCache;
     this.l2Cache = l2Cache;
-    this.combinedCacheStats = new CombinedCacheStats(lruCache.getStats(),
-        l2Cache.getStats());
+    this.tiers = getTiers(lruCache, l2Cache);
+    CacheStats l2Stats = l2Cache.getStats();
+    for (int i = 2; i < tiers.length; i++) {
+      l2Stats = new CombinedCacheStats(l2Stats, tiers[i].getStats());
+    }
+    this.combinedCacheStats = new CombinedCacheStats(lruCache.getStats(), l2Stats);
+  }
+
+  private static BlockCache[] getTiers(LruBlockCache lruCache, BlockCache l2Cache) {
+    List<BlockCache> tiers = new ArrayList<BlockCache>();
+    tiers.add(lruCache);
+    BlockCache tier = l2Cache;
+    while (tier != null) {
+      tiers.add(tier);
+      tier = tier instanceof BucketCache ? ((BucketCache) tier).getVictimCache() : null;
+    }
+    return tiers.toArray(new BlockCache[tiers.size()]);
   }
 
   @Override
   public long heapSize() {
-    long l2size = 0;
-    if (l2Cache instanceof HeapSize) {
-      l2size = ((HeapSize) l2Cache).heapSize();
+    long size = 0;
+    for (BlockCache tier : tiers) {
+      if (tier instanceof HeapSize) {
+        size += ((HeapSize) tier).heapSize();
+      }
     }
-    return lruCache.heapSize() + l2size;
+    return size;
   }
 
   @Override
@@ -110,22 +133,38 @@ public class CombinedBlockCache implements ResizableBlockCache, HeapSize {
 
   @Override
   public long size() {
-    return lruCache.size() + l2Cache.size();
+    long size = 0;
+    for (BlockCache tier : tiers) {
+      size += tier.size();
+    }
+    return size;
   }
 
   @Override
   public long getFreeSize() {
-    return lruCache.getFreeSize() + l2Cache.getFreeSize();
+    long size = 0;
+    for (BlockCache tier : tiers) {
+      size += tier.getFreeSize();
+    }
+    return size;
   }
 
   @Override
   public long getCurrentSize() {
-    return lruCache.getCurrentSize() + l2Cache.getCurrentSize();
+    long size = 0;
+    for (BlockCache tier : tiers) {
+      size += tier.getCurrentSize();
+    }
+    return size;
   }
 
   @Override
   public long getBlockCount() {
-    return lruCache.getBlockCount() + l2Cache.getBlockCount();
+    long count = 0;
+    for (BlockCache tier : tiers) {
+      count += tier.getBlockCount();
+    }
+    return count;
   }
 
   public static class CombinedCacheStats extends CacheStats {
@@ -316,6 +355,38 @@ public class CombinedBlockCache implements ResizableBlockCache, HeapSize {
       return lruCacheStats.getFailedInserts() + bucketCacheStats.getFailedInserts();
     }
 
+    @Override
+    public long getPromotedCount() {
+      return lruCacheStats.getPromotedCount() + bucketCacheStats.getPromotedCount();
+    }
+
+    @Override
+    public long getDemotedCount() {
+      return lruCacheStats.getDemotedCount() + bucketCacheStats.getDemotedCount();
+    }
+
+    @Override
+    public long getWriterQueueFullCount() {
+      return lruCacheStats.getWriterQueueFullCount()
+          + bucketCacheStats.getWriterQueueFullCount();
+    }
+
+    @Override
+    public long getAdmittedCount() {
+      return lruCacheStats.getAdmittedCount() + bucketCacheStats.getAdmittedCount();
+    }
+
+    @Override
+    public long getRejectedCount() {
+      return lruCacheStats.getRejectedCount() + bucketCacheStats.getRejectedCount();
+    }
+
+    @Override
+    public long getRejectedRequestCount() {
+      return lruCacheStats.getRejectedRequestCount()
+          + bucketCacheStats.getRejectedRequestCount();
+    }
+
     @Override
     public long getSumHitCountsPastNPeriods() {
       return lruCacheStats.getSumHitCountsPastNPeriods()
@@ -346,9 +417,12 @@ public class CombinedBlockCache implements ResizableBlockCache, HeapSize {
     return new BlockCachesIterator(getBlockCaches());
   }
 
+  /**
+   * @return the lruCache, the l2Cache, then any tiers below the l2Cache
+   */
   @Override
   public BlockCache[] getBlockCaches() {
-    return new BlockCache [] {this.lruCache, this.l2Cache};
+    return this.tiers.clone();
   }
 
   @Override
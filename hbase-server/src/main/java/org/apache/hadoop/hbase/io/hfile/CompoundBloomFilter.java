@@ -46,6 +46,9 @@ public class CompoundBloomFilter extends CompoundBloomFilterBase
   /** Used to load chunks on demand */
   private HFile.Reader reader;
 
+  /** Where chunks are kept apart from the block cache; null to cache them with data blocks */
+  private final BloomChunkCache chunkCache;
+
   private HFileBlockIndex.BlockIndexReader index;
 
   private int hashCount;
@@ -64,6 +67,8 @@ public class CompoundBloomFilter extends CompoundBloomFilterBase
   public CompoundBloomFilter(DataInput meta, HFile.Reader reader)
       throws IOException {
     this.reader = reader;
+    this.chunkCache = reader instanceof HFileReaderImpl
+        ? ((HFileReaderImpl) reader).getBloomChunkCache() : null;
 
     totalByteSize = meta.readLong();
     hashCount = meta.readInt();
@@ -117,10 +122,26 @@ public class CompoundBloomFilter extends CompoundBloomFilterBase
 
   private HFileBlock getBloomBlock(int block) {
     HFileBlock bloomBlock;
+    long offset = index.getRootBlockOffset(block);
     try {
-      // We cache the block and use a positional read.
-      bloomBlock = reader.readBlock(index.getRootBlockOffset(block),
-          index.getRootBlockDataSize(block), true, true, false, true, BlockType.BLOOM_CHUNK, null);
+      if (chunkCache == null) {
+        // We cache the block and use a positional read.
+        bloomBlock = reader.readBlock(offset, index.getRootBlockDataSize(block), true, true,
+          false, true, BlockType.BLOOM_CHUNK, null);
+      } else {
+        BlockCacheKey cacheKey = new BlockCacheKey(reader.getName(), offset,
+            reader.isPrimaryReplicaReader(), BlockType.BLOOM_CHUNK);
+        bloomBlock = chunkCache.getChunk(cacheKey);
+        if (bloomBlock == null) {
+          // Read around the block cache so that chunks do not compete with data blocks there.
+          bloomBlock = reader.readBlock(offset, index.getRootBlockDataSize(block), false, true,
+            false, true, BlockType.BLOOM_CHUNK, null);
+          // A chunk cached on write may still be served from the block cache's own memory.
+          if (!bloomBlock.usesSharedMemory()) {
+            chunkCache.cacheChunk(cacheKey, bloomBlock);
+          }
+        }
+      }
     } catch (IOException ex) {
       // The Bloom filter is broken, turn it off.
       throw new IllegalArgumentException("Failed to load Bloom block", ex);
@@ -173,7 +173,7 @@ public class CompoundBloomFilterWriter extends CompoundBloomFilterBase
             + Bytes.toStringBinary(firstKeyInChunk));
       }
       // This will be done only once per chunk
-      if (bloomType == BloomType.ROW) {
+      if (bloomType != BloomType.ROWCOL) {
         firstKeyInChunk = CellUtil.copyRow(cell);
       } else {
         firstKeyInChunk =
@@ -0,0 +1,141 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * A count-min sketch of 4-bit counters used to estimate how often a block has been asked for.
+ * <p>
+ * Sixteen counters are packed into each long. An item increments one counter in each of four
+ * rows and its estimate is the smallest of the four. Once the number of increments reaches ten
+ * times the expected number of items, every counter is halved so that the sketch follows the
+ * recent popularity of items rather than their all-time popularity.
+ * <p>
+ * Updates are not synchronized. Racing increments may be lost and a reset may miss a word being
+ * written concurrently; both only make the estimates a little less exact, which is acceptable
+ * for an admission heuristic and much cheaper than locking on every cache access.
+ */
+@InterfaceAudience.Private
+public class FrequencySketch {
+
+  /** Largest table we will allocate, in longs (32MB) */
+  static final int MAX_TABLE_SIZE = 1 << 22;
+
+  /** Highest value a 4-bit counter can hold */
+  static final int MAX_FREQUENCY = 15;
+
+  private static final long[] SEEDS = { 0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+      0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+  private static final long RESET_MASK = 0x7777777777777777L;
+  private static final long ONE_MASK = 0x1111111111111111L;
+
+  private final long[] table;
+  private final int tableMask;
+  private final int sampleSize;
+  private int size;
+
+  /**
+   * @param expectedEntries roughly how many distinct items the owner holds at once
+   */
+  public FrequencySketch(long expectedEntries) {
+    long counters = Math.max(expectedEntries / 2, 8);
+    int tableSize = (int) Math.min(Long.highestOneBit(counters - 1) << 1, MAX_TABLE_SIZE);
+    this.table = new long[tableSize];
+    this.tableMask = tableSize - 1;
+    this.sampleSize = (int) Math.min(10L * Math.max(expectedEntries, 1), Integer.MAX_VALUE);
+  }
+
+  /**
+   * @return the estimated number of times the item was incremented since it was last aged,
+   *         capped at {@link #MAX_FREQUENCY}
+   */
+  public int frequency(int itemHash) {
+    int hash = spread(itemHash);
+    int frequency = MAX_FREQUENCY;
+    for (int i = 0; i < SEEDS.length; i++) {
+      long slot = slot(hash, i);
+      int shift = offsetOf(slot);
+      frequency = Math.min(frequency, (int) ((table[indexOf(slot)] >>> shift) & 0xfL));
+    }
+    return frequency;
+  }
+
+  /**
+   * Records one occurrence of the item, aging the whole sketch once enough have been seen.
+   */
+  public void increment(int itemHash) {
+    int hash = spread(itemHash);
+    boolean added = false;
+    for (int i = 0; i < SEEDS.length; i++) {
+      long slot = slot(hash, i);
+      added |= incrementAt(indexOf(slot), offsetOf(slot));
+    }
+    if (added && ++size >= sampleSize) {
+      reset();
+    }
+  }
+
+  private boolean incrementAt(int index, int shift) {
+    long word = table[index];
+    long mask = 0xfL << shift;
+    if ((word & mask) == mask) {
+      return false;
+    }
+    table[index] = word + (1L << shift);
+    return true;
+  }
+
+  /** Halves every counter. */
+  void reset() {
+    int odd = 0;
+    for (int i = 0; i < table.length; i++) {
+      odd += Long.bitCount(table[i] & ONE_MASK);
+      table[i] = (table[i] >>> 1) & RESET_MASK;
+    }
+    // Halving drops the odd counts; take them off too so size tracks the table contents.
+    size = Math.max((size - (odd >>> 2)) >>> 1, 0);
+  }
+
+  int getSampleSize() {
+    return sampleSize;
+  }
+
+  int getSize() {
+    return size;
+  }
+
+  private static long slot(int hash, int row) {
+    long slot = (hash + SEEDS[row]) * SEEDS[row];
+    return slot ^ (slot >>> 29);
+  }
+
+  private int indexOf(long slot) {
+    return (int) (slot >>> 32) & tableMask;
+  }
+
+  private static int offsetOf(long slot) {
+    return ((int) slot & 0xf) << 2;
+  }
+
+  /** Hash codes of keys are often poorly distributed in the low bits; mix them first. */
+  private static int spread(int hash) {
+    int h = hash * 0x9e3779b9;
+    return h ^ (h >>> 16);
+  }
+}
@@ -1420,6 +1420,9 @@ public class HFileBlock implements Cacheable {
 
     private final Lock streamLock = new ReentrantLock();
 
+    /** Extra streams for seek+read when streamLock is held; null if there are none */
+    private final HFileStreamPool streamPool;
+
     /** The default buffer size for our buffered streams */
     public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
 
@@ -1429,7 +1432,13 @@ public class HFileBlock implements Cacheable {
 
     FSReaderImpl(FSDataInputStreamWrapper stream, long fileSize, HFileSystem hfs, Path path,
         HFileContext fileContext) throws IOException {
+      this(stream, fileSize, hfs, path, fileContext, null);
+    }
+
+    FSReaderImpl(FSDataInputStreamWrapper stream, long fileSize, HFileSystem hfs, Path path,
+        HFileContext fileContext, HFileStreamPool streamPool) throws IOException {
       this.fileSize = fileSize;
+      this.streamPool = streamPool;
       this.hfs = hfs;
       if (path != null) {
         this.pathName = path.toString();
@@ -1510,42 +1519,67 @@ public class HFileBlock implements Cacheable {
             "-byte array at offset " + destOffset);
       }
 
-      if (!pread && streamLock.tryLock()) {
+      if (!pread) {
         // Seek + read. Better for scanning.
-        try {
-          istream.seek(fileOffset);
-
-          long realOffset = istream.getPos();
-          if (realOffset != fileOffset) {
-            throw new IOException("Tried to seek to " + fileOffset + " to "
-                + "read " + size + " bytes, but pos=" + realOffset
-                + " after seek");
-          }
-
-          if (!peekIntoNextBlock) {
-            IOUtils.readFully(istream, dest, destOffset, size);
-            return -1;
-          }
-
-          // Try to read the next block header.
-          if (!readWithExtra(istream, dest, destOffset, size, hdrSize)) {
-            return -1;
+        if (streamLock.tryLock()) {
+          try {
+            return seekAndRead(istream, dest, destOffset, size, peekIntoNextBlock, fileOffset);
+          } finally {
+            streamLock.unlock();
           }
-        } finally {
-          streamLock.unlock();
         }
-      } else {
-        // Positional read. Better for random reads; or when the streamLock is already locked.
-        int extraSize = peekIntoNextBlock ? hdrSize : 0;
-        if (!positionalReadWithExtra(istream, fileOffset, dest, destOffset, size, extraSize)) {
-          return -1;
+        if (streamPool != null) {
+          HFileStreamPool.PooledStream pooled =
+              streamPool.borrow(istream == streamWrapper.getStream(true));
+          if (pooled != null) {
+            boolean done = false;
+            try {
+              int nextBlockOnDiskSize = seekAndRead(pooled.stream, dest, destOffset, size,
+                peekIntoNextBlock, fileOffset);
+              done = true;
+              return nextBlockOnDiskSize;
+            } finally {
+              streamPool.release(pooled, done);
+            }
+          }
         }
       }
-
+      // Positional read. Better for random reads; or when no stream is free to seek.
+      int extraSize = peekIntoNextBlock ? hdrSize : 0;
+      if (!positionalReadWithExtra(istream, fileOffset, dest, destOffset, size, extraSize)) {
+        return -1;
+      }
       assert peekIntoNextBlock;
       return Bytes.toInt(dest, destOffset + size + BlockType.MAGIC_LENGTH) + hdrSize;
     }
 
+    /**
+     * Seek + read on a stream no one else is using. See
+     * {@link #readAtOffset(FSDataInputStream, byte[], int, int, boolean, long, boolean)}.
+     */
+    private int seekAndRead(FSDataInputStream istream, byte [] dest, int destOffset, int size,
+        boolean peekIntoNextBlock, long fileOffset) throws IOException {
+      istream.seek(fileOffset);
+
+      long realOffset = istream.getPos();
+      if (realOffset != fileOffset) {
+        throw new IOException("Tried to seek to " + fileOffset + " to "
+            + "read " + size + " bytes, but pos=" + realOffset
+            + " after seek");
+      }
+
+      if (!peekIntoNextBlock) {
+        IOUtils.readFully(istream, dest, destOffset, size);
+        return -1;
+      }
+
+      // Try to read the next block header.
+      if (!readWithExtra(istream, dest, destOffset, size, hdrSize)) {
+        return -1;
+      }
+      return Bytes.toInt(dest, destOffset + size + BlockType.MAGIC_LENGTH) + hdrSize;
+    }
+
     /**
      * Reads a version 2 block (version 1 blocks not supported and not expected). Tries to do as
      * little memory allocation as possible, using the provided on-disk size.
@@ -1821,6 +1855,9 @@ public class HFileBlock implements Cacheable {
 
     @Override
     public void closeStreams() throws IOException {
+      if (streamPool != null) {
+        streamPool.close();
+      }
       streamWrapper.close();
     }
 
@@ -1841,6 +1878,19 @@ public class HFileBlock implements Cacheable {
     }
   }
 
+  /**
+   * Sanity check for a block deserialized from a cache whose index may have outlived the process
+   * that wrote it, such as a persisted BucketCache. Such a cache can not prove the bytes at an
+   * index entry are still the block the entry was made for.
+   * @param fileOffset the offset in the hfile the block was cached under
+   * @return true if this block claims to come from <code>fileOffset</code> and its header sizes
+   *   are plausible for the buffer it was built from
+   */
+  public boolean isConsistentWithOffset(long fileOffset) {
+    return this.offset == fileOffset && this.buf.limit() >= headerSize()
+        && this.onDiskSizeWithoutHeader >= 0 && this.uncompressedSizeWithoutHeader >= 0;
+  }
+
   // Cacheable implementation
   @Override
   public int getSerializedLength() {
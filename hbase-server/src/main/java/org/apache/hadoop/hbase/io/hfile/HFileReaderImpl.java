@@ -41,6 +41,7 @@ import org.apache.hadoop.hbase.SizeCachedKeyValue;
 import org.apache.hadoop.hbase.SizeCachedNoTagsKeyValue;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.fs.HFileSystem;
+import org.apache.hadoop.hbase.io.DeferredReleases;
 import org.apache.hadoop.hbase.io.FSDataInputStreamWrapper;
 import org.apache.hadoop.hbase.io.compress.Compression;
 import org.apache.hadoop.hbase.io.crypto.Cipher;
@@ -121,6 +122,9 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
 
   private Configuration conf;
 
+  /** Most data blocks loaded ahead of a sequential scanner; 0 if scan readahead is off */
+  private final int readaheadMaxBlocks;
+
   private HFileContext hfileContext;
 
   /** Filesystem-level block reader. */
@@ -187,9 +191,12 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
     this.path = path;
     this.name = path.getName();
     this.conf = conf;
+    this.readaheadMaxBlocks = conf.getInt(CacheConfig.READAHEAD_MAX_BLOCKS_KEY,
+      CacheConfig.DEFAULT_READAHEAD_MAX_BLOCKS);
     checkFileVersion();
     this.hfileContext = createHFileContext(fsdis, fileSize, hfs, path, trailer);
-    this.fsBlockReader = new HFileBlock.FSReaderImpl(fsdis, fileSize, hfs, path, hfileContext);
+    this.fsBlockReader = new HFileBlock.FSReaderImpl(fsdis, fileSize, hfs, path, hfileContext,
+        HFileStreamPool.create(conf, fsdis));
 
     // Comparator class name is stored in the trailer in version 2.
     comparator = trailer.createComparator();
@@ -366,7 +373,13 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
     if (blockCache != null && block != null) {
       BlockCacheKey cacheKey = new BlockCacheKey(this.getFileContext().getHFileName(),
           block.getOffset(), this.isPrimaryReplicaReader(), block.getBlockType());
-      blockCache.returnBlock(cacheKey, block);
+      DeferredReleases deferred = DeferredReleases.current();
+      if (deferred != null) {
+        // A response about to be sent straight from this block's memory still needs it.
+        deferred.add(() -> blockCache.returnBlock(cacheKey, block));
+      } else {
+        blockCache.returnBlock(cacheKey, block);
+      }
     }
   }
   /**
@@ -507,6 +520,8 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
     protected HFileBlock curBlock;
     // Previous blocks that were used in the course of the read
     protected final ArrayList<HFileBlock> prevBlocks = new ArrayList<HFileBlock>();
+    // Loads blocks ahead of us when we read sequentially; null if readahead is off
+    private final ScanReadahead readahead;
 
     public HFileScannerImpl(final HFile.Reader reader, final boolean cacheBlocks,
         final boolean pread, final boolean isCompaction) {
@@ -514,6 +529,9 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
       this.cacheBlocks = cacheBlocks;
       this.pread = pread;
       this.isCompaction = isCompaction;
+      // Loading ahead is no use to scans that do not cache what they read.
+      this.readahead = cacheBlocks && !isCompaction && reader instanceof HFileReaderImpl
+          ? ((HFileReaderImpl) reader).createReadahead() : null;
     }
 
     void updateCurrBlockRef(HFileBlock block) {
@@ -521,6 +539,9 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
           block.getOffset() == this.curBlock.getOffset()) {
         return;
       }
+      if (readahead != null && block != null) {
+        readahead.blockRead(this.curBlock, block);
+      }
       // We don't have to keep ref to EXCLUSIVE type of block
       if (this.curBlock != null && this.curBlock.usesSharedMemory()) {
         prevBlocks.add(this.curBlock);
@@ -528,6 +549,11 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
       this.curBlock = block;
     }
 
+    @VisibleForTesting
+    ScanReadahead getReadahead() {
+      return readahead;
+    }
+
     void reset() {
       // We don't have to keep ref to EXCLUSIVE type of block
       if (this.curBlock != null && this.curBlock.usesSharedMemory()) {
@@ -587,6 +613,9 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
     @Override
     public void close() {
       this.returnBlocks(true);
+      if (readahead != null) {
+        readahead.close();
+      }
     }
 
     // Returns the #bytes in HFile for the current cell. Used to skip these many bytes in current
@@ -1231,6 +1260,9 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
     @Override
     public void shipped() throws IOException {
       this.returnBlocks(false);
+      if (readahead != null) {
+        readahead.shipped();
+      }
     }
   }
 
@@ -1279,6 +1311,19 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
     return includesMemstoreTS;
   }
 
+  /**
+   * Unpacks a block that the block cache holds packed, reusing a recently unpacked copy if the
+   * {@link UnpackedBlockCache} has one.
+   */
+  private HFileBlock unpackCachedBlock(BlockCacheKey cacheKey, HFileBlock packed)
+      throws IOException {
+    UnpackedBlockCache unpackedCache = cacheConf.getUnpackedBlockCache();
+    if (unpackedCache == null) {
+      return packed.unpack(hfileContext, fsBlockReader);
+    }
+    return unpackedCache.unpack(cacheKey, packed, hfileContext, fsBlockReader);
+  }
+
   /**
    * Retrieve block from cache. Validates the retrieved block's type vs {@code expectedBlockType}
    * and its encoding vs. {@code expectedDataBlockEncoding}. Unpacks the block as necessary.
@@ -1294,7 +1339,7 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
        if (cachedBlock != null) {
          if (cacheConf.shouldCacheCompressed(cachedBlock.getBlockType().getCategory())) {
            HFileBlock compressedBlock = cachedBlock;
-           cachedBlock = compressedBlock.unpack(hfileContext, fsBlockReader);
+           cachedBlock = unpackCachedBlock(cacheKey, compressedBlock);
            // In case of compressed block after unpacking we can return the compressed block
           if (compressedBlock != cachedBlock) {
             cache.returnBlock(cacheKey, compressedBlock);
@@ -1488,9 +1533,15 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
 
         // Cache the block if necessary
         if (cacheBlock && cacheConf.shouldCacheBlockOnRead(category)) {
+          boolean cacheCompressed = cacheConf.shouldCacheCompressed(category);
           cacheConf.getBlockCache().cacheBlock(cacheKey,
-            cacheConf.shouldCacheCompressed(category) ? hfileBlock : unpacked,
+            cacheCompressed ? hfileBlock : unpacked,
             cacheConf.isInMemory(), this.cacheConf.isCacheDataInL1());
+          UnpackedBlockCache unpackedCache = cacheConf.getUnpackedBlockCache();
+          if (cacheCompressed && unpackedCache != null) {
+            // Likely to be read again soon; save the next reader the unpack.
+            unpackedCache.cacheUnpacked(cacheKey, hfileBlock, unpacked);
+          }
         }
 
         if (updateCacheMetrics && hfileBlock.getBlockType().isData()) {
@@ -1567,11 +1618,20 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
     PrefetchExecutor.cancel(path);
     if (evictOnClose && cacheConf.isBlockCacheEnabled()) {
       int numEvicted = cacheConf.getBlockCache().evictBlocksByHfileName(name);
+      UnpackedBlockCache unpackedCache = cacheConf.getUnpackedBlockCache();
+      if (unpackedCache != null) {
+        unpackedCache.evictBlocksByHfileName(name);
+      }
       if (LOG.isTraceEnabled()) {
         LOG.trace("On close, file=" + name + " evicted=" + numEvicted
           + " block(s)");
       }
     }
+    // Bloom chunks of a closed file are of no use to anyone; free their share of the budget.
+    BloomChunkCache bloomChunkCache = cacheConf.getBloomChunkCache();
+    if (bloomChunkCache != null) {
+      bloomChunkCache.evictBlocksByHfileName(name);
+    }
     fsBlockReader.closeStreams();
   }
 
@@ -1853,6 +1913,26 @@ public class HFileReaderImpl implements HFile.Reader, Configurable {
     return new HFileScannerImpl(this, cacheBlocks, pread, isCompaction);
   }
 
+  /**
+   * @return the cache to keep this file's Bloom filter chunks in apart from the block cache, or
+   *     null if they go to the block cache
+   */
+  BloomChunkCache getBloomChunkCache() {
+    return cacheConf.getBloomChunkCache();
+  }
+
+  /**
+   * @return readahead for a new scanner that caches the blocks it reads, or null if scan
+   *     readahead is off
+   */
+  ScanReadahead createReadahead() {
+    BlockCache blockCache = cacheConf.getBlockCache();
+    if (readaheadMaxBlocks <= 0 || blockCache == null || !cacheConf.shouldCacheDataOnRead()) {
+      return null;
+    }
+    return new ScanReadahead(this, blockCache, readaheadMaxBlocks);
+  }
+
   public int getMajorVersion() {
     return 3;
   }
@@ -0,0 +1,226 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.io.FSDataInputStreamWrapper;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Extra streams on one HFile for seek+read block reads that find the file's main stream busy.
+ * <p>
+ * The block reader serializes seek+read on its one stream and falls back to a positional read
+ * when another reader holds it. On HDFS every positional read sets up a new block reader, which
+ * costs a lot more than the read itself when many short scans run on the same file. Instead,
+ * such a read takes a stream from this pool and keeps the streaming state of that stream for
+ * the next one. Streams are opened on first need, up to {@link #STREAM_POOL_SIZE_KEY} per file.
+ * A stream that has not been used for {@link #STREAM_POOL_IDLE_TIMEOUT_KEY} milliseconds is
+ * closed the next time another one is handed back, and all are closed with the file. Only when
+ * all of them are busy does a read fall back to a positional read.
+ * <p>
+ * Streams are opened with or without FS-level checksum as the main stream they stand in for.
+ */
+@InterfaceAudience.Private
+public class HFileStreamPool {
+
+  private static final Log LOG = LogFactory.getLog(HFileStreamPool.class);
+
+  /** Most extra streams per open HFile. 0 turns the pool off. */
+  public static final String STREAM_POOL_SIZE_KEY = "hbase.hfile.stream.pool.size";
+  public static final int DEFAULT_STREAM_POOL_SIZE = 0;
+
+  /** Milliseconds after which an unused extra stream is closed */
+  public static final String STREAM_POOL_IDLE_TIMEOUT_KEY = "hbase.hfile.stream.pool.idle.timeout";
+  public static final long DEFAULT_STREAM_POOL_IDLE_TIMEOUT = 60000;
+
+  // Across all files: reads done on a pooled stream, reads that fell back to a positional read
+  // because all pooled streams were busy, pooled streams open and how many of those are in use.
+  private static final LongAdder POOLED_READS = new LongAdder();
+  private static final LongAdder FALLBACKS = new LongAdder();
+  private static final LongAdder OPEN_STREAMS = new LongAdder();
+  private static final LongAdder BUSY_STREAMS = new LongAdder();
+
+  private final FSDataInputStreamWrapper streamWrapper;
+  private final int maxStreams;
+  private final long idleTimeout;
+
+  /** Streams not in use, most recently used first */
+  private final ConcurrentLinkedDeque<PooledStream> idle = new ConcurrentLinkedDeque<>();
+  private final AtomicInteger openStreams = new AtomicInteger();
+  private volatile boolean closed;
+
+  HFileStreamPool(FSDataInputStreamWrapper streamWrapper, int maxStreams, long idleTimeout) {
+    this.streamWrapper = streamWrapper;
+    this.maxStreams = maxStreams;
+    this.idleTimeout = idleTimeout;
+  }
+
+  /**
+   * @return a pool for the file of the given streams, or null if turned off
+   */
+  static HFileStreamPool create(Configuration conf, FSDataInputStreamWrapper streamWrapper) {
+    int size = conf.getInt(STREAM_POOL_SIZE_KEY, DEFAULT_STREAM_POOL_SIZE);
+    if (size <= 0 || streamWrapper.getHfs() == null) {
+      return null;
+    }
+    return new HFileStreamPool(streamWrapper, size,
+        conf.getLong(STREAM_POOL_IDLE_TIMEOUT_KEY, DEFAULT_STREAM_POOL_IDLE_TIMEOUT));
+  }
+
+  /**
+   * Takes an idle stream, or opens one if there are fewer than the limit.
+   * @param useHBaseChecksum whether the stream should skip FS-level checksum, as the one from
+   *     {@link FSDataInputStreamWrapper#getStream(boolean)}
+   * @return the stream, to be handed back with {@link #release(PooledStream, boolean)}, or null
+   *     if all are busy
+   */
+  PooledStream borrow(boolean useHBaseChecksum) throws IOException {
+    PooledStream pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      if (pooled.useHBaseChecksum == useHBaseChecksum) {
+        BUSY_STREAMS.increment();
+        return pooled;
+      }
+      // Opened before a switch in checksum mode; rare enough to just open another.
+      discard(pooled);
+    }
+    int count;
+    do {
+      count = openStreams.get();
+      if (count >= maxStreams || closed) {
+        FALLBACKS.increment();
+        return null;
+      }
+    } while (!openStreams.compareAndSet(count, count + 1));
+    FSDataInputStream in = null;
+    try {
+      in = streamWrapper.openStream(useHBaseChecksum);
+    } finally {
+      if (in == null) {
+        openStreams.decrementAndGet();
+      }
+    }
+    OPEN_STREAMS.increment();
+    BUSY_STREAMS.increment();
+    return new PooledStream(in, useHBaseChecksum);
+  }
+
+  /**
+   * Hands back a stream taken with {@link #borrow(boolean)}, and closes streams idle for too
+   * long.
+   * @param reusable false if the read failed, in which case the stream is closed
+   */
+  void release(PooledStream pooled, boolean reusable) {
+    BUSY_STREAMS.decrement();
+    POOLED_READS.increment();
+    if (!reusable || closed) {
+      discard(pooled);
+      return;
+    }
+    long now = EnvironmentEdgeManager.currentTime();
+    pooled.lastUsed = now;
+    idle.offerFirst(pooled);
+    PooledStream oldest;
+    while ((oldest = idle.peekLast()) != null && now - oldest.lastUsed > idleTimeout) {
+      if (idle.removeLastOccurrence(oldest)) {
+        discard(oldest);
+      }
+    }
+    if (closed) {
+      // Raced with close(); make sure nothing stays open.
+      closeIdle();
+    }
+  }
+
+  /**
+   * Closes all idle streams, and the others once they are handed back.
+   */
+  void close() {
+    closed = true;
+    closeIdle();
+  }
+
+  @VisibleForTesting
+  int getOpenStreams() {
+    return openStreams.get();
+  }
+
+  @VisibleForTesting
+  int getIdleStreams() {
+    return idle.size();
+  }
+
+  /** @return reads done on pooled streams, across all files */
+  public static long getPooledReadCount() {
+    return POOLED_READS.sum();
+  }
+
+  /** @return reads that fell back to a positional read as all pooled streams were busy */
+  public static long getFallbackCount() {
+    return FALLBACKS.sum();
+  }
+
+  /** @return pooled streams open across all files */
+  public static long getOpenStreamCount() {
+    return OPEN_STREAMS.sum();
+  }
+
+  /** @return pooled streams being read from across all files */
+  public static long getBusyStreamCount() {
+    return BUSY_STREAMS.sum();
+  }
+
+  private void closeIdle() {
+    PooledStream pooled;
+    while ((pooled = idle.pollFirst()) != null) {
+      discard(pooled);
+    }
+  }
+
+  private void discard(PooledStream pooled) {
+    openStreams.decrementAndGet();
+    OPEN_STREAMS.decrement();
+    try {
+      pooled.stream.close();
+    } catch (IOException e) {
+      LOG.debug("Failed to close pooled stream", e);
+    }
+  }
+
+  static final class PooledStream {
+    final FSDataInputStream stream;
+    final boolean useHBaseChecksum;
+    long lastUsed;
+
+    PooledStream(FSDataInputStream stream, boolean useHBaseChecksum) {
+      this.stream = stream;
+      this.useHBaseChecksum = useHBaseChecksum;
+    }
+  }
+}
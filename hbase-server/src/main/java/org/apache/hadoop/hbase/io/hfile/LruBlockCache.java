@@ -20,6 +20,7 @@ package org.apache.hadoop.hbase.io.hfile;
 
 import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.EnumMap;
 import java.util.Iterator;
 import java.util.List;
@@ -131,6 +132,14 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
   private static final String LRU_IN_MEMORY_FORCE_MODE_CONFIG_NAME =
       "hbase.lru.rs.inmemoryforcemode";
 
+  /**
+   * How victims are picked: "lru" sorts the whole cache by access time on every eviction run,
+   * "clock" sweeps per-shard clock rings and only touches about as many blocks as it evicts. See
+   * {@link ClockEvictionRings}.
+   */
+  static final String LRU_EVICTION_MODE_CONFIG_NAME = "hbase.lru.blockcache.eviction.mode";
+  static final String LRU_CLOCK_SHARDS_CONFIG_NAME = "hbase.lru.blockcache.clock.shards";
+
   /* Default Configuration Parameters*/
 
   /* Backing Concurrent Map Configuration */
@@ -150,6 +159,9 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
 
   private static final boolean DEFAULT_IN_MEMORY_FORCE_MODE = false;
 
+  private static final String DEFAULT_EVICTION_MODE = "lru";
+  private static final int DEFAULT_CLOCK_SHARDS = 16;
+
   /* Statistics thread */
   private static final int STAT_THREAD_PERIOD = 60 * 5;
   private static final String LRU_MAX_BLOCK_SIZE = "hbase.lru.max.block.size";
@@ -217,6 +229,15 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
   /** Where to send victims (blocks evicted/missing from the cache) */
   private BlockCache victimHandler = null;
 
+  /** Decides which blocks get in once the cache is full */
+  private BlockCacheAdmissionFilter admissionFilter = BlockCacheAdmissionFilter.NONE;
+
+  /** Clock rings of the clock eviction mode; null when evicting by sorting on access time */
+  private final ClockEvictionRings clock;
+
+  /** Victims found by the clock, reused across eviction runs; guarded by evictionLock */
+  private final List<LruCachedBlock> clockVictims = new ArrayList<>();
+
   /**
    * Default constructor.  Specify maximum size and expected average block
    * size (approximation is fine).
@@ -261,8 +282,11 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
         conf.getFloat(LRU_HARD_CAPACITY_LIMIT_FACTOR_CONFIG_NAME,
                       DEFAULT_HARD_CAPACITY_LIMIT_FACTOR),
         conf.getBoolean(LRU_IN_MEMORY_FORCE_MODE_CONFIG_NAME, DEFAULT_IN_MEMORY_FORCE_MODE),
-        conf.getLong(LRU_MAX_BLOCK_SIZE, DEFAULT_MAX_BLOCK_SIZE)
+        conf.getLong(LRU_MAX_BLOCK_SIZE, DEFAULT_MAX_BLOCK_SIZE),
+        isClockEvictionMode(conf),
+        conf.getInt(LRU_CLOCK_SHARDS_CONFIG_NAME, DEFAULT_CLOCK_SHARDS)
     );
+    this.admissionFilter = BlockCacheAdmissionFilter.create(conf, maxSize / blockSize, stats);
   }
 
   public LruBlockCache(long maxSize, long blockSize, Configuration conf) {
@@ -289,6 +313,23 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
       float minFactor, float acceptableFactor, float singleFactor,
       float multiFactor, float memoryFactor, float hardLimitFactor,
       boolean forceInMemory, long maxBlockSize) {
+    this(maxSize, blockSize, evictionThread, mapInitialSize, mapLoadFactor, mapConcurrencyLevel,
+        minFactor, acceptableFactor, singleFactor, multiFactor, memoryFactor, hardLimitFactor,
+        forceInMemory, maxBlockSize, false, 0);
+  }
+
+  /**
+   * Configurable constructor choosing the eviction mode.
+   *
+   * @param clockEviction       whether to evict with per-shard clock rings rather than by sorting
+   *                            all blocks on access time
+   * @param clockShards         number of clock rings, if clockEviction
+   */
+  public LruBlockCache(long maxSize, long blockSize, boolean evictionThread,
+      int mapInitialSize, float mapLoadFactor, int mapConcurrencyLevel,
+      float minFactor, float acceptableFactor, float singleFactor,
+      float multiFactor, float memoryFactor, float hardLimitFactor,
+      boolean forceInMemory, long maxBlockSize, boolean clockEviction, int clockShards) {
     this.maxBlockSize = maxBlockSize;
     if(singleFactor + multiFactor + memoryFactor != 1 ||
         singleFactor < 0 || multiFactor < 0 || memoryFactor < 0) {
@@ -316,6 +357,7 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
     this.overhead = calculateOverhead(maxSize, blockSize, mapConcurrencyLevel);
     this.size = new AtomicLong(this.overhead);
     this.hardCapacityLimitFactor = hardLimitFactor;
+    this.clock = clockEviction ? new ClockEvictionRings(clockShards, mapInitialSize) : null;
     if (evictionThread) {
       this.evictionThread = new EvictionThread(this);
       this.evictionThread.start(); // FindBugs SC_START_IN_CTOR
@@ -394,9 +436,15 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
       }
       return;
     }
+    if (currentSize >= minSize() && !admissionFilter.admit(cacheKey, inMemory)) {
+      return;
+    }
     cb = new LruCachedBlock(cacheKey, buf, count.incrementAndGet(), inMemory);
     long newSize = updateSizeMetrics(cb, false);
     map.put(cacheKey, cb);
+    if (clock != null) {
+      clock.add(cb);
+    }
     long val = elements.incrementAndGet();
     if (LOG.isTraceEnabled()) {
       long size = map.size();
@@ -475,6 +523,9 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
   public Cacheable getBlock(BlockCacheKey cacheKey, boolean caching, boolean repeat,
       boolean updateCacheMetrics) {
     LruCachedBlock cb = map.get(cacheKey);
+    if (!repeat && updateCacheMetrics) {
+      admissionFilter.recordAccess(cacheKey, cb != null);
+    }
     if (cb == null) {
       if (!repeat && updateCacheMetrics) {
         stats.miss(caching, cacheKey.isPrimary(), cacheKey.getBlockType());
@@ -497,7 +548,11 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
       return null;
     }
     if (updateCacheMetrics) stats.hit(caching, cacheKey.isPrimary(), cacheKey.getBlockType());
-    cb.access(count.incrementAndGet());
+    if (clock != null) {
+      cb.reference();
+    } else {
+      cb.access(count.incrementAndGet());
+    }
     return cb.getBuffer();
   }
 
@@ -554,6 +609,11 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
     if (!found) {
       return 0;
     }
+    // Blocks found by a clock sweep are already out of their ring; the slot is only read under
+    // the shard lock, so this finds out.
+    if (clock != null) {
+      clock.remove(block);
+    }
     updateSizeMetrics(block, true);
     long val = elements.decrementAndGet();
     if (LOG.isTraceEnabled()) {
@@ -564,6 +624,7 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
       // When the eviction of the block happened because of invalidation of HFiles, no need to
       // update the stats counter.
       stats.evicted(block.getCachedTime(), block.getCacheKey().isPrimary());
+      admissionFilter.onEviction(block.getCacheKey());
       if (victimHandler != null) {
         if (victimHandler instanceof BucketCache) {
           boolean wait = getCurrentSize() < acceptableSize();
@@ -607,6 +668,7 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
     // Ensure only one eviction at a time
     if(!evictionLock.tryLock()) return;
 
+    long start = System.nanoTime();
     try {
       evictionInProgress = true;
       long currentSize = this.size.get();
@@ -620,6 +682,11 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
 
       if (bytesToFree <= 0) return;
 
+      if (clock != null) {
+        evictWithClock(bytesToFree);
+        return;
+      }
+
       // Instantiate priority buckets
       BlockBucket bucketSingle = new BlockBucket("single", bytesToFree, blockSize, singleSize());
       BlockBucket bucketMulti = new BlockBucket("multi", bytesToFree, blockSize, multiSize());
@@ -715,11 +782,35 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
       }
     } finally {
       stats.evict();
+      stats.evictionTime(System.nanoTime() - start);
       evictionInProgress = false;
       evictionLock.unlock();
     }
   }
 
+  /**
+   * Eviction run of the clock mode. Called with the evictionLock held.
+   */
+  private void evictWithClock(long bytesToFree) {
+    // With forceInMemory, in-memory blocks only go once there is nothing else left.
+    boolean protectMemory = forceInMemory || memoryFactor > 0.999f;
+    long found = clock.sweep(bytesToFree, protectMemory ? Long.MAX_VALUE : memorySize(),
+      clockVictims);
+    if (found < bytesToFree && protectMemory) {
+      clock.sweep(bytesToFree - found, 0, clockVictims);
+    }
+    long bytesFreed = 0;
+    for (LruCachedBlock cb : clockVictims) {
+      bytesFreed += evictBlock(cb, true);
+    }
+    int evicted = clockVictims.size();
+    clockVictims.clear();
+    if (LOG.isTraceEnabled()) {
+      LOG.trace("Block cache clock eviction completed; freed=" + StringUtils.byteDesc(bytesFreed)
+        + " in " + evicted + " blocks, total=" + StringUtils.byteDesc(this.size.get()));
+    }
+  }
+
   @Override
   public String toString() {
     return Objects.toStringHelper(this)
@@ -943,7 +1034,8 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
           "0,": (StringUtils.formatPercent(stats.getHitCachingRatio(), 2) + ", ")) +
         "evictions=" + stats.getEvictionCount() + ", " +
         "evicted=" + stats.getEvictedCount() + ", " +
-        "evictedPerRun=" + stats.evictedPerEviction());
+        "evictedPerRun=" + stats.evictedPerEviction() + ", " +
+        "evictionTimeMeanMicros=" + stats.getEvictionTimeSnapshot().getMean());
   }
 
   /**
@@ -956,8 +1048,25 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
     return this.stats;
   }
 
+  private static boolean isClockEvictionMode(Configuration conf) {
+    String mode = conf.get(LRU_EVICTION_MODE_CONFIG_NAME, DEFAULT_EVICTION_MODE);
+    if ("clock".equalsIgnoreCase(mode)) {
+      return true;
+    }
+    if (!"lru".equalsIgnoreCase(mode)) {
+      throw new IllegalArgumentException("Unknown " + LRU_EVICTION_MODE_CONFIG_NAME + ": " + mode
+          + "; expected lru or clock");
+    }
+    return false;
+  }
+
+  @VisibleForTesting
+  void setAdmissionFilter(BlockCacheAdmissionFilter admissionFilter) {
+    this.admissionFilter = admissionFilter;
+  }
+
   public final static long CACHE_FIXED_OVERHEAD = ClassSize.align(
-      (4 * Bytes.SIZEOF_LONG) + (9 * ClassSize.REFERENCE) +
+      (4 * Bytes.SIZEOF_LONG) + (12 * ClassSize.REFERENCE) +
       (6 * Bytes.SIZEOF_FLOAT) + (2 * Bytes.SIZEOF_BOOLEAN)
       + ClassSize.OBJECT);
 
@@ -1106,6 +1215,9 @@ public class LruBlockCache implements ResizableBlockCache, HeapSize {
   @VisibleForTesting
   public void clearCache() {
     this.map.clear();
+    if (clock != null) {
+      clock.clear();
+    }
     this.elements.set(0);
   }
 
@@ -36,13 +36,17 @@ public class LruCachedBlock implements HeapSize, Comparable<LruCachedBlock> {
 
   public final static long PER_BLOCK_OVERHEAD = ClassSize.align(
     ClassSize.OBJECT + (3 * ClassSize.REFERENCE) + (3 * Bytes.SIZEOF_LONG) +
-    ClassSize.STRING + ClassSize.BYTE_BUFFER);
+    Bytes.SIZEOF_INT + Bytes.SIZEOF_BOOLEAN + ClassSize.STRING + ClassSize.BYTE_BUFFER);
 
   private final BlockCacheKey cacheKey;
   private final Cacheable buf;
   private volatile long accessTime;
   private long size;
   private BlockPriority priority;
+  /** Set on access in clock eviction mode; cleared when the clock hand passes */
+  private volatile boolean referenced;
+  /** Position in the clock ring, guarded by the ring's shard lock; -1 if not in a ring */
+  private int clockSlot = -1;
   /**
    * Time this block was cached.  Presumes we are created just before we are added to the cache.
    */
@@ -83,6 +87,38 @@ public class LruCachedBlock implements HeapSize, Comparable<LruCachedBlock> {
     }
   }
 
+  /**
+   * Block has been accessed, for the clock eviction mode. Unlike {@link #access(long)} this needs
+   * no cache-wide access sequence number.
+   */
+  public void reference() {
+    if (!this.referenced) {
+      this.referenced = true;
+    }
+    if (this.priority == BlockPriority.SINGLE) {
+      this.priority = BlockPriority.MULTI;
+    }
+  }
+
+  /**
+   * @return whether the block was accessed since this was last called
+   */
+  boolean clearReference() {
+    if (this.referenced) {
+      this.referenced = false;
+      return true;
+    }
+    return false;
+  }
+
+  int getClockSlot() {
+    return clockSlot;
+  }
+
+  void setClockSlot(int clockSlot) {
+    this.clockSlot = clockSlot;
+  }
+
   /**
    * @return Time we were cached at in nano seconds.
    */
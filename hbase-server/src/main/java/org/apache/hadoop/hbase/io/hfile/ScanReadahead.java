@@ -0,0 +1,222 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.util.Threads;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Loads data blocks into the block cache ahead of a scanner that reads a file sequentially.
+ * <p>
+ * Every block a scanner moves to is reported here. Once it has moved forward to the next block
+ * {@link #SEQUENTIAL_TRIGGER} times in a row, the following blocks are read in the background,
+ * with positional reads, and cached. The window of blocks kept loaded ahead follows how many
+ * blocks the scanner got through in its last batch, i.e. between two calls to
+ * {@link HFileScanner#shipped()}, or in the current one if that is more, up to
+ * {@link CacheConfig#READAHEAD_MAX_BLOCKS_KEY}. A client that fetches a few rows per call so
+ * gets a block or two loaded ahead; a long scan returning large batches gets the full window.
+ * <p>
+ * At most one load is in flight per scanner. Blocks already in the cache are skipped. Loaded
+ * blocks the scanner later reaches count as readahead hits, those it seeks past or never gets
+ * to before it is closed as wasted reads.
+ */
+@InterfaceAudience.Private
+class ScanReadahead {
+
+  private static final Log LOG = LogFactory.getLog(ScanReadahead.class);
+
+  /** Blocks a scanner has to move forward to in a row before blocks are loaded ahead of it */
+  static final int SEQUENTIAL_TRIGGER = 2;
+
+  /**
+   * How far, in blocks, a scanner may move forward and still be reading sequentially. Leaves
+   * room for index and bloom blocks written in between data blocks, and for short skips.
+   */
+  private static final int MAX_GAP_BLOCKS = 2;
+
+  /** Executor pool shared among all scanners for loading blocks ahead */
+  private static final ExecutorService readaheadPool;
+  static {
+    Configuration conf = HBaseConfiguration.create();
+    int threads = conf.getInt("hbase.hfile.thread.readahead", 4);
+    ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(threads * 64),
+        Threads.newDaemonThreadFactory("hfile-readahead"));
+    pool.allowCoreThreadTimeOut(true);
+    readaheadPool = pool;
+  }
+
+  private final HFileReaderImpl reader;
+  private final BlockCache blockCache;
+  private final CacheStats stats;
+  private final int maxBlocks;
+
+  // Only touched by the scanner's thread.
+  private int sequentialBlocks;
+  private int blocksSinceShipped;
+  private int lastBatchBlocks;
+
+  /** Offsets of the data blocks loaded ahead that the scanner has not reached yet, in order */
+  private final ConcurrentLinkedQueue<Long> loaded = new ConcurrentLinkedQueue<Long>();
+  /** Where the last load stopped, and the on-disk size of the block there if known */
+  private volatile long loadedEnd = -1;
+  private volatile int loadedEndSize = -1;
+  private final AtomicBoolean loading = new AtomicBoolean();
+  private volatile boolean closed;
+
+  ScanReadahead(HFileReaderImpl reader, BlockCache blockCache, int maxBlocks) {
+    this.reader = reader;
+    this.blockCache = blockCache;
+    this.stats = blockCache.getStats();
+    this.maxBlocks = maxBlocks;
+  }
+
+  /**
+   * Called when the scanner moves from one data block to another.
+   * @param prev the block the scanner was on, null if none
+   * @param block the block the scanner moved to
+   */
+  void blockRead(HFileBlock prev, HFileBlock block) {
+    long offset = block.getOffset();
+    passed(offset);
+    if (prev == null || offset <= prev.getOffset()
+        || offset - prev.getOffset() > (long) prev.getOnDiskSizeWithHeader() * MAX_GAP_BLOCKS) {
+      sequentialBlocks = 0;
+      return;
+    }
+    sequentialBlocks++;
+    blocksSinceShipped++;
+    if (sequentialBlocks < SEQUENTIAL_TRIGGER) {
+      return;
+    }
+    int window = Math.min(maxBlocks, Math.max(lastBatchBlocks, blocksSinceShipped));
+    int ahead = loaded.size();
+    // Top the window up once the scanner has got through half of it.
+    if (ahead > window / 2 || !loading.compareAndSet(false, true)) {
+      return;
+    }
+    long start = offset + block.getOnDiskSizeWithHeader();
+    int size = block.getNextBlockOnDiskSize();
+    long end = loadedEnd;
+    if (end > start) {
+      start = end;
+      size = loadedEndSize;
+    }
+    final long from = start;
+    final int fromSize = size;
+    final int count = window - ahead;
+    try {
+      readaheadPool.execute(() -> load(from, fromSize, count));
+    } catch (RejectedExecutionException e) {
+      // All readahead threads are busy; the scanner reads the blocks itself.
+      loading.set(false);
+    }
+  }
+
+  /**
+   * Called when the scanner's current batch is done; the blocks it went through size the window.
+   */
+  void shipped() {
+    if (blocksSinceShipped > 0) {
+      lastBatchBlocks = blocksSinceShipped;
+      blocksSinceShipped = 0;
+    }
+  }
+
+  void close() {
+    closed = true;
+    while (loaded.poll() != null) {
+      stats.readaheadWasted();
+    }
+  }
+
+  @VisibleForTesting
+  boolean isLoading() {
+    return loading.get();
+  }
+
+  /** Accounts the loaded blocks the scanner has now reached or gone past. */
+  private void passed(long offset) {
+    Long head;
+    while ((head = loaded.peek()) != null && head <= offset) {
+      loaded.poll();
+      if (head == offset) {
+        stats.readaheadHit();
+      } else {
+        stats.readaheadWasted();
+      }
+    }
+  }
+
+  /**
+   * Reads up to count data blocks from the given offset into the block cache.
+   * @param size on-disk size of the block at offset, -1 if not known
+   */
+  private void load(long offset, int size, int count) {
+    try {
+      long lastDataBlockOffset = reader.getTrailer().getLastDataBlockOffset();
+      int done = 0;
+      while (!closed && done < count && offset <= lastDataBlockOffset) {
+        BlockCacheKey cacheKey = new BlockCacheKey(reader.getName(), offset,
+            reader.isPrimaryReplicaReader(), null);
+        HFileBlock block = (HFileBlock) blockCache.getBlock(cacheKey, true, false, false);
+        boolean cached = block != null;
+        if (!cached) {
+          block = reader.readBlock(offset, size, true, true, false, false, null, null);
+        }
+        try {
+          if (block.getBlockType().isData()) {
+            done++;
+            if (!cached) {
+              stats.readahead();
+              loaded.add(offset);
+            }
+          }
+          offset += block.getOnDiskSizeWithHeader();
+          size = block.getNextBlockOnDiskSize();
+        } finally {
+          reader.returnBlock(block);
+        }
+        loadedEndSize = size;
+        loadedEnd = offset;
+      }
+    } catch (IOException e) {
+      // The file may have been closed under us, e.g. after a compaction; nothing to load then.
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("Readahead of " + reader.getPath() + " stopped at " + offset, e);
+      }
+    } finally {
+      loading.set(false);
+    }
+  }
+}
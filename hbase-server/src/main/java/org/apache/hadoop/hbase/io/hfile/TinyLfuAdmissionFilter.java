@@ -0,0 +1,111 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * TinyLFU admission: a data block is only let into a full cache if it has been asked for more
+ * often than the blocks the cache has recently been evicting.
+ * <p>
+ * W-TinyLFU compares a candidate with the single victim its eviction policy would pick next. Our
+ * caches evict in batches from priority buckets and can not name that victim at insert time, so
+ * the filter instead keeps a moving average of the estimated frequency of the blocks actually
+ * evicted and admits candidates seen more often than that. A block read once by a scan has been
+ * seen once, loses to a warm victim, and is not cached; reading it again gets it in.
+ * <p>
+ * Only data blocks are filtered. Index, bloom and other meta blocks, and blocks of in-memory
+ * families, are always admitted. A second sketch remembers which blocks were turned
+ * away so that the stats can count how often a rejected block was asked for again, which is
+ * the price paid for each rejection.
+ */
+@InterfaceAudience.Private
+public class TinyLfuAdmissionFilter implements BlockCacheAdmissionFilter {
+
+  /** Weight of the latest victim in the moving average of victim frequencies */
+  private static final double VICTIM_WEIGHT = 0.125;
+
+  private final FrequencySketch sketch;
+  private final FrequencySketch rejected;
+  private final CacheStats stats;
+
+  /**
+   * Moving average of victim frequencies. Written by the eviction thread(s) only; a lost update
+   * from concurrent evictions just nudges the threshold slightly.
+   */
+  private volatile double victimFrequency;
+
+  public TinyLfuAdmissionFilter(long expectedBlocks, CacheStats stats) {
+    this.sketch = new FrequencySketch(expectedBlocks);
+    this.rejected = new FrequencySketch(expectedBlocks);
+    this.stats = stats;
+  }
+
+  @Override
+  public void recordAccess(BlockCacheKey cacheKey, boolean hit) {
+    int hash = cacheKey.hashCode();
+    sketch.increment(hash);
+    if (!hit && rejected.frequency(hash) > 0) {
+      stats.admissionRejectedRequest();
+    }
+  }
+
+  @Override
+  public boolean admit(BlockCacheKey cacheKey, boolean inMemory) {
+    if (inMemory || !isFiltered(cacheKey)) {
+      return true;
+    }
+    int hash = cacheKey.hashCode();
+    // Round, or an average creeping up on 1 from below would never turn a one-off block away.
+    if (sketch.frequency(hash) > Math.round(victimFrequency)) {
+      stats.admissionAdmitted();
+      return true;
+    }
+    rejected.increment(hash);
+    stats.admissionRejected();
+    return false;
+  }
+
+  @Override
+  public void onEviction(BlockCacheKey cacheKey) {
+    if (!isFiltered(cacheKey)) {
+      return;
+    }
+    int frequency = sketch.frequency(cacheKey.hashCode());
+    double current = victimFrequency;
+    victimFrequency = current + (frequency - current) * VICTIM_WEIGHT;
+  }
+
+  @VisibleForTesting
+  double getVictimFrequency() {
+    return victimFrequency;
+  }
+
+  @VisibleForTesting
+  FrequencySketch getSketch() {
+    return sketch;
+  }
+
+  /** Keys cached without a block type are treated as data. */
+  private static boolean isFiltered(BlockCacheKey cacheKey) {
+    BlockType type = cacheKey.getBlockType();
+    return type == null || type.getCategory() == BlockType.BlockCategory.DATA;
+  }
+}
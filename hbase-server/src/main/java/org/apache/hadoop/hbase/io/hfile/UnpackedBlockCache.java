@@ -0,0 +1,115 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * A small on-heap LRU of recently unpacked data blocks, used when data blocks are cached packed
+ * (see {@link CacheConfig#CACHE_DATA_BLOCKS_COMPRESSED_KEY}).
+ * <p>
+ * Caching blocks compressed lets a block cache, typically an off-heap {@code BucketCache}, hold
+ * several times more data, but then every hit has to decompress. Hot blocks are hit over and
+ * over, so the last few unpacked copies are kept here. The block cache is still looked up first
+ * on every read so its hit accounting and recency stay right; this cache only saves the unpack.
+ * <p>
+ * Blocks are keyed the same as in the block cache. Only blocks that actually needed unpacking
+ * are kept; blocks of uncompressed, unencrypted files may share memory with the block cache and
+ * are never retained here.
+ */
+@InterfaceAudience.Private
+public class UnpackedBlockCache {
+
+  private final LruBlockCache cache;
+
+  /** Times a cached packed block had to be unpacked */
+  private final LongAdder unpackCount = new LongAdder();
+
+  /** Time spent unpacking cached packed blocks, in nanoseconds */
+  private final LongAdder unpackTime = new LongAdder();
+
+  public UnpackedBlockCache(long maxSize, long blockSize, Configuration conf) {
+    this.cache = new LruBlockCache(maxSize, blockSize, true, conf);
+  }
+
+  /**
+   * @param packed a packed block just served by the block cache under cacheKey
+   * @return the unpacked block, from this cache if we have it
+   */
+  public HFileBlock unpack(BlockCacheKey cacheKey, HFileBlock packed, HFileContext fileContext,
+      HFileBlock.FSReader reader) throws IOException {
+    HFileBlock unpacked = (HFileBlock) cache.getBlock(cacheKey, true, false, true);
+    if (unpacked != null) {
+      return unpacked;
+    }
+    long start = System.nanoTime();
+    unpacked = packed.unpack(fileContext, reader);
+    unpackTime.add(System.nanoTime() - start);
+    unpackCount.increment();
+    cacheUnpacked(cacheKey, packed, unpacked);
+    return unpacked;
+  }
+
+  /**
+   * Remembers a block unpacked by the caller, e.g. one just read from the filesystem and cached
+   * packed.
+   */
+  public void cacheUnpacked(BlockCacheKey cacheKey, HFileBlock packed, HFileBlock unpacked) {
+    if (unpacked != packed && !cache.containsBlock(cacheKey)) {
+      cache.cacheBlock(cacheKey, unpacked);
+    }
+  }
+
+  public int evictBlocksByHfileName(String hfileName) {
+    return cache.evictBlocksByHfileName(hfileName);
+  }
+
+  public void shutdown() {
+    cache.shutdown();
+  }
+
+  /**
+   * @return hit and miss counts of the unpacked copies
+   */
+  public CacheStats getStats() {
+    return cache.getStats();
+  }
+
+  public long getUnpackCount() {
+    return unpackCount.sum();
+  }
+
+  /**
+   * @return total time spent unpacking cached packed blocks, in nanoseconds
+   */
+  public long getUnpackTime() {
+    return unpackTime.sum();
+  }
+
+  public long getBlockCount() {
+    return cache.getBlockCount();
+  }
+
+  public long getCurrentSize() {
+    return cache.getCurrentSize();
+  }
+}
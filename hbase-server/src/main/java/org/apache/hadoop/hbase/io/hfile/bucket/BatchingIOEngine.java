@@ -0,0 +1,177 @@
+/**
+ * Copyright The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile.bucket;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.io.hfile.Cacheable;
+import org.apache.hadoop.hbase.io.hfile.CacheableDeserializer;
+import org.apache.hadoop.hbase.nio.ByteBuff;
+import org.apache.hadoop.hbase.nio.SingleByteBuff;
+
+/**
+ * Collects the writes of one {@link BucketCache} writer drain and hands them to the real
+ * {@link IOEngine} on {@link #flush()}, sorted by offset and merged into as few writes as
+ * possible.
+ * <p>
+ * Consecutive allocations from a bucket are next to each other, but a block rarely fills its
+ * allocation exactly. The unused tail of an allocation belongs to the block, so short gaps that
+ * end exactly where the allocation ends are padded over rather than starting a new write.
+ * <p>
+ * Only the writer thread that owns a batch may use it. Reads go straight to the engine and do
+ * not see pending writes.
+ */
+@InterfaceAudience.Private
+class BatchingIOEngine implements IOEngine {
+
+  /** Largest gap padded over to keep a run of writes going */
+  static final int MAX_PADDING = 16 * 1024;
+
+  /** Only ever read from; some engines want buffers with an accessible array */
+  private static final ByteBuffer PADDING = ByteBuffer.allocate(MAX_PADDING);
+
+  private static final Comparator<PendingWrite> BY_OFFSET = new Comparator<PendingWrite>() {
+    @Override
+    public int compare(PendingWrite a, PendingWrite b) {
+      return Long.compare(a.offset, b.offset);
+    }
+  };
+
+  private final IOEngine engine;
+  private final BucketAllocator allocator;
+  private final List<PendingWrite> pending = new ArrayList<PendingWrite>();
+  private final List<ByteBuffer> run = new ArrayList<ByteBuffer>();
+
+  BatchingIOEngine(IOEngine engine, BucketAllocator allocator) {
+    this.engine = engine;
+    this.allocator = allocator;
+  }
+
+  @Override
+  public boolean isPersistent() {
+    return engine.isPersistent();
+  }
+
+  @Override
+  public Cacheable read(long offset, int length, CacheableDeserializer<Cacheable> deserializer)
+      throws IOException {
+    return engine.read(offset, length, deserializer);
+  }
+
+  @Override
+  public void write(ByteBuffer srcBuffer, long offset) throws IOException {
+    if (srcBuffer.hasRemaining()) {
+      pending.add(new PendingWrite(srcBuffer.duplicate(), offset));
+    }
+  }
+
+  @Override
+  public void write(ByteBuff srcBuffer, long offset) throws IOException {
+    if (srcBuffer instanceof SingleByteBuff) {
+      ByteBuffer buffer = ((SingleByteBuff) srcBuffer).getEnclosingByteBuffer().duplicate();
+      buffer.limit(srcBuffer.limit());
+      buffer.position(srcBuffer.position());
+      write(buffer, offset);
+    } else {
+      // Not worth flattening; these are rare.
+      engine.write(srcBuffer, offset);
+    }
+  }
+
+  /**
+   * Issues the pending writes. They are forgotten even on failure, when the caller has to assume
+   * none of them made it.
+   * @return how many writes were issued to the engine
+   */
+  int flush() throws IOException {
+    int writes = 0;
+    try {
+      Collections.sort(pending, BY_OFFSET);
+      int i = 0;
+      while (i < pending.size()) {
+        long runOffset = pending.get(i).offset;
+        long runEnd = runOffset;
+        run.clear();
+        for (; i < pending.size(); i++) {
+          PendingWrite write = pending.get(i);
+          long gap = write.offset - runEnd;
+          if (gap != 0 && !canPad(runEnd, gap)) {
+            break;
+          }
+          if (gap > 0) {
+            ByteBuffer padding = PADDING.duplicate();
+            padding.limit((int) gap);
+            run.add(padding);
+          }
+          run.add(write.buffer);
+          runEnd = write.offset + write.buffer.remaining();
+        }
+        if (run.size() == 1) {
+          engine.write(run.get(0), runOffset);
+        } else {
+          engine.write(run.toArray(new ByteBuffer[run.size()]), runOffset);
+        }
+        writes++;
+      }
+    } finally {
+      pending.clear();
+      run.clear();
+    }
+    return writes;
+  }
+
+  /**
+   * @return true if the gap of the given length at offset is the unused tail of an allocation
+   */
+  private boolean canPad(long offset, long gap) {
+    return gap > 0 && gap <= MAX_PADDING && allocator.endOfAllocation(offset - 1) == offset + gap;
+  }
+
+  /**
+   * Flushes the pending writes, then syncs the engine.
+   */
+  @Override
+  public void sync() throws IOException {
+    flush();
+    engine.sync();
+  }
+
+  /**
+   * Does nothing; the engine belongs to the cache, not to the batch.
+   */
+  @Override
+  public void shutdown() {
+  }
+
+  private static final class PendingWrite {
+    final ByteBuffer buffer;
+    final long offset;
+
+    PendingWrite(ByteBuffer buffer, long offset) {
+      this.buffer = buffer;
+      this.offset = offset;
+    }
+  }
+}
@@ -495,6 +495,16 @@ public final class BucketAllocator {
     return targetBucket.getItemAllocationSize();
   }
 
+  /**
+   * @param position any offset inside an allocated block
+   * @return the offset just past the end of the allocation holding position
+   */
+  public long endOfAllocation(long position) {
+    long baseOffset = position / bucketCapacity * bucketCapacity;
+    int itemSize = sizeOfAllocation(position);
+    return baseOffset + ((position - baseOffset) / itemSize + 1) * itemSize;
+  }
+
   static class IndexStatistics {
     private long freeCount, usedCount, itemSize, totalCount;
 
@@ -31,6 +31,8 @@ import java.io.Serializable;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -42,7 +44,9 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -50,12 +54,15 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.io.HeapSize;
 import org.apache.hadoop.hbase.io.hfile.BlockCache;
+import org.apache.hadoop.hbase.io.hfile.BlockCacheAdmissionFilter;
 import org.apache.hadoop.hbase.io.hfile.BlockCacheKey;
 import org.apache.hadoop.hbase.io.hfile.BlockCacheUtil;
 import org.apache.hadoop.hbase.io.hfile.BlockPriority;
@@ -113,6 +120,22 @@ public class BucketCache implements BlockCache, HeapSize {
   final static int DEFAULT_WRITER_THREADS = 3;
   final static int DEFAULT_WRITER_QUEUE_ITEMS = 64;
 
+  /**
+   * How often, in milliseconds, the index of a persistent IOEngine is checkpointed to the
+   * persistence path. Between checkpoints, allocations and frees are journaled so the cache
+   * survives a crash; see {@link BucketCachePersister}. Zero or less, the default, persists the
+   * index only on clean shutdown.
+   */
+  public static final String BUCKETCACHE_PERSIST_INTERVAL_KEY =
+      "hbase.bucketcache.persist.intervalinmillis";
+  public static final long DEFAULT_BUCKETCACHE_PERSIST_INTERVAL = 0;
+
+  /**
+   * How often, in milliseconds, journaled records are made durable. Writer threads only queue
+   * records; the sync runs on the schedule pool so no disk flush sits on the caching path.
+   */
+  private static final long JOURNAL_SYNC_PERIOD = 1000;
+
   // Store/read block data
   final IOEngine ioEngine;
 
@@ -165,7 +188,32 @@ public class BucketCache implements BlockCache, HeapSize {
 
   private final BucketCacheStats cacheStats = new BucketCacheStats();
 
+  /** Decides which blocks get in once the cache is full */
+  private final BlockCacheAdmissionFilter admissionFilter;
+
+  /**
+   * The tier below this one, or null. Blocks evicted to make room are demoted to it instead of
+   * being dropped, lookups that miss here are passed on to it, and its hits are promoted back.
+   */
+  private volatile BlockCache victimCache;
+  /**
+   * Reads out the blocks evicted to make room and demotes them to {@link #victimCache}, so no read
+   * sits on the eviction path. Their space is released once they are read; null without a tier
+   * below.
+   */
+  private volatile ExecutorService demoter;
+  /** Evicted blocks whose space is held until the demoter has read them */
+  private final AtomicInteger pendingDemotions = new AtomicInteger();
+
   private final String persistencePath;
+  /** Checkpoints and journals the index; null if it is only persisted on clean shutdown */
+  private final BucketCachePersister persister;
+  private final Runnable journalSyncer = new Runnable() {
+    @Override
+    public void run() {
+      syncJournal();
+    }
+  };
   private final long cacheCapacity;
   /** Approximate block size */
   private final long blockSize;
@@ -221,6 +269,14 @@ public class BucketCache implements BlockCache, HeapSize {
   public BucketCache(String ioEngineName, long capacity, int blockSize, int[] bucketSizes,
       int writerThreadNum, int writerQLen, String persistencePath, int ioErrorsTolerationDuration)
       throws FileNotFoundException, IOException {
+    // Defaults only; callers with a Configuration use the constructor below.
+    this(ioEngineName, capacity, blockSize, bucketSizes, writerThreadNum, writerQLen,
+      persistencePath, ioErrorsTolerationDuration, new Configuration(false));
+  }
+
+  public BucketCache(String ioEngineName, long capacity, int blockSize, int[] bucketSizes,
+      int writerThreadNum, int writerQLen, String persistencePath, int ioErrorsTolerationDuration,
+      Configuration conf) throws FileNotFoundException, IOException {
     this.ioEngine = getIOEngineFromName(ioEngineName, capacity);
     this.writerThreads = new WriterThread[writerThreadNum];
     long blockNumCapacity = capacity / blockSize;
@@ -233,6 +289,11 @@ public class BucketCache implements BlockCache, HeapSize {
     this.persistencePath = persistencePath;
     this.blockSize = blockSize;
     this.ioErrorsTolerationDuration = ioErrorsTolerationDuration;
+    long persistInterval = conf.getLong(BUCKETCACHE_PERSIST_INTERVAL_KEY,
+      DEFAULT_BUCKETCACHE_PERSIST_INTERVAL);
+    this.persister = ioEngine.isPersistent() && persistencePath != null && persistInterval > 0 ?
+        new BucketCachePersister(persistencePath) : null;
+    this.admissionFilter = BlockCacheAdmissionFilter.create(conf, blockNumCapacity, cacheStats);
 
     bucketAllocator = new BucketAllocator(capacity, bucketSizes);
     for (int i = 0; i < writerThreads.length; ++i) {
@@ -254,6 +315,10 @@ public class BucketCache implements BlockCache, HeapSize {
         throw new RuntimeException(cnfe);
       }
     }
+    if (persister != null) {
+      // Start from a checkpoint of whatever we restored so stale journals are never replayed.
+      checkpoint();
+    }
     final String threadName = Thread.currentThread().getName();
     this.cacheEnabled = true;
     for (int i = 0; i < writerThreads.length; ++i) {
@@ -268,11 +333,22 @@ public class BucketCache implements BlockCache, HeapSize {
     // every five minutes.
     this.scheduleThreadPool.scheduleAtFixedRate(new StatisticsThread(this),
         statThreadPeriod, statThreadPeriod, TimeUnit.SECONDS);
+    if (persister != null) {
+      this.scheduleThreadPool.scheduleWithFixedDelay(new Runnable() {
+        @Override
+        public void run() {
+          checkpoint();
+        }
+      }, persistInterval, persistInterval, TimeUnit.MILLISECONDS);
+      this.scheduleThreadPool.scheduleWithFixedDelay(journalSyncer, JOURNAL_SYNC_PERIOD,
+        JOURNAL_SYNC_PERIOD, TimeUnit.MILLISECONDS);
+    }
     LOG.info("Started bucket cache; ioengine=" + ioEngineName +
         ", capacity=" + StringUtils.byteDesc(capacity) +
       ", blockSize=" + StringUtils.byteDesc(blockSize) + ", writerThreadNum=" +
         writerThreadNum + ", writerQLen=" + writerQLen + ", persistencePath=" +
-      persistencePath + ", bucketAllocator=" + this.bucketAllocator.getClass().getName());
+      persistencePath + ", persistInterval=" + (persister == null ? "none" : persistInterval) +
+      ", bucketAllocator=" + this.bucketAllocator.getClass().getName());
   }
 
   /**
@@ -309,7 +385,8 @@ public class BucketCache implements BlockCache, HeapSize {
   private IOEngine getIOEngineFromName(String ioEngineName, long capacity)
       throws IOException {
     if (ioEngineName.startsWith("file:")) {
-      return new FileIOEngine(ioEngineName.substring(5), capacity);
+      // Several comma separated files stripe the cache over them
+      return new FileIOEngine(capacity, ioEngineName.substring(5).split(","));
     } else if (ioEngineName.startsWith("offheap")) {
       return new ByteBufferIOEngine(capacity, true);
     } else if (ioEngineName.startsWith("heap")) {
@@ -362,6 +439,9 @@ public class BucketCache implements BlockCache, HeapSize {
     if (backingMap.containsKey(cacheKey)) {
       return;
     }
+    if (bucketAllocator.getUsedSize() >= minSize() && !admissionFilter.admit(cacheKey, inMemory)) {
+      return;
+    }
 
     /*
      * Stuff the entry into the RAM cache so it can get drained to the persistent store
@@ -386,6 +466,7 @@ public class BucketCache implements BlockCache, HeapSize {
     if (!successfulAddition) {
       ramCache.remove(cacheKey);
       cacheStats.failInsert();
+      cacheStats.writerQueueFull();
     } else {
       this.blockNumber.incrementAndGet();
       this.heapSize.addAndGet(cachedItem.heapSize());
@@ -411,6 +492,9 @@ public class BucketCache implements BlockCache, HeapSize {
     if (re != null) {
       if (updateCacheMetrics) {
         cacheStats.hit(caching, key.isPrimary(), key.getBlockType());
+        if (!repeat) {
+          admissionFilter.recordAccess(key, true);
+        }
       }
       re.access(accessCount.incrementAndGet());
       return re.getData();
@@ -418,6 +502,7 @@ public class BucketCache implements BlockCache, HeapSize {
     BucketEntry bucketEntry = backingMap.get(key);
     if (bucketEntry != null) {
       long start = System.nanoTime();
+      boolean staleRestoredBlock = false;
       ReentrantReadWriteLock lock = offsetLock.getLock(bucketEntry.offset());
       try {
         lock.readLock().lock();
@@ -431,21 +516,30 @@ public class BucketCache implements BlockCache, HeapSize {
           if (LOG.isTraceEnabled()) {
             LOG.trace("Read offset=" + bucketEntry.offset() + ", len=" + len);
           }
-          Cacheable cachedBlock = ioEngine.read(bucketEntry.offset(), len,
-              bucketEntry.deserializerReference(this.deserialiserMap));
-          long timeTaken = System.nanoTime() - start;
-          if (updateCacheMetrics) {
-            cacheStats.hit(caching, key.isPrimary(), key.getBlockType());
-            cacheStats.ioHit(timeTaken);
-          }
-          if (cachedBlock.getMemoryType() == MemoryType.SHARED) {
-            bucketEntry.refCount.incrementAndGet();
-          }
-          bucketEntry.access(accessCount.incrementAndGet());
-          if (this.ioErrorStartTime > 0) {
-            ioErrorStartTime = -1;
+          Cacheable cachedBlock = bucketEntry.isVerified() ?
+              ioEngine.read(bucketEntry.offset(), len,
+                bucketEntry.deserializerReference(this.deserialiserMap)) :
+              readRestoredBlock(key, bucketEntry);
+          if (cachedBlock == null) {
+            staleRestoredBlock = true;
+          } else {
+            long timeTaken = System.nanoTime() - start;
+            if (updateCacheMetrics) {
+              cacheStats.hit(caching, key.isPrimary(), key.getBlockType());
+              cacheStats.ioHit(timeTaken);
+              if (!repeat) {
+                admissionFilter.recordAccess(key, true);
+              }
+            }
+            if (cachedBlock.getMemoryType() == MemoryType.SHARED) {
+              bucketEntry.refCount.incrementAndGet();
+            }
+            bucketEntry.access(accessCount.incrementAndGet());
+            if (this.ioErrorStartTime > 0) {
+              ioErrorStartTime = -1;
+            }
+            return cachedBlock;
           }
-          return cachedBlock;
         }
       } catch (IOException ioex) {
         LOG.error("Failed reading block " + key + " from bucket cache", ioex);
@@ -453,16 +547,187 @@ public class BucketCache implements BlockCache, HeapSize {
       } finally {
         lock.readLock().unlock();
       }
+      if (staleRestoredBlock) {
+        // Can't trust anything else restored for this file either.
+        cacheStats.staleRestoredBlock();
+        int evicted = evictBlocksByHfileName(key.getHfileName());
+        LOG.warn("Restored bucket cache entry for " + key + " does not hold that block; dropped "
+            + evicted + " cached blocks of " + key.getHfileName());
+      }
+    }
+    BlockCache lowerTier = victimCache;
+    if (lowerTier != null && !repeat) {
+      if (updateCacheMetrics) {
+        // The lowest tier counts the miss, so the stats of all the tiers add up.
+        admissionFilter.recordAccess(key, false);
+      }
+      Cacheable result = lowerTier.getBlock(key, caching, repeat, updateCacheMetrics);
+      if (result != null && caching) {
+        result = promote(key, result, lowerTier);
+      }
+      return result;
     }
     if (!repeat && updateCacheMetrics) {
       cacheStats.miss(caching, key.isPrimary(), key.getBlockType());
+      admissionFilter.recordAccess(key, false);
     }
     return null;
   }
 
+  /**
+   * Caches a block found in the tier below in this one.
+   * @return the block to hand to the reader
+   */
+  private Cacheable promote(BlockCacheKey key, Cacheable block, BlockCache lowerTier) {
+    if (block.getMemoryType() == MemoryType.SHARED) {
+      if (!(block instanceof HFileBlock)) {
+        return block;
+      }
+      // Copy it out so the lower tier is free to evict its copy.
+      Cacheable copy = ((HFileBlock) block).deepClone();
+      lowerTier.returnBlock(key, block);
+      block = copy;
+    }
+    boolean inMemory =
+        lowerTier instanceof BucketCache && ((BucketCache) lowerTier).isInMemory(key);
+    cacheBlockWithWait(key, block, inMemory, false);
+    cacheStats.promoted();
+    return block;
+  }
+
+  /**
+   * @return true if the block is cached here with in-memory priority
+   */
+  public boolean isInMemory(BlockCacheKey cacheKey) {
+    BucketEntry bucketEntry = backingMap.get(cacheKey);
+    if (bucketEntry != null) {
+      return bucketEntry.getPriority() == BlockPriority.MEMORY;
+    }
+    RAMQueueEntry re = ramCache.get(cacheKey);
+    return re != null && re.inMemory;
+  }
+
+  /**
+   * Hands a block just evicted to the demoter. Its space must not have been released yet.
+   * @return false if the demoter did not take it, in which case the caller releases the space
+   */
+  private boolean scheduleDemotion(final BlockCacheKey key, final BucketEntry bucketEntry) {
+    ExecutorService executor = demoter;
+    if (executor == null) {
+      return false;
+    }
+    pendingDemotions.incrementAndGet();
+    try {
+      executor.execute(new Runnable() {
+        @Override
+        public void run() {
+          try {
+            demote(key, bucketEntry);
+          } finally {
+            releaseSpace(key, bucketEntry);
+            pendingDemotions.decrementAndGet();
+          }
+        }
+      });
+      return true;
+    } catch (RejectedExecutionException e) {
+      pendingDemotions.decrementAndGet();
+      return false;
+    }
+  }
+
+  /**
+   * Reads out an evicted block, whose space is still held, and caches it in the tier below.
+   */
+  private void demote(BlockCacheKey key, BucketEntry bucketEntry) {
+    BlockCache lowerTier = victimCache;
+    Cacheable block;
+    try {
+      block = ioEngine.read(bucketEntry.offset(), bucketEntry.getLength(),
+        bucketEntry.deserializerReference(this.deserialiserMap));
+    } catch (IOException ioex) {
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Failed reading block " + key + " for demotion", ioex);
+      }
+      return;
+    }
+    if (block.getMemoryType() == MemoryType.SHARED) {
+      if (!(block instanceof HFileBlock)) {
+        return;
+      }
+      // Our space goes back to the allocator right after this.
+      block = ((HFileBlock) block).deepClone();
+    }
+    boolean inMemory = bucketEntry.getPriority() == BlockPriority.MEMORY;
+    if (lowerTier instanceof BucketCache) {
+      // Never wait; demotions must not back up behind the tier below.
+      ((BucketCache) lowerTier).cacheBlockWithWait(key, block, inMemory, false);
+    } else {
+      lowerTier.cacheBlock(key, block, inMemory, false);
+    }
+    cacheStats.demoted();
+  }
+
+  /**
+   * Sets the tier below this one; see {@link #victimCache}.
+   */
+  public void setVictimCache(BlockCache victimCache) {
+    assert this.victimCache == null;
+    this.victimCache = victimCache;
+    this.demoter = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+        .setNameFormat("BucketCacheDemoter").setDaemon(true).build());
+  }
+
+  public BlockCache getVictimCache() {
+    return victimCache;
+  }
+
+  /**
+   * Read a block whose entry was restored from a persisted index rather than written by this
+   * process. If we crashed, the bucket space behind such an entry may hold something else, so
+   * the deserialized block is checked against its key before the entry is trusted.
+   * @return the block, or null if the entry is stale
+   */
+  private Cacheable readRestoredBlock(BlockCacheKey key, BucketEntry bucketEntry) {
+    Cacheable cachedBlock;
+    try {
+      cachedBlock = ioEngine.read(bucketEntry.offset(), bucketEntry.getLength(),
+        bucketEntry.deserializerReference(this.deserialiserMap));
+    } catch (IOException ioex) {
+      // Most likely garbage that does not deserialize; don't count it against the IOEngine.
+      if (LOG.isDebugEnabled()) {
+        LOG.debug("Failed deserializing restored block " + key, ioex);
+      }
+      return null;
+    }
+    if (cachedBlock instanceof HFileBlock
+        && !((HFileBlock) cachedBlock).isConsistentWithOffset(key.getOffset())) {
+      return null;
+    }
+    // A block of another hfile cached at the same offset passes the check above; only the
+    // checksum taken when the entry was written tells them apart. Entries from persistence
+    // files that predate checksums were written on clean shutdown and are taken as they are.
+    if (bucketEntry.hasChecksum() && bucketEntry.getChecksum() != checksumOf(cachedBlock)) {
+      return null;
+    }
+    bucketEntry.markVerified();
+    return cachedBlock;
+  }
+
   @VisibleForTesting
   void blockEvicted(BlockCacheKey cacheKey, BucketEntry bucketEntry, boolean decrementBlockNumber) {
-    bucketAllocator.freeBlock(bucketEntry.offset());
+    blockEvicted(cacheKey, bucketEntry, decrementBlockNumber, false);
+  }
+
+  /**
+   * @param demote whether to demote the block to the tier below; its space is then released once
+   *   it has been read out
+   */
+  private void blockEvicted(BlockCacheKey cacheKey, BucketEntry bucketEntry,
+      boolean decrementBlockNumber, boolean demote) {
+    if (!demote || !scheduleDemotion(cacheKey, bucketEntry)) {
+      releaseSpace(cacheKey, bucketEntry);
+    }
     realCacheSize.addAndGet(-1 * bucketEntry.getLength());
     blocksByHFile.remove(cacheKey);
     if (decrementBlockNumber) {
@@ -470,9 +735,23 @@ public class BucketCache implements BlockCache, HeapSize {
     }
   }
 
+  private void releaseSpace(BlockCacheKey cacheKey, BucketEntry bucketEntry) {
+    if (persister != null) {
+      // The offset goes back to the allocator once the free is durable in the journal.
+      persister.journalFree(cacheKey, bucketEntry);
+    } else {
+      bucketAllocator.freeBlock(bucketEntry.offset());
+    }
+  }
+
   @Override
   public boolean evictBlock(BlockCacheKey cacheKey) {
-    return evictBlock(cacheKey, true);
+    boolean evicted = evictBlock(cacheKey, true);
+    BlockCache lowerTier = victimCache;
+    if (lowerTier != null) {
+      evicted |= lowerTier.evictBlock(cacheKey);
+    }
+    return evicted;
   }
 
   // does not check for the ref count. Just tries to evict it if found in the
@@ -516,6 +795,13 @@ public class BucketCache implements BlockCache, HeapSize {
   }
 
   public boolean evictBlock(BlockCacheKey cacheKey, boolean deletedBlock) {
+    return evictBlock(cacheKey, deletedBlock, false);
+  }
+
+  /**
+   * @param demote whether to demote the block to the tier below if it is evicted now
+   */
+  private boolean evictBlock(BlockCacheKey cacheKey, boolean deletedBlock, boolean demote) {
     if (!cacheEnabled) {
       return false;
     }
@@ -535,7 +821,7 @@ public class BucketCache implements BlockCache, HeapSize {
       int refCount = bucketEntry.refCount.get();
       if(refCount == 0) {
         if (backingMap.remove(cacheKey, bucketEntry)) {
-          blockEvicted(cacheKey, bucketEntry, removedBlock == null);
+          blockEvicted(cacheKey, bucketEntry, removedBlock == null, demote);
         } else {
           return false;
         }
@@ -602,7 +888,9 @@ public class BucketCache implements BlockCache, HeapSize {
           (StringUtils.formatPercent(cacheStats.getHitCachingRatio(), 2)+ ", ")) +
         "evictions=" + cacheStats.getEvictionCount() + ", " +
         "evicted=" + cacheStats.getEvictedCount() + ", " +
-        "evictedPerRun=" + cacheStats.evictedPerEviction());
+        "evictedPerRun=" + cacheStats.evictedPerEviction() + ", " +
+        "writerQueueFull=" + cacheStats.getWriterQueueFullCount() + ", " +
+        "blocksPerWrite=" + String.format("%.2f", cacheStats.getBlocksPerWrite()));
     cacheStats.reset();
   }
 
@@ -614,6 +902,10 @@ public class BucketCache implements BlockCache, HeapSize {
     return (long) Math.floor(bucketAllocator.getTotalSize() * DEFAULT_ACCEPT_FACTOR);
   }
 
+  private long minSize() {
+    return (long) Math.floor(bucketAllocator.getTotalSize() * DEFAULT_MIN_FACTOR);
+  }
+
   private long singleSize() {
     return (long) Math.floor(bucketAllocator.getTotalSize()
         * DEFAULT_SINGLE_FACTOR * DEFAULT_MIN_FACTOR);
@@ -636,6 +928,9 @@ public class BucketCache implements BlockCache, HeapSize {
    * @param why Why we are being called
    */
   private void freeSpace(final String why) {
+    if (awaitingFreedSpace()) {
+      return;
+    }
     // Ensure only one freeSpace progress at a time
     if (!freeSpaceLock.tryLock()) {
       return;
@@ -771,6 +1066,7 @@ public class BucketCache implements BlockCache, HeapSize {
     } catch (Throwable t) {
       LOG.warn("Failed freeing space", t);
     } finally {
+      requestJournalSync();
       cacheStats.evict();
       freeInProgress = false;
       freeSpaceLock.unlock();
@@ -781,11 +1077,13 @@ public class BucketCache implements BlockCache, HeapSize {
   @VisibleForTesting
   class WriterThread extends HasThread {
     private final BlockingQueue<RAMQueueEntry> inputQueue;
+    private final BatchingIOEngine batch;
     private volatile boolean writerEnabled = true;
 
     WriterThread(BlockingQueue<RAMQueueEntry> queue) {
       super("BucketCacheWriterThread");
       this.inputQueue = queue;
+      this.batch = new BatchingIOEngine(ioEngine, bucketAllocator);
     }
 
     // Used for test
@@ -819,7 +1117,8 @@ public class BucketCache implements BlockCache, HeapSize {
     /**
      * Flush the entries in ramCache to IOEngine and add bucket entry to backingMap.
      * Process all that are passed in even if failure being sure to remove from ramCache else we'll
-     * never undo the references and we'll OOME.
+     * never undo the references and we'll OOME. All entries are allocated first and then written
+     * together, allocations that sit next to each other in a single write.
      * @param entries Presumes list passed in here will be processed by this invocation only. No
      *   interference expected.
      * @throws InterruptedException
@@ -849,13 +1148,16 @@ public class BucketCache implements BlockCache, HeapSize {
             index++;
             continue;
           }
+          // Writes are only queued in the batch here, and issued below.
           BucketEntry bucketEntry =
-            re.writeToCache(ioEngine, bucketAllocator, deserialiserMap, realCacheSize);
-          // Successfully added.  Up index and add bucketEntry. Clear io exceptions.
-          bucketEntries[index] = bucketEntry;
-          if (ioErrorStartTime > 0) {
-            ioErrorStartTime = -1;
+            re.writeToCache(batch, bucketAllocator, deserialiserMap, realCacheSize);
+          // Only journaled entries are verified once restored; a clean shutdown checkpoint is
+          // trusted as it always was.
+          if (bucketEntry != null && persister != null) {
+            bucketEntry.setChecksum(checksumOf(re.getData()));
           }
+          // Successfully added.  Up index and add bucketEntry.
+          bucketEntries[index] = bucketEntry;
           index++;
         } catch (BucketAllocatorException fle) {
           LOG.warn("Failed allocation for " + (re == null ? "" : re.getKey()) + "; " + fle);
@@ -864,7 +1166,7 @@ public class BucketCache implements BlockCache, HeapSize {
           index++;
         } catch (CacheFullException cfe) {
           // Cache full when we tried to add. Try freeing space and then retrying (don't up index)
-          if (!freeInProgress) {
+          if (!freeInProgress && !awaitingFreedSpace()) {
             freeSpace("Full!");
           } else {
             Thread.sleep(50);
@@ -876,21 +1178,39 @@ public class BucketCache implements BlockCache, HeapSize {
         }
       }
 
-      // Make sure data pages are written on media before we update maps.
+      // Write out the batch and make sure data pages are written on media before we update maps.
       try {
+        int writes = batch.flush();
         ioEngine.sync();
+        cacheStats.writeBatch(countNonNull(bucketEntries), writes);
+        // Clear io exceptions.
+        if (ioErrorStartTime > 0) {
+          ioErrorStartTime = -1;
+        }
       } catch (IOException ioex) {
-        LOG.error("Failed syncing IO engine", ioex);
+        LOG.error("Failed writing to or syncing IO engine", ioex);
         checkIOErrorIsTolerated();
-        // Since we failed sync, free the blocks in bucket allocator
+        // Any of the writes may be missing, so free all the blocks in bucket allocator
         for (int i = 0; i < entries.size(); ++i) {
           if (bucketEntries[i] != null) {
             bucketAllocator.freeBlock(bucketEntries[i].offset());
+            realCacheSize.addAndGet(-1 * bucketEntries[i].getLength());
             bucketEntries[i] = null;
           }
         }
       }
 
+      // Queue the allocations for the journal. An add that is lost in a crash only loses the
+      // entry, so they are made durable by the journal syncer rather than here.
+      if (persister != null) {
+        for (int i = 0; i < size; ++i) {
+          if (bucketEntries[i] != null) {
+            persister.journalAdd(entries.get(i).getKey(), bucketEntries[i],
+              entries.get(i).getData().getDeserializer().getDeserialiserIdentifier());
+          }
+        }
+      }
+
       // Now add to backingMap if successfully added to bucket cache.  Remove from ramCache if
       // success or error.
       for (int i = 0; i < size; ++i) {
@@ -925,6 +1245,16 @@ public class BucketCache implements BlockCache, HeapSize {
     }
   }
 
+  private static int countNonNull(BucketEntry[] bucketEntries) {
+    int count = 0;
+    for (BucketEntry bucketEntry : bucketEntries) {
+      if (bucketEntry != null) {
+        count++;
+      }
+    }
+    return count;
+  }
+
   /**
    * Blocks until elements available in {@code q} then tries to grab as many as possible
    * before returning.
@@ -945,8 +1275,96 @@ public class BucketCache implements BlockCache, HeapSize {
     return receptacle;
   }
 
+  /**
+   * CRC32 of the bytes <code>block</code> is written as in the IOEngine; see
+   * {@link RAMQueueEntry#writeToCache}.
+   */
+  private static int checksumOf(Cacheable block) {
+    CRC32 crc = new CRC32();
+    if (block instanceof HFileBlock) {
+      HFileBlock hfileBlock = (HFileBlock) block;
+      ByteBuff buf = hfileBlock.getBufferReadOnly();
+      crc.update(buf.asSubByteBuffer(buf.remaining()));
+      crc.update(hfileBlock.getMetaData());
+    } else {
+      ByteBuffer bb = ByteBuffer.allocate(block.getSerializedLength());
+      block.serialize(bb);
+      bb.rewind();
+      crc.update(bb);
+    }
+    return (int) crc.getValue();
+  }
+
+  /**
+   * @return true if space freed earlier is still on its way back to the allocator, in which case
+   *   freeing more now would evict blocks for nothing
+   */
+  private boolean awaitingFreedSpace() {
+    if (pendingDemotions.get() > 0) {
+      // Not back in the allocator until the demoter has read the blocks out.
+      return true;
+    }
+    if (persister != null && persister.hasPendingFrees()) {
+      // Not back in the allocator until the journal is synced.
+      requestJournalSync();
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Sync the journal on the schedule pool, so the space of frees waiting on it is released soon
+   * without a writer thread having to wait for the disk.
+   */
+  private void requestJournalSync() {
+    if (persister == null) {
+      return;
+    }
+    try {
+      scheduleThreadPool.execute(journalSyncer);
+    } catch (RejectedExecutionException e) {
+      // Shutting down; the final checkpoint releases everything.
+    }
+  }
+
+  /**
+   * Write out queued journal records and release the space of frees that are now durable.
+   */
+  @VisibleForTesting
+  void syncJournal() {
+    if (persister == null) {
+      return;
+    }
+    try {
+      persister.sync(bucketAllocator);
+    } catch (IOException ioex) {
+      LOG.warn("Failed syncing bucket cache journal", ioex);
+    }
+  }
+
+  /**
+   * Checkpoint the index to the persistence path. No-op unless periodic persistence is enabled.
+   */
+  @VisibleForTesting
+  void checkpoint() {
+    if (persister == null) {
+      return;
+    }
+    try {
+      persister.checkpoint(cacheCapacity, ioEngine.getClass().getName(), deserialiserMap,
+        backingMap, bucketAllocator);
+    } catch (IOException ioex) {
+      LOG.warn("Failed checkpointing bucket cache index to " + persistencePath, ioex);
+    }
+  }
+
   private void persistToFile() throws IOException {
     assert !cacheEnabled;
+    if (persister != null) {
+      persister.checkpoint(cacheCapacity, ioEngine.getClass().getName(), deserialiserMap,
+        backingMap, bucketAllocator);
+      return;
+    }
     FileOutputStream fos = null;
     ObjectOutputStream oos = null;
     try {
@@ -971,9 +1389,17 @@ public class BucketCache implements BlockCache, HeapSize {
       ClassNotFoundException {
     File persistenceFile = new File(persistencePath);
     if (!persistenceFile.exists()) {
+      if (persister != null) {
+        // Journals without their checkpoint are useless.
+        persister.deleteAll();
+      }
       return;
     }
     assert !cacheEnabled;
+    if (BucketCachePersister.isCheckpointFormat(persistencePath)) {
+      retrieveFromCheckpoint(bucketSizes);
+      return;
+    }
     FileInputStream fis = null;
     ObjectInputStream ois = null;
     try {
@@ -1004,6 +1430,7 @@ public class BucketCache implements BlockCache, HeapSize {
       bucketAllocator = allocator;
       deserialiserMap = deserMap;
       backingMap = backingMapFromFile;
+      restoreBlockCounts();
     } finally {
       if (ois != null) ois.close();
       if (fis != null) fis.close();
@@ -1014,6 +1441,56 @@ public class BucketCache implements BlockCache, HeapSize {
     }
   }
 
+  private void retrieveFromCheckpoint(int[] bucketSizes) throws IOException,
+      ClassNotFoundException {
+    BucketCachePersister loader =
+        persister != null ? persister : new BucketCachePersister(persistencePath);
+    boolean restored = false;
+    try {
+      BucketCachePersister.RestoredIndex index = loader.retrieve(cacheCapacity,
+        ioEngine.getClass().getName(), backingMap.getClass().getName());
+      dropOverlappingEntries(index.backingMap);
+      bucketAllocator = new BucketAllocator(cacheCapacity, bucketSizes, index.backingMap,
+          realCacheSize);
+      deserialiserMap = index.deserialiserMap;
+      backingMap = index.backingMap;
+      restoreBlockCounts();
+      restored = true;
+      LOG.info("Restored " + backingMap.size() + " bucket cache entries from " + persistencePath);
+    } finally {
+      if (persister == null || !restored) {
+        // Without periodic persistence nothing will keep the index up to date from here on.
+        loader.deleteAll();
+      }
+    }
+  }
+
+  /**
+   * Two entries claiming the same bucket offset can not both be right; drop them both.
+   */
+  private static void dropOverlappingEntries(Map<BlockCacheKey, BucketEntry> map) {
+    Map<Long, BlockCacheKey> byOffset = new HashMap<Long, BlockCacheKey>(map.size());
+    Set<BlockCacheKey> overlapping = new HashSet<BlockCacheKey>();
+    for (Map.Entry<BlockCacheKey, BucketEntry> e : map.entrySet()) {
+      BlockCacheKey previous = byOffset.put(e.getValue().offset(), e.getKey());
+      if (previous != null) {
+        overlapping.add(previous);
+        overlapping.add(e.getKey());
+      }
+    }
+    if (!overlapping.isEmpty()) {
+      LOG.warn("Dropping " + overlapping.size() + " restored entries sharing bucket offsets");
+      map.keySet().removeAll(overlapping);
+    }
+  }
+
+  private void restoreBlockCounts() {
+    for (BlockCacheKey key : backingMap.keySet()) {
+      blocksByHFile.add(key);
+    }
+    blockNumber.set(backingMap.size());
+  }
+
   /**
    * Check whether we tolerate IO error this time. If the duration of IOEngine
    * throwing errors exceeds ioErrorsDurationTimeTolerated, we will disable the
@@ -1038,6 +1515,9 @@ public class BucketCache implements BlockCache, HeapSize {
   private void disableCache() {
     if (!cacheEnabled) return;
     cacheEnabled = false;
+    if (demoter != null) {
+      demoter.shutdownNow();
+    }
     ioEngine.shutdown();
     this.scheduleThreadPool.shutdown();
     for (int i = 0; i < writerThreads.length; ++i) writerThreads[i].interrupt();
@@ -1055,6 +1535,9 @@ public class BucketCache implements BlockCache, HeapSize {
 
   @Override
   public void shutdown() {
+    if (victimCache != null) {
+      victimCache.shutdown();
+    }
     disableCache();
     LOG.info("Shutdown bucket cache: IO persistent=" + ioEngine.isPersistent()
         + "; path to write=" + persistencePath);
@@ -1119,10 +1602,14 @@ public class BucketCache implements BlockCache, HeapSize {
 
     int numEvicted = 0;
     for (BlockCacheKey key : keySet) {
-      if (evictBlock(key)) {
+      if (evictBlock(key, true)) {
           ++numEvicted;
       }
     }
+    BlockCache lowerTier = victimCache;
+    if (lowerTier != null) {
+      numEvicted += lowerTier.evictBlocksByHfileName(hfileName);
+    }
 
     return numEvicted;
   }
@@ -1156,6 +1643,17 @@ public class BucketCache implements BlockCache, HeapSize {
     // Set this when we were not able to forcefully evict the block
     private volatile boolean markedForEvict;
     private AtomicInteger refCount = new AtomicInteger(0);
+    /**
+     * False for entries restored from a persisted index until their block has been read back and
+     * checked. Not serialized, so entries read from a checkpoint come back unverified.
+     */
+    private transient volatile boolean verified;
+    /**
+     * CRC32 of the block as written, if checksummed. Entries from persistence files written before
+     * checksums were recorded come back without one.
+     */
+    private int checksum;
+    private boolean checksummed;
 
     /**
      * Time this block was cached.  Presumes we are created just before we are added to the cache.
@@ -1166,6 +1664,7 @@ public class BucketCache implements BlockCache, HeapSize {
       setOffset(offset);
       this.length = length;
       this.accessCounter = accessCounter;
+      this.verified = true;
       if (inMemory) {
         this.priority = BlockPriority.MEMORY;
       } else {
@@ -1217,6 +1716,35 @@ public class BucketCache implements BlockCache, HeapSize {
       return this.priority;
     }
 
+    long getAccessCounter() {
+      return this.accessCounter;
+    }
+
+    boolean isVerified() {
+      return this.verified;
+    }
+
+    void markVerified() {
+      this.verified = true;
+    }
+
+    void markUnverified() {
+      this.verified = false;
+    }
+
+    boolean hasChecksum() {
+      return this.checksummed;
+    }
+
+    int getChecksum() {
+      return this.checksum;
+    }
+
+    void setChecksum(int checksum) {
+      this.checksum = checksum;
+      this.checksummed = true;
+    }
+
     public long getCachedTime() {
       return cachedTime;
     }
@@ -1251,8 +1779,11 @@ public class BucketCache implements BlockCache, HeapSize {
       // TODO avoid a cycling siutation. We find no block which is not in use and so no way to free
       // What to do then? Caching attempt fail? Need some changes in cacheBlock API?
       while ((entry = queue.pollLast()) != null) {
-        if (evictBlock(entry.getKey(), false)) {
+        // Blocks restored but never read back may not be what their entry says.
+        boolean demote = victimCache != null && entry.getValue().isVerified();
+        if (evictBlock(entry.getKey(), false, demote)) {
           freedBytes += entry.getValue().getLength();
+          admissionFilter.onEviction(entry.getKey());
         }
         if (freedBytes >= toFree) {
           return freedBytes;
@@ -1361,6 +1892,16 @@ public class BucketCache implements BlockCache, HeapSize {
     }
   }
 
+  /**
+   * Only used in test; stops everything the way a crash would, without persisting the index.
+   * @throws InterruptedException
+   */
+  void stopWithoutPersisting() throws InterruptedException {
+    stopWriterThreads();
+    this.scheduleThreadPool.shutdownNow();
+    this.scheduleThreadPool.awaitTermination(1, TimeUnit.MINUTES);
+  }
+
   @Override
   public Iterator<CachedBlock> iterator() {
     // Don't bother with ramcache since stuff is in here only a little while.
@@ -1470,6 +2011,11 @@ public class BucketCache implements BlockCache, HeapSize {
     }
   }
 
+  @VisibleForTesting
+  int getPendingDemotionCount() {
+    return pendingDemotions.get();
+  }
+
   @VisibleForTesting
   public int getRefCount(BlockCacheKey cacheKey) {
     BucketEntry bucketEntry = backingMap.get(cacheKey);
@@ -0,0 +1,628 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile.bucket;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilenameFilter;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.io.hfile.BlockCacheKey;
+import org.apache.hadoop.hbase.io.hfile.BlockPriority;
+import org.apache.hadoop.hbase.io.hfile.BlockType;
+import org.apache.hadoop.hbase.io.hfile.bucket.BucketCache.BucketEntry;
+import org.apache.hadoop.hbase.util.Bytes;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Crash-consistent persistence of the {@link BucketCache} index for persistent IOEngines.
+ * <p>
+ * The index is kept on disk as a checkpoint plus a journal. The checkpoint is a checksummed
+ * snapshot of the backingMap written to a temporary file and renamed into place, so a crash while
+ * checkpointing leaves the previous checkpoint intact. Every allocation and free that happens
+ * after a checkpoint is appended to a journal file; each journal record carries its own CRC so a
+ * torn tail left by a crash is detected and ignored on replay.
+ * <p>
+ * A freed bucket offset is NOT handed back to the {@link BucketAllocator} until the record of the
+ * free is durable in the journal (or covered by a later checkpoint). Otherwise a crash could leave
+ * a stale index entry pointing at bucket space that was already overwritten by another block.
+ * <p>
+ * On startup the checkpoint is loaded, journals newer than the checkpoint are replayed in order,
+ * and a fresh checkpoint is written. Entries restored this way are not trusted blindly: see
+ * {@link BucketCache#getBlock(BlockCacheKey, boolean, boolean, boolean)} for how restored blocks
+ * are verified before being served.
+ */
+@InterfaceAudience.Private
+class BucketCachePersister {
+  private static final Log LOG = LogFactory.getLog(BucketCachePersister.class);
+
+  static final byte[] CHECKPOINT_MAGIC = Bytes.toBytes("BCCP");
+  static final int CHECKPOINT_VERSION = 1;
+  static final String JOURNAL_SUFFIX = ".journal.";
+
+  private static final byte JOURNAL_ADD = 1;
+  private static final byte JOURNAL_FREE = 2;
+  /** magic + version + payload length + payload crc */
+  private static final int CHECKPOINT_HEADER_SIZE = CHECKPOINT_MAGIC.length + Bytes.SIZEOF_INT
+      + Bytes.SIZEOF_LONG + Bytes.SIZEOF_LONG;
+
+  private final String persistencePath;
+  /** Serializes checkpoints; the snapshot itself is written outside the journal lock. */
+  private final Object checkpointLock = new Object();
+
+  /** Records queued by cache/evict paths; written out by {@link #sync(BucketAllocator)}. */
+  private final ConcurrentLinkedQueue<JournalRecord> pending =
+      new ConcurrentLinkedQueue<JournalRecord>();
+  /** Frees in {@link #pending}; their space is not back in the allocator yet. */
+  private final AtomicInteger pendingFrees = new AtomicInteger();
+
+  // Guarded by 'this'
+  private long journalSeq;
+  private DataOutputStream journalOut;
+  private FileOutputStream journalFileOut;
+  /** Set when a journal write failed; the rest of the journal can not be trusted on replay. */
+  private boolean journalBroken;
+  /** Freed offsets whose free is not durable in any journal; released by the next checkpoint. */
+  private List<Long> awaitingCheckpoint = new ArrayList<Long>();
+
+  BucketCachePersister(String persistencePath) {
+    this.persistencePath = persistencePath;
+  }
+
+  /**
+   * Result of loading a checkpoint and replaying its journals.
+   */
+  static class RestoredIndex {
+    final UniqueIndexMap<Integer> deserialiserMap;
+    final ConcurrentHashMap<BlockCacheKey, BucketEntry> backingMap;
+    final long nextJournalSeq;
+
+    RestoredIndex(UniqueIndexMap<Integer> deserialiserMap,
+        ConcurrentHashMap<BlockCacheKey, BucketEntry> backingMap, long nextJournalSeq) {
+      this.deserialiserMap = deserialiserMap;
+      this.backingMap = backingMap;
+      this.nextJournalSeq = nextJournalSeq;
+    }
+  }
+
+  private static class JournalRecord {
+    final byte type;
+    final BlockCacheKey key;
+    final long bucketOffset;
+    final int length;
+    final int deserialiserId;
+    final long accessCounter;
+    final boolean inMemory;
+    final boolean checksummed;
+    final int checksum;
+
+    JournalRecord(byte type, BlockCacheKey key, long bucketOffset, int length, int deserialiserId,
+        long accessCounter, boolean inMemory, boolean checksummed, int checksum) {
+      this.type = type;
+      this.key = key;
+      this.bucketOffset = bucketOffset;
+      this.length = length;
+      this.deserialiserId = deserialiserId;
+      this.accessCounter = accessCounter;
+      this.inMemory = inMemory;
+      this.checksummed = checksummed;
+      this.checksum = checksum;
+    }
+  }
+
+  /**
+   * @return true if the file at <code>path</code> starts with the checkpoint magic, false if it
+   *   is in the legacy, plain java serialization format.
+   */
+  static boolean isCheckpointFormat(String path) throws IOException {
+    DataInputStream in = new DataInputStream(new FileInputStream(path));
+    try {
+      byte[] magic = new byte[CHECKPOINT_MAGIC.length];
+      in.readFully(magic);
+      return Arrays.equals(magic, CHECKPOINT_MAGIC);
+    } catch (EOFException e) {
+      return false;
+    } finally {
+      in.close();
+    }
+  }
+
+  /**
+   * Queue an allocation for the journal. Must be called after the block data is synced to the
+   * IOEngine and before the entry is made visible in the backingMap. Adds need not be durable
+   * right away: one lost in a crash only loses its entry.
+   */
+  void journalAdd(BlockCacheKey key, BucketEntry entry, int deserialiserId) {
+    pending.add(new JournalRecord(JOURNAL_ADD, key, entry.offset(), entry.getLength(),
+        deserialiserId, entry.getAccessCounter(), entry.getPriority() == BlockPriority.MEMORY,
+        entry.hasChecksum(), entry.getChecksum()));
+  }
+
+  /**
+   * Queue a free for the journal. Must be called after the entry was removed from the backingMap.
+   * The bucket offset is handed back to the allocator once the record is durable.
+   */
+  void journalFree(BlockCacheKey key, BucketEntry entry) {
+    pendingFrees.incrementAndGet();
+    pending.add(new JournalRecord(JOURNAL_FREE, key, entry.offset(), entry.getLength(), 0, 0,
+        false, false, 0));
+  }
+
+  /**
+   * @return true if some frees are queued and their space will be released by the next
+   *   {@link #sync(BucketAllocator)}
+   */
+  boolean hasPendingFrees() {
+    return pendingFrees.get() > 0;
+  }
+
+  /**
+   * Write out all queued records, sync the journal, and then release the offsets of the frees
+   * just made durable to <code>allocator</code>.
+   */
+  synchronized void sync(BucketAllocator allocator) throws IOException {
+    List<Long> toRelease = null;
+    JournalRecord record;
+    IOException failure = null;
+    boolean written = false;
+    while ((record = pending.poll()) != null) {
+      if (record.type == JOURNAL_FREE) {
+        pendingFrees.decrementAndGet();
+        if (journalBroken) {
+          awaitingCheckpoint.add(record.bucketOffset);
+          continue;
+        }
+        if (toRelease == null) {
+          toRelease = new ArrayList<Long>();
+        }
+        toRelease.add(record.bucketOffset);
+      }
+      if (journalBroken) {
+        continue;
+      }
+      try {
+        writeRecord(record);
+        written = true;
+      } catch (IOException ioe) {
+        failure = ioe;
+        markBroken(toRelease);
+        toRelease = null;
+      }
+    }
+    if (written && !journalBroken) {
+      try {
+        journalOut.flush();
+        journalFileOut.getChannel().force(false);
+      } catch (IOException ioe) {
+        failure = ioe;
+        markBroken(toRelease);
+        toRelease = null;
+      }
+    }
+    if (toRelease != null) {
+      for (Long offset : toRelease) {
+        allocator.freeBlock(offset);
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void markBroken(List<Long> unsyncedFrees) {
+    LOG.warn("BucketCache journal " + journalPath(journalSeq) + " is no longer writable; frees "
+        + "will be held until the next checkpoint");
+    journalBroken = true;
+    if (unsyncedFrees != null) {
+      awaitingCheckpoint.addAll(unsyncedFrees);
+    }
+  }
+
+  private void writeRecord(JournalRecord record) throws IOException {
+    if (journalOut == null) {
+      openJournal();
+    }
+    ByteArrayOutputStream baos = new ByteArrayOutputStream(64);
+    DataOutputStream out = new DataOutputStream(baos);
+    out.writeByte(record.type);
+    out.writeUTF(record.key.getHfileName());
+    out.writeLong(record.key.getOffset());
+    out.writeBoolean(record.key.isPrimary());
+    out.writeUTF(record.key.getBlockType() == null ? "" : record.key.getBlockType().name());
+    out.writeLong(record.bucketOffset);
+    out.writeInt(record.length);
+    if (record.type == JOURNAL_ADD) {
+      out.writeInt(record.deserialiserId);
+      out.writeLong(record.accessCounter);
+      out.writeBoolean(record.inMemory);
+      out.writeBoolean(record.checksummed);
+      out.writeInt(record.checksum);
+    }
+    out.flush();
+    byte[] payload = baos.toByteArray();
+    CRC32 crc = new CRC32();
+    crc.update(payload, 0, payload.length);
+    journalOut.writeInt(payload.length);
+    journalOut.writeLong(crc.getValue());
+    journalOut.write(payload);
+  }
+
+  private void openJournal() throws IOException {
+    journalFileOut = new FileOutputStream(journalPath(journalSeq), true);
+    journalOut = new DataOutputStream(new BufferedOutputStream(journalFileOut));
+  }
+
+  private void closeJournal() {
+    if (journalOut != null) {
+      try {
+        journalOut.close();
+      } catch (IOException ioe) {
+        LOG.warn("Failed closing BucketCache journal " + journalPath(journalSeq), ioe);
+      }
+      journalOut = null;
+      journalFileOut = null;
+    }
+  }
+
+  @VisibleForTesting
+  String journalPath(long seq) {
+    return persistencePath + JOURNAL_SUFFIX + seq;
+  }
+
+  /**
+   * Write a checkpoint of <code>backingMap</code>. The journal is rotated first so that every
+   * change racing with the snapshot also lands in the new journal, which is replayed on top of
+   * this checkpoint. Once the checkpoint is durable, older journals are deleted and frees that
+   * could not be journaled are released to <code>allocator</code>.
+   */
+  void checkpoint(long cacheCapacity, String ioEngineClass,
+      UniqueIndexMap<Integer> deserialiserMap, ConcurrentMap<BlockCacheKey, BucketEntry> backingMap,
+      BucketAllocator allocator) throws IOException {
+    synchronized (checkpointLock) {
+      doCheckpoint(cacheCapacity, ioEngineClass, deserialiserMap, backingMap, allocator);
+    }
+  }
+
+  private void doCheckpoint(long cacheCapacity, String ioEngineClass,
+      UniqueIndexMap<Integer> deserialiserMap, ConcurrentMap<BlockCacheKey, BucketEntry> backingMap,
+      BucketAllocator allocator) throws IOException {
+    List<Long> toRelease;
+    long startSeq;
+    synchronized (this) {
+      try {
+        sync(allocator);
+      } catch (IOException ioe) {
+        LOG.warn("Failed syncing BucketCache journal before checkpoint", ioe);
+      }
+      closeJournal();
+      toRelease = awaitingCheckpoint;
+      awaitingCheckpoint = new ArrayList<Long>();
+      journalSeq++;
+      journalBroken = false;
+      startSeq = journalSeq;
+    }
+    try {
+      writeCheckpoint(cacheCapacity, ioEngineClass, startSeq, deserialiserMap, backingMap);
+    } catch (IOException ioe) {
+      synchronized (this) {
+        awaitingCheckpoint.addAll(toRelease);
+      }
+      throw ioe;
+    }
+    for (Long offset : toRelease) {
+      allocator.freeBlock(offset);
+    }
+    deleteJournalsBefore(startSeq);
+  }
+
+  private void writeCheckpoint(long cacheCapacity, String ioEngineClass, long startSeq,
+      UniqueIndexMap<Integer> deserialiserMap, ConcurrentMap<BlockCacheKey, BucketEntry> backingMap)
+      throws IOException {
+    File target = new File(persistencePath);
+    File tmp = new File(persistencePath + ".tmp");
+    FileOutputStream fos = new FileOutputStream(tmp, false);
+    try {
+      // Header is rewritten once the payload length and checksum are known.
+      fos.write(new byte[CHECKPOINT_HEADER_SIZE]);
+      CountingCheckedOutputStream cos = new CountingCheckedOutputStream(
+          new BufferedOutputStream(fos));
+      ObjectOutputStream oos = new ObjectOutputStream(cos);
+      oos.writeLong(cacheCapacity);
+      oos.writeUTF(ioEngineClass);
+      oos.writeUTF(backingMap.getClass().getName());
+      oos.writeLong(startSeq);
+      oos.writeObject(deserialiserMap);
+      oos.writeObject(backingMap);
+      oos.flush();
+      ByteBuffer header = ByteBuffer.allocate(CHECKPOINT_HEADER_SIZE);
+      header.put(CHECKPOINT_MAGIC);
+      header.putInt(CHECKPOINT_VERSION);
+      header.putLong(cos.count);
+      header.putLong(cos.getChecksum().getValue());
+      header.flip();
+      fos.getChannel().write(header, 0);
+      fos.getChannel().force(true);
+    } finally {
+      fos.close();
+    }
+    if (!tmp.renameTo(target)) {
+      // Not all platforms rename over an existing file.
+      if (!target.delete() || !tmp.renameTo(target)) {
+        throw new IOException("Failed renaming " + tmp + " to " + target);
+      }
+    }
+  }
+
+  private void deleteJournalsBefore(long seq) {
+    for (File journal : listJournals()) {
+      if (journalSeqOf(journal) < seq && !journal.delete()) {
+        LOG.warn("Failed deleting obsolete BucketCache journal " + journal);
+      }
+    }
+  }
+
+  /**
+   * Delete the checkpoint and all journals.
+   */
+  void deleteAll() {
+    for (File journal : listJournals()) {
+      if (!journal.delete()) {
+        LOG.warn("Failed deleting BucketCache journal " + journal);
+      }
+    }
+    File checkpoint = new File(persistencePath);
+    if (checkpoint.exists() && !checkpoint.delete()) {
+      LOG.warn("Failed deleting BucketCache checkpoint " + checkpoint);
+    }
+  }
+
+  private File[] listJournals() {
+    File checkpoint = new File(persistencePath).getAbsoluteFile();
+    final String prefix = checkpoint.getName() + JOURNAL_SUFFIX;
+    File[] journals = checkpoint.getParentFile().listFiles(new FilenameFilter() {
+      @Override
+      public boolean accept(File dir, String name) {
+        return name.startsWith(prefix) && journalSeqOf(new File(dir, name)) >= 0;
+      }
+    });
+    if (journals == null) {
+      return new File[0];
+    }
+    Arrays.sort(journals, new Comparator<File>() {
+      @Override
+      public int compare(File a, File b) {
+        return Long.compare(journalSeqOf(a), journalSeqOf(b));
+      }
+    });
+    return journals;
+  }
+
+  private static long journalSeqOf(File journal) {
+    String name = journal.getName();
+    try {
+      return Long.parseLong(name.substring(name.lastIndexOf('.') + 1));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Load the checkpoint, verify its checksum, and replay the journals written after it.
+   * Subsequent journal records go to a journal numbered after the newest one found.
+   */
+  @SuppressWarnings("unchecked")
+  RestoredIndex retrieve(long cacheCapacity, String ioEngineClass, String mapClass)
+      throws IOException, ClassNotFoundException {
+    // Verify the whole payload before handing any of it to java deserialization.
+    verifyCheckpoint();
+    DataInputStream in = new DataInputStream(new BufferedInputStream(
+        new FileInputStream(persistencePath)));
+    UniqueIndexMap<Integer> deserMap;
+    ConcurrentHashMap<BlockCacheKey, BucketEntry> map;
+    long startSeq;
+    try {
+      in.readFully(new byte[CHECKPOINT_HEADER_SIZE]);
+      ObjectInputStream ois = new ObjectInputStream(in);
+      long capacitySize = ois.readLong();
+      if (capacitySize != cacheCapacity) {
+        throw new IOException("Mismatched cache capacity:" + capacitySize + ", expected: "
+            + cacheCapacity);
+      }
+      String ioclass = ois.readUTF();
+      String mapclass = ois.readUTF();
+      if (!ioEngineClass.equals(ioclass)) {
+        throw new IOException("Class name for IO engine mismatch: " + ioclass + ", expected:"
+            + ioEngineClass);
+      }
+      if (!mapClass.equals(mapclass)) {
+        throw new IOException("Class name for cache map mismatch: " + mapclass + ", expected:"
+            + mapClass);
+      }
+      startSeq = ois.readLong();
+      deserMap = (UniqueIndexMap<Integer>) ois.readObject();
+      map = (ConcurrentHashMap<BlockCacheKey, BucketEntry>) ois.readObject();
+    } finally {
+      in.close();
+    }
+    long lastSeq = startSeq - 1;
+    for (File journal : listJournals()) {
+      long seq = journalSeqOf(journal);
+      if (seq < startSeq) {
+        continue;
+      }
+      replay(journal, deserMap, map);
+      lastSeq = seq;
+    }
+    synchronized (this) {
+      journalSeq = lastSeq + 1;
+    }
+    return new RestoredIndex(deserMap, map, lastSeq + 1);
+  }
+
+  private void verifyCheckpoint() throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(
+        new FileInputStream(persistencePath)));
+    try {
+      byte[] magic = new byte[CHECKPOINT_MAGIC.length];
+      in.readFully(magic);
+      if (!Arrays.equals(magic, CHECKPOINT_MAGIC)) {
+        throw new IOException("Not a BucketCache checkpoint: " + persistencePath);
+      }
+      int version = in.readInt();
+      if (version != CHECKPOINT_VERSION) {
+        throw new IOException("Unsupported BucketCache checkpoint version " + version);
+      }
+      long length = in.readLong();
+      long expectedCrc = in.readLong();
+      CheckedInputStream cis = new CheckedInputStream(in, new CRC32());
+      byte[] buf = new byte[64 * 1024];
+      long read = 0;
+      int n;
+      while ((n = cis.read(buf)) > 0) {
+        read += n;
+      }
+      if (read != length || cis.getChecksum().getValue() != expectedCrc) {
+        throw new IOException("BucketCache checkpoint " + persistencePath
+            + " failed checksum verification");
+      }
+    } finally {
+      in.close();
+    }
+  }
+
+  private static void replay(File journal, UniqueIndexMap<Integer> deserMap,
+      Map<BlockCacheKey, BucketEntry> map) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(journal)));
+    int replayed = 0;
+    try {
+      while (true) {
+        byte[] payload;
+        try {
+          int len = in.readInt();
+          long crc = in.readLong();
+          if (len <= 0 || len > Short.MAX_VALUE * 4) {
+            LOG.warn("Corrupt record length in " + journal + " after " + replayed + " records");
+            break;
+          }
+          payload = new byte[len];
+          in.readFully(payload);
+          CRC32 actual = new CRC32();
+          actual.update(payload, 0, len);
+          if (actual.getValue() != crc) {
+            LOG.warn("Checksum mismatch in " + journal + " after " + replayed + " records");
+            break;
+          }
+        } catch (EOFException e) {
+          // Clean end of journal, or a torn final record.
+          break;
+        }
+        applyRecord(new DataInputStream(new ByteArrayInputStream(payload)), deserMap,
+            map);
+        replayed++;
+      }
+    } finally {
+      in.close();
+    }
+    LOG.info("Replayed " + replayed + " records from BucketCache journal " + journal);
+  }
+
+  private static void applyRecord(DataInputStream in, UniqueIndexMap<Integer> deserMap,
+      Map<BlockCacheKey, BucketEntry> map) throws IOException {
+    byte type = in.readByte();
+    String hfileName = in.readUTF();
+    long blockOffset = in.readLong();
+    boolean primary = in.readBoolean();
+    String blockTypeName = in.readUTF();
+    BlockCacheKey key = new BlockCacheKey(hfileName, blockOffset, primary,
+        blockTypeName.isEmpty() ? null : BlockType.valueOf(blockTypeName));
+    long bucketOffset = in.readLong();
+    int length = in.readInt();
+    if (type == JOURNAL_ADD) {
+      int deserialiserId = in.readInt();
+      long accessCounter = in.readLong();
+      boolean inMemory = in.readBoolean();
+      boolean checksummed = in.readBoolean();
+      int checksum = in.readInt();
+      BucketEntry entry = new BucketEntry(bucketOffset, length, accessCounter, inMemory);
+      if (checksummed) {
+        entry.setChecksum(checksum);
+      }
+      entry.deserialiserIndex = (byte) deserMap.map(deserialiserId);
+      entry.markUnverified();
+      map.put(key, entry);
+    } else if (type == JOURNAL_FREE) {
+      BucketEntry existing = map.get(key);
+      if (existing != null && existing.offset() == bucketOffset) {
+        map.remove(key);
+      }
+    } else {
+      throw new IOException("Unknown BucketCache journal record type " + type);
+    }
+  }
+
+  /**
+   * CheckedOutputStream that also counts the bytes written through it.
+   */
+  private static class CountingCheckedOutputStream extends CheckedOutputStream {
+    long count;
+
+    CountingCheckedOutputStream(OutputStream out) {
+      super(out, new CRC32());
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+      super.write(b);
+      count++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+      super.write(b, off, len);
+      count += len;
+    }
+  }
+}
@@ -32,6 +32,11 @@ import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
 public class BucketCacheStats extends CacheStats {
   private final LongAdder ioHitCount = new LongAdder();
   private final LongAdder ioHitTime = new LongAdder();
+  /** Entries restored from a persisted index that did not hold the block they claimed to */
+  private final LongAdder staleRestoredBlockCount = new LongAdder();
+  /** Blocks the writer threads wrote out, and the IO writes it took them */
+  private final LongAdder writtenBlockCount = new LongAdder();
+  private final LongAdder ioWriteCount = new LongAdder();
   private static final long NANO_TIME = TimeUnit.MILLISECONDS.toNanos(1);
   private long lastLogTime = EnvironmentEdgeManager.currentTime();
 
@@ -42,12 +47,40 @@ public class BucketCacheStats extends CacheStats {
   @Override
   public String toString() {
     return super.toString() + ", ioHitsPerSecond=" + getIOHitsPerSecond() +
-      ", ioTimePerHit=" + getIOTimePerHit();
+      ", ioTimePerHit=" + getIOTimePerHit() +
+      ", staleRestoredBlocks=" + getStaleRestoredBlockCount() +
+      ", blocksPerWrite=" + getBlocksPerWrite();
   }
 
   public void ioHit(long time) {
     ioHitCount.increment();
     ioHitTime.add(time);
+    hitTime(time);
+  }
+
+  /**
+   * @param blocks blocks written by one writer drain
+   * @param writes IO writes the blocks were coalesced into
+   */
+  public void writeBatch(int blocks, int writes) {
+    writtenBlockCount.add(blocks);
+    ioWriteCount.add(writes);
+  }
+
+  /**
+   * @return average number of blocks written per IO write since the last reset
+   */
+  public double getBlocksPerWrite() {
+    long writes = ioWriteCount.sum();
+    return writes == 0 ? 0 : (double) writtenBlockCount.sum() / writes;
+  }
+
+  public void staleRestoredBlock() {
+    staleRestoredBlockCount.increment();
+  }
+
+  public long getStaleRestoredBlockCount() {
+    return staleRestoredBlockCount.sum();
   }
 
   public long getIOHitsPerSecond() {
@@ -66,5 +99,7 @@ public class BucketCacheStats extends CacheStats {
   public void reset() {
     ioHitCount.reset();
     ioHitTime.reset();
+    writtenBlockCount.reset();
+    ioWriteCount.reset();
   }
 }
@@ -134,7 +134,7 @@ public class ByteBufferIOEngine implements IOEngine {
   public void write(ByteBuffer srcBuffer, long offset) throws IOException {
     assert srcBuffer.hasArray();
     bufferArray.putMultiple(offset, srcBuffer.remaining(), srcBuffer.array(),
-        srcBuffer.arrayOffset());
+        srcBuffer.arrayOffset() + srcBuffer.position());
   }
 
   @Override
@@ -143,7 +143,7 @@ public class ByteBufferIOEngine implements IOEngine {
     // This will work for now. But from the DFS itself if we get DBB then this may not hold true.
     assert srcBuffer.hasArray();
     bufferArray.putMultiple(offset, srcBuffer.remaining(), srcBuffer.array(),
-        srcBuffer.arrayOffset());
+        srcBuffer.arrayOffset() + srcBuffer.position());
   }
   /**
    * No operation for the sync in the memory IO engine
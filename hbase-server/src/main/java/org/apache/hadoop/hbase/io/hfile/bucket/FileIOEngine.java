@@ -22,6 +22,8 @@ import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -33,44 +35,73 @@ import org.apache.hadoop.hbase.nio.ByteBuff;
 import org.apache.hadoop.hbase.nio.SingleByteBuff;
 import org.apache.hadoop.util.StringUtils;
 
+import com.google.common.annotations.VisibleForTesting;
+
 /**
  * IO engine that stores data to a file on the local file system.
+ * <p>
+ * Given several files, typically one per device, the cache is striped over them in units of
+ * {@link #STRIPE_SIZE} so that the writer threads keep all the devices busy.
  */
 @InterfaceAudience.Private
 public class FileIOEngine implements IOEngine {
   private static final Log LOG = LogFactory.getLog(FileIOEngine.class);
-  private final RandomAccessFile raf;
-  private final FileChannel fileChannel;
-  private final String path;
-  private long size;
+
+  /** Bytes that go to one file before moving on to the next when striping */
+  @VisibleForTesting
+  static final int STRIPE_SIZE = 1024 * 1024;
+
+  private final RandomAccessFile[] rafs;
+  private final FileChannel[] fileChannels;
+  private final String[] filePaths;
+  private final long size;
 
   public FileIOEngine(String filePath, long fileSize) throws IOException {
-    this.path = filePath;
-    this.size = fileSize;
-    try {
-      raf = new RandomAccessFile(filePath, "rw");
-    } catch (java.io.FileNotFoundException fex) {
-      LOG.error("Can't create bucket cache file " + filePath, fex);
-      throw fex;
-    }
+    this(fileSize, filePath);
+  }
 
-    try {
-      raf.setLength(fileSize);
-    } catch (IOException ioex) {
-      LOG.error("Can't extend bucket cache file; insufficient space for "
-          + StringUtils.byteDesc(fileSize), ioex);
-      raf.close();
-      throw ioex;
+  /**
+   * @param capacity total size of the cache, split evenly over the files
+   * @param filePaths one or more files to stripe the cache over
+   */
+  public FileIOEngine(long capacity, String... filePaths) throws IOException {
+    this.filePaths = filePaths;
+    this.size = capacity;
+    this.rafs = new RandomAccessFile[filePaths.length];
+    this.fileChannels = new FileChannel[filePaths.length];
+    long sizePerFile = capacity;
+    if (filePaths.length > 1) {
+      long stripes = (capacity + STRIPE_SIZE - 1) / STRIPE_SIZE;
+      sizePerFile = (stripes + filePaths.length - 1) / filePaths.length * STRIPE_SIZE;
     }
+    for (int i = 0; i < filePaths.length; i++) {
+      try {
+        rafs[i] = new RandomAccessFile(filePaths[i], "rw");
+      } catch (java.io.FileNotFoundException fex) {
+        LOG.error("Can't create bucket cache file " + filePaths[i], fex);
+        shutdown();
+        throw fex;
+      }
 
-    fileChannel = raf.getChannel();
-    LOG.info("Allocating " + StringUtils.byteDesc(fileSize) + ", on the path:" + filePath);
+      try {
+        rafs[i].setLength(sizePerFile);
+      } catch (IOException ioex) {
+        LOG.error("Can't extend bucket cache file; insufficient space for "
+            + StringUtils.byteDesc(sizePerFile), ioex);
+        shutdown();
+        throw ioex;
+      }
+
+      fileChannels[i] = rafs[i].getChannel();
+      LOG.info("Allocating " + StringUtils.byteDesc(sizePerFile) + ", on the path:"
+          + filePaths[i]);
+    }
   }
 
   @Override
   public String toString() {
-    return "ioengine=" + this.getClass().getSimpleName() + ", path=" + this.path +
-      ", size=" + String.format("%,d", this.size);
+    return "ioengine=" + this.getClass().getSimpleName() + ", path=" +
+      StringUtils.join(",", filePaths) + ", size=" + String.format("%,d", this.size);
   }
 
   /**
@@ -94,15 +125,16 @@ public class FileIOEngine implements IOEngine {
   public Cacheable read(long offset, int length, CacheableDeserializer<Cacheable> deserializer)
       throws IOException {
     ByteBuffer dstBuffer = ByteBuffer.allocate(length);
-    fileChannel.read(dstBuffer, offset);
+    accessFile(dstBuffer, offset, true);
     // The buffer created out of the fileChannel is formed by copying the data from the file
     // Hence in this case there is no shared memory that we point to. Even if the BucketCache evicts
     // this buffer from the file the data is already copied and there is no need to ensure that
     // the results are not corrupted before consuming them.
-    if (dstBuffer.limit() != length) {
-      throw new RuntimeException("Only " + dstBuffer.limit() + " bytes read, " + length
+    if (dstBuffer.position() != length) {
+      throw new RuntimeException("Only " + dstBuffer.position() + " bytes read, " + length
           + " expected");
     }
+    dstBuffer.rewind();
     return deserializer.deserialize(new SingleByteBuff(dstBuffer), true, MemoryType.EXCLUSIVE);
   }
 
@@ -114,7 +146,48 @@ public class FileIOEngine implements IOEngine {
    */
   @Override
   public void write(ByteBuffer srcBuffer, long offset) throws IOException {
-    fileChannel.write(srcBuffer, offset);
+    accessFile(srcBuffer, offset, false);
+  }
+
+  /**
+   * Writes the buffers with one gathering write per file touched, rather than one write each.
+   */
+  @Override
+  public void write(ByteBuffer[] srcBuffers, long offset) throws IOException {
+    List<ByteBuffer> stripe = new ArrayList<ByteBuffer>(srcBuffers.length);
+    long position = offset;
+    int index = 0;
+    while (index < srcBuffers.length) {
+      long stripeLeft = bytesLeftInStripe(position);
+      long stripeBytes = 0;
+      stripe.clear();
+      while (index < srcBuffers.length && stripeBytes < stripeLeft) {
+        ByteBuffer src = srcBuffers[index];
+        if (src.remaining() <= stripeLeft - stripeBytes) {
+          stripe.add(src);
+          stripeBytes += src.remaining();
+          index++;
+        } else {
+          // Crosses into the next stripe; write the head now and the rest with the next file.
+          ByteBuffer head = src.duplicate();
+          head.limit(head.position() + (int) (stripeLeft - stripeBytes));
+          src.position(head.limit());
+          stripe.add(head);
+          stripeBytes = stripeLeft;
+        }
+      }
+      FileChannel channel = fileChannels[getFileNum(position)];
+      ByteBuffer[] buffers = stripe.toArray(new ByteBuffer[stripe.size()]);
+      // Gathering writes go to the channel position, which positional reads and writes ignore.
+      synchronized (channel) {
+        channel.position(getFileOffset(position));
+        long written = 0;
+        while (written < stripeBytes) {
+          written += channel.write(buffers);
+        }
+      }
+      position += stripeBytes;
+    }
   }
 
   /**
@@ -123,7 +196,9 @@ public class FileIOEngine implements IOEngine {
    */
   @Override
   public void sync() throws IOException {
-    fileChannel.force(true);
+    for (FileChannel fileChannel : fileChannels) {
+      fileChannel.force(true);
+    }
   }
 
   /**
@@ -131,15 +206,21 @@ public class FileIOEngine implements IOEngine {
    */
   @Override
   public void shutdown() {
-    try {
-      fileChannel.close();
-    } catch (IOException ex) {
-      LOG.error("Can't shutdown cleanly", ex);
-    }
-    try {
-      raf.close();
-    } catch (IOException ex) {
-      LOG.error("Can't shutdown cleanly", ex);
+    for (int i = 0; i < filePaths.length; i++) {
+      try {
+        if (fileChannels[i] != null) {
+          fileChannels[i].close();
+        }
+      } catch (IOException ex) {
+        LOG.error("Can't shutdown cleanly", ex);
+      }
+      try {
+        if (rafs[i] != null) {
+          rafs[i].close();
+        }
+      } catch (IOException ex) {
+        LOG.error("Can't shutdown cleanly", ex);
+      }
     }
   }
 
@@ -147,7 +228,52 @@ public class FileIOEngine implements IOEngine {
   public void write(ByteBuff srcBuffer, long offset) throws IOException {
     // When caching block into BucketCache there will be single buffer backing for this HFileBlock.
     assert srcBuffer.hasArray();
-    fileChannel.write(
-        ByteBuffer.wrap(srcBuffer.array(), srcBuffer.arrayOffset(), srcBuffer.remaining()), offset);
+    write(ByteBuffer.wrap(srcBuffer.array(), srcBuffer.arrayOffset() + srcBuffer.position(),
+      srcBuffer.remaining()), offset);
+  }
+
+  /**
+   * Reads into or writes out the remaining bytes of buffer, one stripe at a time.
+   */
+  private void accessFile(ByteBuffer buffer, long offset, boolean read) throws IOException {
+    long position = offset;
+    int limit = buffer.limit();
+    try {
+      while (buffer.hasRemaining()) {
+        FileChannel channel = fileChannels[getFileNum(position)];
+        long fileOffset = getFileOffset(position);
+        long stripeLeft = bytesLeftInStripe(position);
+        if (stripeLeft < limit - buffer.position()) {
+          buffer.limit(buffer.position() + (int) stripeLeft);
+        }
+        while (buffer.hasRemaining()) {
+          int n = read ? channel.read(buffer, fileOffset) : channel.write(buffer, fileOffset);
+          if (n < 0) {
+            // Past the end of the file; let the caller see the short read.
+            return;
+          }
+          fileOffset += n;
+          position += n;
+        }
+        buffer.limit(limit);
+      }
+    } finally {
+      buffer.limit(limit);
+    }
+  }
+
+  private int getFileNum(long offset) {
+    return (int) ((offset / STRIPE_SIZE) % fileChannels.length);
+  }
+
+  private long getFileOffset(long offset) {
+    if (fileChannels.length == 1) {
+      return offset;
+    }
+    return offset / STRIPE_SIZE / fileChannels.length * STRIPE_SIZE + offset % STRIPE_SIZE;
+  }
+
+  private long bytesLeftInStripe(long offset) {
+    return fileChannels.length == 1 ? Long.MAX_VALUE : STRIPE_SIZE - offset % STRIPE_SIZE;
   }
 }
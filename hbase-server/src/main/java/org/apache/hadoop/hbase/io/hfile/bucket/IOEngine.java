@@ -58,6 +58,21 @@ public interface IOEngine {
    */
   void write(ByteBuffer srcBuffer, long offset) throws IOException;
 
+  /**
+   * Transfers the given buffers, one after the other, to IOEngine. Engines that can gather
+   * several buffers into one IO should override this.
+   * @param srcBuffers the buffers from which bytes are to be read
+   * @param offset the offset in the IO engine where the first byte of the first buffer is written
+   * @throws IOException
+   */
+  default void write(ByteBuffer[] srcBuffers, long offset) throws IOException {
+    for (ByteBuffer srcBuffer : srcBuffers) {
+      int length = srcBuffer.remaining();
+      write(srcBuffer, offset);
+      offset += length;
+    }
+  }
+
   /**
    * Transfers the data from the given MultiByteBuffer to IOEngine
    * @param srcBuffer the given MultiBytebufffers from which bytes are to be read
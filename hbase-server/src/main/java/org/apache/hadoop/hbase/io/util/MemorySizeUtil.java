@@ -26,6 +26,7 @@ import org.apache.commons.logging.LogFactory;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.io.hfile.CacheConfig;
 import org.apache.hadoop.hbase.regionserver.MemStoreLAB;
 import org.apache.hadoop.hbase.util.Pair;
 
@@ -181,7 +182,7 @@ public class MemorySizeUtil {
     float l1CachePercent = conf.getFloat(HConstants.HFILE_BLOCK_CACHE_SIZE_KEY,
         HConstants.HFILE_BLOCK_CACHE_SIZE_DEFAULT);
     float l2CachePercent = getL2BlockCacheHeapPercent(conf);
-    return l1CachePercent + l2CachePercent;
+    return l1CachePercent + l2CachePercent + getSideBlockCacheHeapPercent(conf);
   }
 
   /**
@@ -200,4 +201,31 @@ public class MemorySizeUtil {
     }
     return l2CachePercent;
   }
+
+  /**
+   * @param conf
+   * @return The heap taken by the on heap caches kept beside the block cache, sized by
+   *   {@link CacheConfig#UNPACKED_BLOCK_CACHE_SIZE_KEY} and
+   *   {@link CacheConfig#BLOOM_CHUNK_CACHE_SIZE_KEY}, as a fraction of the heap.
+   */
+  public static float getSideBlockCacheHeapPercent(Configuration conf) {
+    return getCacheHeapPercent(conf, CacheConfig.UNPACKED_BLOCK_CACHE_SIZE_KEY)
+        + getCacheHeapPercent(conf, CacheConfig.BLOOM_CHUNK_CACHE_SIZE_KEY);
+  }
+
+  /**
+   * @return The fraction of the heap given to a cache sized by <code>key</code>, which is either
+   *   a fraction of the heap (if &lt; 1.0) or a size in megabytes.
+   */
+  private static float getCacheHeapPercent(Configuration conf, String key) {
+    float size = conf.getFloat(key, 0F);
+    if (size <= 0) {
+      return 0F;
+    }
+    if (size < 1) {
+      return size;
+    }
+    MemoryUsage mu = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+    return (size * 1024 * 1024) / mu.getMax();
+  }
 }
@@ -77,7 +77,13 @@ class BufferChain {
     while (chunkRemaining > 0 && bufferOffset + bufCount < buffers.length) {
       lastBuffer = buffers[bufferOffset + bufCount];
       if (!lastBuffer.hasRemaining()) {
-        bufferOffset++;
+        // Skip empty buffers at the start. One between others is just written along, as moving
+        // the start would leave out a buffer already counted in.
+        if (bufCount == 0) {
+          bufferOffset++;
+        } else {
+          bufCount++;
+        }
         continue;
       }
       bufCount++;
@@ -56,6 +56,7 @@ import org.apache.hadoop.hbase.exceptions.RegionMovedException;
 import org.apache.hadoop.hbase.exceptions.RequestTooBigException;
 import org.apache.hadoop.hbase.io.ByteBufferListOutputStream;
 import org.apache.hadoop.hbase.io.ByteBufferPool;
+import org.apache.hadoop.hbase.io.DeferredReleases;
 import org.apache.hadoop.hbase.io.crypto.aes.CryptoAES;
 import org.apache.hadoop.hbase.monitoring.MonitoredRPCHandler;
 import org.apache.hadoop.hbase.monitoring.TaskMonitor;
@@ -211,6 +212,24 @@ public abstract class RpcServer implements RpcServerInterface,
   protected static final String MIN_CLIENT_REQUEST_TIMEOUT = "hbase.ipc.min.client.request.timeout";
   protected static final int DEFAULT_MIN_CLIENT_REQUEST_TIMEOUT = 20;
 
+  /**
+   * Whether response cells held off-heap, in an off-heap BucketCache or memstore, are sent
+   * straight from that memory rather than copied into the cellblock first. The blocks and chunks
+   * they are in are then only released once the response has been written to the socket. Only
+   * applies to uncompressed cellblocks built with the reservoir, on connections without SASL
+   * wrapping.
+   */
+  public static final String CELLBLOCK_ZERO_COPY_KEY = "hbase.ipc.server.cellblock.zerocopy";
+  public static final boolean DEFAULT_CELLBLOCK_ZERO_COPY = false;
+
+  /**
+   * Cells smaller than this are still copied. Each cell sent in place adds a buffer to the
+   * gathering write, which costs more than copying a small cell.
+   */
+  public static final String CELLBLOCK_ZERO_COPY_MIN_SIZE_KEY =
+      "hbase.ipc.server.cellblock.zerocopy.min.size";
+  public static final int DEFAULT_CELLBLOCK_ZERO_COPY_MIN_SIZE = 1024;
+
   /** Default value for above params */
   protected static final int DEFAULT_MAX_REQUEST_SIZE = DEFAULT_MAX_CALLQUEUE_SIZE / 4; // 256M
   protected static final int DEFAULT_WARN_RESPONSE_TIME = 10000; // milliseconds
@@ -236,6 +255,8 @@ public abstract class RpcServer implements RpcServerInterface,
   // request/response is at least this size.
   // We make this to be 1/6th of the pool buffer size.
   protected final int minSizeForReservoirUse;
+  // Cells of at least this size are sent from where they are instead of copied; 0 to always copy.
+  protected final int cellBlockZeroCopyMinSize;
 
   protected volatile boolean allowFallbackToSimpleAuth;
 
@@ -276,6 +297,8 @@ public abstract class RpcServer implements RpcServerInterface,
     protected TraceInfo tinfo;
     protected ByteBufferListOutputStream cellBlockStream = null;
     protected CallCleanup reqCleanup = null;
+    // Releases of the memory the cellBlockStream points into, done once the response is sent
+    protected DeferredReleases deferredReleases = null;
 
     protected User user;
     protected InetAddress remoteAddress;
@@ -324,6 +347,10 @@ public abstract class RpcServer implements RpcServerInterface,
         this.cellBlockStream.releaseResources();
         this.cellBlockStream = null;
       }
+      if (this.deferredReleases != null) {
+        this.deferredReleases.release();
+        this.deferredReleases = null;
+      }
       // If the call was run successfuly, we might have already returned the BB
       // back to pool. No worries..Then inputCellBlock will be null
       cleanup();
@@ -401,7 +428,8 @@ public abstract class RpcServer implements RpcServerInterface,
         int cellBlockSize = 0;
         if (reservoir != null) {
           this.cellBlockStream = cellBlockBuilder.buildCellBlockStream(this.connection.codec,
-              this.connection.compressionCodec, cells, reservoir);
+              this.connection.compressionCodec, cells, reservoir,
+              this.connection.useWrap ? 0 : cellBlockZeroCopyMinSize);
           if (this.cellBlockStream != null) {
             cellBlock = this.cellBlockStream.getByteBuffers();
             cellBlockSize = this.cellBlockStream.size();
@@ -450,11 +478,22 @@ public abstract class RpcServer implements RpcServerInterface,
       // Once a response message is created and set to this.response, this Call can be treated as
       // done. The Responder thread will do the n/w write of this message back to client.
       if (this.rpcCallback != null) {
+        // If the response points into cached blocks or memstore chunks, the callback may not let
+        // go of them until the response has been written; see done().
+        DeferredReleases deferred = null;
+        if (this.cellBlockStream != null && this.cellBlockStream.getSliceCount() > 0) {
+          deferred = DeferredReleases.begin();
+        }
         try {
           this.rpcCallback.run();
         } catch (Exception e) {
           // Don't allow any exception here to kill this handler thread.
           LOG.warn("Exception while running the Rpc Callback.", e);
+        } finally {
+          if (deferred != null) {
+            deferred.end();
+            this.deferredReleases = deferred.isEmpty() ? null : deferred;
+          }
         }
       }
     }
@@ -1013,6 +1052,11 @@ public abstract class RpcServer implements RpcServerInterface,
       reservoir = null;
       this.minSizeForReservoirUse = Integer.MAX_VALUE;// reservoir itself not in place.
     }
+    this.cellBlockZeroCopyMinSize =
+        conf.getBoolean(CELLBLOCK_ZERO_COPY_KEY, DEFAULT_CELLBLOCK_ZERO_COPY)
+            ? Math.max(1, conf.getInt(CELLBLOCK_ZERO_COPY_MIN_SIZE_KEY,
+              DEFAULT_CELLBLOCK_ZERO_COPY_MIN_SIZE))
+            : 0;
     this.server = server;
     this.services = services;
     this.bindAddress = bindAddress;
@@ -729,6 +729,11 @@ public class SimpleRpcServer extends RpcServer {
       if (call.getConnection().responseQueue.isEmpty()
           && call.getConnection().responseWriteLock.tryLock()) {
         try {
+          if (call.getConnection().responsesClosed) {
+            // Never to be written; release what the call holds
+            call.done();
+            return;
+          }
           if (call.getConnection().responseQueue.isEmpty()) {
             // If we're alone, we can try to do a direct call to the socket. It's
             //  an optimisation to save on context switches and data transfer between cores..
@@ -746,6 +751,13 @@ public class SimpleRpcServer extends RpcServer {
 
       if (!added) {
         call.getConnection().responseQueue.addLast(call);
+        // If the connection closed meanwhile, its drain may have missed the call. Whoever of
+        // the drain and us takes it out of the queue finishes it.
+        if (call.getConnection().responsesClosed
+            && call.getConnection().responseQueue.remove(call)) {
+          call.done();
+          return;
+        }
       }
       call.responder.registerForWrite(call.getConnection());
 
@@ -765,6 +777,8 @@ public class SimpleRpcServer extends RpcServer {
     private ByteBuffer dataLengthBuffer;
     protected final ConcurrentLinkedDeque<Call> responseQueue = new ConcurrentLinkedDeque<Call>();
     private final Lock responseWriteLock = new ReentrantLock();
+    // Set under responseWriteLock when the connection closes; responses are no longer queued
+    private volatile boolean responsesClosed;
     private LongAdder rpcCount = new LongAdder(); // number of outstanding rpcs
     private long lastContact;
     protected Socket socket;
@@ -1548,7 +1562,25 @@ public class SimpleRpcServer extends RpcServer {
       return true;
     }
 
-    protected synchronized void close() {
+    protected void close() {
+      // Taken before the monitor, in the order of a responder closing on a write error. Waits
+      // for a response being written, which could otherwise be queued again after the drain.
+      responseWriteLock.lock();
+      try {
+        // Responses that will now never be written may still hold pooled buffers, and cached
+        // blocks they were to be sent from.
+        responsesClosed = true;
+        Call call;
+        while ((call = responseQueue.pollFirst()) != null) {
+          call.done();
+        }
+        closeChannel();
+      } finally {
+        responseWriteLock.unlock();
+      }
+    }
+
+    private synchronized void closeChannel() {
       disposeSasl();
       data = null;
       callCleanup = null;
@@ -52,6 +52,7 @@ import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hbase.ClusterStatus;
 import org.apache.hadoop.hbase.CoordinatedStateException;
+import org.apache.hadoop.hbase.CompoundConfiguration;
 import org.apache.hadoop.hbase.CoordinatedStateManager;
 import org.apache.hadoop.hbase.DoNotRetryIOException;
 import org.apache.hadoop.hbase.HBaseIOException;
@@ -155,6 +156,7 @@ import org.apache.hadoop.hbase.shaded.protobuf.generated.HBaseProtos.RegionServe
 import org.apache.hadoop.hbase.shaded.protobuf.generated.HBaseProtos.SnapshotDescription;
 import org.apache.hadoop.hbase.shaded.protobuf.generated.WALProtos;
 import org.apache.hadoop.hbase.util.Addressing;
+import org.apache.hadoop.hbase.util.BloomFilterUtil;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.CompressionTest;
 import org.apache.hadoop.hbase.util.EncryptionTest;
@@ -1788,6 +1790,17 @@ public class HMaster extends HRegionServer implements MasterServices {
         warnOrThrowExceptionForFailure(logWarn, CONF_KEY, message, null);
       }
 
+      // check the prefix length or delimiter of row prefix bloom filters
+      try {
+        BloomFilterUtil.getBloomFilterParam(hcd.getBloomFilterType(),
+          new CompoundConfiguration().add(conf).addStringMap(htd.getConfiguration())
+              .addStringMap(hcd.getConfiguration()).addBytesMap(hcd.getValues()));
+      } catch (IllegalArgumentException e) {
+        String message = "Bloom filter of column family " + hcd.getNameAsString()
+            + " is misconfigured: " + e.getMessage();
+        warnOrThrowExceptionForFailure(logWarn, CONF_KEY, message, null);
+      }
+
       // check replication scope
       checkReplicationScope(hcd);
 
@@ -0,0 +1,166 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * Picks the size limit of each scan RPC from how fast the client of the scanner consumes what
+ * it is sent, within a budget of memory for all scan RPCs being served.
+ * <p>
+ * A client that comes back for more right away is network or server bound, and gets as much as
+ * its caching and max result size allow, as without this class. A client that spends its time
+ * between next() calls working on what it got only needs a response big enough to keep it busy
+ * for {@link #INTERVAL_MS_KEY} milliseconds; anything more sits in the RegionServer while the
+ * response is built and in the client after. The rate of each scanner is an average of the bytes
+ * of its last response over the time from when that response was done until the next request, so
+ * the time the RegionServer took to build it does not count as client time.
+ * <p>
+ * Each RPC holds its limit from the budget while it runs, and gets no more than what the others
+ * leave, but always at least {@link #MIN_RESULT_SIZE_KEY} so that every scan makes progress.
+ * The limit is only ever lowered from the one of the client, and the number of rows is left to
+ * the client.
+ */
+@InterfaceAudience.Private
+class AdaptiveScanSizer {
+
+  /** Whether to adapt the size of scan responses to the clients. Off by default. */
+  static final String ENABLED_KEY = "hbase.regionserver.scan.adaptive.enabled";
+  static final boolean DEFAULT_ENABLED = false;
+
+  /** Milliseconds of client consumption a response should hold */
+  static final String INTERVAL_MS_KEY = "hbase.regionserver.scan.adaptive.interval.ms";
+  static final long DEFAULT_INTERVAL_MS = 100;
+
+  /** Least size limit a scan RPC is lowered to, in bytes */
+  static final String MIN_RESULT_SIZE_KEY = "hbase.regionserver.scan.adaptive.min.result.size";
+  static final long DEFAULT_MIN_RESULT_SIZE = 64 * 1024;
+
+  /** Fraction of the heap the size limits of the scan RPCs being served add up to at most */
+  static final String MEMORY_BUDGET_KEY = "hbase.regionserver.scan.adaptive.memory.budget";
+  static final float DEFAULT_MEMORY_BUDGET = 0.1f;
+
+  private final boolean enabled;
+  private final long intervalMs;
+  private final long minResultSize;
+  private final long budget;
+
+  /** Sum of the size limits of the scan RPCs being served */
+  private final AtomicLong inUse = new AtomicLong();
+  /** Scan RPCs given a size limit lower than the one of the client */
+  private final LongAdder reducedCount = new LongAdder();
+
+  AdaptiveScanSizer(Configuration conf) {
+    this(conf, Runtime.getRuntime().maxMemory());
+  }
+
+  @VisibleForTesting
+  AdaptiveScanSizer(Configuration conf, long maxHeap) {
+    this.enabled = conf.getBoolean(ENABLED_KEY, DEFAULT_ENABLED);
+    this.intervalMs = Math.max(1, conf.getLong(INTERVAL_MS_KEY, DEFAULT_INTERVAL_MS));
+    this.minResultSize = Math.max(1, conf.getLong(MIN_RESULT_SIZE_KEY, DEFAULT_MIN_RESULT_SIZE));
+    this.budget = (long) (maxHeap * conf.getFloat(MEMORY_BUDGET_KEY, DEFAULT_MEMORY_BUDGET));
+  }
+
+  boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Called as a scan RPC starts. The returned limit is held from the budget until
+   * {@link #release(ScannerRate, long, long, long)}.
+   * @param rate the rate of the scanner
+   * @param maxResultSize the size limit of the client
+   * @param now the arrival time of the RPC, in milliseconds
+   * @return the size limit for the RPC, in bytes, at most maxResultSize
+   */
+  long acquire(ScannerRate rate, long maxResultSize, long now) {
+    long limit = maxResultSize;
+    long wanted = rate.arrived(now, intervalMs);
+    if (wanted >= 0) {
+      limit = Math.min(limit, Math.max(minResultSize, wanted));
+    }
+    while (true) {
+      long used = inUse.get();
+      long granted = Math.min(limit, Math.max(minResultSize, budget - used));
+      if (inUse.compareAndSet(used, used + granted)) {
+        if (granted < maxResultSize) {
+          reducedCount.increment();
+        }
+        return granted;
+      }
+    }
+  }
+
+  /**
+   * Called as a scan RPC ends, with what {@link #acquire(ScannerRate, long, long)} returned.
+   * @param responseBytes the size of the response
+   * @param now the time the response was done, in milliseconds
+   */
+  void release(ScannerRate rate, long granted, long responseBytes, long now) {
+    inUse.addAndGet(-granted);
+    rate.responded(responseBytes, now);
+  }
+
+  /**
+   * @return the sum of the size limits of the scan RPCs being served, in bytes
+   */
+  long getMemoryInUse() {
+    return inUse.get();
+  }
+
+  /**
+   * @return the number of scan RPCs given a size limit lower than the one of the client
+   */
+  long getReducedCount() {
+    return reducedCount.sum();
+  }
+
+  /**
+   * The consumption rate of the client of one scanner.
+   */
+  static class ScannerRate {
+    private long lastResponded = -1;
+    private long lastResponseBytes;
+    private double bytesPerMs = -1;
+
+    /**
+     * @return the bytes the client consumes in intervalMs, or -1 if not known yet
+     */
+    synchronized long arrived(long now, long intervalMs) {
+      if (lastResponded >= 0 && lastResponseBytes > 0) {
+        double rate = lastResponseBytes / (double) Math.max(1, now - lastResponded);
+        bytesPerMs = bytesPerMs < 0 ? rate : (bytesPerMs + rate) / 2;
+      }
+      lastResponseBytes = 0;
+      // The cast saturates at Long.MAX_VALUE
+      return bytesPerMs < 0 ? -1 : (long) (bytesPerMs * intervalMs);
+    }
+
+    synchronized void responded(long bytes, long now) {
+      lastResponseBytes = bytes;
+      lastResponded = now;
+    }
+  }
+}
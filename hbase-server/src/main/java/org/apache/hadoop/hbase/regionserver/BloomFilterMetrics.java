@@ -0,0 +1,78 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * How well the general Bloom filters of a store's files do: how often they are checked, how
+ * often a check lets a read skip a file, how often a file that passed the check turned out
+ * not to have the row after all, and the time spent checking.
+ * <p>
+ * A false positive is only seen when the read goes on to seek the file, so reads answered
+ * before that are not counted either way.
+ */
+@InterfaceAudience.Private
+public class BloomFilterMetrics {
+
+  private final LongAdder requestCount = new LongAdder();
+  private final LongAdder negativeCount = new LongAdder();
+  private final LongAdder falsePositiveCount = new LongAdder();
+  /** Time spent in checks, in nanoseconds */
+  private final LongAdder checkTime = new LongAdder();
+
+  /**
+   * @param passed whether the file may have the key
+   * @param nanos time the check took
+   */
+  void check(boolean passed, long nanos) {
+    requestCount.increment();
+    if (!passed) {
+      negativeCount.increment();
+    }
+    checkTime.add(nanos);
+  }
+
+  void falsePositive() {
+    falsePositiveCount.increment();
+  }
+
+  public long getRequestCount() {
+    return requestCount.sum();
+  }
+
+  /**
+   * @return checks that let a read skip a file
+   */
+  public long getNegativeCount() {
+    return negativeCount.sum();
+  }
+
+  public long getFalsePositiveCount() {
+    return falsePositiveCount.sum();
+  }
+
+  /**
+   * @return total time spent checking, in nanoseconds
+   */
+  public long getCheckTime() {
+    return checkTime.sum();
+  }
+}
@@ -0,0 +1,189 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.apache.hadoop.hbase.regionserver;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.NoTagsKeyValue;
+import org.apache.hadoop.hbase.OffheapKeyValue;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.util.ByteBufferUtils;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.ClassSize;
+
+/**
+ * CellChunkMap is an array of Cells whose index lives in MSLAB chunks rather than on the heap.
+ * <p>
+ * Each entry is a fixed size record of (chunk, offset, length, sequence id) pointing at the
+ * serialized Cell in the MSLAB chunk that holds it. The records are written into chunks given
+ * out by the segment's {@link MemStoreLAB}, so they are pooled, and on- or off-heap, like any
+ * other chunk of the memstore. Unlike {@link CellArrayMap}, a flattened segment does not keep
+ * one Cell object per entry alive: a Cell is materialized as a short lived flyweight over its
+ * chunk each time it is read. The chunk of a record is a position in the small array of data
+ * chunks the segment's Cells were found in.
+ * <p>
+ * Only Cells serialized as a KeyValue in a single buffer can be indexed; see
+ * {@link #create(Comparator, Cell[], int, MemStoreLAB)}.
+ */
+@InterfaceAudience.Private
+public class CellChunkMap extends CellFlatMap {
+
+  private static final int OFFSET_OFFSET = Bytes.SIZEOF_INT;
+  private static final int LENGTH_OFFSET = OFFSET_OFFSET + Bytes.SIZEOF_INT;
+  private static final int SEQ_ID_OFFSET = LENGTH_OFFSET + Bytes.SIZEOF_INT;
+
+  /** The buffers of the chunks the Cells are in; records refer to them by position */
+  private final ByteBuffer[] chunks;
+  /** The buffers of the chunks holding the records, in order */
+  private final ByteBuffer[] index;
+  private final int recordsPerChunk;
+
+  /* The index is written only when CellChunkMap is created, all sub-CellBlocks use
+   * boundary indexes. */
+  private CellChunkMap(Comparator<? super Cell> comparator, ByteBuffer[] chunks,
+      ByteBuffer[] index, int recordsPerChunk, int min, int max, boolean descending) {
+    super(comparator, min, max, descending);
+    this.chunks = chunks;
+    this.index = index;
+    this.recordsPerChunk = recordsPerChunk;
+  }
+
+  /**
+   * Writes the index of the given ordered Cells into chunks of memStoreLAB.
+   * @return the map, or null if memStoreLAB gives out no chunks or one of the Cells can not be
+   *     indexed. Nothing is allocated in that case.
+   */
+  static CellChunkMap create(Comparator<? super Cell> comparator, Cell[] cells, int numOfCells,
+      MemStoreLAB memStoreLAB) {
+    if (memStoreLAB == null) {
+      return null;
+    }
+    // Find the buffers the Cells live in before taking any chunk.
+    Map<Object, Integer> bufferIdx = new IdentityHashMap<>();
+    List<ByteBuffer> buffers = new ArrayList<>();
+    int[] cellBuffers = new int[numOfCells];
+    for (int i = 0; i < numOfCells; i++) {
+      Object buffer = getBackingBuffer(cells[i]);
+      if (buffer == null) {
+        return null;
+      }
+      Integer idx = bufferIdx.get(buffer);
+      if (idx == null) {
+        idx = buffers.size();
+        bufferIdx.put(buffer, idx);
+        buffers.add(buffer instanceof byte[] ? ByteBuffer.wrap((byte[]) buffer)
+            : (ByteBuffer) buffer);
+      }
+      cellBuffers[i] = idx;
+    }
+
+    List<ByteBuffer> index = new ArrayList<>();
+    int recordsPerChunk = 1;
+    ByteBuffer current = null;
+    for (int i = 0; i < numOfCells; i++) {
+      int record = i % recordsPerChunk;
+      if (current == null || record == 0) {
+        Chunk chunk = memStoreLAB.getNewExternalChunk();
+        if (chunk == null) {
+          // A MemStoreLAB gives out chunks or it does not, so this is the first one.
+          return null;
+        }
+        current = chunk.getData();
+        if (index.isEmpty()) {
+          // All chunks of a MemStoreLAB are of the same size.
+          recordsPerChunk = current.capacity() / ClassSize.CELL_CHUNK_MAP_ENTRY;
+          record = 0;
+        }
+        index.add(current);
+      }
+      Cell cell = cells[i];
+      int pos = record * ClassSize.CELL_CHUNK_MAP_ENTRY;
+      ByteBufferUtils.putInt(current, pos, cellBuffers[i]);
+      ByteBufferUtils.putInt(current, pos + OFFSET_OFFSET, getOffset(cell));
+      ByteBufferUtils.putInt(current, pos + LENGTH_OFFSET, getLength(cell));
+      ByteBufferUtils.putLong(current, pos + SEQ_ID_OFFSET, cell.getSequenceId());
+    }
+    return new CellChunkMap(comparator, buffers.toArray(new ByteBuffer[buffers.size()]),
+        index.toArray(new ByteBuffer[index.size()]), recordsPerChunk, 0, numOfCells, false);
+  }
+
+  /* To be used by base class only to create a sub-CellFlatMap */
+  @Override
+  protected CellFlatMap createSubCellFlatMap(int min, int max, boolean descending) {
+    return new CellChunkMap(comparator(), chunks, index, recordsPerChunk, min, max, descending);
+  }
+
+  @Override
+  protected Cell getCell(int i) {
+    ByteBuffer block = index[i / recordsPerChunk];
+    int pos = (i % recordsPerChunk) * ClassSize.CELL_CHUNK_MAP_ENTRY;
+    ByteBuffer buf = chunks[ByteBufferUtils.toInt(block, pos)];
+    int offset = ByteBufferUtils.toInt(block, pos + OFFSET_OFFSET);
+    int length = ByteBufferUtils.toInt(block, pos + LENGTH_OFFSET);
+    long seqId = ByteBufferUtils.toLong(block, pos + SEQ_ID_OFFSET);
+    if (!buf.hasArray()) {
+      OffheapKeyValue cell = new OffheapKeyValue(buf, offset, length);
+      cell.setSequenceId(seqId);
+      return cell;
+    }
+    byte[] bytes = buf.array();
+    int keyLength = Bytes.toInt(bytes, offset);
+    int valueLength = Bytes.toInt(bytes, offset + Bytes.SIZEOF_INT);
+    // As in the MSLAB copy, a KeyValue without tags is read as the cheaper NoTagsKeyValue.
+    KeyValue cell = length > KeyValue.KEYVALUE_INFRASTRUCTURE_SIZE + keyLength + valueLength
+        ? new KeyValue(bytes, offset, length) : new NoTagsKeyValue(bytes, offset, length);
+    cell.setSequenceId(seqId);
+    return cell;
+  }
+
+  /**
+   * @return the byte[] or ByteBuffer the whole of the serialized Cell is in, or null if the
+   *     Cell is not of a type that can be indexed
+   */
+  private static Object getBackingBuffer(Cell cell) {
+    if (cell instanceof OffheapKeyValue) {
+      return ((OffheapKeyValue) cell).getRowByteBuffer();
+    }
+    if (cell instanceof KeyValue && !(cell instanceof KeyValue.KeyOnlyKeyValue)) {
+      return ((KeyValue) cell).getBuffer();
+    }
+    return null;
+  }
+
+  private static int getOffset(Cell cell) {
+    if (cell instanceof OffheapKeyValue) {
+      return ((OffheapKeyValue) cell).getRowPosition() - KeyValue.ROW_KEY_OFFSET;
+    }
+    return ((KeyValue) cell).getOffset();
+  }
+
+  private static int getLength(Cell cell) {
+    if (cell instanceof OffheapKeyValue) {
+      return ((OffheapKeyValue) cell).getSerializedSize(true);
+    }
+    return ((KeyValue) cell).getLength();
+  }
+}
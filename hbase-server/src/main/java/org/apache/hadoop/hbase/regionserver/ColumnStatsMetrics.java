@@ -0,0 +1,70 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * How many store files scans of a store skip by their column statistics, see
+ * {@link ColumnStatsTracker}. Only scans with explicit columns or a column range filter are
+ * counted, as only they can use the statistics.
+ */
+@InterfaceAudience.Private
+public class ColumnStatsMetrics {
+
+  private final LongAdder scanCount = new LongAdder();
+  private final LongAdder checkCount = new LongAdder();
+  private final LongAdder prunedCount = new LongAdder();
+
+  void scan() {
+    scanCount.increment();
+  }
+
+  /**
+   * @param passed whether the file may have a column of the scan
+   */
+  void check(boolean passed) {
+    checkCount.increment();
+    if (!passed) {
+      prunedCount.increment();
+    }
+  }
+
+  /**
+   * @return scans that could skip files by their column statistics
+   */
+  public long getScanCount() {
+    return scanCount.sum();
+  }
+
+  /**
+   * @return files with column statistics that scans checked
+   */
+  public long getCheckCount() {
+    return checkCount.sum();
+  }
+
+  /**
+   * @return files that scans skipped as they had none of the columns
+   */
+  public long getPrunedCount() {
+    return prunedCount.sum();
+  }
+}
@@ -0,0 +1,288 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableSet;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.ColumnRangeFilter;
+import org.apache.hadoop.hbase.filter.Filter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.io.WritableUtils;
+
+/**
+ * Tracks the column qualifiers of the cells written to a store file: all of them while there
+ * are at most {@link #MAX_QUALIFIERS_KEY}, and their range. The result is written to the file
+ * info, and lets scans for explicit columns or with a {@link ColumnRangeFilter} skip files
+ * without any of their columns.
+ * <p>
+ * A file with family delete markers gets no statistics: the markers hide the cells of every
+ * column, so the file cannot be skipped by column.
+ * <p>
+ * Like {@link TimeRangeTracker}, this is used while writing, and when read back from the file
+ * info, to test scans against.
+ */
+@InterfaceAudience.Private
+public class ColumnStatsTracker {
+  /**
+   * Most distinct qualifiers a store file lists in its file info. Files with more only keep
+   * the range of their qualifiers. A negative value turns the statistics off. Can be set per
+   * column family.
+   */
+  public static final String MAX_QUALIFIERS_KEY = "hbase.hstore.column.stats.max.qualifiers";
+  public static final int DEFAULT_MAX_QUALIFIERS = 64;
+
+  // Marks the serialized form of statistics that only keep the range
+  private static final int RANGE_ONLY = -1;
+
+  private final int maxQualifiers;
+  // Sorted, null when there are too many to list
+  private List<byte[]> qualifiers;
+  // Index of the qualifier of the last tracked cell, while listing
+  private int lastIndex = -1;
+  private byte[] minQualifier;
+  private byte[] maxQualifier;
+  private boolean hasFamilyDeletes;
+
+  /**
+   * @param maxQualifiers most distinct qualifiers to list, 0 to keep the range only
+   */
+  public ColumnStatsTracker(int maxQualifiers) {
+    this.maxQualifiers = maxQualifiers;
+    this.qualifiers = maxQualifiers > 0 ? new ArrayList<byte[]>() : null;
+  }
+
+  private ColumnStatsTracker(List<byte[]> qualifiers, byte[] minQualifier, byte[] maxQualifier) {
+    this.maxQualifiers = qualifiers == null ? 0 : qualifiers.size();
+    this.qualifiers = qualifiers;
+    this.minQualifier = minQualifier;
+    this.maxQualifier = maxQualifier;
+  }
+
+  /**
+   * Adds the qualifier of the cell. Does not allocate unless the cell has a qualifier not seen
+   * before, or one that widens the range.
+   */
+  public void track(Cell cell) {
+    if (hasFamilyDeletes) {
+      return;
+    }
+    if (CellUtil.isDeleteFamily(cell) || CellUtil.isDeleteFamilyVersion(cell)) {
+      hasFamilyDeletes = true;
+      qualifiers = null;
+      return;
+    }
+    if (qualifiers != null) {
+      // Versions and cells of the next row often repeat the last qualifier
+      if (lastIndex >= 0 && compare(cell, qualifiers.get(lastIndex)) == 0) {
+        return;
+      }
+      int index = indexOf(qualifiers, cell);
+      if (index >= 0) {
+        lastIndex = index;
+        return;
+      }
+      if (qualifiers.size() < maxQualifiers) {
+        lastIndex = -(index + 1);
+        qualifiers.add(lastIndex, CellUtil.cloneQualifier(cell));
+        minQualifier = qualifiers.get(0);
+        maxQualifier = qualifiers.get(qualifiers.size() - 1);
+        return;
+      }
+      // Too many to list, keep the range only
+      qualifiers = null;
+    }
+    if (minQualifier == null || compare(cell, minQualifier) < 0) {
+      minQualifier = CellUtil.cloneQualifier(cell);
+    }
+    if (maxQualifier == null || compare(cell, maxQualifier) > 0) {
+      maxQualifier = CellUtil.cloneQualifier(cell);
+    }
+  }
+
+  /**
+   * @return the statistics to write to the file info, or null if there are none
+   */
+  public byte[] toByteArray() throws IOException {
+    if (hasFamilyDeletes || minQualifier == null) {
+      return null;
+    }
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    DataOutputStream out = new DataOutputStream(bytes);
+    if (qualifiers != null) {
+      WritableUtils.writeVInt(out, qualifiers.size());
+      for (byte[] qualifier : qualifiers) {
+        Bytes.writeByteArray(out, qualifier);
+      }
+    } else {
+      WritableUtils.writeVInt(out, RANGE_ONLY);
+      Bytes.writeByteArray(out, minQualifier);
+      Bytes.writeByteArray(out, maxQualifier);
+    }
+    out.close();
+    return bytes.toByteArray();
+  }
+
+  /**
+   * @param bytes statistics from {@link #toByteArray()}
+   * @return the statistics to test scans against
+   */
+  public static ColumnStatsTracker parseFrom(byte[] bytes) throws IOException {
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes));
+    int count = WritableUtils.readVInt(in);
+    if (count == RANGE_ONLY) {
+      return new ColumnStatsTracker(null, Bytes.readByteArray(in), Bytes.readByteArray(in));
+    }
+    if (count <= 0) {
+      throw new IOException("Bad number of qualifiers in column statistics: " + count);
+    }
+    List<byte[]> qualifiers = new ArrayList<byte[]>(count);
+    for (int i = 0; i < count; i++) {
+      qualifiers.add(Bytes.readByteArray(in));
+    }
+    return new ColumnStatsTracker(qualifiers, qualifiers.get(0), qualifiers.get(count - 1));
+  }
+
+  /**
+   * @return whether a scan of the family can use column statistics to skip files
+   */
+  static boolean isApplicable(Scan scan, NavigableSet<byte[]> columns) {
+    return (columns != null && !columns.isEmpty()) || getColumnRangeFilter(scan) != null;
+  }
+
+  /**
+   * @param scan the scan
+   * @param columns the columns of the scan in this family, if any
+   * @return false if the file has none of the columns the scan can return
+   */
+  boolean passesScan(Scan scan, NavigableSet<byte[]> columns) {
+    if (columns != null && !columns.isEmpty() && !mayContainAny(columns)) {
+      return false;
+    }
+    ColumnRangeFilter filter = getColumnRangeFilter(scan);
+    return filter == null || mayContainRange(filter.getMinColumn(),
+      filter.isMinColumnInclusive(), filter.getMaxColumn(), filter.isMaxColumnInclusive());
+  }
+
+  /**
+   * @return whether the file may have any of the columns
+   */
+  boolean mayContainAny(NavigableSet<byte[]> columns) {
+    for (byte[] column : columns) {
+      if (qualifiers != null) {
+        if (Collections.binarySearch(qualifiers, column, Bytes.BYTES_COMPARATOR) >= 0) {
+          return true;
+        }
+      } else if (Bytes.compareTo(column, minQualifier) >= 0
+          && Bytes.compareTo(column, maxQualifier) <= 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param minColumn lower bound of the range, null or empty for none
+   * @param maxColumn upper bound of the range, null or empty for none
+   * @return whether the file may have a column in the range
+   */
+  boolean mayContainRange(byte[] minColumn, boolean minInclusive, byte[] maxColumn,
+      boolean maxInclusive) {
+    // The smallest qualifier of the file that is not below the range
+    byte[] candidate;
+    if (minColumn == null || minColumn.length == 0) {
+      candidate = minQualifier;
+    } else if (qualifiers != null) {
+      int index = Collections.binarySearch(qualifiers, minColumn, Bytes.BYTES_COMPARATOR);
+      if (index < 0) {
+        index = -(index + 1);
+      } else if (!minInclusive) {
+        index++;
+      }
+      if (index == qualifiers.size()) {
+        return false;
+      }
+      candidate = qualifiers.get(index);
+    } else {
+      int cmp = Bytes.compareTo(maxQualifier, minColumn);
+      if (cmp < 0 || (cmp == 0 && !minInclusive)) {
+        return false;
+      }
+      // Some qualifier of the range may be right at or after the lower bound
+      candidate = Bytes.compareTo(minQualifier, minColumn) > 0 ? minQualifier : minColumn;
+    }
+    if (maxColumn == null || maxColumn.length == 0) {
+      return true;
+    }
+    int cmp = Bytes.compareTo(candidate, maxColumn);
+    return cmp < 0 || (cmp == 0 && maxInclusive);
+  }
+
+  /**
+   * @return the {@link ColumnRangeFilter} every cell the scan returns must pass, if any
+   */
+  private static ColumnRangeFilter getColumnRangeFilter(Scan scan) {
+    Filter filter = scan.getFilter();
+    if (filter instanceof ColumnRangeFilter) {
+      return (ColumnRangeFilter) filter;
+    }
+    if (filter instanceof FilterList
+        && ((FilterList) filter).getOperator() == FilterList.Operator.MUST_PASS_ALL) {
+      for (Filter child : ((FilterList) filter).getFilters()) {
+        if (child instanceof ColumnRangeFilter) {
+          return (ColumnRangeFilter) child;
+        }
+      }
+    }
+    return null;
+  }
+
+  private static int indexOf(List<byte[]> qualifiers, Cell cell) {
+    int low = 0;
+    int high = qualifiers.size() - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int cmp = compare(cell, qualifiers.get(mid));
+      if (cmp > 0) {
+        low = mid + 1;
+      } else if (cmp < 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -(low + 1);
+  }
+
+  private static int compare(Cell cell, byte[] qualifier) {
+    return CellComparator.compareQualifiers(cell, qualifier, 0, qualifier.length);
+  }
+}
@@ -61,6 +61,11 @@ public class CompactingMemStore extends AbstractMemStore {
   public static final String IN_MEMORY_FLUSH_THRESHOLD_FACTOR_KEY =
       "hbase.memstore.inmemoryflush.threshold.factor";
   private static final double IN_MEMORY_FLUSH_THRESHOLD_FACTOR_DEFAULT = 0.25;
+  // The index of flattened and compacted segments: "array" keeps one Cell object per entry
+  // (CellArrayMap), "chunk" keeps the index in MSLAB chunks (CellChunkMap)
+  public static final String COMPACTING_MEMSTORE_INDEX_KEY =
+      "hbase.hregion.compacting.memstore.index";
+  public static final String COMPACTING_MEMSTORE_INDEX_DEFAULT = "array";
 
   private static final Log LOG = LogFactory.getLog(CompactingMemStore.class);
   private Store store;
@@ -87,10 +92,27 @@ public class CompactingMemStore extends AbstractMemStore {
     this.store = store;
     this.regionServices = regionServices;
     this.pipeline = new CompactionPipeline(getRegionServices());
+    getIndexType(); // fail fast on a bad index type
     this.compactor = new MemStoreCompactor(this, compactionPolicy);
     initInmemoryFlushSize(conf);
   }
 
+  /**
+   * @return the type of flat segments that flattening and compaction produce
+   */
+  ImmutableSegment.Type getIndexType() {
+    String index = getConfiguration().get(COMPACTING_MEMSTORE_INDEX_KEY,
+        COMPACTING_MEMSTORE_INDEX_DEFAULT);
+    if ("chunk".equalsIgnoreCase(index)) {
+      return ImmutableSegment.Type.CHUNK_MAP_BASED;
+    }
+    if (!"array".equalsIgnoreCase(index)) {
+      throw new IllegalArgumentException("Unknown " + COMPACTING_MEMSTORE_INDEX_KEY + ": "
+          + index + "; expected array or chunk");
+    }
+    return ImmutableSegment.Type.ARRAY_MAP_BASED;
+  }
+
   private void initInmemoryFlushSize(Configuration conf) {
     long memstoreFlushSize = getRegionServices().getMemstoreFlushSize();
     int numStores = getRegionServices().getNumStores();
@@ -234,7 +256,7 @@ public class CompactingMemStore extends AbstractMemStore {
    *           The flattening happens only if versions match.
    */
   public void flattenOneSegment(long requesterVersion) {
-    pipeline.flattenYoungestSegment(requesterVersion);
+    pipeline.flattenYoungestSegment(requesterVersion, getIndexType());
   }
 
   public boolean hasImmutableSegments() {
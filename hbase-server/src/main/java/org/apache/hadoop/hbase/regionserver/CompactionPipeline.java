@@ -149,13 +149,14 @@ public class CompactionPipeline {
 
   /**
    * If the caller holds the current version, go over the the pipeline and try to flatten each
-   * segment. Flattening is replacing the ConcurrentSkipListMap based CellSet to CellArrayMap based.
+   * segment. Flattening is replacing the ConcurrentSkipListMap based CellSet to a CellFlatMap
+   * based one of the given type.
    * Flattening of the segment that initially is not based on ConcurrentSkipListMap has no effect.
    * Return after one segment is successfully flatten.
    *
    * @return true iff a segment was successfully flattened
    */
-  public boolean flattenYoungestSegment(long requesterVersion) {
+  public boolean flattenYoungestSegment(long requesterVersion, ImmutableSegment.Type idxType) {
 
     if(requesterVersion != version) {
       LOG.warn("Segment flattening failed, because versions do not match. Requester version: "
@@ -172,7 +173,7 @@ public class CompactionPipeline {
       for (ImmutableSegment s : pipeline) {
         // remember the old size in case this segment is going to be flatten
         MemstoreSize memstoreSize = new MemstoreSize();
-        if (s.flatten(memstoreSize)) {
+        if (s.flatten(memstoreSize, idxType)) {
           if(region != null) {
             region.addMemstoreSize(memstoreSize);
           }
@@ -40,7 +40,7 @@ import org.apache.hadoop.hbase.security.User;
  * https://docs.google.com/document/d/1_AmlNb2N8Us1xICsTeGDLKIqL6T-oHoRLZ323MG_uy8/edit#heading=h.uk6y5pd3oqgx
  */
 @InterfaceAudience.Private
-public class DateTieredStoreEngine extends StoreEngine<DefaultStoreFlusher,
+public class DateTieredStoreEngine extends StoreEngine<DateTieredStoreFlusher,
   DateTieredCompactionPolicy, DateTieredCompactor, DefaultStoreFileManager> {
   @Override
   public boolean needsCompaction(List<StoreFile> filesCompacting) {
@@ -60,7 +60,7 @@ public class DateTieredStoreEngine extends StoreEngine<DefaultStoreFlusher,
     this.storeFileManager =
         new DefaultStoreFileManager(kvComparator, StoreFile.Comparators.SEQ_ID_MAX_TIMESTAMP, conf,
             compactionPolicy.getConf());
-    this.storeFlusher = new DefaultStoreFlusher(conf, store);
+    this.storeFlusher = new DateTieredStoreFlusher(conf, store, compactionPolicy);
     this.compactor = new DateTieredCompactor(conf, store);
   }
 
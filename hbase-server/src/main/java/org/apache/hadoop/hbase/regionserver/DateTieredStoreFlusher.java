@@ -0,0 +1,127 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.monitoring.MonitoredTask;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionConfiguration;
+import org.apache.hadoop.hbase.regionserver.compactions.DateTieredCompactionPolicy;
+import org.apache.hadoop.hbase.regionserver.throttle.ThroughputController;
+import org.apache.hadoop.util.StringUtils;
+
+/**
+ * Date tiered implementation of StoreFlusher. Splits a flush into a file per compaction window,
+ * so that late arriving data does not make a file span old and new windows which the first
+ * compaction then has to rewrite. At most
+ * {@link CompactionConfiguration#DATE_TIERED_FLUSH_MAX_OUTPUTS_KEY} files are written, the
+ * earliest taking all older cells; with the default of 1, flushes write a single file like
+ * {@link DefaultStoreFlusher}.
+ */
+@InterfaceAudience.Private
+public class DateTieredStoreFlusher extends DefaultStoreFlusher {
+  private static final Log LOG = LogFactory.getLog(DateTieredStoreFlusher.class);
+  private final Object flushLock = new Object();
+  private final DateTieredCompactionPolicy policy;
+
+  public DateTieredStoreFlusher(Configuration conf, Store store,
+      DateTieredCompactionPolicy policy) {
+    super(conf, store);
+    this.policy = policy;
+  }
+
+  @Override
+  public List<Path> flushSnapshot(MemStoreSnapshot snapshot, long cacheFlushId,
+      MonitoredTask status, ThroughputController throughputController) throws IOException {
+    int cellsCount = snapshot.getCellsCount();
+    int maxOutputs = policy.getConf().getDateTieredFlushMaxOutputs();
+    if (cellsCount == 0 || maxOutputs <= 1) {
+      return super.flushSnapshot(snapshot, cacheFlushId, status, throughputController);
+    }
+    List<Long> boundaries =
+        policy.getFlushBoundaries(snapshot.getTimeRangeTracker().getMin(), maxOutputs);
+    if (boundaries.size() == 1) {
+      // All in one window
+      return super.flushSnapshot(snapshot, cacheFlushId, status, throughputController);
+    }
+
+    long smallestReadPoint = store.getSmallestReadPoint();
+    InternalScanner scanner = createScanner(snapshot.getScanner(), smallestReadPoint);
+    if (scanner == null) {
+      return new ArrayList<Path>(); // NULL scanner returned from coprocessor hooks means skip
+    }
+
+    List<Path> result;
+    boolean success = false;
+    // Write an empty file if all cells were dropped, to keep the sequence id like a single file
+    DateTieredMultiFileWriter writer = new DateTieredMultiFileWriter(boundaries, true);
+    try {
+      StoreScanner storeScanner = (scanner instanceof StoreScanner) ? (StoreScanner)scanner : null;
+      writer.init(storeScanner, createWriterFactory(cellsCount, snapshot.isTagsPresent()));
+      synchronized (flushLock) {
+        status.setStatus("Flushing " + store + ": writing up to " + boundaries.size()
+            + " windows");
+        performFlush(scanner, writer, smallestReadPoint, throughputController);
+        status.setStatus("Flushing " + store + ": closing flushed files");
+        result = writer.commitWriters(cacheFlushId, false);
+        success = true;
+      }
+    } finally {
+      if (!success) {
+        for (Path leftoverFile : writer.abortWriters()) {
+          try {
+            store.getFileSystem().delete(leftoverFile, false);
+          } catch (Exception e) {
+            LOG.error("Failed to delete a file after failed flush: " + e);
+          }
+        }
+      }
+      try {
+        scanner.close();
+      } catch (IOException ex) {
+        LOG.warn("Failed to close flush scanner, ignoring", ex);
+      }
+    }
+    LOG.info("Flushed, sequenceid=" + cacheFlushId + ", memsize="
+        + StringUtils.TraditionalBinaryPrefix.long2String(snapshot.getDataSize(), "", 1)
+        + ", into " + result.size() + " tmp files by window, lower boundaries: " + boundaries);
+    return result;
+  }
+
+  private AbstractMultiFileWriter.WriterFactory createWriterFactory(final long kvCount,
+      final boolean includesTags) {
+    return new AbstractMultiFileWriter.WriterFactory() {
+      @Override
+      public StoreFileWriter createWriter() throws IOException {
+        // No time range tracker of the snapshot: each file tracks the range of its own window
+        return store.createWriterInTmp(kvCount, store.getFamily().getCompressionType(),
+            /* isCompaction = */ false,
+            /* includeMVCCReadpoint = */ true,
+            /* includesTags = */ includesTags,
+            /* shouldDropBehind = */ false);
+      }
+    };
+  }
+}
@@ -23,7 +23,6 @@ import static org.apache.hadoop.hbase.util.CollectionUtils.computeIfAbsent;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.io.Closeables;
 
@@ -71,7 +70,6 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReadWriteLock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
@@ -252,6 +250,13 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   // - the row itself
   private final ConcurrentHashMap<HashedBytes, RowLockContext> lockedRows =
       new ConcurrentHashMap<HashedBytes, RowLockContext>();
+  // Row locks hashed onto a fixed set of locks, or null to lock each row in lockedRows
+  private final StripedRowLocks rowLockStripes;
+  // Row locks that had to be waited for, and the total wait in nanoseconds
+  private final LongAdder rowLockContentions = new LongAdder();
+  private final LongAdder rowLockWaitTime = new LongAdder();
+  // Merges concurrent increments of a row, or null to apply each on its own
+  private final IncrementCoalescer incrementCoalescer;
 
   protected final Map<byte[], Store> stores = new ConcurrentSkipListMap<byte[], Store>(
       Bytes.BYTES_RAWCOMPARATOR);
@@ -260,6 +265,8 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   private Map<String, com.google.protobuf.Service> coprocessorServiceHandlers = Maps.newHashMap();
 
   private final AtomicLong memstoreDataSize = new AtomicLong(0);// Track data size in all memstores
+  // Track heap overhead of all memstores; what they take of the heap when the data is off heap
+  private final AtomicLong memstoreHeapOverhead = new AtomicLong(0);
   private final RegionServicesForStores regionServicesForStores = new RegionServicesForStores(this);
 
   // Debug possible data loss due to WAL off
@@ -600,6 +607,15 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     void sawNoSuchFamily() {
       wrongFamily = true;
     }
+
+    /**
+     * Forgets the exceptions observed so far.
+     */
+    void reset() {
+      wrongRegion = false;
+      failedSanityCheck = false;
+      wrongFamily = false;
+    }
   }
 
   final WriteState writestate = new WriteState();
@@ -618,6 +634,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   // flushPerChanges is to prevent too many changes in memstore
   private long flushPerChanges;
   private long blockingMemStoreSize;
+  // Heap overhead flush and blocking thresholds, only used with an off heap memstore
+  private long memstoreHeapFlushSize;
+  private long blockingMemStoreHeapOverhead;
   final long threadWakeFrequency;
   // Used to guard closes
   final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
@@ -722,6 +741,28 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     }
     this.rowLockWaitDuration = conf.getInt("hbase.rowlock.wait.duration",
                     DEFAULT_ROWLOCK_WAIT_DURATION);
+    int rowLockStripeCount = conf.getInt(StripedRowLocks.STRIPES_KEY,
+      StripedRowLocks.DEFAULT_STRIPES);
+    this.rowLockStripes =
+        rowLockStripeCount > 0 ? new StripedRowLocks(rowLockStripeCount) : null;
+    this.incrementCoalescer =
+        conf.getBoolean(IncrementCoalescer.ENABLED_KEY, IncrementCoalescer.DEFAULT_ENABLED)
+            ? new IncrementCoalescer(conf, new IncrementCoalescer.DeltaApplier() {
+                @Override
+                public void check(Increment increment) throws IOException {
+                  checkReadOnly();
+                  checkResources();
+                  checkRow(increment.getRow(), Operation.INCREMENT.toString());
+                  checkFamilies(increment.getFamilyCellMap().keySet());
+                }
+
+                @Override
+                public Result apply(Increment merged, long nonceGroup, long nonce)
+                    throws IOException {
+                  return doDelta(Operation.INCREMENT, merged, nonceGroup, nonce, true);
+                }
+              })
+            : null;
 
     this.isLoadingCfsOnDemandDefault = conf.getBoolean(LOAD_CFS_ON_DEMAND_CONFIG_KEY, true);
     this.htableDescriptor = htd;
@@ -825,9 +866,11 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
         HTableDescriptor.DEFAULT_MEMSTORE_FLUSH_SIZE);
     }
     this.memstoreFlushSize = flushSize;
-    this.blockingMemStoreSize = this.memstoreFlushSize *
-        conf.getLong(HConstants.HREGION_MEMSTORE_BLOCK_MULTIPLIER,
-                HConstants.DEFAULT_HREGION_MEMSTORE_BLOCK_MULTIPLIER);
+    long blockMultiplier = conf.getLong(HConstants.HREGION_MEMSTORE_BLOCK_MULTIPLIER,
+        HConstants.DEFAULT_HREGION_MEMSTORE_BLOCK_MULTIPLIER);
+    this.blockingMemStoreSize = this.memstoreFlushSize * blockMultiplier;
+    this.memstoreHeapFlushSize = conf.getLong(MEMSTORE_HEAP_FLUSH_SIZE, flushSize);
+    this.blockingMemStoreHeapOverhead = this.memstoreHeapFlushSize * blockMultiplier;
   }
 
   /**
@@ -1198,6 +1241,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     if (this.rsAccounting != null) {
       rsAccounting.incGlobalMemstoreSize(memstoreSize);
     }
+    this.memstoreHeapOverhead.addAndGet(memstoreSize.getHeapOverhead());
     long size = this.memstoreDataSize.addAndGet(memstoreSize.getDataSize());
     checkNegativeMemstoreDataSize(size, memstoreSize.getDataSize());
     return size;
@@ -1207,6 +1251,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     if (this.rsAccounting != null) {
       rsAccounting.decGlobalMemstoreSize(memstoreSize);
     }
+    this.memstoreHeapOverhead.addAndGet(-memstoreSize.getHeapOverhead());
     long size = this.memstoreDataSize.addAndGet(-memstoreSize.getDataSize());
     checkNegativeMemstoreDataSize(size, -memstoreSize.getDataSize());
   }
@@ -1264,6 +1309,23 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     return memstoreDataSize.get();
   }
 
+  /**
+   * @return the heap overhead of the cells in all memstores of this region. With an on heap
+   *         memstore the heap also holds the data, see {@link #getMemstoreSize()}.
+   */
+  public long getMemstoreHeapOverhead() {
+    return memstoreHeapOverhead.get();
+  }
+
+  /**
+   * @return true if the memstore data is off heap and the heap taken by this region's memstores
+   *         is over the given limit
+   */
+  private boolean isMemstoreHeapOverheadAbove(long limit) {
+    return this.rsAccounting != null && this.rsAccounting.isOffheap()
+        && this.memstoreHeapOverhead.get() > limit;
+  }
+
   @Override
   public RegionServicesForStores getRegionServicesForStores() {
     return regionServicesForStores;
@@ -1469,6 +1531,13 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   public static final String MEMSTORE_FLUSH_PER_CHANGES =
       "hbase.regionserver.flush.per.changes";
   public static final long DEFAULT_FLUSH_PER_CHANGES = 30000000; // 30 millions
+
+  /**
+   * Conf key for the heap overhead at which the memstore of a region is flushed when memstore
+   * data is kept off heap. Defaults to the memstore flush size of the table.
+   */
+  public static final String MEMSTORE_HEAP_FLUSH_SIZE =
+      "hbase.hregion.memstore.heap.flush.size";
   /**
    * The following MAX_FLUSH_PER_CHANGES is large enough because each KeyValue has 20+ bytes
    * overhead. Therefore, even 1G empty KVs occupy at least 20GB memstore size for a single region
@@ -1688,7 +1757,8 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
 
       this.closed.set(true);
       if (!canFlush) {
-        this.decrMemstoreSize(new MemstoreSize(memstoreDataSize.get(), getMemstoreHeapOverhead()));
+        this.decrMemstoreSize(new MemstoreSize(memstoreDataSize.get(),
+            memstoreHeapOverhead.get()));
       } else if (memstoreDataSize.get() != 0) {
         LOG.error("Memstore size is " + memstoreDataSize.get());
       }
@@ -1713,14 +1783,6 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     }
   }
 
-  private long getMemstoreHeapOverhead() {
-    long overhead = 0;
-    for (Store s : this.stores.values()) {
-      overhead += s.getSizeOfMemStore().getHeapOverhead();
-    }
-    return overhead;
-  }
-
   @Override
   public void waitForFlushesAndCompactions() {
     synchronized (writestate) {
@@ -2603,9 +2665,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       // just-made new flush store file. The new flushed file is still in the
       // tmp directory.
 
-      for (StoreFlushContext flush : storeFlushCtxs.values()) {
-        flush.flushCache(status);
-      }
+      flushStores(storeFlushCtxs.values(), status);
 
       // Switch snapshot (in memstore) -> new hfile (thus causing
       // all the store scanners to reset/reseek).
@@ -2711,7 +2771,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     status.setStatus(msg);
 
     if (rsServices != null && rsServices.getMetrics() != null) {
-      rsServices.getMetrics().updateFlush(time - startTime,
+      rsServices.getMetrics().updateFlush(time,
           prepareResult.totalFlushableSize.getDataSize(), flushedOutputFileSize);
     }
 
@@ -2720,6 +2780,68 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
           FlushResult.Result.FLUSHED_NO_COMPACTION_NEEDED, flushOpSeqId);
   }
 
+  /**
+   * Writes the snapshots of the stores to be flushed to files. When the server has a store flush
+   * pool and there is more than one store, the stores are written in parallel; a failure or an
+   * interrupt is only reported once none of them is being written any more. Committing the files
+   * is left to the caller, which still does it for all stores at once.
+   */
+  private void flushStores(Collection<StoreFlushContext> flushes, final MonitoredTask status)
+      throws IOException {
+    ThreadPoolExecutor pool = rsServices == null ? null : rsServices.getStoreFlushPool();
+    if (pool == null || flushes.size() < 2) {
+      for (StoreFlushContext flush : flushes) {
+        flushStore(flush, status);
+      }
+      return;
+    }
+    List<Future<Void>> futures = new ArrayList<Future<Void>>(flushes.size());
+    for (final StoreFlushContext flush : flushes) {
+      futures.add(pool.submit(new Callable<Void>() {
+        @Override
+        public Void call() throws IOException {
+          flushStore(flush, status);
+          return null;
+        }
+      }));
+    }
+    // An interrupt does not stop the wait: the caller aborts the flush once we return, which must
+    // not happen while stores are still writing their files.
+    IOException failure = null;
+    InterruptedException interrupted = null;
+    for (Future<Void> future : futures) {
+      while (true) {
+        try {
+          future.get();
+        } catch (InterruptedException e) {
+          interrupted = e;
+          continue;
+        } catch (ExecutionException e) {
+          if (failure == null) {
+            Throwable cause = e.getCause();
+            failure = cause instanceof IOException ? (IOException) cause : new IOException(cause);
+          }
+        }
+        break;
+      }
+    }
+    if (interrupted != null) {
+      Thread.currentThread().interrupt();
+      throw (InterruptedIOException) new InterruptedIOException().initCause(interrupted);
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private void flushStore(StoreFlushContext flush, MonitoredTask status) throws IOException {
+    long start = EnvironmentEdgeManager.currentTime();
+    flush.flushCache(status);
+    if (rsServices != null && rsServices.getMetrics() != null) {
+      rsServices.getMetrics().updateStoreFlush(EnvironmentEdgeManager.currentTime() - start);
+    }
+  }
+
   /**
    * Method to safely get the next sequence number.
    * @return Next sequence number unassociated with any actual edit.
@@ -3145,7 +3267,6 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
    */
   @edu.umd.cs.findbugs.annotations.SuppressWarnings(value="UL_UNRELEASED_LOCK",
       justification="Findbugs seems to be confused on this.")
-  @SuppressWarnings("unchecked")
   // TODO: This needs a rewrite. Doesn't have to be this long. St.Ack 20160120
   private void doMiniBatchMutate(BatchOperation<?> batchOp) throws IOException {
     boolean replay = batchOp.isInReplay();
@@ -3153,8 +3274,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     long currentNonce = HConstants.NO_NONCE;
     WALEdit walEdit = null;
     boolean locked = false;
+    MiniBatchContext context = MiniBatchContext.acquire(batchOp.operations.length);
     // reference family maps directly so coprocessors can mutate them if desired
-    Map<byte[], List<Cell>>[] familyMaps = new Map[batchOp.operations.length];
+    Map<byte[], List<Cell>>[] familyMaps = context.getFamilyMaps();
     // We try to set up a batch in the range [firstIndex,lastIndexExclusive)
     int firstIndex = batchOp.nextIndexToProcess;
     int lastIndexExclusive = firstIndex;
@@ -3164,9 +3286,11 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     WriteEntry writeEntry = null;
     int cellCount = 0;
     /** Keep track of the locks we hold so we can release them in finally clause */
-    List<RowLock> acquiredRowLocks = Lists.newArrayListWithCapacity(batchOp.operations.length);
+    List<RowLock> acquiredRowLocks = context.getAcquiredRowLocks();
     MemstoreSize memstoreSize = new MemstoreSize();
-    final ObservedExceptionsInBatch observedExceptions = new ObservedExceptionsInBatch();
+    final ObservedExceptionsInBatch observedExceptions = context.getObservedExceptions();
+    // The coprocessor view of the mini-batch, shared by all the batch hooks
+    MiniBatchOperationInProgress<Mutation> miniBatchOp = null;
     try {
       // STEP 1. Try to acquire as many locks as we can, and ensure we acquire at least one.
       int numReadyToWrite = 0;
@@ -3244,9 +3368,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
 
       // calling the pre CP hook for batch mutation
       if (!replay && coprocessorHost != null) {
-        MiniBatchOperationInProgress<Mutation> miniBatchOp =
-          new MiniBatchOperationInProgress<Mutation>(batchOp.getMutationsForCoprocs(),
-          batchOp.retCodeDetails, batchOp.walEditsFromCoprocessors, firstIndex, lastIndexExclusive);
+        miniBatchOp = newMiniBatchOperation(batchOp, firstIndex, lastIndexExclusive);
         if (coprocessorHost.preBatchMutate(miniBatchOp)) {
           return;
         } else {
@@ -3399,9 +3521,6 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
 
       // calling the post CP hook for batch mutation
       if (!replay && coprocessorHost != null) {
-        MiniBatchOperationInProgress<Mutation> miniBatchOp =
-          new MiniBatchOperationInProgress<Mutation>(batchOp.getMutationsForCoprocs(),
-          batchOp.retCodeDetails, batchOp.walEditsFromCoprocessors, firstIndex, lastIndexExclusive);
         coprocessorHost.postBatchMutate(miniBatchOp);
       }
 
@@ -3454,6 +3573,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
         this.updatesLock.readLock().unlock();
       }
       releaseRowLocks(acquiredRowLocks);
+      context.release();
 
       // See if the column families were consistent through the whole thing.
       // if they were then keep them. If they were not then pass a null.
@@ -3483,9 +3603,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
       if (coprocessorHost != null && !batchOp.isInReplay()) {
         // call the coprocessor hook to do any finalization steps
         // after the put is done
-        MiniBatchOperationInProgress<Mutation> miniBatchOp =
-          new MiniBatchOperationInProgress<Mutation>(batchOp.getMutationsForCoprocs(),
-          batchOp.retCodeDetails, batchOp.walEditsFromCoprocessors, firstIndex, lastIndexExclusive);
+        if (miniBatchOp == null) {
+          miniBatchOp = newMiniBatchOperation(batchOp, firstIndex, lastIndexExclusive);
+        }
         coprocessorHost.postBatchMutateIndispensably(miniBatchOp, success);
       }
 
@@ -3493,6 +3613,12 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     }
   }
 
+  private static MiniBatchOperationInProgress<Mutation> newMiniBatchOperation(
+      BatchOperation<?> batchOp, int firstIndex, int lastIndexExclusive) {
+    return new MiniBatchOperationInProgress<Mutation>(batchOp.getMutationsForCoprocs(),
+        batchOp.retCodeDetails, batchOp.walEditsFromCoprocessors, firstIndex, lastIndexExclusive);
+  }
+
   private void mergeFamilyMaps(Map<byte[], List<Cell>> familyMap,
       Map<byte[], List<Cell>> toBeMerged) {
     for (Map.Entry<byte[], List<Cell>> entry : toBeMerged.entrySet()) {
@@ -3869,7 +3995,8 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     // If catalog region, do not impose resource constraints or block updates.
     if (this.getRegionInfo().isMetaRegion()) return;
 
-    if (this.memstoreDataSize.get() > this.blockingMemStoreSize) {
+    if (this.memstoreDataSize.get() > this.blockingMemStoreSize
+        || isMemstoreHeapOverheadAbove(this.blockingMemStoreHeapOverhead)) {
       blockedRequestsCount.increment();
       requestFlush();
       throw new RegionTooBusyException("Above memstore limit, " +
@@ -3878,7 +4005,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
           ", server=" + (this.getRegionServerServices() == null ? "unknown" :
           this.getRegionServerServices().getServerName()) +
           ", memstoreSize=" + memstoreDataSize.get() +
-          ", blockingMemStoreSize=" + blockingMemStoreSize);
+          ", blockingMemStoreSize=" + blockingMemStoreSize +
+          ", memstoreHeapOverhead=" + memstoreHeapOverhead.get() +
+          ", blockingMemStoreHeapOverhead=" + blockingMemStoreHeapOverhead);
     }
   }
 
@@ -4019,7 +4148,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   }
 
   private void requestFlushIfNeeded(long memstoreTotalSize) throws RegionTooBusyException {
-    if(memstoreTotalSize > this.getMemstoreFlushSize()) {
+    if (isFlushSize(memstoreTotalSize)) {
       requestFlush();
     }
   }
@@ -4043,10 +4172,10 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
 
   /*
    * @param size
-   * @return True if size is over the flush threshold
+   * @return True if size, or the heap overhead of an off heap memstore, is over the flush threshold
    */
   private boolean isFlushSize(final long size) {
-    return size > this.memstoreFlushSize;
+    return size > this.memstoreFlushSize || isMemstoreHeapOverheadAbove(this.memstoreHeapFlushSize);
   }
 
   /**
@@ -5340,6 +5469,9 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   }
 
   protected RowLock getRowLockInternal(byte[] row, boolean readLock) throws IOException {
+    if (rowLockStripes != null) {
+      return getStripedRowLock(row, readLock);
+    }
     // create an object to use a a key in the row lock map
     HashedBytes rowKey = new HashedBytes(row);
 
@@ -5366,7 +5498,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
           result = rowLockContext.newWriteLock();
         }
       }
-      if (!result.getLock().tryLock(this.rowLockWaitDuration, TimeUnit.MILLISECONDS)) {
+      if (!acquireRowLock(rowLockContext.readWriteLock, result.getLock())) {
         if (traceScope != null) {
           traceScope.getSpan().addTimelineAnnotation("Failed to get row lock");
         }
@@ -5394,6 +5526,91 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
     }
   }
 
+  /**
+   * Locks the stripe of the row. Nothing is allocated unless tracing.
+   */
+  private RowLock getStripedRowLock(byte[] row, boolean readLock) throws IOException {
+    StripedRowLocks.Stripe stripe = rowLockStripes.getStripe(row);
+    StripedRowLocks.StripeLock result = readLock ? stripe.readLock : stripe.writeLock;
+    TraceScope traceScope = null;
+    if (Trace.isTracing()) {
+      traceScope = Trace.startSpan("HRegion.getRowLock");
+      traceScope.getSpan().addTimelineAnnotation("Getting a " + (readLock?"readLock":"writeLock"));
+    }
+    try {
+      if (!acquireRowLock(stripe.readWriteLock, result.getLock())) {
+        if (traceScope != null) {
+          traceScope.getSpan().addTimelineAnnotation("Failed to get row lock");
+        }
+        throw new IOException("Timed out waiting for lock for row: " + Bytes.toStringBinary(row)
+            + " in region " + getRegionInfo().getEncodedName());
+      }
+      return result;
+    } catch (InterruptedException ie) {
+      LOG.warn("Thread interrupted waiting for lock on row: " + Bytes.toStringBinary(row));
+      InterruptedIOException iie = new InterruptedIOException();
+      iie.initCause(ie);
+      if (traceScope != null) {
+        traceScope.getSpan().addTimelineAnnotation("Interrupted exception getting row lock");
+      }
+      Thread.currentThread().interrupt();
+      throw iie;
+    } finally {
+      if (traceScope != null) {
+        traceScope.close();
+      }
+    }
+  }
+
+  /**
+   * Takes the lock right away if nobody holds or waits for it, else waits for it up to the row
+   * lock wait duration, counting the contention and the time waited.
+   * @param readWriteLock the read/write lock <code>lock</code> belongs to
+   * @return false if the wait timed out
+   */
+  private boolean acquireRowLock(ReentrantReadWriteLock readWriteLock, Lock lock)
+      throws InterruptedException {
+    // Skipping the queue would not be fair to waiting writers, so only when nobody waits.
+    if (!readWriteLock.hasQueuedThreads() && lock.tryLock()) {
+      return true;
+    }
+    rowLockContentions.increment();
+    long start = System.nanoTime();
+    try {
+      return lock.tryLock(this.rowLockWaitDuration, TimeUnit.MILLISECONDS);
+    } finally {
+      rowLockWaitTime.add(System.nanoTime() - start);
+    }
+  }
+
+  /**
+   * @return number of row locks that could not be taken right away
+   */
+  public long getRowLockContentionCount() {
+    return rowLockContentions.sum();
+  }
+
+  /**
+   * @return total time spent waiting for row locks, in nanoseconds
+   */
+  public long getRowLockWaitTime() {
+    return rowLockWaitTime.sum();
+  }
+
+  /**
+   * @return number of increments that went through the increment coalescer
+   */
+  public long getCoalescedIncrementCount() {
+    return incrementCoalescer == null ? 0 : incrementCoalescer.getIncrementCount();
+  }
+
+  /**
+   * @return number of merged increments the increment coalescer applied
+   */
+  public long getCoalescedIncrementApplyCount() {
+    return incrementCoalescer == null ? 0 : incrementCoalescer.getApplyCount();
+  }
+
   @Override
   public void releaseRowLocks(List<RowLock> rowLocks) {
     if (rowLocks != null) {
@@ -5416,7 +5633,7 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   @VisibleForTesting
   class RowLockContext {
     private final HashedBytes row;
-    final ReadWriteLock readWriteLock = new ReentrantReadWriteLock(true);
+    final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock(true);
     final AtomicBoolean usable = new AtomicBoolean(true);
     final AtomicInteger count = new AtomicInteger(0);
     final Object lock = new Object();
@@ -7341,6 +7558,10 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   @Override
   public Result increment(Increment mutation, long nonceGroup, long nonce)
   throws IOException {
+    if (incrementCoalescer != null && IncrementCoalescer.canCoalesce(mutation)
+        && (coprocessorHost == null || !coprocessorHost.hasCustomPreIncrementAfterRowLock())) {
+      return incrementCoalescer.increment(mutation, nonceGroup, nonce);
+    }
     return doDelta(Operation.INCREMENT, mutation, nonceGroup, nonce, mutation.isReturnResults());
   }
 
@@ -7753,8 +7974,8 @@ public class HRegion implements HeapSize, PropagatingConfigurationObserver, Regi
   public static final long FIXED_OVERHEAD = ClassSize.align(
       ClassSize.OBJECT +
       ClassSize.ARRAY +
-      50 * ClassSize.REFERENCE + 2 * Bytes.SIZEOF_INT +
-      (14 * Bytes.SIZEOF_LONG) +
+      56 * ClassSize.REFERENCE + 2 * Bytes.SIZEOF_INT +
+      (16 * Bytes.SIZEOF_LONG) +
       6 * Bytes.SIZEOF_BOOLEAN);
 
   // woefully out of date - currently missing:
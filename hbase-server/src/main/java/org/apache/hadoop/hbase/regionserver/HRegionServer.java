@@ -46,6 +46,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -1052,6 +1053,12 @@ public class HRegionServer extends HasThread implements
     // Send cache a shutdown.
     if (cacheConfig != null && cacheConfig.isBlockCacheEnabled()) {
       cacheConfig.getBlockCache().shutdown();
+      if (cacheConfig.getUnpackedBlockCache() != null) {
+        cacheConfig.getUnpackedBlockCache().shutdown();
+      }
+      if (cacheConfig.getBloomChunkCache() != null) {
+        cacheConfig.getBloomChunkCache().shutdown();
+      }
     }
     mobCacheConfig.getMobFileCache().shutdown();
 
@@ -2462,6 +2469,7 @@ public class HRegionServer extends HasThread implements
       rpcServices.requestCount.reset();
       rpcServices.rpcGetRequestCount.reset();
       rpcServices.rpcScanRequestCount.reset();
+      rpcServices.rpcScanResponseBytes.reset();
       rpcServices.rpcMultiRequestCount.reset();
       rpcServices.rpcMutateRequestCount.reset();
       LOG.info("reportForDuty to master=" + masterServerName + " with port="
@@ -2653,6 +2661,19 @@ public class HRegionServer extends HasThread implements
     return sortedRegions;
   }
 
+  /**
+   * @return A new Map of online regions sorted by the heap overhead of their memstores, biggest
+   * first. As with {@link #getCopyOfOnlineRegionsSortedBySize()}, regions of the same overhead may
+   * be missing.
+   */
+  SortedMap<Long, Region> getCopyOfOnlineRegionsSortedByHeapOverhead() {
+    SortedMap<Long, Region> sortedRegions = new TreeMap<Long, Region>(Collections.reverseOrder());
+    for (Region region : this.onlineRegions.values()) {
+      sortedRegions.put(((HRegion) region).getMemstoreHeapOverhead(), region);
+    }
+    return sortedRegions;
+  }
+
   /**
    * @return time stamp in millis of when this region server was started
    */
@@ -3585,6 +3606,11 @@ public class HRegionServer extends HasThread implements
     return flushThroughputController;
   }
 
+  @Override
+  public ThreadPoolExecutor getStoreFlushPool() {
+    return cacheFlusher == null ? null : cacheFlusher.getStoreFlushPool();
+  }
+
   @Override
   public double getFlushPressure() {
     if (getRegionServerAccounting() == null || cacheFlusher == null) {
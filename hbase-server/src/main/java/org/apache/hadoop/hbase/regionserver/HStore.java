@@ -128,6 +128,10 @@ public class HStore implements Store {
   private final HRegionFileSystem fs;
   protected Configuration conf;
   protected CacheConfig cacheConf;
+  private final BloomFilterMetrics bloomFilterMetrics = new BloomFilterMetrics();
+  private final ColumnStatsMetrics columnStatsMetrics = new ColumnStatsMetrics();
+  private final MemStoreCompactionMetrics memStoreCompactionMetrics =
+      new MemStoreCompactionMetrics();
   private long lastCompactSize = 0;
   volatile boolean forceMajor = false;
   /* how many bytes to write between status checks */
@@ -251,6 +255,7 @@ public class HStore implements Store {
     switch (inMemoryCompaction) {
       case BASIC :
       case EAGER :
+      case ADAPTIVE :
         className = CompactingMemStore.class.getName();
         this.memstore = new CompactingMemStore(conf, this.comparator, this,
             this.getHRegion().getRegionServicesForStores(), inMemoryCompaction);
@@ -656,6 +661,8 @@ public class HStore implements Store {
       this.family.getBloomFilterType());
     StoreFileReader r = storeFile.createReader();
     r.setReplicaStoreFile(isPrimaryReplicaStore());
+    r.setBloomFilterMetrics(bloomFilterMetrics);
+    r.setColumnStatsMetrics(columnStatsMetrics);
     return storeFile;
   }
 
@@ -2034,6 +2041,21 @@ public class HStore implements Store {
     return size;
   }
 
+  @Override
+  public BloomFilterMetrics getBloomFilterMetrics() {
+    return bloomFilterMetrics;
+  }
+
+  @Override
+  public ColumnStatsMetrics getColumnStatsMetrics() {
+    return columnStatsMetrics;
+  }
+
+  @Override
+  public MemStoreCompactionMetrics getMemStoreCompactionMetrics() {
+    return memStoreCompactionMetrics;
+  }
+
   @Override
   public long getTotalStaticBloomSize() {
     long size = 0;
@@ -2270,7 +2292,7 @@ public class HStore implements Store {
   }
 
   public static final long FIXED_OVERHEAD =
-      ClassSize.align(ClassSize.OBJECT + (17 * ClassSize.REFERENCE) + (11 * Bytes.SIZEOF_LONG)
+      ClassSize.align(ClassSize.OBJECT + (20 * ClassSize.REFERENCE) + (11 * Bytes.SIZEOF_LONG)
               + (5 * Bytes.SIZEOF_INT) + (2 * Bytes.SIZEOF_BOOLEAN));
 
   public static final long DEEP_OVERHEAD = ClassSize.align(FIXED_OVERHEAD
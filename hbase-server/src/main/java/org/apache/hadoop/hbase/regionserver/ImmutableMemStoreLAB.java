@@ -77,6 +77,15 @@ public class ImmutableMemStoreLAB implements MemStoreLAB {
     }
   }
 
+  /**
+   * The chunk comes from, and is released with, the first of the wrapped MemStoreLABs.
+   */
+  @Override
+  public Chunk getNewExternalChunk() {
+    MemStoreLAB first = mslabs.isEmpty() ? null : mslabs.get(0);
+    return first == null ? null : first.getNewExternalChunk();
+  }
+
   @Override
   public void incScannerCount() {
     this.openScannerCount.incrementAndGet();
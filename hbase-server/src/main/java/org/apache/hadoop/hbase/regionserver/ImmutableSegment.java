@@ -45,6 +45,7 @@ public class ImmutableSegment extends Segment {
       + ClassSize.TIMERANGE;
   public static final long DEEP_OVERHEAD_CSLM = DEEP_OVERHEAD + ClassSize.CONCURRENT_SKIPLISTMAP;
   public static final long DEEP_OVERHEAD_CAM = DEEP_OVERHEAD + ClassSize.CELL_ARRAY_MAP;
+  public static final long DEEP_OVERHEAD_CCM = DEEP_OVERHEAD + ClassSize.CELL_CHUNK_MAP;
 
   /**
    * Types of ImmutableSegment
@@ -52,6 +53,7 @@ public class ImmutableSegment extends Segment {
   public enum Type {
     SKIPLIST_MAP_BASED,
     ARRAY_MAP_BASED,
+    CHUNK_MAP_BASED,
   }
 
   /**
@@ -80,11 +82,11 @@ public class ImmutableSegment extends Segment {
   }
 
   /**------------------------------------------------------------------------
-   * C-tor to be used when new CELL_ARRAY BASED ImmutableSegment is a result of compaction of a
+   * C-tor to be used when new flat ImmutableSegment is a result of compaction of a
    * list of older ImmutableSegments.
    * The given iterator returns the Cells that "survived" the compaction.
-   * The input parameter "type" exists for future use when more types of flat ImmutableSegments
-   * are going to be introduced.
+   * The input parameter "type" tells whether the segment is based on CellArrayMap or, if all of
+   * its Cells can be indexed that way, on CellChunkMap.
    */
   protected ImmutableSegment(CellComparator comparator, MemStoreSegmentsIterator iterator,
       MemStoreLAB memStoreLAB, int numOfCells, Type type, boolean merge) {
@@ -92,8 +94,8 @@ public class ImmutableSegment extends Segment {
     super(null, // initiailize the CellSet with NULL
         comparator, memStoreLAB);
     this.type = type;
-    // build the true CellSet based on CellArrayMap
-    CellSet cs = createCellArrayMapSet(numOfCells, iterator, merge);
+    // build the true CellSet based on CellArrayMap or CellChunkMap
+    CellSet cs = createCellFlatMapSet(numOfCells, iterator, merge);
 
     this.setCellSet(null, cs);            // update the CellSet of the new Segment
     this.timeRange = this.timeRangeTracker == null ? null : this.timeRangeTracker.toTimeRange();
@@ -144,7 +146,7 @@ public class ImmutableSegment extends Segment {
 
   /**------------------------------------------------------------------------
    * Change the CellSet of this ImmutableSegment from one based on ConcurrentSkipListMap to one
-   * based on CellArrayMap.
+   * based on CellArrayMap, or on CellChunkMap if asked for and all Cells can be indexed that way.
    * If this ImmutableSegment is not based on ConcurrentSkipListMap , this is NOOP
    *
    * Synchronization of the CellSet replacement:
@@ -153,21 +155,36 @@ public class ImmutableSegment extends Segment {
    * thread of compaction, but to be on the safe side the initial CellSet is locally saved
    * before the flattening and then replaced using CAS instruction.
    */
-  public boolean flatten(MemstoreSize memstoreSize) {
+  public boolean flatten(MemstoreSize memstoreSize, Type idxType) {
     if (isFlat()) return false;
     CellSet oldCellSet = getCellSet();
     int numOfCells = getCellsCount();
 
-    // build the new (CellSet CellArrayMap based)
-    CellSet  newCellSet = recreateCellArrayMapSet(numOfCells);
-    type = Type.ARRAY_MAP_BASED;
-    setCellSet(oldCellSet,newCellSet);
-
-    // arrange the meta-data size, decrease all meta-data sizes related to SkipList
-    // (recreateCellArrayMapSet doesn't take the care for the sizes)
-    long newSegmentSizeDelta = -(numOfCells * ClassSize.CONCURRENT_SKIPLISTMAP_ENTRY);
-    // add size of CellArrayMap and meta-data overhead per Cell
-    newSegmentSizeDelta = newSegmentSizeDelta + numOfCells * ClassSize.CELL_ARRAY_MAP_ENTRY;
+    Cell[] cells = new Cell[numOfCells];
+    numOfCells = readAllCells(cells);
+    CellFlatMap map = null;
+    long newSegmentSizeDelta;
+    if (idxType == Type.CHUNK_MAP_BASED) {
+      map = CellChunkMap.create(getComparator(), cells, numOfCells, getMemStoreLAB());
+    }
+    if (map != null) {
+      type = Type.CHUNK_MAP_BASED;
+      // the Cell objects go away with the SkipList entries, only the index records are left
+      newSegmentSizeDelta = 0;
+      for (int i = 0; i < numOfCells; i++) {
+        newSegmentSizeDelta -= super.heapOverheadChange(cells[i], true);
+      }
+      newSegmentSizeDelta += numOfCells * ClassSize.CELL_CHUNK_MAP_ENTRY;
+    } else {
+      map = new CellArrayMap(getComparator(), cells, 0, numOfCells, false);
+      type = Type.ARRAY_MAP_BASED;
+      // arrange the meta-data size, decrease all meta-data sizes related to SkipList
+      newSegmentSizeDelta = -(numOfCells * ClassSize.CONCURRENT_SKIPLISTMAP_ENTRY);
+      // add size of CellArrayMap and meta-data overhead per Cell
+      newSegmentSizeDelta = newSegmentSizeDelta + numOfCells * ClassSize.CELL_ARRAY_MAP_ENTRY;
+    }
+    // build the new CellSet
+    setCellSet(oldCellSet, new CellSet(map));
     incSize(0, newSegmentSizeDelta);
     if (memstoreSize != null) {
       memstoreSize.incMemstoreSize(0, newSegmentSizeDelta);
@@ -178,8 +195,8 @@ public class ImmutableSegment extends Segment {
 
   /////////////////////  PRIVATE METHODS  /////////////////////
   /*------------------------------------------------------------------------*/
-  // Create CellSet based on CellArrayMap from compacting iterator
-  private CellSet createCellArrayMapSet(int numOfCells, MemStoreSegmentsIterator iterator,
+  // Create CellSet based on CellArrayMap or CellChunkMap from compacting iterator
+  private CellSet createCellFlatMapSet(int numOfCells, MemStoreSegmentsIterator iterator,
       boolean merge) {
 
     Cell[] cells = new Cell[numOfCells];   // build the Cell Array
@@ -201,6 +218,19 @@ public class ImmutableSegment extends Segment {
       updateMetaInfo(c, true, useMSLAB, null); // updates the size per cell
       i++;
     }
+    if (type == Type.CHUNK_MAP_BASED) {
+      CellChunkMap ccm = CellChunkMap.create(getComparator(), cells, i, getMemStoreLAB());
+      if (ccm != null) {
+        return new CellSet(ccm);
+      }
+      // some Cell can not be indexed in chunks, keep the Cell objects after all
+      type = Type.ARRAY_MAP_BASED;
+      long heapOverheadDelta = 0;
+      for (int j = 0; j < i; j++) {
+        heapOverheadDelta += heapOverheadChange(cells[j], true) - ClassSize.CELL_CHUNK_MAP_ENTRY;
+      }
+      incHeapOverheadSize(heapOverheadDelta);
+    }
     // build the immutable CellSet
     CellArrayMap cam = new CellArrayMap(getComparator(), cells, 0, i, false);
     return new CellSet(cam);
@@ -218,17 +248,19 @@ public class ImmutableSegment extends Segment {
               .align(ClassSize.CELL_ARRAY_MAP_ENTRY + ((ExtendedCell) cell).heapOverhead());
         }
         return ClassSize.align(ClassSize.CELL_ARRAY_MAP_ENTRY + KeyValue.FIXED_OVERHEAD);
+      case CHUNK_MAP_BASED:
+        // no Cell object is kept, only the index record in a chunk
+        return ClassSize.CELL_CHUNK_MAP_ENTRY;
       }
     }
     return 0;
   }
 
   /*------------------------------------------------------------------------*/
-  // Create CellSet based on CellArrayMap from current ConcurrentSkipListMap based CellSet
-  // (without compacting iterator)
-  private CellSet recreateCellArrayMapSet(int numOfCells) {
+  // Read the Cells of the current ConcurrentSkipListMap based CellSet into the given array in
+  // order (without compacting iterator), returns the number of Cells read
+  private int readAllCells(Cell[] cells) {
 
-    Cell[] cells = new Cell[numOfCells];   // build the Cell Array
     Cell curCell;
     int idx = 0;
     // create this segment scanner with maximal possible read point, to go over all Cells
@@ -243,9 +275,6 @@ public class ImmutableSegment extends Segment {
     } finally {
       segmentScanner.close();
     }
-
-    // build the immutable CellSet
-    CellArrayMap cam = new CellArrayMap(getComparator(), cells, 0, idx, false);
-    return new CellSet(cam);
+    return idx;
   }
 }
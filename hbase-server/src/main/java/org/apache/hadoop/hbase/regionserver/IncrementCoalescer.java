@@ -0,0 +1,367 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.client.Durability;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.HashedBytes;
+
+/**
+ * Merges concurrent {@link Increment}s of the same row into one, so that a hot counter row takes
+ * its row lock, reads its values and appends to the WAL once per batch of increments rather than
+ * once per increment.
+ * <p>
+ * The first increment of a row to arrive leads a batch. If an earlier batch of the row is still
+ * being applied, the leader waits for it, up to {@link #WINDOW_US_KEY}, and increments arriving
+ * in the meantime join the batch. Without contention the leader goes ahead at once, so a row
+ * that is not hot pays no extra latency. The leader applies the sum of the batch as one
+ * increment, then hands every member the values as they were right after its own increment, as
+ * if the members had been applied one after the other in the order they joined.
+ * <p>
+ * Each increment is checked on its own before it joins a batch, so one naming a missing family
+ * fails alone. The merged increment carries the nonce of the leader only, so after a crash, WAL
+ * replay cannot tell that a retried increment of another member was already applied. Only
+ * increments over all time, without TTL, attributes or a durability of their own are merged.
+ */
+@InterfaceAudience.Private
+class IncrementCoalescer {
+  /** Merges concurrent increments of a row; can be set per table. Off by default. */
+  static final String ENABLED_KEY = "hbase.region.increment.coalesce";
+  static final boolean DEFAULT_ENABLED = false;
+
+  /** Longest wait of a batch for the previous batch of its row, in microseconds. */
+  static final String WINDOW_US_KEY = "hbase.region.increment.coalesce.window.us";
+  static final long DEFAULT_WINDOW_US = 1000;
+
+  /** Most increments merged into one. */
+  static final String MAX_BATCH_KEY = "hbase.region.increment.coalesce.max.batch";
+  static final int DEFAULT_MAX_BATCH = 100;
+
+  /**
+   * Checks and applies the increments of the coalescer.
+   */
+  interface DeltaApplier {
+    /**
+     * Checks an increment before it joins a batch, so that a bad one fails on its own rather
+     * than failing the merged increment of all members.
+     */
+    void check(Increment increment) throws IOException;
+
+    /**
+     * Applies a merged increment; returns the resulting values of all its cells.
+     */
+    Result apply(Increment merged, long nonceGroup, long nonce) throws IOException;
+  }
+
+  private final DeltaApplier applier;
+  private final long windowNs;
+  private final int maxBatch;
+  private final ConcurrentHashMap<HashedBytes, RowQueue> rows =
+      new ConcurrentHashMap<HashedBytes, RowQueue>();
+
+  private final LongAdder increments = new LongAdder();
+  private final LongAdder applies = new LongAdder();
+
+  IncrementCoalescer(Configuration conf, DeltaApplier applier) {
+    this.applier = applier;
+    this.windowNs = TimeUnit.MICROSECONDS.toNanos(conf.getLong(WINDOW_US_KEY, DEFAULT_WINDOW_US));
+    this.maxBatch = Math.max(1, conf.getInt(MAX_BATCH_KEY, DEFAULT_MAX_BATCH));
+  }
+
+  /**
+   * @return true if the increment can be merged with others of its row
+   */
+  static boolean canCoalesce(Increment increment) {
+    return increment.getTimeRange().isAllTime() && increment.getTTL() == Long.MAX_VALUE
+        && increment.getDurability() == Durability.USE_DEFAULT
+        && increment.getAttributesMap().isEmpty();
+  }
+
+  /**
+   * @return number of increments that went through the coalescer
+   */
+  long getIncrementCount() {
+    return increments.sum();
+  }
+
+  /**
+   * @return number of merged increments applied
+   */
+  long getApplyCount() {
+    return applies.sum();
+  }
+
+  Result increment(Increment increment, long nonceGroup, long nonce) throws IOException {
+    applier.check(increment);
+    increments.increment();
+    HashedBytes row = new HashedBytes(increment.getRow());
+    RowQueue queue;
+    Batch batch;
+    int index;
+    while (true) {
+      queue = rows.computeIfAbsent(row, k -> new RowQueue());
+      synchronized (queue) {
+        if (queue.removed) {
+          continue;
+        }
+        batch = queue.open;
+        if (batch != null && batch.members.size() < maxBatch) {
+          index = batch.members.size();
+          batch.members.add(increment);
+          if (index + 1 == maxBatch) {
+            // Full, wake the leader
+            queue.notifyAll();
+          }
+        } else {
+          index = 0;
+          batch = new Batch();
+          batch.members.add(increment);
+          queue.open = batch;
+        }
+        break;
+      }
+    }
+    if (index > 0) {
+      return batch.await(index);
+    }
+    try {
+      waitForTurn(row, queue, batch);
+    } catch (InterruptedIOException e) {
+      batch.fail(e);
+      throw e;
+    }
+    try {
+      Result merged = applier.apply(batch.merge(), nonceGroup, nonce);
+      applies.increment();
+      batch.complete(merged);
+    } catch (IOException | RuntimeException e) {
+      batch.fail(e instanceof IOException ? (IOException) e : new IOException(e));
+      throw e;
+    } finally {
+      synchronized (queue) {
+        queue.applying--;
+        queue.notifyAll();
+        removeIfIdle(row, queue);
+      }
+    }
+    return batch.await(0);
+  }
+
+  /**
+   * Lets the batch collect members while an earlier batch of the row is applied, then closes it.
+   * The batch only counts as applying if the wait was not interrupted.
+   */
+  private void waitForTurn(HashedBytes row, RowQueue queue, Batch batch)
+      throws InterruptedIOException {
+    synchronized (queue) {
+      try {
+        long deadline = System.nanoTime() + windowNs;
+        long left = windowNs;
+        while (queue.applying > 0 && left > 0 && batch.members.size() < maxBatch) {
+          TimeUnit.NANOSECONDS.timedWait(queue, left);
+          left = deadline - System.nanoTime();
+        }
+      } catch (InterruptedException e) {
+        if (queue.open == batch) {
+          queue.open = null;
+        }
+        removeIfIdle(row, queue);
+        throw (InterruptedIOException) new InterruptedIOException().initCause(e);
+      }
+      if (queue.open == batch) {
+        queue.open = null;
+      }
+      queue.applying++;
+    }
+  }
+
+  /**
+   * Drops the queue of the row once it has no batch left. Called under the lock of the queue.
+   */
+  private void removeIfIdle(HashedBytes row, RowQueue queue) {
+    if (queue.applying == 0 && queue.open == null) {
+      queue.removed = true;
+      rows.remove(row, queue);
+    }
+  }
+
+  /**
+   * The batches of a row. Guarded by itself.
+   */
+  private static final class RowQueue {
+    // The batch taking members, if any
+    Batch open;
+    // Number of batches past their wait
+    int applying;
+    // Dropped from the map; a new queue has to be made for the row
+    boolean removed;
+  }
+
+  private static final class Batch {
+    // Only changed while the batch is open, under the lock of its queue
+    final List<Increment> members = new ArrayList<Increment>();
+    private Result[] results;
+    private IOException failure;
+
+    /**
+     * @return one increment of the sum of the members
+     */
+    Increment merge() {
+      Increment merged = new Increment(members.get(0).getRow());
+      for (Map.Entry<byte[], Map<byte[], Long>> family : sum(0).entrySet()) {
+        for (Map.Entry<byte[], Long> column : family.getValue().entrySet()) {
+          merged.addColumn(family.getKey(), column.getKey(), column.getValue());
+        }
+      }
+      merged.setReturnResults(true);
+      return merged;
+    }
+
+    /**
+     * @return per family and qualifier, the sum of the amounts of the members from
+     *         <code>from</code> on
+     */
+    private Map<byte[], Map<byte[], Long>> sum(int from) {
+      Map<byte[], Map<byte[], Long>> sums =
+          new TreeMap<byte[], Map<byte[], Long>>(Bytes.BYTES_COMPARATOR);
+      for (int i = from; i < members.size(); i++) {
+        add(sums, members.get(i));
+      }
+      return sums;
+    }
+
+    private static void add(Map<byte[], Map<byte[], Long>> sums, Increment increment) {
+      for (Map.Entry<byte[], List<Cell>> family : increment.getFamilyCellMap().entrySet()) {
+        Map<byte[], Long> columns = sums.get(family.getKey());
+        if (columns == null) {
+          columns = new TreeMap<byte[], Long>(Bytes.BYTES_COMPARATOR);
+          sums.put(family.getKey(), columns);
+        }
+        for (Cell cell : family.getValue()) {
+          byte[] qualifier = CellUtil.cloneQualifier(cell);
+          Long sum = columns.get(qualifier);
+          columns.put(qualifier, (sum == null ? 0 : sum) + amount(cell));
+        }
+      }
+    }
+
+    private static long amount(Cell cell) {
+      return Bytes.toLong(cell.getValueArray(), cell.getValueOffset(), cell.getValueLength());
+    }
+
+    /**
+     * Works out the result of every member from the values after the whole batch: a member sees
+     * them less what the members after it added.
+     */
+    synchronized void complete(Result merged) {
+      Map<byte[], Map<byte[], Cell>> after =
+          new TreeMap<byte[], Map<byte[], Cell>>(Bytes.BYTES_COMPARATOR);
+      for (Cell cell : merged.rawCells()) {
+        byte[] family = CellUtil.cloneFamily(cell);
+        Map<byte[], Cell> columns = after.get(family);
+        if (columns == null) {
+          columns = new TreeMap<byte[], Cell>(Bytes.BYTES_COMPARATOR);
+          after.put(family, columns);
+        }
+        columns.put(CellUtil.cloneQualifier(cell), cell);
+      }
+      Result[] results = new Result[members.size()];
+      Map<byte[], Map<byte[], Long>> later =
+          new TreeMap<byte[], Map<byte[], Long>>(Bytes.BYTES_COMPARATOR);
+      for (int i = members.size() - 1; i >= 0; i--) {
+        Increment member = members.get(i);
+        results[i] =
+            member.isReturnResults() ? resultOf(member, after, later) : Result.EMPTY_RESULT;
+        add(later, member);
+      }
+      this.results = results;
+      notifyAll();
+    }
+
+    private static Result resultOf(Increment member, Map<byte[], Map<byte[], Cell>> after,
+        Map<byte[], Map<byte[], Long>> later) {
+      List<Cell> cells = new ArrayList<Cell>(member.size());
+      for (Map.Entry<byte[], List<Cell>> family : member.getFamilyCellMap().entrySet()) {
+        Map<byte[], Cell> columns = after.get(family.getKey());
+        Map<byte[], Long> laterColumns = later.get(family.getKey());
+        for (Cell cell : family.getValue()) {
+          byte[] qualifier = CellUtil.cloneQualifier(cell);
+          Cell total = columns == null ? null : columns.get(qualifier);
+          if (total == null) {
+            continue;
+          }
+          Long laterSum = laterColumns == null ? null : laterColumns.get(qualifier);
+          long value = amount(total) - (laterSum == null ? 0 : laterSum);
+          cells.add(CellUtil.createCell(member.getRow(), family.getKey(), qualifier,
+            total.getTimestamp(), KeyValue.Type.Put.getCode(), Bytes.toBytes(value)));
+        }
+      }
+      Collections.sort(cells, CellComparator.COMPARATOR);
+      return Result.create(cells);
+    }
+
+    synchronized void fail(IOException e) {
+      this.failure = e;
+      notifyAll();
+    }
+
+    /**
+     * Waits for the batch to be applied. A member cannot back out once it joined, so this does
+     * not give up on interrupt; the interrupt is kept for the caller.
+     */
+    synchronized Result await(int index) throws IOException {
+      boolean interrupted = false;
+      try {
+        while (results == null && failure == null) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            interrupted = true;
+          }
+        }
+      } finally {
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      if (failure != null) {
+        throw failure;
+      }
+      return results[index];
+    }
+  }
+}
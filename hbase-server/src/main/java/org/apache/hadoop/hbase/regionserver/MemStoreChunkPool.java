@@ -73,6 +73,15 @@ public class MemStoreChunkPool implements HeapMemoryTuneObserver {
   private final AtomicLong reusedChunkCount = new AtomicLong();
   private final boolean offheap;
 
+  /**
+   * Most off heap memory MSLABs may take in chunks of their own once an off heap pool has run dry,
+   * as a fraction of the pool's size. Past it they make on heap chunks, so direct memory stays
+   * bounded.
+   */
+  static final float UNPOOLED_OFFHEAP_FRACTION = 0.1f;
+  /** Bytes of off heap chunks made outside the pool and not yet released by their MSLAB */
+  private final AtomicLong unpooledOffheapSize = new AtomicLong();
+
   MemStoreChunkPool(int chunkSize, int maxCount, int initialCount, float poolSizePercentage,
       boolean offheap) {
     this.maxCount = maxCount;
@@ -227,6 +236,45 @@ public class MemStoreChunkPool implements HeapMemoryTuneObserver {
     return this.maxCount;
   }
 
+  /**
+   * @return true if the pooled chunks are off heap
+   */
+  boolean isOffheap() {
+    return this.offheap;
+  }
+
+  /**
+   * Reserves room for an off heap chunk made outside the pool.
+   * @return false if that would take the unpooled off heap chunks past
+   *   {@link #UNPOOLED_OFFHEAP_FRACTION} of the pool size
+   * @see #releaseUnpooledOffheap(long)
+   */
+  boolean reserveUnpooledOffheap(int size) {
+    long max = (long) ((long) this.maxCount * this.chunkSize * UNPOOLED_OFFHEAP_FRACTION);
+    while (true) {
+      long current = this.unpooledOffheapSize.get();
+      if (current + size > max) {
+        return false;
+      }
+      if (this.unpooledOffheapSize.compareAndSet(current, current + size)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Gives back room reserved by {@link #reserveUnpooledOffheap(int)} once the chunks are dropped.
+   */
+  void releaseUnpooledOffheap(long size) {
+    if (size > 0) {
+      this.unpooledOffheapSize.addAndGet(-size);
+    }
+  }
+
+  long getUnpooledOffheapSize() {
+    return this.unpooledOffheapSize.get();
+  }
+
   @VisibleForTesting
   static void clearDisableFlag() {
     chunkPoolDisabled = false;
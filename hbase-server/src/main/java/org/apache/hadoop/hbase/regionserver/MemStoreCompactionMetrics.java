@@ -0,0 +1,106 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * What the in-memory compactions of a store did: how many times each action ran, the time it
+ * took and the memory it freed. Freed memory counts both data and heap overhead, so flattening
+ * and merging free index overhead only while a data compaction also drops the data of the cells
+ * it removes.
+ */
+@InterfaceAudience.Private
+public class MemStoreCompactionMetrics {
+
+  private final LongAdder flattenCount = new LongAdder();
+  private final LongAdder mergeCount = new LongAdder();
+  private final LongAdder compactCount = new LongAdder();
+  /** Time spent in each action, in nanoseconds */
+  private final LongAdder flattenTime = new LongAdder();
+  private final LongAdder mergeTime = new LongAdder();
+  private final LongAdder compactTime = new LongAdder();
+  private final LongAdder flattenFreedSize = new LongAdder();
+  private final LongAdder mergeFreedSize = new LongAdder();
+  private final LongAdder compactFreedSize = new LongAdder();
+
+  void flattened(long nanos, long freedSize) {
+    flattenCount.increment();
+    flattenTime.add(nanos);
+    flattenFreedSize.add(freedSize);
+  }
+
+  void merged(long nanos, long freedSize) {
+    mergeCount.increment();
+    mergeTime.add(nanos);
+    mergeFreedSize.add(freedSize);
+  }
+
+  void compacted(long nanos, long freedSize) {
+    compactCount.increment();
+    compactTime.add(nanos);
+    compactFreedSize.add(freedSize);
+  }
+
+  public long getFlattenCount() {
+    return flattenCount.sum();
+  }
+
+  public long getMergeCount() {
+    return mergeCount.sum();
+  }
+
+  public long getCompactCount() {
+    return compactCount.sum();
+  }
+
+  /**
+   * @return time spent flattening, in nanoseconds
+   */
+  public long getFlattenTime() {
+    return flattenTime.sum();
+  }
+
+  /**
+   * @return time spent merging, in nanoseconds
+   */
+  public long getMergeTime() {
+    return mergeTime.sum();
+  }
+
+  /**
+   * @return time spent compacting, in nanoseconds
+   */
+  public long getCompactTime() {
+    return compactTime.sum();
+  }
+
+  public long getFlattenFreedSize() {
+    return flattenFreedSize.sum();
+  }
+
+  public long getMergeFreedSize() {
+    return mergeFreedSize.sum();
+  }
+
+  public long getCompactFreedSize() {
+    return compactFreedSize.sum();
+  }
+}
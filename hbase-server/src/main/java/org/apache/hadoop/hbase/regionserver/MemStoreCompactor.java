@@ -21,6 +21,8 @@ package org.apache.hadoop.hbase.regionserver;
 import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.HColumnDescriptor.MemoryCompaction;
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
@@ -28,6 +30,8 @@ import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.ClassSize;
 
 import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
@@ -50,10 +54,26 @@ public class MemStoreCompactor {
           // compactingMemStore, versionedList, action, isInterrupted (the reference)
           // "action" is an enum and thus it is a class with static final constants,
           // so counting only the size of the reference to it and not the size of the internals
-          + Bytes.SIZEOF_INT            // compactionKVMax
+          + 2 * Bytes.SIZEOF_INT        // compactionKVMax, adaptiveSampleSize
+          + Bytes.SIZEOF_DOUBLE         // adaptiveCompactionThreshold
+          + Bytes.SIZEOF_BOOLEAN        // adaptive
           + ClassSize.ATOMIC_BOOLEAN    // isInterrupted (the internals)
       );
 
+  /**
+   * With the ADAPTIVE policy, the fraction of the cells of the youngest segment that a data
+   * compaction would remove above which the pipeline is compacted rather than flattened or
+   * merged.
+   */
+  public static final String ADAPTIVE_COMPACTION_THRESHOLD_KEY =
+      "hbase.hregion.compacting.memstore.adaptive.compaction.threshold";
+  public static final double ADAPTIVE_COMPACTION_THRESHOLD_DEFAULT = 0.5;
+
+  /** With the ADAPTIVE policy, the number of cells looked at to estimate the duplication */
+  public static final String ADAPTIVE_SAMPLE_SIZE_KEY =
+      "hbase.hregion.compacting.memstore.adaptive.sample.size";
+  public static final int ADAPTIVE_SAMPLE_SIZE_DEFAULT = 10000;
+
   // The upper bound for the number of segments we store in the pipeline prior to merging.
   // This constant is subject to further experimentation.
   private static final int THRESHOLD_PIPELINE_SEGMENTS = 1;
@@ -85,11 +105,20 @@ public class MemStoreCompactor {
 
   private Action action = Action.FLATTEN;
 
+  // whether the action is chosen on each run from the duplication in the pipeline
+  private boolean adaptive;
+  private final double adaptiveCompactionThreshold;
+  private final int adaptiveSampleSize;
+
   public MemStoreCompactor(CompactingMemStore compactingMemStore,
       MemoryCompaction compactionPolicy) {
     this.compactingMemStore = compactingMemStore;
     this.compactionKVMax = compactingMemStore.getConfiguration()
         .getInt(HConstants.COMPACTION_KV_MAX, HConstants.COMPACTION_KV_MAX_DEFAULT);
+    this.adaptiveCompactionThreshold = compactingMemStore.getConfiguration()
+        .getDouble(ADAPTIVE_COMPACTION_THRESHOLD_KEY, ADAPTIVE_COMPACTION_THRESHOLD_DEFAULT);
+    this.adaptiveSampleSize = compactingMemStore.getConfiguration()
+        .getInt(ADAPTIVE_SAMPLE_SIZE_KEY, ADAPTIVE_SAMPLE_SIZE_DEFAULT);
     initiateAction(compactionPolicy);
   }
 
@@ -158,6 +187,17 @@ public class MemStoreCompactor {
       return Action.COMPACT;
     }
 
+    if (adaptive) {
+      // compact only when enough of the data would go away to pay for copying the rest
+      double removable = estimateRemovableFraction();
+      if (removable > adaptiveCompactionThreshold) {
+        LOG.debug("In-Memory Compaction Pipeline for store " + compactingMemStore.getFamilyName()
+            + " is going to be compacted, an estimated " + (int) (removable * 100)
+            + "% of the cells of the youngest segment would be removed");
+        return Action.COMPACT;
+      }
+    }
+
     // compaction shouldn't happen or doesn't worth it
     // limit the number of the segments in the pipeline
     int numOfSegments = versionedList.getNumOfSegments();
@@ -173,6 +213,43 @@ public class MemStoreCompactor {
     return Action.FLATTEN;
   }
 
+  /**----------------------------------------------------------------------
+   * Estimates the fraction of the cells of the youngest segment in the pipeline that a data
+   * compaction would remove: versions beyond the maximum of the family and cells following a
+   * delete marker of their column. Cells of a segment are sorted, so the versions of a column
+   * are next to each other and one pass over a sample is enough. Duplicates across segments
+   * are not seen.
+   */
+  @VisibleForTesting
+  double estimateRemovableFraction() {
+    List<ImmutableSegment> segments = versionedList.getStoreSegments();
+    if (segments.isEmpty()) {
+      return 0;
+    }
+    int maxVersions = compactingMemStore.getStore().getScanInfo().getMaxVersions();
+    int sampled = 0;
+    int removable = 0;
+    int versions = 0;
+    boolean deleted = false;
+    Cell prev = null;
+    Iterator<Cell> cells = segments.get(0).iterator();
+    while (cells.hasNext() && sampled < adaptiveSampleSize) {
+      Cell cell = cells.next();
+      sampled++;
+      if (prev == null || !CellUtil.matchingRowColumn(prev, cell)) {
+        versions = 0;
+        deleted = false;
+      }
+      if (CellUtil.isDelete(cell)) {
+        deleted = true;
+      } else if (deleted || ++versions > maxVersions) {
+        removable++;
+      }
+      prev = cell;
+    }
+    return sampled == 0 ? 0 : (double) removable / sampled;
+  }
+
   /**----------------------------------------------------------------------
   * The worker thread performs the compaction asynchronously.
   * The solo (per compactor) thread only reads the compaction pipeline.
@@ -188,24 +265,33 @@ public class MemStoreCompactor {
       if (nextStep == Action.NOOP) {
         return;
       }
+      long start = System.nanoTime();
       if (nextStep == Action.FLATTEN) {
         // Youngest Segment in the pipeline is with SkipList index, make it flat
+        ImmutableSegment youngest = versionedList.getStoreSegments().get(0);
+        long sizeBefore = youngest.keySize() + youngest.heapOverhead();
         compactingMemStore.flattenOneSegment(versionedList.getVersion());
+        MemStoreCompactionMetrics metrics = getMetrics();
+        if (metrics != null) {
+          metrics.flattened(System.nanoTime() - start,
+              Math.max(0, sizeBefore - youngest.keySize() - youngest.heapOverhead()));
+        }
         return;
       }
 
       // Create one segment representing all segments in the compaction pipeline,
       // either by compaction or by merge
       if (!isInterrupted.get()) {
-        result = createSubstitution();
+        result = createSubstitution(nextStep);
       }
 
       // Substitute the pipeline with one segment
       if (!isInterrupted.get()) {
         if (resultSwapped = compactingMemStore.swapCompactedSegments(
-            versionedList, result, (action==Action.MERGE))) {
+            versionedList, result, (nextStep==Action.MERGE))) {
           // update the wal so it can be truncated and not get too long
           compactingMemStore.updateLowestUnflushedSequenceIdInWAL(true); // only if greater
+          reportSubstitution(nextStep, result, System.nanoTime() - start);
         }
       }
     } catch (IOException e) {
@@ -227,16 +313,41 @@ public class MemStoreCompactor {
 
   }
 
+  private MemStoreCompactionMetrics getMetrics() {
+    Store store = compactingMemStore.getStore();
+    return store == null ? null : store.getMemStoreCompactionMetrics();
+  }
+
+  /**
+   * Accounts a merge or compaction whose result replaced the segments of versionedList.
+   */
+  private void reportSubstitution(Action step, ImmutableSegment result, long nanos) {
+    MemStoreCompactionMetrics metrics = getMetrics();
+    if (metrics == null) {
+      return;
+    }
+    long sizeBefore = 0;
+    for (ImmutableSegment s : versionedList.getStoreSegments()) {
+      sizeBefore += s.keySize() + s.heapOverhead();
+    }
+    long freed = Math.max(0, sizeBefore - result.keySize() - result.heapOverhead());
+    if (step == Action.MERGE) {
+      metrics.merged(nanos, freed);
+    } else {
+      metrics.compacted(nanos, freed);
+    }
+  }
+
   /**----------------------------------------------------------------------
    * Creation of the ImmutableSegment either by merge or copy-compact of the segments of the
    * pipeline, based on the Compactor Iterator. The new ImmutableSegment is returned.
    */
-  private ImmutableSegment createSubstitution() throws IOException {
+  private ImmutableSegment createSubstitution(Action step) throws IOException {
 
     ImmutableSegment result = null;
     MemStoreSegmentsIterator iterator = null;
 
-    switch (action) {
+    switch (step) {
     case COMPACT:
       iterator =
           new MemStoreCompactorSegmentsIterator(versionedList.getStoreSegments(),
@@ -245,7 +356,7 @@ public class MemStoreCompactor {
 
       result = SegmentFactory.instance().createImmutableSegmentByCompaction(
           compactingMemStore.getConfiguration(), compactingMemStore.getComparator(), iterator,
-          versionedList.getNumOfCells(), ImmutableSegment.Type.ARRAY_MAP_BASED);
+          versionedList.getNumOfCells(), compactingMemStore.getIndexType());
       iterator.close();
       break;
     case MERGE:
@@ -256,11 +367,11 @@ public class MemStoreCompactor {
 
       result = SegmentFactory.instance().createImmutableSegmentByMerge(
           compactingMemStore.getConfiguration(), compactingMemStore.getComparator(), iterator,
-          versionedList.getNumOfCells(), ImmutableSegment.Type.ARRAY_MAP_BASED,
+          versionedList.getNumOfCells(), compactingMemStore.getIndexType(),
           versionedList.getStoreSegments());
       iterator.close();
       break;
-    default: throw new RuntimeException("Unknown action " + action); // sanity check
+    default: throw new RuntimeException("Unknown action " + step); // sanity check
     }
 
     return result;
@@ -272,6 +383,7 @@ public class MemStoreCompactor {
   @VisibleForTesting
   void initiateAction(MemoryCompaction compType) {
 
+    adaptive = false;
     switch (compType){
     case NONE: action = Action.NOOP;
       break;
@@ -279,6 +391,9 @@ public class MemStoreCompactor {
       break;
     case EAGER: action = Action.COMPACT;
       break;
+    case ADAPTIVE: action = Action.MERGE;
+      adaptive = true;
+      break;
     default:
       throw new RuntimeException("Unknown memstore type " + compType); // sanity check
     }
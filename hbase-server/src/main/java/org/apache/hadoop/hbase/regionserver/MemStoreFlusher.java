@@ -37,6 +37,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.DelayQueue;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.LongAdder;
@@ -74,6 +75,13 @@ import org.apache.htrace.TraceScope;
 class MemStoreFlusher implements FlushRequester {
   private static final Log LOG = LogFactory.getLog(MemStoreFlusher.class);
 
+  /**
+   * Threads shared by all regions of the server to write the stores of a region in parallel
+   * when flushing it. 0 or 1 writes the stores of a region one after the other.
+   */
+  public static final String STORE_FLUSH_THREADS_KEY = "hbase.regionserver.flush.store.threads";
+  public static final int DEFAULT_STORE_FLUSH_THREADS = 0;
+
   private Configuration conf;
   // These two data members go together.  Any entry in the one must have
   // a corresponding entry in the other.
@@ -92,6 +100,7 @@ class MemStoreFlusher implements FlushRequester {
   private final LongAdder updatesBlockedMsHighWater = new LongAdder();
 
   private final FlushHandler[] flushHandlers;
+  private final ThreadPoolExecutor storeFlushPool;
   private List<FlushRequestListener> flushRequestListeners = new ArrayList<FlushRequestListener>(1);
 
   /**
@@ -109,6 +118,14 @@ class MemStoreFlusher implements FlushRequester {
       90000);
     int handlerCount = conf.getInt("hbase.hstore.flusher.count", 2);
     this.flushHandlers = new FlushHandler[handlerCount];
+    int storeFlushThreads = conf.getInt(STORE_FLUSH_THREADS_KEY, DEFAULT_STORE_FLUSH_THREADS);
+    if (storeFlushThreads > 1) {
+      this.storeFlushPool = Threads.getBoundedCachedThreadPool(storeFlushThreads, 60,
+        TimeUnit.SECONDS, Threads.newDaemonThreadFactory(
+          server.getServerName().toShortString() + "-StoreFlusher"));
+    } else {
+      this.storeFlushPool = null;
+    }
     LOG.info("globalMemStoreLimit="
         + TraditionalBinaryPrefix
             .long2String(this.server.getRegionServerAccounting().getGlobalMemstoreLimit(), "", 1)
@@ -123,14 +140,32 @@ class MemStoreFlusher implements FlushRequester {
     return this.updatesBlockedMsHighWater;
   }
 
+  /**
+   * @return the pool regions write their stores with when flushing, or null if stores are
+   *         written one after the other
+   */
+  ThreadPoolExecutor getStoreFlushPool() {
+    return this.storeFlushPool;
+  }
+
   /**
    * The memstore across all regions has exceeded the low water mark. Pick
    * one region to flush and flush it synchronously (this is called from the
    * flush thread)
+   * @param flushType what the pressure is on. With an off heap memstore the heap can fill up
+   *          with the overhead of many small cells while there is plenty of off heap space, so
+   *          then the regions taking the most heap are flushed first.
    * @return true if successful
    */
-  private boolean flushOneForGlobalPressure() {
-    SortedMap<Long, Region> regionsBySize = server.getCopyOfOnlineRegionsSortedBySize();
+  private boolean flushOneForGlobalPressure(FlushType flushType) {
+    SortedMap<Long, Region> regionsBySize;
+    if (server.getRegionServerAccounting().isOffheap()
+        && (flushType == FlushType.ABOVE_ONHEAP_LOWER_MARK
+            || flushType == FlushType.ABOVE_ONHEAP_HIGHER_MARK)) {
+      regionsBySize = server.getCopyOfOnlineRegionsSortedByHeapOverhead();
+    } else {
+      regionsBySize = server.getCopyOfOnlineRegionsSortedBySize();
+    }
     Set<Region> excludedRegions = new HashSet<Region>();
 
     double secondaryMultiplier
@@ -236,11 +271,7 @@ class MemStoreFlusher implements FlushRequester {
               LOG.debug("Flush thread woke up because memory above low water="
                   + TraditionalBinaryPrefix.long2String(
                     server.getRegionServerAccounting().getGlobalMemstoreLimitLowMark(), "", 1));
-              // For offheap memstore, even if the lower water mark was breached due to heap overhead
-              // we still select the regions based on the region's memstore data size.
-              // TODO : If we want to decide based on heap over head it can be done without tracking
-              // it per region.
-              if (!flushOneForGlobalPressure()) {
+              if (!flushOneForGlobalPressure(type)) {
                 // Wasn't able to flush any region, but we're above low water mark
                 // This is unlikely to happen, but might happen when closing the
                 // entire server - another thread is flushing regions. We'll just
@@ -421,6 +452,9 @@ class MemStoreFlusher implements FlushRequester {
         Threads.shutdown(flushHander.getThread());
       }
     }
+    if (storeFlushPool != null) {
+      storeFlushPool.shutdown();
+    }
   }
 
   /**
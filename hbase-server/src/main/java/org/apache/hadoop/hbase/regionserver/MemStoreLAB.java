@@ -83,6 +83,15 @@ public interface MemStoreLAB {
    */
   void decScannerCount();
 
+  /**
+   * Gives out a whole chunk for data other than Cells, e.g. the index of a {@link CellChunkMap}.
+   * The chunk is released together with the chunks holding the Cells of this MemStoreLAB.
+   * @return an initialized chunk, or null if this MemStoreLAB can not give out chunks
+   */
+  default Chunk getNewExternalChunk() {
+    return null;
+  }
+
   public static MemStoreLAB newInstance(Configuration conf) {
     MemStoreLAB memStoreLAB = null;
     if (isEnabled(conf)) {
@@ -22,6 +22,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.apache.commons.logging.Log;
@@ -31,6 +32,7 @@ import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.io.DeferredReleases;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
@@ -57,8 +59,8 @@ import com.google.common.base.Preconditions;
  * anyway.
  * The chunks created by this MemStoreLAB can get pooled at {@link MemStoreChunkPool}.
  * When the Chunk comes pool, it can be either an on heap or an off heap backed chunk. The chunks,
- * which this MemStoreLAB creates on its own (when no chunk available from pool), those will be
- * always on heap backed.
+ * which this MemStoreLAB creates on its own (when no chunk available from pool), are backed the
+ * way the pool's are, up to a cap the pool sets on such off heap chunks; past it they are on heap.
  */
 @InterfaceAudience.Private
 public class MemStoreLABImpl implements MemStoreLAB {
@@ -83,6 +85,8 @@ public class MemStoreLABImpl implements MemStoreLAB {
   private AtomicBoolean reclaimed = new AtomicBoolean(false);
   // Current count of open scanners which reading data from this MemStoreLAB
   private final AtomicInteger openScannerCount = new AtomicInteger();
+  // Bytes of the off heap chunks this MemStoreLAB made outside the pool, reserved from the pool
+  private final AtomicLong unpooledOffheapSize = new AtomicLong();
 
   // Used in testing
   public MemStoreLABImpl() {
@@ -144,10 +148,15 @@ public class MemStoreLABImpl implements MemStoreLAB {
     // opening scanner which will read their data
     if (chunkPool != null && openScannerCount.get() == 0
         && reclaimed.compareAndSet(false, true)) {
-      chunkPool.putbackChunks(this.pooledChunkQueue);
+      recycleChunks();
     }
   }
 
+  private void recycleChunks() {
+    chunkPool.putbackChunks(this.pooledChunkQueue);
+    chunkPool.releaseUnpooledOffheap(this.unpooledOffheapSize.getAndSet(0));
+  }
+
   /**
    * Called when opening a scanner on the data of this MemStoreLAB
    */
@@ -161,10 +170,16 @@ public class MemStoreLABImpl implements MemStoreLAB {
    */
   @Override
   public void decScannerCount() {
+    DeferredReleases deferred = DeferredReleases.current();
+    if (deferred != null) {
+      // A response about to be sent straight from our chunks still needs them.
+      deferred.add(this::decScannerCount);
+      return;
+    }
     int count = this.openScannerCount.decrementAndGet();
     if (this.closed && chunkPool != null && count == 0
         && reclaimed.compareAndSet(false, true)) {
-      chunkPool.putbackChunks(this.pooledChunkQueue);
+      recycleChunks();
     }
   }
 
@@ -208,7 +223,7 @@ public class MemStoreLABImpl implements MemStoreLAB {
         // This is chunk from pool
         pooledChunk = true;
       } else {
-        c = new OnheapChunk(chunkSize);// When chunk is not from pool, always make it as on heap.
+        c = newUnpooledChunk();
       }
       if (curChunk.compareAndSet(null, c)) {
         // we won race - now we need to actually do the expensive
@@ -221,16 +236,54 @@ public class MemStoreLABImpl implements MemStoreLAB {
                   + pooledChunkQueue.size());
             }
           }
+        } else if (c instanceof OffheapChunk) {
+          this.unpooledOffheapSize.addAndGet(chunkSize);
         }
         return c;
       } else if (pooledChunk) {
         chunkPool.putbackChunk(c);
+      } else if (c instanceof OffheapChunk) {
+        // Never initialized, so it took no memory.
+        chunkPool.releaseUnpooledOffheap(chunkSize);
       }
       // someone else won race - that's fine, we'll try to grab theirs
       // in the next iteration of the loop.
     }
   }
 
+  @Override
+  public Chunk getNewExternalChunk() {
+    Chunk c = chunkPool == null ? null : chunkPool.getChunk();
+    boolean pooledChunk = c != null;
+    if (!pooledChunk) {
+      c = newUnpooledChunk();
+    }
+    c.init();
+    if (!pooledChunk && c instanceof OffheapChunk) {
+      this.unpooledOffheapSize.addAndGet(chunkSize);
+    }
+    if (pooledChunk && (this.closed || !this.pooledChunkQueue.offer(c))) {
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("Chunk queue is full, won't reuse this new external chunk. Current queue size: "
+            + pooledChunkQueue.size());
+      }
+    }
+    return c;
+  }
+
+  /**
+   * Makes a chunk when the pool has none to give. It goes where the pool keeps its chunks: an off
+   * heap memstore is accounted against the off heap limit only, so its data should not land on the
+   * heap once the pool runs dry. Only GC frees these chunks, so the direct memory they take is
+   * capped by the pool; past that they are made on heap.
+   */
+  private Chunk newUnpooledChunk() {
+    if (chunkPool != null && chunkPool.isOffheap() && chunkPool.reserveUnpooledOffheap(chunkSize)) {
+      return new OffheapChunk(chunkSize);
+    }
+    return new OnheapChunk(chunkSize);
+  }
+
   @VisibleForTesting
   Chunk getCurrentChunk() {
     return this.curChunk.get();
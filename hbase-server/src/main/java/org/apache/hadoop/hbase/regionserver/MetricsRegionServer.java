@@ -123,6 +123,10 @@ public class MetricsRegionServer {
     serverSource.updateFlushOutputSize(fileSize);
   }
 
+  public void updateStoreFlush(long t) {
+    serverSource.updateStoreFlushTime(t);
+  }
+
   public void updateCompaction(boolean isMajor, long t, int inputFileCount, int outputFileCount,
       long inputBytes, long outputBytes) {
     serverSource.updateCompactionTime(isMajor, t);
@@ -33,8 +33,11 @@ import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.ServerName;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.io.hfile.BlockCache;
+import org.apache.hadoop.hbase.io.hfile.BloomChunkCache;
 import org.apache.hadoop.hbase.io.hfile.CacheConfig;
 import org.apache.hadoop.hbase.io.hfile.CacheStats;
+import org.apache.hadoop.hbase.io.hfile.HFileStreamPool;
+import org.apache.hadoop.hbase.io.hfile.UnpackedBlockCache;
 import org.apache.hadoop.hbase.mob.MobCacheConfig;
 import org.apache.hadoop.hbase.mob.MobFileCache;
 import org.apache.hadoop.hbase.regionserver.wal.MetricsWALSource;
@@ -58,6 +61,8 @@ class MetricsRegionServerWrapperImpl
   private final MetricsWALSource metricsWALSource;
 
   private BlockCache blockCache;
+  private UnpackedBlockCache unpackedBlockCache;
+  private BloomChunkCache bloomChunkCache;
   private MobFileCache mobFileCache;
 
   private volatile long numStores = 0;
@@ -71,6 +76,8 @@ class MetricsRegionServerWrapperImpl
   private volatile long avgStoreFileAge = 0;
   private volatile long numReferenceFiles = 0;
   private volatile double requestsPerSecond = 0.0;
+  private volatile double scanRequestsPerSecond = 0.0;
+  private volatile long scanBytesPerRequest = 0;
   private volatile long readRequestsCount = 0;
   private volatile long filteredReadRequestsCount = 0;
   private volatile long writeRequestsCount = 0;
@@ -89,6 +96,15 @@ class MetricsRegionServerWrapperImpl
   private volatile long flushedCellsSize = 0;
   private volatile long compactedCellsSize = 0;
   private volatile long majorCompactedCellsSize = 0;
+  private volatile long inMemoryFlattenCount = 0;
+  private volatile long inMemoryMergeCount = 0;
+  private volatile long inMemoryCompactionCount = 0;
+  private volatile long inMemoryFlattenTime = 0;
+  private volatile long inMemoryMergeTime = 0;
+  private volatile long inMemoryCompactionTime = 0;
+  private volatile long inMemoryFlattenFreedSize = 0;
+  private volatile long inMemoryMergeFreedSize = 0;
+  private volatile long inMemoryCompactionFreedSize = 0;
   private volatile long cellsCountCompactedToMob = 0;
   private volatile long cellsCountCompactedFromMob = 0;
   private volatile long cellsSizeCompactedToMob = 0;
@@ -150,6 +166,8 @@ class MetricsRegionServerWrapperImpl
     CacheConfig cacheConfig = this.regionServer.cacheConfig;
     if (cacheConfig != null && this.blockCache == null) {
       this.blockCache = cacheConfig.getBlockCache();
+      this.unpackedBlockCache = cacheConfig.getUnpackedBlockCache();
+      this.bloomChunkCache = cacheConfig.getBloomChunkCache();
     }
 
     if (this.blockCache != null && this.cacheStats == null) {
@@ -368,6 +386,183 @@ class MetricsRegionServerWrapperImpl
     return this.cacheStats.getFailedInserts();
   }
 
+  @Override
+  public long getBlockCacheWriterQueueFullCount() {
+    if (this.cacheStats == null) {
+      return 0;
+    }
+    return this.cacheStats.getWriterQueueFullCount();
+  }
+
+  @Override
+  public long getBlockCacheReadaheadCount() {
+    if (this.cacheStats == null) {
+      return 0;
+    }
+    return this.cacheStats.getReadaheadCount();
+  }
+
+  @Override
+  public long getBlockCacheReadaheadHitCount() {
+    if (this.cacheStats == null) {
+      return 0;
+    }
+    return this.cacheStats.getReadaheadHitCount();
+  }
+
+  @Override
+  public long getBlockCacheReadaheadWastedCount() {
+    if (this.cacheStats == null) {
+      return 0;
+    }
+    return this.cacheStats.getReadaheadWastedCount();
+  }
+
+  @Override
+  public long getHFileStreamPoolReadCount() {
+    return HFileStreamPool.getPooledReadCount();
+  }
+
+  @Override
+  public long getHFileStreamPoolFallbackCount() {
+    return HFileStreamPool.getFallbackCount();
+  }
+
+  @Override
+  public long getHFileStreamPoolOpenCount() {
+    return HFileStreamPool.getOpenStreamCount();
+  }
+
+  @Override
+  public long getHFileStreamPoolBusyCount() {
+    return HFileStreamPool.getBusyStreamCount();
+  }
+
+  @Override
+  public long getBloomChunkCacheSize() {
+    BloomChunkCache bloom = this.bloomChunkCache;
+    return bloom == null ? 0 : bloom.getCurrentSize();
+  }
+
+  @Override
+  public long getBloomChunkCacheHitCount() {
+    BloomChunkCache bloom = this.bloomChunkCache;
+    return bloom == null ? 0 : bloom.getStats().getHitCount();
+  }
+
+  @Override
+  public long getBloomChunkCacheMissCount() {
+    BloomChunkCache bloom = this.bloomChunkCache;
+    return bloom == null ? 0 : bloom.getStats().getMissCount();
+  }
+
+  @Override
+  public long getInMemoryFlattenCount() {
+    return inMemoryFlattenCount;
+  }
+
+  @Override
+  public long getInMemoryMergeCount() {
+    return inMemoryMergeCount;
+  }
+
+  @Override
+  public long getInMemoryCompactionCount() {
+    return inMemoryCompactionCount;
+  }
+
+  @Override
+  public long getInMemoryFlattenTime() {
+    return inMemoryFlattenTime;
+  }
+
+  @Override
+  public long getInMemoryMergeTime() {
+    return inMemoryMergeTime;
+  }
+
+  @Override
+  public long getInMemoryCompactionTime() {
+    return inMemoryCompactionTime;
+  }
+
+  @Override
+  public long getInMemoryFlattenFreedSize() {
+    return inMemoryFlattenFreedSize;
+  }
+
+  @Override
+  public long getInMemoryMergeFreedSize() {
+    return inMemoryMergeFreedSize;
+  }
+
+  @Override
+  public long getInMemoryCompactionFreedSize() {
+    return inMemoryCompactionFreedSize;
+  }
+
+  @Override
+  public double getScanRequestsPerSecond() {
+    return scanRequestsPerSecond;
+  }
+
+  @Override
+  public long getScanBytesPerRequest() {
+    return scanBytesPerRequest;
+  }
+
+  @Override
+  public long getScanSizeLimitInUse() {
+    return regionServer.rpcServices.scanSizer.getMemoryInUse();
+  }
+
+  @Override
+  public long getScanSizeLimitReducedCount() {
+    return regionServer.rpcServices.scanSizer.getReducedCount();
+  }
+
+  @Override
+  public long getBlockCacheUnpackCount() {
+    UnpackedBlockCache unpacked = this.unpackedBlockCache;
+    return unpacked == null ? 0 : unpacked.getUnpackCount();
+  }
+
+  @Override
+  public long getBlockCacheUnpackTime() {
+    UnpackedBlockCache unpacked = this.unpackedBlockCache;
+    return unpacked == null ? 0 : TimeUnit.NANOSECONDS.toMillis(unpacked.getUnpackTime());
+  }
+
+  @Override
+  public long getBlockCacheUnpackedHitCount() {
+    UnpackedBlockCache unpacked = this.unpackedBlockCache;
+    return unpacked == null ? 0 : unpacked.getStats().getHitCount();
+  }
+
+  @Override
+  public long getBlockCacheAdmittedCount() {
+    if (this.cacheStats == null) {
+      return 0;
+    }
+    return this.cacheStats.getAdmittedCount();
+  }
+
+  @Override
+  public long getBlockCacheRejectedCount() {
+    if (this.cacheStats == null) {
+      return 0;
+    }
+    return this.cacheStats.getRejectedCount();
+  }
+
+  @Override
+  public long getBlockCacheRejectedRequestCount() {
+    if (this.cacheStats == null) {
+      return 0;
+    }
+    return this.cacheStats.getRejectedRequestCount();
+  }
+
   @Override public void forceRecompute() {
     this.runnable.run();
   }
@@ -628,6 +823,8 @@ class MetricsRegionServerWrapperImpl
 
     private long lastRan = 0;
     private long lastRequestCount = 0;
+    private long lastScanRequestCount = 0;
+    private long lastScanResponseBytes = 0;
 
     @Override
     synchronized public void run() {
@@ -661,6 +858,15 @@ class MetricsRegionServerWrapperImpl
         long tempFlushedCellsSize = 0;
         long tempCompactedCellsSize = 0;
         long tempMajorCompactedCellsSize = 0;
+        long tempInMemoryFlattenCount = 0;
+        long tempInMemoryMergeCount = 0;
+        long tempInMemoryCompactionCount = 0;
+        long tempInMemoryFlattenTime = 0;
+        long tempInMemoryMergeTime = 0;
+        long tempInMemoryCompactionTime = 0;
+        long tempInMemoryFlattenFreedSize = 0;
+        long tempInMemoryMergeFreedSize = 0;
+        long tempInMemoryCompactionFreedSize = 0;
         long tempCellsCountCompactedToMob = 0;
         long tempCellsCountCompactedFromMob = 0;
         long tempCellsSizeCompactedToMob = 0;
@@ -710,6 +916,18 @@ class MetricsRegionServerWrapperImpl
             tempFlushedCellsSize += store.getFlushedCellsSize();
             tempCompactedCellsSize += store.getCompactedCellsSize();
             tempMajorCompactedCellsSize += store.getMajorCompactedCellsSize();
+            MemStoreCompactionMetrics inMemoryCompaction = store.getMemStoreCompactionMetrics();
+            if (inMemoryCompaction != null) {
+              tempInMemoryFlattenCount += inMemoryCompaction.getFlattenCount();
+              tempInMemoryMergeCount += inMemoryCompaction.getMergeCount();
+              tempInMemoryCompactionCount += inMemoryCompaction.getCompactCount();
+              tempInMemoryFlattenTime += inMemoryCompaction.getFlattenTime();
+              tempInMemoryMergeTime += inMemoryCompaction.getMergeTime();
+              tempInMemoryCompactionTime += inMemoryCompaction.getCompactTime();
+              tempInMemoryFlattenFreedSize += inMemoryCompaction.getFlattenFreedSize();
+              tempInMemoryMergeFreedSize += inMemoryCompaction.getMergeFreedSize();
+              tempInMemoryCompactionFreedSize += inMemoryCompaction.getCompactFreedSize();
+            }
             if (store instanceof HMobStore) {
               HMobStore mobStore = (HMobStore) store;
               tempCellsCountCompactedToMob += mobStore.getCellsCountCompactedToMob();
@@ -754,6 +972,16 @@ class MetricsRegionServerWrapperImpl
           requestsPerSecond = (currentRequestCount - lastRequestCount) /
               ((currentTime - lastRan) / 1000.0);
           lastRequestCount = currentRequestCount;
+
+          // The counters are reset when reporting for duty
+          long currentScanRequestCount = getRpcScanRequestsCount();
+          long currentScanResponseBytes = regionServer.rpcServices.rpcScanResponseBytes.sum();
+          long scanRequests = Math.max(0, currentScanRequestCount - lastScanRequestCount);
+          scanRequestsPerSecond = scanRequests / ((currentTime - lastRan) / 1000.0);
+          scanBytesPerRequest = scanRequests == 0 ? 0 :
+              Math.max(0, currentScanResponseBytes - lastScanResponseBytes) / scanRequests;
+          lastScanRequestCount = currentScanRequestCount;
+          lastScanResponseBytes = currentScanResponseBytes;
         }
         lastRan = currentTime;
 
@@ -799,6 +1027,15 @@ class MetricsRegionServerWrapperImpl
         flushedCellsSize = tempFlushedCellsSize;
         compactedCellsSize = tempCompactedCellsSize;
         majorCompactedCellsSize = tempMajorCompactedCellsSize;
+        inMemoryFlattenCount = tempInMemoryFlattenCount;
+        inMemoryMergeCount = tempInMemoryMergeCount;
+        inMemoryCompactionCount = tempInMemoryCompactionCount;
+        inMemoryFlattenTime = TimeUnit.NANOSECONDS.toMillis(tempInMemoryFlattenTime);
+        inMemoryMergeTime = TimeUnit.NANOSECONDS.toMillis(tempInMemoryMergeTime);
+        inMemoryCompactionTime = TimeUnit.NANOSECONDS.toMillis(tempInMemoryCompactionTime);
+        inMemoryFlattenFreedSize = tempInMemoryFlattenFreedSize;
+        inMemoryMergeFreedSize = tempInMemoryMergeFreedSize;
+        inMemoryCompactionFreedSize = tempInMemoryCompactionFreedSize;
         cellsCountCompactedToMob = tempCellsCountCompactedToMob;
         cellsCountCompactedFromMob = tempCellsCountCompactedFromMob;
         cellsSizeCompactedToMob = tempCellsSizeCompactedToMob;
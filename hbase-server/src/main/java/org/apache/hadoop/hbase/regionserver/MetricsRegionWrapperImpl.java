@@ -20,7 +20,10 @@ package org.apache.hadoop.hbase.regionserver;
 
 import java.io.Closeable;
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -52,6 +55,9 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
   private long minStoreFileAge;
   private long avgStoreFileAge;
   private long numReferenceFiles;
+  private long columnStatsScanCount;
+  private long columnStatsPrunedFilesCount;
+  private volatile Map<String, BloomFilterMetrics> bloomFilterMetrics = Collections.emptyMap();
 
   private ScheduledFuture<?> regionMetricsUpdateTask;
 
@@ -187,6 +193,65 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
     return this.region.hashCode();
   }
 
+  @Override
+  public long getRowLockContentionCount() {
+    return this.region.getRowLockContentionCount();
+  }
+
+  @Override
+  public long getRowLockWaitTime() {
+    return TimeUnit.NANOSECONDS.toMicros(this.region.getRowLockWaitTime());
+  }
+
+  @Override
+  public long getCoalescedIncrementCount() {
+    return this.region.getCoalescedIncrementCount();
+  }
+
+  @Override
+  public long getCoalescedIncrementApplyCount() {
+    return this.region.getCoalescedIncrementApplyCount();
+  }
+
+  @Override
+  public long getColumnStatsScanCount() {
+    return columnStatsScanCount;
+  }
+
+  @Override
+  public long getColumnStatsPrunedFilesCount() {
+    return columnStatsPrunedFilesCount;
+  }
+
+  @Override
+  public Collection<String> getBloomFilterFamilies() {
+    return bloomFilterMetrics.keySet();
+  }
+
+  @Override
+  public long getBloomFilterRequestCount(String family) {
+    BloomFilterMetrics metrics = bloomFilterMetrics.get(family);
+    return metrics == null ? 0 : metrics.getRequestCount();
+  }
+
+  @Override
+  public long getBloomFilterNegativeCount(String family) {
+    BloomFilterMetrics metrics = bloomFilterMetrics.get(family);
+    return metrics == null ? 0 : metrics.getNegativeCount();
+  }
+
+  @Override
+  public long getBloomFilterFalsePositiveCount(String family) {
+    BloomFilterMetrics metrics = bloomFilterMetrics.get(family);
+    return metrics == null ? 0 : metrics.getFalsePositiveCount();
+  }
+
+  @Override
+  public long getBloomFilterCheckTime(String family) {
+    BloomFilterMetrics metrics = bloomFilterMetrics.get(family);
+    return metrics == null ? 0 : TimeUnit.NANOSECONDS.toMicros(metrics.getCheckTime());
+  }
+
   public class HRegionMetricsWrapperRunnable implements Runnable {
 
     @Override
@@ -197,11 +262,17 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
       long tempMaxStoreFileAge = 0;
       long tempMinStoreFileAge = Long.MAX_VALUE;
       long tempNumReferenceFiles = 0;
+      long tempColumnStatsScanCount = 0;
+      long tempColumnStatsPrunedFilesCount = 0;
 
       long avgAgeNumerator = 0;
       long numHFiles = 0;
+      Map<String, BloomFilterMetrics> tempBloomFilterMetrics = new TreeMap<>();
       if (region.stores != null) {
         for (Store store : region.stores.values()) {
+          if (store.getFamily().getBloomFilterType() != BloomType.NONE) {
+            tempBloomFilterMetrics.put(store.getColumnFamilyName(), store.getBloomFilterMetrics());
+          }
           tempNumStoreFiles += store.getStorefilesCount();
           tempMemstoreSize += store.getSizeOfMemStore().getDataSize();
           tempStoreFileSize += store.getStorefilesSize();
@@ -218,6 +289,8 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
           avgAgeNumerator += store.getAvgStoreFileAge() * storeHFiles;
           numHFiles += storeHFiles;
           tempNumReferenceFiles += store.getNumReferenceFiles();
+          tempColumnStatsScanCount += store.getColumnStatsMetrics().getScanCount();
+          tempColumnStatsPrunedFilesCount += store.getColumnStatsMetrics().getPrunedCount();
         }
       }
 
@@ -234,6 +307,9 @@ public class MetricsRegionWrapperImpl implements MetricsRegionWrapper, Closeable
       }
 
       numReferenceFiles = tempNumReferenceFiles;
+      columnStatsScanCount = tempColumnStatsScanCount;
+      columnStatsPrunedFilesCount = tempColumnStatsPrunedFilesCount;
+      bloomFilterMetrics = tempBloomFilterMetrics;
     }
   }
 
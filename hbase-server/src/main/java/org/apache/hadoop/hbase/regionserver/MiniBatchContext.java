@@ -0,0 +1,105 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.regionserver.HRegion.ObservedExceptionsInBatch;
+import org.apache.hadoop.hbase.regionserver.Region.RowLock;
+
+/**
+ * The per mini-batch bookkeeping of the batch mutations of {@link HRegion}, kept per handler
+ * thread so that writing a batch does not allocate it again.
+ * <p>
+ * A context is taken with {@link #acquire(int)} and has to be given back with {@link #release()},
+ * which drops every reference to the mutations and row locks of the batch. A batch started on a
+ * thread that already holds its context, e.g. by a coprocessor writing to another region from a
+ * hook, gets a throwaway context. So do batches bigger than {@link #MAX_RETAINED_BATCH_SIZE}, so
+ * that one huge batch does not leave big arrays behind in the handler.
+ */
+@InterfaceAudience.Private
+final class MiniBatchContext {
+  static final int MAX_RETAINED_BATCH_SIZE = 1024;
+
+  private static final ThreadLocal<MiniBatchContext> CONTEXT = new ThreadLocal<MiniBatchContext>();
+
+  private Map<byte[], List<Cell>>[] familyMaps;
+  private final List<RowLock> acquiredRowLocks;
+  private final ObservedExceptionsInBatch observedExceptions = new ObservedExceptionsInBatch();
+  private boolean inUse = false;
+
+  @SuppressWarnings("unchecked")
+  private MiniBatchContext() {
+    this.familyMaps = new Map[0];
+    this.acquiredRowLocks = new ArrayList<RowLock>();
+  }
+
+  /**
+   * @param batchSize the number of operations of the whole batch
+   * @return a context with room for the family maps of all operations of the batch
+   */
+  @SuppressWarnings("unchecked")
+  static MiniBatchContext acquire(int batchSize) {
+    MiniBatchContext context = CONTEXT.get();
+    if (context == null && batchSize <= MAX_RETAINED_BATCH_SIZE) {
+      context = new MiniBatchContext();
+      CONTEXT.set(context);
+    } else if (context == null || context.inUse || batchSize > MAX_RETAINED_BATCH_SIZE) {
+      context = new MiniBatchContext();
+    }
+    context.inUse = true;
+    if (context.familyMaps.length < batchSize) {
+      context.familyMaps = new Map[batchSize];
+    }
+    context.observedExceptions.reset();
+    return context;
+  }
+
+  /**
+   * The family maps of the batch, indexed like the operations of the batch. The array may be
+   * longer than the batch.
+   */
+  Map<byte[], List<Cell>>[] getFamilyMaps() {
+    return familyMaps;
+  }
+
+  /**
+   * The row locks taken for the mini-batch, to be released before the context is.
+   */
+  List<RowLock> getAcquiredRowLocks() {
+    return acquiredRowLocks;
+  }
+
+  ObservedExceptionsInBatch getObservedExceptions() {
+    return observedExceptions;
+  }
+
+  /**
+   * Gives the context back to the thread, dropping the references it holds.
+   */
+  void release() {
+    Arrays.fill(familyMaps, null);
+    acquiredRowLocks.clear();
+    inUse = false;
+  }
+}
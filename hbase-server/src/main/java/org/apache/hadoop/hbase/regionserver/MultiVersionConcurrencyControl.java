@@ -18,8 +18,14 @@
  */
 package org.apache.hadoop.hbase.regionserver;
 
-import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
 
 import com.google.common.annotations.VisibleForTesting;
 
@@ -35,6 +41,12 @@ import org.apache.hadoop.hbase.util.ClassSize;
  * Manages the read/write consistency. This provides an interface for readers to determine what
  * entries to ignore, and a mechanism for writers to obtain new write numbers, then "commit"
  * the new writes for readers to read (thus forming atomic transactions).
+ * <p>
+ * There are no locks on the write path. A completed write is recorded in a ring of slots indexed
+ * by its write number, and whoever completes a write moves the read point forward over all
+ * the completed writes that follow it, with compare-and-set, so completers help each other.
+ * When more writes are in flight than the ring has slots, a completed write whose slot is still
+ * taken goes to an overflow map instead.
  */
 @InterfaceAudience.Private
 public class MultiVersionConcurrencyControl {
@@ -42,19 +54,29 @@ public class MultiVersionConcurrencyControl {
 
   final AtomicLong readPoint = new AtomicLong(0);
   final AtomicLong writePoint = new AtomicLong(0);
-  private final Object readWaiters = new Object();
   /**
    * Represents no value, or not set.
    */
   public static final long NONE = -1;
 
-  // This is the pending queue of writes.
-  //
-  // TODO(eclark): Should this be an array of fixed size to
-  // reduce the number of allocations on the write path?
-  // This could be equal to the number of handlers + a small number.
-  // TODO: St.Ack 20150903 Sounds good to me.
-  private final LinkedList<WriteEntry> writeQueue = new LinkedList<WriteEntry>();
+  /**
+   * Slots in the ring of completed writes; a power of 2. A few times the usual number of
+   * handlers, so that the overflow map is rarely needed.
+   */
+  static final int SLOTS = 256;
+  private static final int SLOT_MASK = SLOTS - 1;
+
+  /** Times a waiter for the read point yields before it parks. */
+  private static final int WAIT_SPINS = 16;
+  private static final long WAIT_PARK_NS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  // Slot i holds the last completed write number n with (n & SLOT_MASK) == i. A slot is only
+  // taken over once the read point passed the write number in it.
+  private final AtomicLongArray completed = new AtomicLongArray(SLOTS);
+  // Completed writes that found their slot still taken.
+  private final Map<Long, Boolean> overflow = new ConcurrentHashMap<Long, Boolean>();
+  // Threads parked until the read point reaches their write.
+  private final Queue<ReadWaiter> readWaiters = new ConcurrentLinkedQueue<ReadWaiter>();
 
   public MultiVersionConcurrencyControl() {
     super();
@@ -88,24 +110,27 @@ public class MultiVersionConcurrencyControl {
    * <code>readPoint</code>
    */
   boolean tryAdvanceTo(long newStartPoint, long expected) {
-    synchronized (writeQueue) {
-      long currentRead = this.readPoint.get();
-      long currentWrite = this.writePoint.get();
-      if (currentRead != currentWrite) {
-        throw new RuntimeException("Already used this mvcc; currentRead=" + currentRead +
-          ", currentWrite=" + currentWrite + "; too late to tryAdvanceTo");
-      }
-      if (expected != NONE && expected != currentRead) {
-        return false;
-      }
+    long currentWrite = this.writePoint.get();
+    long currentRead = this.readPoint.get();
+    if (currentRead != currentWrite) {
+      throw new RuntimeException("Already used this mvcc; currentRead=" + currentRead +
+        ", currentWrite=" + currentWrite + "; too late to tryAdvanceTo");
+    }
+    if (expected != NONE && expected != currentRead) {
+      return false;
+    }
 
-      if (newStartPoint < currentRead) {
-        return false;
-      }
+    if (newStartPoint < currentRead) {
+      return false;
+    }
 
-      readPoint.set(newStartPoint);
-      writePoint.set(newStartPoint);
+    // Fails if a write began in the meantime
+    if (!writePoint.compareAndSet(currentWrite, newStartPoint)) {
+      return false;
     }
+    readPoint.set(newStartPoint);
+    // A write begun right after the move may have completed before the read point got there
+    advanceReadPoint();
     return true;
   }
 
@@ -120,12 +145,7 @@ public class MultiVersionConcurrencyControl {
    * @see #completeAndWait(WriteEntry)
    */
   public WriteEntry begin() {
-    synchronized (writeQueue) {
-      long nextWriteNumber = writePoint.incrementAndGet();
-      WriteEntry e = new WriteEntry(nextWriteNumber);
-      writeQueue.add(e);
-      return e;
-    }
+    return new WriteEntry(writePoint.incrementAndGet());
   }
 
   /**
@@ -165,40 +185,55 @@ public class MultiVersionConcurrencyControl {
    * @return true if e is visible to MVCC readers (that is, readpoint >= e.writeNumber)
    */
   public boolean complete(WriteEntry writeEntry) {
-    synchronized (writeQueue) {
-      writeEntry.markCompleted();
-      long nextReadValue = NONE;
-      boolean ranOnce = false;
-      while (!writeQueue.isEmpty()) {
-        ranOnce = true;
-        WriteEntry queueFirst = writeQueue.getFirst();
-
-        if (nextReadValue > 0) {
-          if (nextReadValue + 1 != queueFirst.getWriteNumber()) {
-            throw new RuntimeException("Invariant in complete violated, nextReadValue="
-                + nextReadValue + ", writeNumber=" + queueFirst.getWriteNumber());
-          }
-        }
-
-        if (queueFirst.isCompleted()) {
-          nextReadValue = queueFirst.getWriteNumber();
-          writeQueue.removeFirst();
-        } else {
-          break;
-        }
+    writeEntry.markCompleted();
+    long writeNumber = writeEntry.getWriteNumber();
+    int slot = (int) (writeNumber & SLOT_MASK);
+    while (true) {
+      long previous = completed.get(slot);
+      if (previous > readPoint.get()) {
+        // The read point has not passed the write in our slot yet
+        overflow.put(writeNumber, Boolean.TRUE);
+        break;
       }
-
-      if (!ranOnce) {
-        throw new RuntimeException("There is no first!");
+      if (completed.compareAndSet(slot, previous, writeNumber)) {
+        break;
       }
+    }
+    // Every completer walks after recording its write, so the last write to complete of a run
+    // of writes sees all of them.
+    advanceReadPoint();
+    return readPoint.get() >= writeNumber;
+  }
 
-      if (nextReadValue > 0) {
-        synchronized (readWaiters) {
-          readPoint.set(nextReadValue);
-          readWaiters.notifyAll();
+  /**
+   * Moves the read point over the completed writes following it, then wakes the waiters it
+   * passed.
+   */
+  private void advanceReadPoint() {
+    boolean advanced = false;
+    long current = readPoint.get();
+    while (true) {
+      long next = current + 1;
+      boolean inSlot = completed.get((int) (next & SLOT_MASK)) == next;
+      if (!inSlot && (overflow.isEmpty() || !overflow.containsKey(next))) {
+        break;
+      }
+      if (readPoint.compareAndSet(current, next)) {
+        if (!inSlot) {
+          overflow.remove(next);
+        }
+        advanced = true;
+        current = next;
+      } else {
+        current = readPoint.get();
+      }
+    }
+    if (advanced && !readWaiters.isEmpty()) {
+      for (ReadWaiter waiter : readWaiters) {
+        if (waiter.writeNumber <= current) {
+          LockSupport.unpark(waiter.thread);
         }
       }
-      return readPoint.get() >= writeEntry.getWriteNumber();
     }
   }
 
@@ -206,28 +241,48 @@ public class MultiVersionConcurrencyControl {
    * Wait for the global readPoint to advance up to the passed in write entry number.
    */
   void waitForRead(WriteEntry e) {
+    long writeNumber = e.getWriteNumber();
+    // The writes before ours are usually about to complete
+    for (int i = 0; i < WAIT_SPINS && readPoint.get() < writeNumber; i++) {
+      Thread.yield();
+    }
+    if (readPoint.get() >= writeNumber) {
+      return;
+    }
+    ReadWaiter waiter = new ReadWaiter(Thread.currentThread(), writeNumber);
+    readWaiters.add(waiter);
     boolean interrupted = false;
     int count = 0;
-    synchronized (readWaiters) {
-      while (readPoint.get() < e.getWriteNumber()) {
+    try {
+      // Check after queueing, a completer that moved the read point earlier did not see us
+      while (readPoint.get() < writeNumber) {
         if (count % 100 == 0 && count > 0) {
           LOG.warn("STUCK: " + this);
         }
         count++;
-        try {
-          readWaiters.wait(10);
-        } catch (InterruptedException ie) {
-          // We were interrupted... finish the loop -- i.e. cleanup --and then
-          // on our way out, reset the interrupt flag.
-          interrupted = true;
-        }
+        LockSupport.parkNanos(this, WAIT_PARK_NS);
+        // We were interrupted... finish the loop -- i.e. cleanup --and then
+        // on our way out, reset the interrupt flag.
+        interrupted |= Thread.interrupted();
       }
+    } finally {
+      readWaiters.remove(waiter);
     }
     if (interrupted) {
       Thread.currentThread().interrupt();
     }
   }
 
+  private static final class ReadWaiter {
+    final Thread thread;
+    final long writeNumber;
+
+    ReadWaiter(Thread thread, long writeNumber) {
+      this.thread = thread;
+      this.writeNumber = writeNumber;
+    }
+  }
+
   @VisibleForTesting
   public String toString() {
     return Objects.toStringHelper(this)
@@ -278,5 +333,6 @@ public class MultiVersionConcurrencyControl {
   public static final long FIXED_SIZE = ClassSize.align(
       ClassSize.OBJECT +
       2 * Bytes.SIZEOF_LONG +
-      2 * ClassSize.REFERENCE);
+      3 * ClassSize.REFERENCE) +
+      ClassSize.align(ClassSize.ARRAY + SLOTS * Bytes.SIZEOF_LONG); // completed
 }
@@ -244,6 +244,9 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
   // Request counter for rpc scan
   final LongAdder rpcScanRequestCount = new LongAdder();
 
+  // Bytes of cells returned by rpc scan
+  final LongAdder rpcScanResponseBytes = new LongAdder();
+
   // Request counter for rpc multi
   final LongAdder rpcMultiRequestCount = new LongAdder();
 
@@ -256,6 +259,7 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
 
   private final HRegionServer regionServer;
   private final long maxScannerResultSize;
+  final AdaptiveScanSizer scanSizer;
 
   // The reference to the priority extraction function
   private final PriorityFunction priority;
@@ -354,6 +358,7 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     private Region r;
     final RpcCallback closeCallBack;
     final RpcCallback shippedCallback;
+    final AdaptiveScanSizer.ScannerRate scanRate = new AdaptiveScanSizer.ScannerRate();
 
     public RegionScannerHolder(RegionScanner s, Region r, RpcCallback closeCallBack,
         RpcCallback shippedCallback) {
@@ -1079,6 +1084,7 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
     maxScannerResultSize = rs.conf.getLong(
       HConstants.HBASE_SERVER_SCANNER_MAX_RESULT_SIZE_KEY,
       HConstants.DEFAULT_HBASE_SERVER_SCANNER_MAX_RESULT_SIZE);
+    scanSizer = new AdaptiveScanSizer(rs.conf);
     rpcTimeout = rs.conf.getInt(
       HConstants.HBASE_RPC_TIMEOUT_KEY,
       HConstants.DEFAULT_HBASE_RPC_TIMEOUT);
@@ -2819,9 +2825,15 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
             // arbitrary 32. TODO: keep record of general size of results being returned.
             List<Cell> values = new ArrayList<Cell>(32);
             region.startRegionOperation(Operation.SCAN);
+            long scanSizeGranted = 0;
+            long responseCellSize = 0;
             try {
               int i = 0;
               long before = EnvironmentEdgeManager.currentTime();
+              if (scanSizer.isEnabled()) {
+                scanSizeGranted = scanSizer.acquire(rsh.scanRate, maxResultSize, before);
+                maxResultSize = scanSizeGranted;
+              }
               synchronized(scanner) {
                 boolean stale = (region.getRegionInfo().getReplicaId() != 0);
                 boolean clientHandlesPartials =
@@ -2967,13 +2979,18 @@ public class RSRpcServices implements HBaseRPCErrorHandler,
               }
               region.updateReadRequestsCount(i);
               long end = EnvironmentEdgeManager.currentTime();
-              long responseCellSize = context != null ? context.getResponseCellSize() : 0;
+              responseCellSize = context != null ? context.getResponseCellSize() : 0;
+              rpcScanResponseBytes.add(responseCellSize);
               region.getMetrics().updateScanTime(end - before);
               if (regionServer.metricsRegionServer != null) {
                 regionServer.metricsRegionServer.updateScanSize(responseCellSize);
                 regionServer.metricsRegionServer.updateScanTime(end - before);
               }
             } finally {
+              if (scanSizeGranted > 0) {
+                scanSizer.release(rsh.scanRate, scanSizeGranted, responseCellSize,
+                  EnvironmentEdgeManager.currentTime());
+              }
               region.closeRegionOperation();
             }
             // coprocessor postNext hook
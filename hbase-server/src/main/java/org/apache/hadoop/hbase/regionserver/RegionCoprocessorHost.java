@@ -101,6 +101,8 @@ public class RegionCoprocessorHost
 
   // optimization: no need to call postScannerFilterRow, if no coprocessor implements it
   private final boolean hasCustomPostScannerFilterRow;
+  // no merging of increments, if a coprocessor implements preIncrementAfterRowLock
+  private final boolean hasCustomPreIncrementAfterRowLock;
 
   /**
    * 
@@ -217,42 +219,53 @@ public class RegionCoprocessorHost
     loadTableCoprocessors(conf);
 
     // now check whether any coprocessor implements postScannerFilterRow
-    boolean hasCustomPostScannerFilterRow = false;
-    out: for (RegionEnvironment env: coprocessors) {
+    this.hasCustomPostScannerFilterRow = hasCustomRegionObserverMethod("postScannerFilterRow",
+      new Class<?>[] { ObserverContext.class, InternalScanner.class, Cell.class, boolean.class },
+      // the deprecated signature still exists
+      new Class<?>[] { ObserverContext.class, InternalScanner.class, byte[].class, int.class,
+        short.class, boolean.class });
+    this.hasCustomPreIncrementAfterRowLock = hasCustomRegionObserverMethod(
+      "preIncrementAfterRowLock", new Class<?>[] { ObserverContext.class, Increment.class });
+  }
+
+  /**
+   * @return true if a loaded RegionObserver has its own version of the method, with any of the
+   *         given signatures, rather than the one of BaseRegionObserver
+   */
+  private boolean hasCustomRegionObserverMethod(String name, Class<?>[]... signatures) {
+    for (RegionEnvironment env: coprocessors) {
       if (env.getInstance() instanceof RegionObserver) {
         Class<?> clazz = env.getInstance().getClass();
         for(;;) {
           if (clazz == null) {
             // we must have directly implemented RegionObserver
-            hasCustomPostScannerFilterRow = true;
-            break out;
+            return true;
           }
           if (clazz == BaseRegionObserver.class) {
             // we reached BaseRegionObserver, try next coprocessor
             break;
           }
-          try {
-            clazz.getDeclaredMethod("postScannerFilterRow", ObserverContext.class,
-              InternalScanner.class, Cell.class, boolean.class);
-            // this coprocessor has a custom version of postScannerFilterRow
-            hasCustomPostScannerFilterRow = true;
-            break out;
-          } catch (NoSuchMethodException ignore) {
-          }
-          // the deprecated signature still exists
-          try {
-            clazz.getDeclaredMethod("postScannerFilterRow", ObserverContext.class,
-              InternalScanner.class, byte[].class, int.class, short.class, boolean.class);
-            // this coprocessor has a custom version of postScannerFilterRow
-            hasCustomPostScannerFilterRow = true;
-            break out;
-          } catch (NoSuchMethodException ignore) {
+          for (Class<?>[] signature : signatures) {
+            try {
+              clazz.getDeclaredMethod(name, signature);
+              // this coprocessor has a custom version of the method
+              return true;
+            } catch (NoSuchMethodException ignore) {
+            }
           }
           clazz = clazz.getSuperclass();
         }
       }
     }
-    this.hasCustomPostScannerFilterRow = hasCustomPostScannerFilterRow;
+    return false;
+  }
+
+  /**
+   * @return true if a coprocessor has its own preIncrementAfterRowLock, which must then see each
+   *         increment as the client sent it
+   */
+  public boolean hasCustomPreIncrementAfterRowLock() {
+    return hasCustomPreIncrementAfterRowLock;
   }
 
   static List<TableCoprocessorAttribute> getTableCoprocessorAttrsFromSchema(Configuration conf,
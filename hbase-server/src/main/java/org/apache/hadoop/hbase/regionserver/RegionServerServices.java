@@ -23,6 +23,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.hbase.HBaseInterfaceAudience;
@@ -259,6 +260,12 @@ public interface RegionServerServices extends OnlineRegions, FavoredNodesForRegi
    */
   ThroughputController getFlushThroughputController();
 
+  /**
+   * @return the pool regions write the snapshots of their stores with when flushing, or null if
+   *         the stores of a region are written one after the other
+   */
+  ThreadPoolExecutor getStoreFlushPool();
+
   /**
    * @return the flush pressure of all stores on this regionserver. The value should be greater than
    *         or equal to 0.0, and any value greater than 1.0 means we enter the emergency state that
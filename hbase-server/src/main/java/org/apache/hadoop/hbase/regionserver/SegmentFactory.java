@@ -52,7 +52,7 @@ public final class SegmentFactory {
       final CellComparator comparator, MemStoreSegmentsIterator iterator, int numOfCells,
       ImmutableSegment.Type segmentType)
       throws IOException {
-    Preconditions.checkArgument(segmentType == ImmutableSegment.Type.ARRAY_MAP_BASED,
+    Preconditions.checkArgument(segmentType != ImmutableSegment.Type.SKIPLIST_MAP_BASED,
         "wrong immutable segment type");
     MemStoreLAB memStoreLAB = MemStoreLAB.newInstance(conf);
     return
@@ -83,7 +83,7 @@ public final class SegmentFactory {
       final CellComparator comparator, MemStoreSegmentsIterator iterator, int numOfCells,
       ImmutableSegment.Type segmentType, List<ImmutableSegment> segments)
       throws IOException {
-    Preconditions.checkArgument(segmentType == ImmutableSegment.Type.ARRAY_MAP_BASED,
+    Preconditions.checkArgument(segmentType != ImmutableSegment.Type.SKIPLIST_MAP_BASED,
         "wrong immutable segment type");
     MemStoreLAB memStoreLAB = getMergedMemStoreLAB(conf, segments);
     return
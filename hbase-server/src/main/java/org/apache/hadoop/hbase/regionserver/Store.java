@@ -377,6 +377,21 @@ public interface Store extends HeapSize, StoreConfigInformation, PropagatingConf
    */
   long getTotalStaticBloomSize();
 
+  /**
+   * @return how well the general Bloom filters of the store's files do
+   */
+  BloomFilterMetrics getBloomFilterMetrics();
+
+  /**
+   * @return how many store files scans skipped by their column statistics
+   */
+  ColumnStatsMetrics getColumnStatsMetrics();
+
+  /**
+   * @return what the in-memory compactions of the store's memstore did
+   */
+  MemStoreCompactionMetrics getMemStoreCompactionMetrics();
+
   // Test-helper methods
 
   /**
@@ -81,6 +81,9 @@ public class StoreFile {
   public static final byte[] BLOOM_FILTER_TYPE_KEY =
       Bytes.toBytes("BLOOM_FILTER_TYPE");
 
+  /** Bloom filter param in FileInfo: the prefix length or delimiter of row prefix Blooms */
+  public static final byte[] BLOOM_FILTER_PARAM_KEY = Bytes.toBytes("BLOOM_FILTER_PARAM");
+
   /** Delete Family Count in FileInfo */
   public static final byte[] DELETE_FAMILY_COUNT =
       Bytes.toBytes("DELETE_FAMILY_COUNT");
@@ -88,6 +91,9 @@ public class StoreFile {
   /** Last Bloom filter key in FileInfo */
   public static final byte[] LAST_BLOOM_KEY = Bytes.toBytes("LAST_BLOOM_KEY");
 
+  /** Column qualifiers of the file in FileInfo, see {@link ColumnStatsTracker} */
+  public static final byte[] COLUMN_STATS_KEY = Bytes.toBytes("COLUMN_STATS");
+
   /** Key for Timerange information in metadata*/
   public static final byte[] TIMERANGE_KEY = Bytes.toBytes("TIMERANGE");
 
@@ -20,7 +20,9 @@ package org.apache.hadoop.hbase.regionserver;
 
 import java.io.DataInput;
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.NavigableSet;
 import java.util.SortedSet;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -47,6 +49,7 @@ import org.apache.hadoop.hbase.io.hfile.HFileScanner;
 import org.apache.hadoop.hbase.nio.ByteBuff;
 import org.apache.hadoop.hbase.util.BloomFilter;
 import org.apache.hadoop.hbase.util.BloomFilterFactory;
+import org.apache.hadoop.hbase.util.BloomFilterUtil;
 import org.apache.hadoop.hbase.util.Bytes;
 
 /**
@@ -63,10 +66,18 @@ public class StoreFileReader {
   protected long sequenceID = -1;
   protected TimeRange timeRange = null;
   private byte[] lastBloomKey;
+  // Prefix length or delimiter of a row prefix Bloom filter
+  private byte[] bloomParam;
   private long deleteFamilyCnt = -1;
   private boolean bulkLoadResult = false;
   private KeyValue.KeyOnlyKeyValue lastBloomKeyOnlyKV = null;
   private boolean skipResetSeqId = true;
+  // Where general Bloom filter checks are accounted; null if nowhere
+  private BloomFilterMetrics bloomFilterMetrics;
+  // Qualifiers of the file from its file info; null if it has none
+  private ColumnStatsTracker columnStats;
+  // Where column statistics checks are accounted; null if nowhere
+  private ColumnStatsMetrics columnStatsMetrics;
 
   public AtomicInteger getRefCount() {
     return refCount;
@@ -206,7 +217,8 @@ public class StoreFileReader {
 
   /**
    * Checks whether the given scan passes the Bloom filter (if present). Only
-   * checks Bloom filters for single-row or single-row-column scans. Bloom
+   * checks Bloom filters for single-row or single-row-column scans, or for
+   * row prefix Bloom filters, scans of rows that all share one prefix. Bloom
    * filter checking for multi-gets is implemented as part of the store
    * scanner system (see {@link StoreFileScanner#seekExactly}) and uses
    * the lower-level API {@link #passesGeneralRowBloomFilter(byte[], int, int)}
@@ -221,6 +233,11 @@ public class StoreFileReader {
    *         False if the Bloom filter is applicable and the scan fails it.
    */
   boolean passesBloomFilter(Scan scan, final SortedSet<byte[]> columns) {
+    if (isRowPrefixBloomFilter()) {
+      byte[] prefix = getScanRowPrefix(scan);
+      return prefix == null || passesGeneralRowPrefixBloomFilter(prefix);
+    }
+
     // Multi-column non-get scans will use Bloom filters through the
     // lower-level API function that this function calls.
     if (!scan.isGetScan()) {
@@ -249,6 +266,86 @@ public class StoreFileReader {
     }
   }
 
+  /**
+   * @return whether {@link #passesBloomFilter(Scan, SortedSet)} checks the general Bloom filter
+   *     for the given scan and accounts the check
+   */
+  boolean accountsBloomFilterCheck(Scan scan, SortedSet<byte[]> columns) {
+    if (!accountsBloomFilterChecks()) {
+      return false;
+    }
+    if (isRowPrefixBloomFilter()) {
+      return getScanRowPrefix(scan) != null;
+    }
+    if (!scan.isGetScan()) {
+      return false;
+    }
+    return bloomFilterType == BloomType.ROW
+        || (bloomFilterType == BloomType.ROWCOL && columns != null && columns.size() == 1);
+  }
+
+  /**
+   * @return whether there is a general Bloom filter, and its checks are accounted
+   */
+  boolean accountsBloomFilterChecks() {
+    return bloomFilterMetrics != null && generalBloomFilter != null;
+  }
+
+  private boolean isRowPrefixBloomFilter() {
+    return bloomFilterType == BloomType.ROWPREFIX_FIXED_LENGTH
+        || bloomFilterType == BloomType.ROWPREFIX_DELIMITED;
+  }
+
+  /**
+   * @return the row prefix of a row prefix Bloom filter that all rows of the scan share, or null
+   *         if they do not share one
+   */
+  private byte[] getScanRowPrefix(Scan scan) {
+    if (bloomParam == null) {
+      return null;
+    }
+    byte[] startRow = scan.getStartRow();
+    int prefixLength = BloomFilterUtil.getRowPrefixLength(startRow, bloomFilterType, bloomParam);
+    byte[] prefix = Arrays.copyOf(startRow, prefixLength);
+    if (scan.isGetScan()) {
+      return prefix;
+    }
+    // Later rows than a start row without a full prefix can have another prefix
+    boolean fullPrefix = bloomFilterType == BloomType.ROWPREFIX_FIXED_LENGTH
+        ? prefixLength == Bytes.toInt(bloomParam)
+        : Bytes.indexOf(startRow, bloomParam) >= 0;
+    if (!fullPrefix) {
+      return null;
+    }
+    byte[] stopRow = scan.getStopRow();
+    if (scan.isReversed()) {
+      // The rows between the prefix and the start row all have the prefix
+      return stopRow.length > 0 && Bytes.compareTo(stopRow, prefix) >= 0 ? prefix : null;
+    }
+    byte[] rowAfterPrefix = getRowAfterPrefix(prefix);
+    if (rowAfterPrefix == null) {
+      // All rows from the prefix on have the prefix
+      return prefix;
+    }
+    return stopRow.length > 0 && Bytes.compareTo(stopRow, rowAfterPrefix) <= 0 ? prefix : null;
+  }
+
+  /**
+   * @return the smallest row after all rows starting with the prefix, or null if there is none
+   */
+  private static byte[] getRowAfterPrefix(byte[] prefix) {
+    int offset = prefix.length;
+    while (offset > 0 && prefix[offset - 1] == (byte) 0xFF) {
+      offset--;
+    }
+    if (offset == 0) {
+      return null;
+    }
+    byte[] row = Arrays.copyOf(prefix, offset);
+    row[offset - 1]++;
+    return row;
+  }
+
   public boolean passesDeleteFamilyBloomFilter(byte[] row, int rowOffset,
       int rowLen) {
     // Cache Bloom filter as a local variable in case it is set to null by
@@ -300,6 +397,20 @@ public class StoreFileReader {
     return checkGeneralBloomFilter(key, null, bloomFilter);
   }
 
+  /**
+   * Checks a row prefix Bloom filter.
+   *
+   * @param prefix the row prefix, as cut from a row by the Bloom filter
+   * @return True if passes
+   */
+  public boolean passesGeneralRowPrefixBloomFilter(byte[] prefix) {
+    BloomFilter bloomFilter = this.generalBloomFilter;
+    if (bloomFilter == null) {
+      return true;
+    }
+    return checkGeneralBloomFilter(prefix, null, bloomFilter);
+  }
+
   /**
    * A method for checking Bloom filters. Called directly from
    * StoreFileScanner in case of a multi-column query.
@@ -329,6 +440,18 @@ public class StoreFileReader {
     if (reader.getTrailer().getEntryCount() == 0) {
       return false;
     }
+    BloomFilterMetrics metrics = this.bloomFilterMetrics;
+    if (metrics == null) {
+      return checkGeneralBloomFilterInternal(key, kvKey, bloomFilter);
+    }
+    long start = System.nanoTime();
+    boolean passed = checkGeneralBloomFilterInternal(key, kvKey, bloomFilter);
+    metrics.check(passed, System.nanoTime() - start);
+    return passed;
+  }
+
+  private boolean checkGeneralBloomFilterInternal(byte[] key, Cell kvKey,
+      BloomFilter bloomFilter) {
     HFileBlock bloomBlock = null;
     try {
       boolean shouldCheckBloom;
@@ -352,7 +475,7 @@ public class StoreFileReader {
         // hbase:meta does not have blooms. So we need not have special interpretation
         // of the hbase:meta cells.  We can safely use Bytes.BYTES_RAWCOMPARATOR for ROW Bloom
         if (keyIsAfterLast) {
-          if (bloomFilterType == BloomType.ROW) {
+          if (bloomFilterType != BloomType.ROWCOL) {
             keyIsAfterLast = (Bytes.BYTES_RAWCOMPARATOR.compare(key, lastBloomKey) > 0);
           } else {
             keyIsAfterLast = (CellComparator.COMPARATOR.compare(kvKey, lastBloomKeyOnlyKV)) > 0;
@@ -396,6 +519,26 @@ public class StoreFileReader {
     return true;
   }
 
+  /**
+   * Checks whether the file may have any of the columns the scan can return, by the qualifiers
+   * in its file info. Only scans with explicit columns or a column range filter are checked.
+   * @param scan the scan specification
+   * @param columns the columns of the scan in the family of the file, if any
+   * @return false if the file has none of the columns, true otherwise or if it does not know
+   */
+  boolean passesColumnStats(Scan scan, NavigableSet<byte[]> columns) {
+    ColumnStatsTracker stats = this.columnStats;
+    if (stats == null || !ColumnStatsTracker.isApplicable(scan, columns)) {
+      return true;
+    }
+    boolean passed = stats.passesScan(scan, columns);
+    ColumnStatsMetrics metrics = this.columnStatsMetrics;
+    if (metrics != null) {
+      metrics.check(passed);
+    }
+    return passed;
+  }
+
   /**
    * Checks whether the given scan rowkey range overlaps with the current storefile's
    * @param scan the scan specification. Used to determine the rowkey range.
@@ -431,10 +574,19 @@ public class StoreFileReader {
       bloomFilterType = BloomType.valueOf(Bytes.toString(b));
     }
 
+    bloomParam = fi.get(StoreFile.BLOOM_FILTER_PARAM_KEY);
     lastBloomKey = fi.get(StoreFile.LAST_BLOOM_KEY);
     if(bloomFilterType == BloomType.ROWCOL) {
       lastBloomKeyOnlyKV = new KeyValue.KeyOnlyKeyValue(lastBloomKey, 0, lastBloomKey.length);
     }
+    byte[] stats = fi.get(StoreFile.COLUMN_STATS_KEY);
+    if (stats != null) {
+      try {
+        columnStats = ColumnStatsTracker.parseFrom(stats);
+      } catch (IOException e) {
+        LOG.warn("Bad column statistics in " + reader.getName() + " -- proceeding without", e);
+      }
+    }
     byte[] cnt = fi.get(StoreFile.DELETE_FAMILY_COUNT);
     if (cnt != null) {
       deleteFamilyCnt = Bytes.toLong(cnt);
@@ -561,6 +713,24 @@ public class StoreFileReader {
     return reader.indexSize();
   }
 
+  /**
+   * @param bloomFilterMetrics where to account checks of the general Bloom filter
+   */
+  public void setBloomFilterMetrics(BloomFilterMetrics bloomFilterMetrics) {
+    this.bloomFilterMetrics = bloomFilterMetrics;
+  }
+
+  BloomFilterMetrics getBloomFilterMetrics() {
+    return bloomFilterMetrics;
+  }
+
+  /**
+   * @param columnStatsMetrics where to account checks of the column statistics
+   */
+  public void setColumnStatsMetrics(ColumnStatsMetrics columnStatsMetrics) {
+    this.columnStatsMetrics = columnStatsMetrics;
+  }
+
   public BloomType getBloomFilterType() {
     return this.bloomFilterType;
   }
@@ -25,6 +25,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.NavigableSet;
 import java.util.concurrent.atomic.LongAdder;
 
 import org.apache.hadoop.hbase.Cell;
@@ -55,6 +56,10 @@ public class StoreFileScanner implements KeyValueScanner {
   private boolean delayedReseek;
   private Cell delayedSeekKV;
 
+  // A key whose row passed the general Bloom filter, to be checked against the next real seek
+  // for a false positive; null if there is nothing to check.
+  private Cell bloomPassedKey;
+
   private final boolean enforceMVCC;
   private final boolean hasMVCCInfo;
   // A flag represents whether could stop skipping KeyValues for MVCC
@@ -193,6 +198,9 @@ public class StoreFileScanner implements KeyValueScanner {
         }
       } finally {
         realSeekDone = true;
+        if (bloomPassedKey != null) {
+          checkBloomFalsePositive();
+        }
       }
     } catch (FileNotFoundException e) {
       throw e;
@@ -219,6 +227,9 @@ public class StoreFileScanner implements KeyValueScanner {
         }
       } finally {
         realSeekDone = true;
+        if (bloomPassedKey != null) {
+          checkBloomFalsePositive();
+        }
       }
     } catch (FileNotFoundException e) {
       throw e;
@@ -228,6 +239,20 @@ public class StoreFileScanner implements KeyValueScanner {
     }
   }
 
+  /**
+   * Called after the real seek following a positive Bloom filter check: the file was worth
+   * seeking only if it has the row, or the row and column if the key names a column.
+   */
+  private void checkBloomFalsePositive() {
+    boolean found = cur != null && (bloomPassedKey.getQualifierLength() > 0
+        ? CellUtil.matchingRowColumn(cur, bloomPassedKey)
+        : CellUtil.matchingRow(cur, bloomPassedKey));
+    if (!found) {
+      reader.getBloomFilterMetrics().falsePositive();
+    }
+    bloomPassedKey = null;
+  }
+
   protected void setCurrentCell(Cell newVal) throws IOException {
     this.cur = newVal;
     if (this.cur != null && this.reader.isBulkLoaded() && !this.reader.isSkipResetSeqId()) {
@@ -349,6 +374,9 @@ public class StoreFileScanner implements KeyValueScanner {
       // check ROWCOL Bloom filter first.
       if (reader.getBloomFilterType() == BloomType.ROWCOL) {
         haveToSeek = reader.passesGeneralRowColBloomFilter(kv);
+        if (haveToSeek && reader.accountsBloomFilterChecks()) {
+          bloomPassedKey = kv;
+        }
       } else if (canOptimizeForNonNullColumn
           && ((CellUtil.isDeleteFamily(kv) || CellUtil.isDeleteFamilyVersion(kv)))) {
         // if there is no such delete family kv in the store file,
@@ -445,8 +473,16 @@ public class StoreFileScanner implements KeyValueScanner {
     if (timeRange == null) {
       timeRange = scan.getTimeRange();
     }
-    return reader.passesTimerangeFilter(timeRange, oldestUnexpiredTS) && reader
-        .passesKeyRangeFilter(scan) && reader.passesBloomFilter(scan, scan.getFamilyMap().get(cf));
+    NavigableSet<byte[]> columns = scan.getFamilyMap().get(cf);
+    if (!reader.passesTimerangeFilter(timeRange, oldestUnexpiredTS)
+        || !reader.passesKeyRangeFilter(scan) || !reader.passesColumnStats(scan, columns)
+        || !reader.passesBloomFilter(scan, columns)) {
+      return false;
+    }
+    if (reader.accountsBloomFilterCheck(scan, columns)) {
+      bloomPassedKey = CellUtil.createFirstOnRow(scan.getStartRow());
+    }
+    return true;
   }
 
   @Override
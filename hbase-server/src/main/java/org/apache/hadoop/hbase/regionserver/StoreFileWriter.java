@@ -37,10 +37,13 @@ import org.apache.hadoop.hbase.io.hfile.HFile;
 import org.apache.hadoop.hbase.io.hfile.HFileContext;
 import org.apache.hadoop.hbase.util.BloomContext;
 import org.apache.hadoop.hbase.util.BloomFilterFactory;
+import org.apache.hadoop.hbase.util.BloomFilterUtil;
 import org.apache.hadoop.hbase.util.BloomFilterWriter;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.RowBloomContext;
 import org.apache.hadoop.hbase.util.RowColBloomContext;
+import org.apache.hadoop.hbase.util.RowPrefixDelimiterBloomContext;
+import org.apache.hadoop.hbase.util.RowPrefixFixedLengthBloomContext;
 import org.apache.hadoop.io.WritableUtils;
 
 import com.google.common.base.Preconditions;
@@ -56,10 +59,13 @@ public class StoreFileWriter implements CellSink, ShipperListener {
   private final BloomFilterWriter generalBloomFilterWriter;
   private final BloomFilterWriter deleteFamilyBloomFilterWriter;
   private final BloomType bloomType;
+  private byte[] bloomParam = null;
   private long earliestPutTs = HConstants.LATEST_TIMESTAMP;
   private long deleteFamilyCnt = 0;
   private BloomContext bloomContext = null;
   private BloomContext deleteFamilyBloomContext = null;
+  // Qualifiers of the file, null if not tracked
+  private final ColumnStatsTracker columnStatsTracker;
 
   /**
    * timeRangeTrackerSet is used to figure if we were passed a filled-out TimeRangeTracker or not.
@@ -127,6 +133,10 @@ public class StoreFileWriter implements CellSink, ShipperListener {
         .withFileContext(fileContext)
         .create();
 
+    int maxQualifiers = conf.getInt(ColumnStatsTracker.MAX_QUALIFIERS_KEY,
+        ColumnStatsTracker.DEFAULT_MAX_QUALIFIERS);
+    this.columnStatsTracker = maxQualifiers < 0 ? null : new ColumnStatsTracker(maxQualifiers);
+
     generalBloomFilterWriter = BloomFilterFactory.createGeneralBloomAtWrite(
         conf, cacheConf, bloomType,
         (int) Math.min(maxKeys, Integer.MAX_VALUE), writer);
@@ -145,9 +155,19 @@ public class StoreFileWriter implements CellSink, ShipperListener {
       case ROWCOL:
         bloomContext = new RowColBloomContext(generalBloomFilterWriter, comparator);
         break;
+      case ROWPREFIX_FIXED_LENGTH:
+        bloomParam = getBloomFilterParam(bloomType, conf);
+        bloomContext = new RowPrefixFixedLengthBloomContext(generalBloomFilterWriter, comparator,
+            Bytes.toInt(bloomParam));
+        break;
+      case ROWPREFIX_DELIMITED:
+        bloomParam = getBloomFilterParam(bloomType, conf);
+        bloomContext = new RowPrefixDelimiterBloomContext(generalBloomFilterWriter, comparator,
+            bloomParam);
+        break;
       default:
-        throw new IOException(
-            "Invalid Bloom filter type: " + bloomType + " (ROW or ROWCOL expected)");
+        throw new IOException("Invalid Bloom filter type: " + bloomType
+            + " (ROW, ROWCOL, ROWPREFIX_FIXED_LENGTH or ROWPREFIX_DELIMITED expected)");
       }
     } else {
       // Not using Bloom filters.
@@ -170,6 +190,15 @@ public class StoreFileWriter implements CellSink, ShipperListener {
     }
   }
 
+  private static byte[] getBloomFilterParam(BloomType bloomType, Configuration conf)
+      throws IOException {
+    try {
+      return BloomFilterUtil.getBloomFilterParam(bloomType, conf);
+    } catch (IllegalArgumentException e) {
+      throw new IOException(e.getMessage(), e);
+    }
+  }
+
   /**
    * Writes meta data.
    * Call before {@link #close()} since its written as meta data to this file.
@@ -257,6 +286,9 @@ public class StoreFileWriter implements CellSink, ShipperListener {
     appendDeleteFamilyBloomFilter(cell);
     writer.append(cell);
     trackTimestamps(cell);
+    if (columnStatsTracker != null) {
+      columnStatsTracker.track(cell);
+    }
   }
 
   @Override
@@ -305,6 +337,9 @@ public class StoreFileWriter implements CellSink, ShipperListener {
       writer.addGeneralBloomFilter(generalBloomFilterWriter);
       writer.appendFileInfo(StoreFile.BLOOM_FILTER_TYPE_KEY,
           Bytes.toBytes(bloomType.toString()));
+      if (bloomParam != null) {
+        writer.appendFileInfo(StoreFile.BLOOM_FILTER_PARAM_KEY, bloomParam);
+      }
       bloomContext.addLastBloomKey(writer);
     }
     return hasGeneralBloom;
@@ -329,6 +364,10 @@ public class StoreFileWriter implements CellSink, ShipperListener {
   public void close() throws IOException {
     boolean hasGeneralBloom = this.closeGeneralBloomFilter();
     boolean hasDeleteFamilyBloom = this.closeDeleteFamilyBloomFilter();
+    byte[] columnStats = columnStatsTracker == null ? null : columnStatsTracker.toByteArray();
+    if (columnStats != null) {
+      writer.appendFileInfo(StoreFile.COLUMN_STATS_KEY, columnStats);
+    }
 
     writer.close();
 
@@ -350,6 +350,11 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
   protected List<KeyValueScanner> getScannersNoCompaction() throws IOException {
     final boolean isCompaction = false;
     boolean usePread = get || scanUsePread;
+    ColumnStatsMetrics columnStatsMetrics = store.getColumnStatsMetrics();
+    if (columnStatsMetrics != null && ColumnStatsTracker.isApplicable(scan,
+        scan.getFamilyMap().get(store.getFamily().getName()))) {
+      columnStatsMetrics.scan();
+    }
     return selectScannersFrom(store.getScanners(cacheBlocks, get, usePread,
         isCompaction, matcher, scan.getStartRow(), scan.getStopRow(), this.readPt));
   }
@@ -400,8 +405,8 @@ public class StoreScanner extends NonReversedNonLazyKeyValueScanner
   }
 
   /**
-   * Filters the given list of scanners using Bloom filter, time range, and
-   * TTL.
+   * Filters the given list of scanners using Bloom filter, time range,
+   * column statistics and TTL.
    */
   protected List<KeyValueScanner> selectScannersFrom(
       final List<? extends KeyValueScanner> allScanners) {
@@ -0,0 +1,103 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.regionserver.Region.RowLock;
+import org.apache.hadoop.hbase.util.Bytes;
+
+/**
+ * A fixed set of read/write locks that the rows of a region are hashed onto, used instead of a
+ * lock per row when {@link #STRIPES_KEY} is set.
+ * <p>
+ * Locking a row then allocates nothing: the stripes and their {@link RowLock}s are made once.
+ * The price is that rows sharing a stripe also share their lock, so unrelated rows can wait on
+ * each other, and a thread that locks several rows for writing can run into the lock timeout if
+ * another thread locks rows of the same stripes in the other order. Tables that lock many rows
+ * at once, e.g. with multi-row mutations, should keep the lock per row.
+ */
+@InterfaceAudience.Private
+class StripedRowLocks {
+  /**
+   * Number of row lock stripes of a region, rounded up to a power of 2. Can be set per table.
+   * 0, the default, locks each row on its own.
+   */
+  static final String STRIPES_KEY = "hbase.region.rowlock.stripes";
+  static final int DEFAULT_STRIPES = 0;
+
+  private final Stripe[] stripes;
+  private final int mask;
+
+  StripedRowLocks(int count) {
+    int size = 1;
+    while (size < count) {
+      size <<= 1;
+    }
+    this.stripes = new Stripe[size];
+    for (int i = 0; i < size; i++) {
+      stripes[i] = new Stripe();
+    }
+    this.mask = size - 1;
+  }
+
+  Stripe getStripe(byte[] row) {
+    int h = Bytes.hashCode(row);
+    // Spread the high bits down, the mask only keeps the low ones
+    return stripes[(h ^ (h >>> 16)) & mask];
+  }
+
+  int getStripeCount() {
+    return stripes.length;
+  }
+
+  static final class Stripe {
+    // Fair like the lock per row, so that writers are not starved by a stream of readers
+    final ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock(true);
+    final StripeLock readLock = new StripeLock(readWriteLock.readLock());
+    final StripeLock writeLock = new StripeLock(readWriteLock.writeLock());
+  }
+
+  /**
+   * The lock of a stripe. One instance is handed to every holder of it, which is fine as the
+   * locks track their holders themselves.
+   */
+  static final class StripeLock implements RowLock {
+    private final Lock lock;
+
+    private StripeLock(Lock lock) {
+      this.lock = lock;
+    }
+
+    Lock getLock() {
+      return lock;
+    }
+
+    @Override
+    public void release() {
+      lock.unlock();
+    }
+
+    @Override
+    public String toString() {
+      return "StripeLock{lock=" + lock + "}";
+    }
+  }
+}
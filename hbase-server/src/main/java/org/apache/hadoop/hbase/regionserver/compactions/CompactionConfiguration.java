@@ -88,6 +88,12 @@ public class CompactionConfiguration {
   private static final Class<? extends CompactionWindowFactory>
     DEFAULT_DATE_TIERED_COMPACTION_WINDOW_FACTORY_CLASS = ExponentialCompactionWindowFactory.class;
 
+  /*
+   * The most files a flush is split into by compaction window. 1 writes a single file.
+   */
+  public static final String DATE_TIERED_FLUSH_MAX_OUTPUTS_KEY =
+    "hbase.hstore.compaction.date.tiered.flush.max.outputs";
+
   Configuration conf;
   StoreConfigInformation storeConfigInfo;
 
@@ -109,6 +115,7 @@ public class CompactionConfiguration {
   private final String compactionPolicyForDateTieredWindow;
   private final boolean dateTieredSingleOutputForMinorCompaction;
   private final String dateTieredCompactionWindowFactory;
+  private final int dateTieredFlushMaxOutputs;
 
   CompactionConfiguration(Configuration conf, StoreConfigInformation storeConfigInfo) {
     this.conf = conf;
@@ -142,6 +149,7 @@ public class CompactionConfiguration {
     this.dateTieredCompactionWindowFactory = conf.get(
       DATE_TIERED_COMPACTION_WINDOW_FACTORY_CLASS_KEY,
       DEFAULT_DATE_TIERED_COMPACTION_WINDOW_FACTORY_CLASS.getName());
+    dateTieredFlushMaxOutputs = Math.max(1, conf.getInt(DATE_TIERED_FLUSH_MAX_OUTPUTS_KEY, 1));
     LOG.info(this);
   }
 
@@ -152,7 +160,7 @@ public class CompactionConfiguration {
       + " major period %d, major jitter %f, min locality to compact %f;"
       + " tiered compaction: max_age %d, incoming window min %d,"
       + " compaction policy for tiered window %s, single output for minor %b,"
-      + " compaction window factory %s",
+      + " compaction window factory %s, flush max outputs %d",
       minCompactSize,
       maxCompactSize,
       offPeakMaxCompactSize,
@@ -168,7 +176,8 @@ public class CompactionConfiguration {
       dateTieredIncomingWindowMin,
       compactionPolicyForDateTieredWindow,
       dateTieredSingleOutputForMinorCompaction,
-      dateTieredCompactionWindowFactory
+      dateTieredCompactionWindowFactory,
+      dateTieredFlushMaxOutputs
       );
   }
 
@@ -285,4 +294,8 @@ public class CompactionConfiguration {
   public String getDateTieredCompactionWindowFactory() {
     return dateTieredCompactionWindowFactory;
   }
+
+  public int getDateTieredFlushMaxOutputs() {
+    return dateTieredFlushMaxOutputs;
+  }
 }
@@ -325,6 +325,23 @@ public class DateTieredCompactionPolicy extends SortedCompactionPolicy {
     return boundaries;
   }
 
+  /**
+   * Return a list of boundaries for splitting a flush of cells from minTimestamp on
+   *   in ascending order: the windows from the incoming one back, at most maxOutputs of them,
+   *   the earliest also taking all older cells.
+   */
+  public List<Long> getFlushBoundaries(long minTimestamp, int maxOutputs) {
+    List<Long> boundaries = new ArrayList<Long>();
+    for (CompactionWindow window = getIncomingWindow(EnvironmentEdgeManager.currentTime());
+        boundaries.size() < maxOutputs - 1 && window.compareToTimestamp(minTimestamp) > 0;
+        window = window.nextEarlierWindow()) {
+      boundaries.add(window.startMillis());
+    }
+    boundaries.add(Long.MIN_VALUE);
+    Collections.reverse(boundaries);
+    return boundaries;
+  }
+
   private CompactionWindow getIncomingWindow(long now) {
     return windowFactory.newIncomingWindow(now);
   }
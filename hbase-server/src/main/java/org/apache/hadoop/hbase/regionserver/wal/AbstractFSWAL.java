@@ -210,6 +210,16 @@ public abstract class AbstractFSWAL<W> implements WAL {
    * The total size of wal
    */
   protected final AtomicLong totalLogSize = new AtomicLong(0);
+
+  /**
+   * Edits and approximate bytes appended since the WAL was opened, and how much of that has been
+   * reported synced to the listeners. Their difference at sync time is the size of the sync.
+   */
+  protected final AtomicLong appendedEdits = new AtomicLong(0);
+  protected final AtomicLong appendedBytes = new AtomicLong(0);
+  private final AtomicLong syncedEdits = new AtomicLong(0);
+  private final AtomicLong syncedBytes = new AtomicLong(0);
+
   /**
    * Current log file.
    */
@@ -903,7 +913,9 @@ public abstract class AbstractFSWAL<W> implements WAL {
       entry.isInMemstore());
     coprocessorHost.postWALWrite(entry.getHRegionInfo(), entry.getKey(), entry.getEdit());
     // Update metrics.
-    postAppend(entry, EnvironmentEdgeManager.currentTime() - start);
+    long len = postAppend(entry, EnvironmentEdgeManager.currentTime() - start);
+    appendedBytes.addAndGet(len);
+    appendedEdits.incrementAndGet();
     numEntries.incrementAndGet();
     return true;
   }
@@ -922,6 +934,20 @@ public abstract class AbstractFSWAL<W> implements WAL {
   }
 
   protected void postSync(final long timeInNanos, final int handlerSyncs) {
+    postSync(timeInNanos, handlerSyncs, appendedEdits.get(), appendedBytes.get());
+  }
+
+  /**
+   * @param editsAppended {@link #appendedEdits} when the sync was started
+   * @param bytesAppended {@link #appendedBytes} when the sync was started
+   */
+  protected void postSync(final long timeInNanos, final int handlerSyncs,
+      final long editsAppended, final long bytesAppended) {
+    // Several syncs may finish out of order; each reports what no earlier report covered.
+    long edits =
+        Math.max(0, editsAppended - syncedEdits.getAndAccumulate(editsAppended, Math::max));
+    long bytes =
+        Math.max(0, bytesAppended - syncedBytes.getAndAccumulate(bytesAppended, Math::max));
     if (timeInNanos > this.slowSyncNs) {
       String msg = new StringBuilder().append("Slow sync cost: ").append(timeInNanos / 1000000)
           .append(" ms, current pipeline: ").append(Arrays.toString(getPipeline())).toString();
@@ -931,6 +957,9 @@ public abstract class AbstractFSWAL<W> implements WAL {
     if (!listeners.isEmpty()) {
       for (WALActionsListener listener : listeners) {
         listener.postSync(timeInNanos, handlerSyncs);
+        if (edits > 0) {
+          listener.postSyncBatch(edits, bytes);
+        }
       }
     }
   }
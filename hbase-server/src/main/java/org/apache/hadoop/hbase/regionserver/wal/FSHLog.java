@@ -36,6 +36,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
@@ -153,6 +154,16 @@ public class FSHLog extends AbstractFSWAL<Writer> {
 
   private final AtomicInteger closeErrorCount = new AtomicInteger();
 
+  /**
+   * How long sync runners wait for more edits before syncing; see {@link SyncLinger}.
+   */
+  private final SyncLinger syncLinger;
+
+  /**
+   * {@link #appendedEdits} when the latest sync was started.
+   */
+  private volatile long lastSyncStartEdits = 0;
+
   /**
    * Exception handler to pass the disruptor ringbuffer. Same as native implementation only it logs
    * using our logger instead of java native logger.
@@ -217,6 +228,7 @@ public class FSHLog extends AbstractFSWAL<Writer> {
     this.lowReplicationRollLimit = conf.getInt("hbase.regionserver.hlog.lowreplication.rolllimit",
       5);
     this.closeErrorsTolerated = conf.getInt("hbase.regionserver.logroll.errors.tolerated", 0);
+    this.syncLinger = new SyncLinger(conf);
 
     // rollWriter sets this.hdfs_out if it can.
     rollWriter();
@@ -462,6 +474,18 @@ public class FSHLog extends AbstractFSWAL<Writer> {
     return sequence;
   }
 
+  /**
+   * How often a lingering sync runner checks for more edits.
+   */
+  private static final long LINGER_PARK_NS = TimeUnit.MICROSECONDS.toNanos(20);
+
+  /**
+   * @return edits appended to the writer that no sync has been started for yet
+   */
+  private long getPendingEdits() {
+    return appendedEdits.get() - lastSyncStartEdits;
+  }
+
   /**
    * Thread to runs the hdfs sync call. This call takes a while to complete. This is the longest
    * pole adding edits to the WAL and this must complete to be sure all edits persisted. We run
@@ -574,6 +598,28 @@ public class FSHLog extends AbstractFSWAL<Writer> {
       return sequence;
     }
 
+    /**
+     * Waits a while for more edits to be appended, so that one sync covers more of them.
+     * @return true if a sync of another runner covered the future we took while we waited
+     */
+    private boolean linger() {
+      long lingerNs = syncLinger.getLingerNs(getPendingEdits());
+      if (lingerNs <= 0) {
+        return false;
+      }
+      long deadline = System.nanoTime() + lingerNs;
+      for (long left = lingerNs; left > 0; left = deadline - System.nanoTime()) {
+        if (highestSyncedTxid.get() >= takeSyncFuture.getTxid()) {
+          return true;
+        }
+        if (syncLinger.isBatchFull(getPendingEdits())) {
+          break;
+        }
+        LockSupport.parkNanos(Math.min(left, LINGER_PARK_NS));
+      }
+      return false;
+    }
+
     boolean areSyncFuturesReleased() {
       // check whether there is no sync futures offered, and no in-flight sync futures that is being
       // processed.
@@ -607,9 +653,23 @@ public class FSHLog extends AbstractFSWAL<Writer> {
             }
             break;
           }
+          if (syncLinger.isEnabled()) {
+            if (linger()) {
+              // Our edits went out with the sync of another runner while we waited.
+              releaseSyncFuture(takeSyncFuture, highestSyncedTxid.get(), null);
+              releaseSyncFutures(highestSyncedTxid.get(), null);
+              continue;
+            }
+            // Sync what was appended while we waited as well.
+            currentSequence = this.sequence;
+          }
           // I got something. Lets run. Save off current sequence number in case it changes
           // while we run.
           TraceScope scope = Trace.continueSpan(takeSyncFuture.getSpan());
+          long editsAppended = appendedEdits.get();
+          long bytesAppended = appendedBytes.get();
+          long editsToSync = editsAppended - lastSyncStartEdits;
+          lastSyncStartEdits = editsAppended;
           long start = System.nanoTime();
           Throwable lastException = null;
           try {
@@ -636,7 +696,11 @@ public class FSHLog extends AbstractFSWAL<Writer> {
               checkLogRoll();
             }
           }
-          postSync(System.nanoTime() - start, syncCount);
+          long took = System.nanoTime() - start;
+          if (lastException == null) {
+            syncLinger.syncDone(took, editsToSync);
+          }
+          postSync(took, syncCount, editsAppended, bytesAppended);
         } catch (InterruptedException e) {
           // Presume legit interrupt.
           Thread.currentThread().interrupt();
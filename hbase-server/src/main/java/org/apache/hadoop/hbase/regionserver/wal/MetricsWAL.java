@@ -54,6 +54,11 @@ public class MetricsWAL extends WALActionsListener.Base {
     source.incrementSyncTime(timeInNanos/1000000L);
   }
 
+  @Override
+  public void postSyncBatch(final long edits, final long bytes) {
+    source.incrementSyncBatch(edits, bytes);
+  }
+
   @Override
   public void postAppend(final long size, final long time, final WALKey logkey,
       final WALEdit logEdit) throws IOException {
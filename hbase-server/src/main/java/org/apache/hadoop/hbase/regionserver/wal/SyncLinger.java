@@ -0,0 +1,98 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.wal;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * Decides how long a sync runner of {@link FSHLog} waits for more edits before it syncs, to trade
+ * a bounded extra latency for fewer, larger syncs (group commit).
+ * <p>
+ * The window is a share of the recent sync latency, capped by
+ * {@link #MAX_LINGER_US_KEY}: when syncs are slow, as on HDD backed WALs, waiting a little more
+ * costs little next to the sync itself. There is no waiting unless the last sync covered edits of
+ * more than one writer, since with a single writer nobody else is coming. The wait ends early
+ * once as many edits are pending as the last sync covered.
+ */
+@InterfaceAudience.Private
+class SyncLinger {
+  /** Longest wait before a sync, in microseconds. 0, the default, never waits. */
+  static final String MAX_LINGER_US_KEY = "hbase.regionserver.wal.sync.linger.max.us";
+  static final long DEFAULT_MAX_LINGER_US = 0;
+
+  /** Share of the average sync time to wait for more edits. */
+  static final String LINGER_RATIO_KEY = "hbase.regionserver.wal.sync.linger.ratio";
+  static final float DEFAULT_LINGER_RATIO = 0.5f;
+
+  /** Weight of the latest sync in the average sync time. */
+  private static final double SYNC_TIME_WEIGHT = 0.2;
+
+  private final long maxLingerNs;
+  private final double ratio;
+
+  // Racy updates from the several sync runners are fine, these are estimates.
+  private volatile long avgSyncNs = 0;
+  private volatile long lastSyncEdits = 0;
+
+  SyncLinger(Configuration conf) {
+    this(TimeUnit.MICROSECONDS.toNanos(conf.getLong(MAX_LINGER_US_KEY, DEFAULT_MAX_LINGER_US)),
+        conf.getFloat(LINGER_RATIO_KEY, DEFAULT_LINGER_RATIO));
+  }
+
+  SyncLinger(long maxLingerNs, double ratio) {
+    this.maxLingerNs = maxLingerNs;
+    this.ratio = ratio;
+  }
+
+  boolean isEnabled() {
+    return maxLingerNs > 0;
+  }
+
+  /**
+   * @param pendingEdits edits appended but not synced yet
+   * @return how long to wait for more edits before syncing, in nanoseconds
+   */
+  long getLingerNs(long pendingEdits) {
+    if (!isEnabled() || lastSyncEdits < 2 || pendingEdits >= lastSyncEdits) {
+      return 0;
+    }
+    return Math.min(maxLingerNs, (long) (avgSyncNs * ratio));
+  }
+
+  /**
+   * @param pendingEdits edits appended but not synced yet
+   * @return true if enough edits are pending to stop waiting
+   */
+  boolean isBatchFull(long pendingEdits) {
+    return pendingEdits >= lastSyncEdits;
+  }
+
+  /**
+   * Records a sync.
+   * @param syncNs how long the filesystem sync took
+   * @param edits how many edits it covered
+   */
+  void syncDone(long syncNs, long edits) {
+    long avg = avgSyncNs;
+    avgSyncNs = avg == 0 ? syncNs : (long) (avg + SYNC_TIME_WEIGHT * (syncNs - avg));
+    lastSyncEdits = edits;
+  }
+}
@@ -113,6 +113,13 @@ public interface WALActionsListener {
    */
   void postSync(final long timeInNanos, final int handlerSyncs);
 
+  /**
+   * For notification of what a writer sync made durable.  Used by metrics system at least.
+   * @param edits How many appended edits this call to filesystem sync covered.
+   * @param bytes approx length of the cells of those edits.
+   */
+  default void postSyncBatch(final long edits, final long bytes) {}
+
   static class Base implements WALActionsListener {
     @Override
     public void preLogRoll(Path oldPath, Path newPath) throws IOException {}
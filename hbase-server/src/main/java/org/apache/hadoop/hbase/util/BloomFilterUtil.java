@@ -20,6 +20,7 @@ package org.apache.hadoop.hbase.util;
 import java.text.NumberFormat;
 import java.util.Random;
 
+import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.classification.InterfaceAudience;
 import org.apache.hadoop.hbase.nio.ByteBuff;
@@ -38,6 +39,11 @@ public final class BloomFilterUtil {
    * 0.480453.
    */
   public static final double LOG2_SQUARED = Math.log(2) * Math.log(2);
+
+  /** Length of the row prefix keyed on by {@link BloomType#ROWPREFIX_FIXED_LENGTH} */
+  public static final String PREFIX_LENGTH_KEY = "RowPrefixBloomFilter.prefix_length";
+  /** Delimiter ending the row prefix keyed on by {@link BloomType#ROWPREFIX_DELIMITED} */
+  public static final String DELIMITER_KEY = "RowPrefixDelimitedBloomFilter.delimiter";
   
   /**
    * A random number generator to use for "fake lookups" when testing to
@@ -230,9 +236,70 @@ public final class BloomFilterUtil {
     return true;
   }
 
+  /**
+   * Reads the parameter of a row prefix Bloom filter from the configuration, usually the one of
+   * a store, which includes the configuration of the column family.
+   * @return the prefix length as an int for {@link BloomType#ROWPREFIX_FIXED_LENGTH}, the
+   *         delimiter for {@link BloomType#ROWPREFIX_DELIMITED}, null for other types
+   * @throws IllegalArgumentException if the parameter is missing or invalid
+   */
+  public static byte[] getBloomFilterParam(BloomType bloomType, Configuration conf) {
+    switch (bloomType) {
+      case ROWPREFIX_FIXED_LENGTH:
+        String length = conf.get(PREFIX_LENGTH_KEY);
+        if (length == null) {
+          throw new IllegalArgumentException(PREFIX_LENGTH_KEY + " is not set for Bloom filter "
+              + "type " + bloomType);
+        }
+        int prefixLength;
+        try {
+          prefixLength = Integer.parseInt(length.trim());
+        } catch (NumberFormatException e) {
+          throw new IllegalArgumentException(PREFIX_LENGTH_KEY + " must be an integer, got "
+              + length);
+        }
+        if (prefixLength <= 0 || prefixLength > Short.MAX_VALUE) {
+          throw new IllegalArgumentException(PREFIX_LENGTH_KEY + " must be between 1 and "
+              + Short.MAX_VALUE + ", got " + prefixLength);
+        }
+        return Bytes.toBytes(prefixLength);
+      case ROWPREFIX_DELIMITED:
+        String delimiter = conf.get(DELIMITER_KEY);
+        if (delimiter == null || delimiter.isEmpty()) {
+          throw new IllegalArgumentException(DELIMITER_KEY + " is not set for Bloom filter "
+              + "type " + bloomType);
+        }
+        return Bytes.toBytes(delimiter);
+      default:
+        return null;
+    }
+  }
+
+  /**
+   * Works out the row prefix keyed on by a row prefix Bloom filter. Rows sort like their
+   * prefixes, which keeps the keys of a file in order: for a delimited prefix this needs the
+   * delimiter to be part of the prefix.
+   * @param row the row
+   * @param bloomType {@link BloomType#ROWPREFIX_FIXED_LENGTH} or
+   *          {@link BloomType#ROWPREFIX_DELIMITED}
+   * @param bloomParam the parameter from {@link #getBloomFilterParam(BloomType, Configuration)}
+   * @return the length of the prefix; the whole row if it is shorter than the fixed length or
+   *         has no delimiter
+   */
+  public static int getRowPrefixLength(byte[] row, BloomType bloomType, byte[] bloomParam) {
+    if (bloomType == BloomType.ROWPREFIX_FIXED_LENGTH) {
+      return Math.min(row.length, Bytes.toInt(bloomParam));
+    }
+    if (bloomType == BloomType.ROWPREFIX_DELIMITED) {
+      int index = Bytes.indexOf(row, bloomParam);
+      return index < 0 ? row.length : index + bloomParam.length;
+    }
+    throw new IllegalArgumentException("Not a row prefix Bloom filter type: " + bloomType);
+  }
+
   public static boolean contains(Cell cell, ByteBuff bloomBuf, int bloomOffset, int bloomSize,
       Hash hash, int hashCount, BloomType type) {
-    HashKey<Cell> hashKey = type == BloomType.ROW ? new RowBloomHashKey(cell)
+    HashKey<Cell> hashKey = type != BloomType.ROWCOL ? new RowBloomHashKey(cell)
         : new RowColBloomHashKey(cell);
     return contains(bloomBuf, bloomOffset, bloomSize, hash, hashCount, hashKey);
   }
@@ -0,0 +1,60 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.util;
+
+import java.io.IOException;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.regionserver.BloomType;
+
+/**
+ * Handles ROWPREFIX_DELIMITED bloom related context. The bloom keys are the rows up to and
+ * including their first delimiter, or the whole row if it has none.
+ */
+@InterfaceAudience.Private
+public class RowPrefixDelimiterBloomContext extends RowBloomContext {
+  private final byte[] delimiter;
+
+  public RowPrefixDelimiterBloomContext(BloomFilterWriter bloomFilterWriter,
+      CellComparator comparator, byte[] delimiter) {
+    super(bloomFilterWriter, comparator);
+    this.delimiter = delimiter;
+  }
+
+  @Override
+  public void writeBloom(Cell cell) throws IOException {
+    super.writeBloom(getDelimitedRowPrefixCell(cell));
+  }
+
+  /**
+   * @param cell the cell
+   * @return the first cell of the delimited row prefix of the cell
+   */
+  private Cell getDelimitedRowPrefixCell(Cell cell) {
+    byte[] row = CellUtil.copyRow(cell);
+    int prefixLength =
+        BloomFilterUtil.getRowPrefixLength(row, BloomType.ROWPREFIX_DELIMITED, delimiter);
+    if (prefixLength == row.length) {
+      return cell;
+    }
+    return CellUtil.createFirstOnRow(row, 0, (short) prefixLength);
+  }
+}
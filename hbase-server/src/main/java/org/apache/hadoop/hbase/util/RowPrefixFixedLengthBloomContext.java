@@ -0,0 +1,58 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.util;
+
+import java.io.IOException;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+
+/**
+ * Handles ROWPREFIX_FIXED_LENGTH bloom related context. The bloom keys are the first
+ * prefixLength bytes of the rows, or the whole row if it is shorter.
+ */
+@InterfaceAudience.Private
+public class RowPrefixFixedLengthBloomContext extends RowBloomContext {
+  private final int prefixLength;
+
+  public RowPrefixFixedLengthBloomContext(BloomFilterWriter bloomFilterWriter,
+      CellComparator comparator, int prefixLength) {
+    super(bloomFilterWriter, comparator);
+    this.prefixLength = prefixLength;
+  }
+
+  @Override
+  public void writeBloom(Cell cell) throws IOException {
+    super.writeBloom(getRowPrefixCell(cell));
+  }
+
+  /**
+   * @param cell the cell
+   * @return the first cell of the row prefix of the cell
+   */
+  private Cell getRowPrefixCell(Cell cell) {
+    int rowLength = cell.getRowLength();
+    if (rowLength <= prefixLength) {
+      return cell;
+    }
+    byte[] row = CellUtil.copyRow(cell);
+    return CellUtil.createFirstOnRow(row, 0, (short) prefixLength);
+  }
+}
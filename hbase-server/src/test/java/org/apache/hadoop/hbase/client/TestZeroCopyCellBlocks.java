@@ -0,0 +1,135 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.client;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Iterator;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.Waiter;
+import org.apache.hadoop.hbase.io.hfile.BlockCache;
+import org.apache.hadoop.hbase.io.hfile.BlockCacheKey;
+import org.apache.hadoop.hbase.io.hfile.CachedBlock;
+import org.apache.hadoop.hbase.io.hfile.CombinedBlockCache;
+import org.apache.hadoop.hbase.ipc.RpcServer;
+import org.apache.hadoop.hbase.regionserver.Region;
+import org.apache.hadoop.hbase.testclassification.ClientTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Reads cells out of an off-heap BucketCache with
+ * {@link RpcServer#CELLBLOCK_ZERO_COPY_KEY} on, so that responses are sent straight from the
+ * cached blocks, and checks what arrives and that every block is let go of afterwards.
+ */
+@Category({ MediumTests.class, ClientTests.class })
+public class TestZeroCopyCellBlocks {
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q");
+  private static final int ROWS = 100;
+
+  @BeforeClass
+  public static void setUpBeforeClass() throws Exception {
+    Configuration conf = TEST_UTIL.getConfiguration();
+    conf.setInt("hbase.bucketcache.size", 100);
+    conf.setStrings("hbase.bucketcache.ioengine", "offheap");
+    conf.setBoolean(RpcServer.CELLBLOCK_ZERO_COPY_KEY, true);
+    conf.setInt(RpcServer.CELLBLOCK_ZERO_COPY_MIN_SIZE_KEY, 64);
+    TEST_UTIL.startMiniCluster(1);
+  }
+
+  @AfterClass
+  public static void tearDownAfterClass() throws Exception {
+    TEST_UTIL.shutdownMiniCluster();
+  }
+
+  @Test
+  public void testGetsAndScansFromOffheapBlocks() throws Exception {
+    TableName tableName = TableName.valueOf("testGetsAndScansFromOffheapBlocks");
+    try (Table table = TEST_UTIL.createTable(tableName, FAMILY)) {
+      for (int i = 0; i < ROWS; i++) {
+        table.put(new Put(row(i)).addColumn(FAMILY, QUALIFIER, value(i)));
+      }
+      Region region = TEST_UTIL.getRSForFirstRegionInTable(tableName)
+          .getFromOnlineRegions(TEST_UTIL.getHBaseAdmin().getTableRegions(tableName).get(0)
+              .getEncodedName());
+      region.flush(true);
+      final BlockCache cache = region.getStores().iterator().next().getCacheConfig()
+          .getBlockCache();
+      assertTrue(cache instanceof CombinedBlockCache);
+
+      // The first round caches the blocks, the later ones are served from the cache.
+      for (int round = 0; round < 3; round++) {
+        for (int i = 0; i < ROWS; i++) {
+          Result result = table.get(new Get(row(i)));
+          assertTrue(Bytes.equals(value(i), result.getValue(FAMILY, QUALIFIER)));
+        }
+        Scan scan = new Scan();
+        scan.setCaching(7);
+        try (ResultScanner scanner = table.getScanner(scan)) {
+          for (int i = 0; i < ROWS; i++) {
+            Result result = scanner.next();
+            assertNotNull(result);
+            assertTrue(Bytes.equals(row(i), result.getRow()));
+            assertTrue(Bytes.equals(value(i), result.getValue(FAMILY, QUALIFIER)));
+          }
+          assertEquals(null, scanner.next());
+        }
+      }
+      assertTrue(cache.getStats().getHitCount() > 0);
+
+      // Blocks are returned once the responses have been written.
+      TEST_UTIL.waitFor(10000, new Waiter.Predicate<Exception>() {
+        @Override
+        public boolean evaluate() throws Exception {
+          Iterator<CachedBlock> iterator = cache.iterator();
+          while (iterator.hasNext()) {
+            CachedBlock block = iterator.next();
+            BlockCacheKey cacheKey = new BlockCacheKey(block.getFilename(), block.getOffset());
+            if (((CombinedBlockCache) cache).getRefCount(cacheKey) != 0) {
+              return false;
+            }
+          }
+          return true;
+        }
+      });
+    }
+  }
+
+  private static byte[] row(int i) {
+    return Bytes.toBytes(String.format("row-%05d", i));
+  }
+
+  private static byte[] value(int i) {
+    byte[] value = new byte[512 + i];
+    for (int j = 0; j < value.length; j++) {
+      value[j] = (byte) (i + j);
+    }
+    return value;
+  }
+}
@@ -0,0 +1,221 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.filter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.filter.CompareFilter.CompareOp;
+import org.apache.hadoop.hbase.filter.Filter.ReturnCode;
+import org.apache.hadoop.hbase.filter.FilterList.Operator;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+/**
+ * Measures how many Cells per second one core filters, one Cell at a time with
+ * {@link Filter#filterKeyValue(Cell)} and in batches with
+ * {@link Filter#filterCells(List, ReturnCode[])}. Filters are wrapped in a {@link FilterWrapper}
+ * as in a region scan, and each way is warmed up first.
+ * See usage for this tool by running:
+ * <code>$ hbase org.apache.hadoop.hbase.filter.FilterEvaluation -h</code>
+ */
+@InterfaceAudience.Private
+public final class FilterEvaluation extends Configured implements Tool {
+  private static final Log LOG = LogFactory.getLog(FilterEvaluation.class);
+
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] QUALIFIER = Bytes.toBytes("q0");
+  private static final byte[] MATCH = Bytes.toBytes(7L);
+
+  private int numRows = 1000;
+  private int cellsPerRow = 20;
+  private int batchSize = 64;
+  private int valueSize = 8;
+  private long durationMs = 5000;
+
+  @Override
+  public int run(String[] args) throws Exception {
+    String filters = "value,qualifier,prefix,scv,list";
+    for (int i = 0; i < args.length; i++) {
+      String cmd = args[i];
+      try {
+        if (cmd.equals("-filters")) {
+          filters = args[++i];
+        } else if (cmd.equals("-rows")) {
+          numRows = Integer.parseInt(args[++i]);
+        } else if (cmd.equals("-cells")) {
+          cellsPerRow = Integer.parseInt(args[++i]);
+        } else if (cmd.equals("-batch")) {
+          batchSize = Integer.parseInt(args[++i]);
+        } else if (cmd.equals("-valueSize")) {
+          valueSize = Integer.parseInt(args[++i]);
+        } else if (cmd.equals("-duration")) {
+          durationMs = Long.parseLong(args[++i]) * 1000;
+        } else if (cmd.equals("-h") || cmd.equals("--help")) {
+          printUsageAndExit();
+        } else {
+          System.err.println("UNEXPECTED: " + cmd);
+          printUsageAndExit();
+        }
+      } catch (Exception e) {
+        printUsageAndExit();
+      }
+    }
+
+    List<List<Cell>> rows = createRows();
+    for (String name : filters.split(",")) {
+      name = name.trim();
+      for (boolean batch : new boolean[] { false, true }) {
+        // Warm up so that the JIT is done
+        filter(name, rows, batch, durationMs / 5);
+        long cells = filter(name, rows, batch, durationMs);
+        LOG.info(String.format("%s, %s: %d cells in %.3fs, %.0f cells/s", name,
+          batch ? "batch of " + batchSize : "per cell", cells, durationMs / 1e3,
+          cells * 1e3 / durationMs));
+      }
+    }
+    return 0;
+  }
+
+  private List<List<Cell>> createRows() {
+    Random random = new Random(0);
+    List<List<Cell>> rows = new ArrayList<List<Cell>>(numRows);
+    for (int i = 0; i < numRows; i++) {
+      byte[] row = Bytes.toBytes(String.format("row%08d", i));
+      List<Cell> cells = new ArrayList<Cell>(cellsPerRow);
+      for (int j = 0; j < cellsPerRow; j++) {
+        byte[] value = new byte[Math.max(valueSize, MATCH.length)];
+        // About one in ten values match
+        if (random.nextInt(10) == 0) {
+          System.arraycopy(MATCH, 0, value, 0, MATCH.length);
+        } else {
+          random.nextBytes(value);
+        }
+        cells.add(new KeyValue(row, FAMILY, Bytes.toBytes("q" + j), 1, value));
+      }
+      rows.add(cells);
+    }
+    return rows;
+  }
+
+  private static Filter createFilter(String name) {
+    if (name.equals("value")) {
+      return new ValueFilter(CompareOp.EQUAL, new BinaryPrefixComparator(MATCH));
+    } else if (name.equals("qualifier")) {
+      return new QualifierFilter(CompareOp.GREATER_OR_EQUAL,
+          new BinaryComparator(Bytes.toBytes("q5")));
+    } else if (name.equals("prefix")) {
+      return new PrefixFilter(Bytes.toBytes("row0000"));
+    } else if (name.equals("scv")) {
+      return new SingleColumnValueFilter(FAMILY, QUALIFIER, CompareOp.NOT_EQUAL, MATCH);
+    } else if (name.equals("list")) {
+      return new FilterList(Operator.MUST_PASS_ALL, new PrefixFilter(Bytes.toBytes("row0000")),
+          new FilterList(Operator.MUST_PASS_ONE,
+              new ValueFilter(CompareOp.EQUAL, new BinaryPrefixComparator(MATCH)),
+              new QualifierFilter(CompareOp.EQUAL, new BinaryComparator(QUALIFIER))));
+    }
+    throw new IllegalArgumentException("Unknown filter " + name);
+  }
+
+  /**
+   * @return the number of Cells filtered
+   */
+  private long filter(String name, List<List<Cell>> rows, boolean batch, long ms)
+      throws IOException {
+    long cells = 0;
+    long deadline = System.currentTimeMillis() + ms;
+    List<Cell> block = new ArrayList<Cell>(batchSize);
+    ReturnCode[] codes = new ReturnCode[batchSize];
+    while (System.currentTimeMillis() < deadline) {
+      Filter filter = new FilterWrapper(createFilter(name));
+      for (List<Cell> row : rows) {
+        filter.reset();
+        if (filter.filterRowKey(row.get(0))) {
+          cells += row.size();
+          continue;
+        }
+        cells += batch ? filterBatches(filter, row, block, codes) : filterPerCell(filter, row);
+      }
+    }
+    return cells;
+  }
+
+  private static int filterPerCell(Filter filter, List<Cell> row) throws IOException {
+    for (int i = 0; i < row.size(); i++) {
+      Cell cell = row.get(i);
+      ReturnCode code = filter.filterKeyValue(cell);
+      if (code == ReturnCode.INCLUDE) {
+        filter.transformCell(cell);
+      } else if (code != ReturnCode.SKIP) {
+        return i + 1;
+      }
+    }
+    return row.size();
+  }
+
+  private static int filterBatches(Filter filter, List<Cell> row, List<Cell> block,
+      ReturnCode[] codes) throws IOException {
+    int from = 0;
+    while (from < row.size()) {
+      block.clear();
+      block.addAll(row.subList(from, Math.min(row.size(), from + codes.length)));
+      int evaluated = filter.filterCells(block, codes);
+      from += evaluated;
+      ReturnCode last = codes[evaluated - 1];
+      if (last != ReturnCode.INCLUDE && last != ReturnCode.SKIP) {
+        break;
+      }
+    }
+    return from;
+  }
+
+  private void printUsageAndExit() {
+    System.err.printf("Usage: bin/hbase %s [options]\n", getClass().getName());
+    System.err.println(" where [options] are:");
+    System.err.println("  -h|-help          Show this help and exit.");
+    System.err.println("  -filters <F,..>   Comma separated filters among value, qualifier, "
+        + "prefix, scv and list. Default: all");
+    System.err.println("  -rows <N>         Rows to filter. Default: 1000");
+    System.err.println("  -cells <N>        Cells per row. Default: 20");
+    System.err.println("  -batch <N>        Most cells per batch. Default: 64");
+    System.err.println("  -valueSize <N>    Bytes per value, at least 8. Default: 8");
+    System.err.println("  -duration <N>     Seconds to run each filter each way. Default: 5");
+    System.exit(1);
+  }
+
+  /**
+   * Call this method to avoid the {@link #main(String[])} System.exit.
+   */
+  static int innerMain(final String[] args) throws Exception {
+    return ToolRunner.run(HBaseConfiguration.create(), new FilterEvaluation(), args);
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.exit(innerMain(args));
+  }
+}
@@ -0,0 +1,249 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.filter.CompareFilter.CompareOp;
+import org.apache.hadoop.hbase.filter.Filter.ReturnCode;
+import org.apache.hadoop.hbase.filter.FilterList.Operator;
+import org.apache.hadoop.hbase.testclassification.FilterTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests that {@link Filter#filterCells(List, ReturnCode[])} gives the same codes and Cells as
+ * {@link Filter#filterKeyValue(Cell)} one Cell at a time.
+ */
+@Category({FilterTests.class, SmallTests.class})
+public class TestFilterCells {
+  private static final byte[] ROW = Bytes.toBytes("row1");
+  private static final byte[] OTHER_ROW = Bytes.toBytes("other");
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final byte[] Q1 = Bytes.toBytes("q1");
+  private static final byte[] Q2 = Bytes.toBytes("q2");
+  private static final byte[] Q3 = Bytes.toBytes("q3");
+  private static final byte[] V1 = Bytes.toBytes("v1");
+  private static final byte[] V2 = Bytes.toBytes("v2");
+
+  /**
+   * Makes two filters in the same state, one for each way of filtering.
+   */
+  private interface FilterFactory {
+    Filter create();
+  }
+
+  private static List<Cell> row(byte[] row) {
+    List<Cell> cells = new ArrayList<Cell>();
+    cells.add(new KeyValue(row, FAMILY, Q1, 3, V1));
+    cells.add(new KeyValue(row, FAMILY, Q1, 2, V2));
+    cells.add(new KeyValue(row, FAMILY, Q2, 3, V2));
+    cells.add(new KeyValue(row, FAMILY, Q2, 1, V1));
+    cells.add(new KeyValue(row, FAMILY, Q3, 3, V1));
+    cells.add(new KeyValue(row, FAMILY, Q3, 2, V2));
+    return cells;
+  }
+
+  private static boolean movesOn(ReturnCode code) {
+    return code != ReturnCode.INCLUDE && code != ReturnCode.SKIP;
+  }
+
+  private static boolean includes(ReturnCode code) {
+    return code == ReturnCode.INCLUDE || code == ReturnCode.INCLUDE_AND_NEXT_COL
+        || code == ReturnCode.INCLUDE_AND_SEEK_NEXT_ROW;
+  }
+
+  /**
+   * Filters the row one Cell at a time, up to the first code that moves on from the row.
+   */
+  private static List<ReturnCode> filterPerCell(Filter filter, List<Cell> row,
+      List<Cell> included) throws IOException {
+    List<ReturnCode> codes = new ArrayList<ReturnCode>();
+    if (filter.filterRowKey(row.get(0))) {
+      return codes;
+    }
+    for (Cell cell : row) {
+      ReturnCode code = filter.filterKeyValue(cell);
+      codes.add(code);
+      if (includes(code)) {
+        included.add(filter.transformCell(cell));
+      }
+      if (movesOn(code)) {
+        break;
+      }
+    }
+    return codes;
+  }
+
+  /**
+   * Filters the row in batches of at most <code>batchSize</code> Cells, up to the first code
+   * that moves on from the row.
+   */
+  private static List<ReturnCode> filterBatches(Filter filter, List<Cell> row, int batchSize,
+      List<Cell> included) throws IOException {
+    List<ReturnCode> codes = new ArrayList<ReturnCode>();
+    if (filter.filterRowKey(row.get(0))) {
+      return codes;
+    }
+    int from = 0;
+    while (from < row.size()) {
+      List<Cell> batch = new ArrayList<Cell>(
+          row.subList(from, Math.min(row.size(), from + batchSize)));
+      ReturnCode[] batchCodes = new ReturnCode[batch.size()];
+      int evaluated = filter.filterCells(batch, batchCodes);
+      for (int i = 0; i < evaluated; i++) {
+        codes.add(batchCodes[i]);
+        if (includes(batchCodes[i])) {
+          included.add(batch.get(i));
+        }
+      }
+      if (movesOn(batchCodes[evaluated - 1])) {
+        break;
+      }
+      from += evaluated;
+    }
+    return codes;
+  }
+
+  private static void assertSameAsPerCell(FilterFactory factory) throws IOException {
+    for (byte[] row : new byte[][] { ROW, OTHER_ROW }) {
+      List<Cell> cells = row(row);
+      List<Cell> expectedCells = new ArrayList<Cell>();
+      List<ReturnCode> expected = filterPerCell(factory.create(), cells, expectedCells);
+      for (int batchSize = 1; batchSize <= cells.size(); batchSize++) {
+        List<Cell> actualCells = new ArrayList<Cell>();
+        assertEquals("batch of " + batchSize, expected,
+          filterBatches(factory.create(), cells, batchSize, actualCells));
+        assertEquals("batch of " + batchSize, expectedCells.size(), actualCells.size());
+        for (int i = 0; i < expectedCells.size(); i++) {
+          // Transformed Cells are new objects each time
+          assertTrue(CellUtil.equals(expectedCells.get(i), actualCells.get(i)));
+          assertTrue(CellUtil.matchingValue(expectedCells.get(i), actualCells.get(i)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testValueFilter() throws IOException {
+    assertSameAsPerCell(new FilterFactory() {
+      @Override
+      public Filter create() {
+        return new ValueFilter(CompareOp.EQUAL, new BinaryComparator(V1));
+      }
+    });
+  }
+
+  @Test
+  public void testQualifierFilter() throws IOException {
+    assertSameAsPerCell(new FilterFactory() {
+      @Override
+      public Filter create() {
+        return new QualifierFilter(CompareOp.GREATER, new BinaryComparator(Q1));
+      }
+    });
+  }
+
+  @Test
+  public void testPrefixFilter() throws IOException {
+    assertSameAsPerCell(new FilterFactory() {
+      @Override
+      public Filter create() {
+        return new PrefixFilter(Bytes.toBytes("row"));
+      }
+    });
+  }
+
+  @Test
+  public void testSingleColumnValueFilter() throws IOException {
+    for (final byte[] value : new byte[][] { V1, V2 }) {
+      for (final boolean latestVersionOnly : new boolean[] { true, false }) {
+        assertSameAsPerCell(new FilterFactory() {
+          @Override
+          public Filter create() {
+            SingleColumnValueFilter filter =
+                new SingleColumnValueFilter(FAMILY, Q2, CompareOp.EQUAL, value);
+            filter.setLatestVersionOnly(latestVersionOnly);
+            return filter;
+          }
+        });
+      }
+    }
+  }
+
+  @Test
+  public void testFilterList() throws IOException {
+    for (final Operator operator : Operator.values()) {
+      assertSameAsPerCell(new FilterFactory() {
+        @Override
+        public Filter create() {
+          return new FilterList(operator,
+              new ValueFilter(CompareOp.EQUAL, new BinaryComparator(V1)),
+              new QualifierFilter(CompareOp.NOT_EQUAL, new BinaryComparator(Q2)),
+              new PrefixFilter(Bytes.toBytes("row")));
+        }
+      });
+      // Nested
+      assertSameAsPerCell(new FilterFactory() {
+        @Override
+        public Filter create() {
+          return new FilterList(operator,
+              new ValueFilter(CompareOp.EQUAL, new BinaryComparator(V2)),
+              new FilterList(Operator.MUST_PASS_ALL, new PrefixFilter(Bytes.toBytes("row")),
+                  new QualifierFilter(CompareOp.EQUAL, new BinaryComparator(Q3))));
+        }
+      });
+      // Stateful and transforming filters, one Cell at a time
+      assertSameAsPerCell(new FilterFactory() {
+        @Override
+        public Filter create() {
+          return new FilterList(operator,
+              new SingleColumnValueFilter(FAMILY, Q1, CompareOp.EQUAL, V2),
+              new ColumnCountGetFilter(2), new KeyOnlyFilter());
+        }
+      });
+    }
+  }
+
+  @Test
+  public void testWrappedCustomFilter() throws IOException {
+    // A subclass overriding filterKeyValue goes through the adapter
+    assertSameAsPerCell(new FilterFactory() {
+      @Override
+      public Filter create() {
+        return new FilterWrapper(new ValueFilter(CompareOp.EQUAL, new BinaryComparator(V1)) {
+          @Override
+          public ReturnCode filterKeyValue(Cell v) {
+            ReturnCode code = super.filterKeyValue(v);
+            return code == ReturnCode.INCLUDE ? ReturnCode.INCLUDE_AND_NEXT_COL : code;
+          }
+        });
+      }
+    });
+  }
+}
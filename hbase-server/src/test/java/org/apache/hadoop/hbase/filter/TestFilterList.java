@@ -25,6 +25,7 @@ import java.util.Arrays;
 import java.util.List;
 import org.apache.hadoop.hbase.Cell;
 import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.exceptions.DeserializationException;
@@ -551,6 +552,78 @@ public class TestFilterList {
         minKeyValue));
   }
 
+  private static Filter returning(final ReturnCode code, final Cell hint) {
+    return new FilterBase() {
+      @Override
+      public ReturnCode filterKeyValue(Cell ignored) {
+        return code;
+      }
+
+      @Override
+      public Cell getNextCellHint(Cell currentCell) {
+        return hint;
+      }
+
+      @Override
+      public byte [] toByteArray() {return null;}
+    };
+  }
+
+  /**
+   * Test that MUST_PASS_ONE seeks to the least position of its filters when one has a hint and
+   * the others are done with the column or row.
+   */
+  @Test
+  public void testMustPassOneMergesHints() throws Exception {
+    KeyValue kv = new KeyValue(Bytes.toBytes("row1"), Bytes.toBytes("f"), Bytes.toBytes("q1"),
+        1, Bytes.toBytes("v"));
+    Cell nearHint = new KeyValue(Bytes.toBytes("row1"), Bytes.toBytes("f"), Bytes.toBytes("q5"),
+        1, Bytes.toBytes("v"));
+    Cell farHint = KeyValueUtil.createFirstOnRow(Bytes.toBytes("row5"));
+
+    FilterList filterList = new FilterList(Operator.MUST_PASS_ONE,
+        returning(ReturnCode.SEEK_NEXT_USING_HINT, farHint), returning(ReturnCode.NEXT_ROW, null));
+    assertEquals(ReturnCode.SEEK_NEXT_USING_HINT, filterList.filterKeyValue(kv));
+    assertEquals(0, CellComparator.COMPARATOR.compare(CellUtil.createLastOnRow(kv),
+        filterList.getNextCellHint(kv)));
+
+    filterList = new FilterList(Operator.MUST_PASS_ONE,
+        returning(ReturnCode.NEXT_ROW, null), returning(ReturnCode.SEEK_NEXT_USING_HINT, nearHint));
+    assertEquals(ReturnCode.SEEK_NEXT_USING_HINT, filterList.filterKeyValue(kv));
+    assertEquals(0, CellComparator.COMPARATOR.compare(nearHint, filterList.getNextCellHint(kv)));
+
+    filterList = new FilterList(Operator.MUST_PASS_ONE,
+        returning(ReturnCode.SEEK_NEXT_USING_HINT, farHint), returning(ReturnCode.NEXT_COL, null),
+        returning(ReturnCode.NEXT_ROW, null));
+    assertEquals(ReturnCode.SEEK_NEXT_USING_HINT, filterList.filterKeyValue(kv));
+    assertEquals(0, CellComparator.COMPARATOR.compare(CellUtil.createLastOnRowCol(kv),
+        filterList.getNextCellHint(kv)));
+
+    // Nested
+    filterList = new FilterList(Operator.MUST_PASS_ALL, new FilterList(Operator.MUST_PASS_ONE,
+        returning(ReturnCode.SEEK_NEXT_USING_HINT, farHint), returning(ReturnCode.NEXT_ROW, null)));
+    assertEquals(ReturnCode.SEEK_NEXT_USING_HINT, filterList.filterKeyValue(kv));
+    assertEquals(0, CellComparator.COMPARATOR.compare(CellUtil.createLastOnRow(kv),
+        filterList.getNextCellHint(kv)));
+
+    // No seek when a filter only skips the Cell, or none has a hint
+    filterList = new FilterList(Operator.MUST_PASS_ONE,
+        returning(ReturnCode.SEEK_NEXT_USING_HINT, farHint), returning(ReturnCode.SKIP, null));
+    assertEquals(ReturnCode.SKIP, filterList.filterKeyValue(kv));
+    filterList = new FilterList(Operator.MUST_PASS_ONE,
+        returning(ReturnCode.NEXT_COL, null), returning(ReturnCode.NEXT_ROW, null));
+    assertEquals(ReturnCode.SKIP, filterList.filterKeyValue(kv));
+    filterList = new FilterList(Operator.MUST_PASS_ONE,
+        returning(ReturnCode.SEEK_NEXT_USING_HINT, farHint), returning(ReturnCode.INCLUDE, null));
+    assertEquals(ReturnCode.INCLUDE, filterList.filterKeyValue(kv));
+
+    // Nor when reversed
+    filterList = new FilterList(Operator.MUST_PASS_ONE,
+        returning(ReturnCode.SEEK_NEXT_USING_HINT, farHint), returning(ReturnCode.NEXT_ROW, null));
+    filterList.setReversed(true);
+    assertEquals(ReturnCode.SKIP, filterList.filterKeyValue(kv));
+  }
+
   /**
    * Tests the behavior of transform() in a hierarchical filter.
    *
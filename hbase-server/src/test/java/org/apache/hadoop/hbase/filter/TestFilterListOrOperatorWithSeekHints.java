@@ -0,0 +1,191 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.filter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeSet;
+
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Durability;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.CompareFilter.CompareOp;
+import org.apache.hadoop.hbase.filter.FilterList.Operator;
+import org.apache.hadoop.hbase.filter.MultiRowRangeFilter.RowRange;
+import org.apache.hadoop.hbase.regionserver.HRegion;
+import org.apache.hadoop.hbase.regionserver.InternalScanner;
+import org.apache.hadoop.hbase.testclassification.FilterTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.Pair;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests that a MUST_PASS_ONE {@link FilterList}, which seeks when one filter has a hint and the
+ * others are done with the column or row, returns the union of what its filters return alone.
+ */
+@Category({FilterTests.class, SmallTests.class})
+public class TestFilterListOrOperatorWithSeekHints {
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final byte[] FAMILY = Bytes.toBytes("f");
+  private static final char[] ROW_CHARS = { 'a', 'b', 'c', 'd' };
+  private static final int QUALIFIERS = 10;
+  private static final int VERSIONS = 2;
+
+  private static HRegion region;
+
+  @BeforeClass
+  public static void setUp() throws IOException {
+    HTableDescriptor htd = new HTableDescriptor(
+        TableName.valueOf(TestFilterListOrOperatorWithSeekHints.class.getSimpleName()));
+    htd.addFamily(new HColumnDescriptor(FAMILY).setMaxVersions(VERSIONS));
+    HRegionInfo info = new HRegionInfo(htd.getTableName(), null, null, false);
+    region = HBaseTestingUtility.createRegionAndWAL(info, TEST_UTIL.getDataTestDir(),
+        TEST_UTIL.getConfiguration(), htd);
+    for (char c1 : ROW_CHARS) {
+      for (char c2 : ROW_CHARS) {
+        for (char c3 : ROW_CHARS) {
+          Put put = new Put(Bytes.toBytes("" + c1 + c2 + c3));
+          put.setDurability(Durability.SKIP_WAL);
+          for (int q = 0; q < QUALIFIERS; q++) {
+            for (long ts = 1; ts <= VERSIONS; ts++) {
+              put.addColumn(FAMILY, Bytes.toBytes(String.format("q%02d", q)), ts,
+                Bytes.toBytes("v" + ts));
+            }
+          }
+          region.put(put);
+        }
+      }
+      if (c1 == 'b') {
+        // Some rows in a file, the rest in the memstore
+        region.flush(true);
+      }
+    }
+  }
+
+  @AfterClass
+  public static void tearDown() throws IOException {
+    HBaseTestingUtility.closeRegionAndWAL(region);
+  }
+
+  /**
+   * @return new filters, each with or without seek hints
+   */
+  private static List<Filter> createFilters() throws IOException {
+    List<Filter> filters = new ArrayList<Filter>();
+    filters.add(new FuzzyRowFilter(Arrays.asList(new Pair<byte[], byte[]>(
+        Bytes.toBytes("?b?"), new byte[] { 1, 0, 1 }))));
+    filters.add(new MultiRowRangeFilter(new ArrayList<RowRange>(Arrays.asList(
+        new RowRange(Bytes.toBytes("bca"), true, Bytes.toBytes("bdd"), false),
+        new RowRange(Bytes.toBytes("dab"), true, Bytes.toBytes("dac"), true)))));
+    filters.add(new PrefixFilter(Bytes.toBytes("ca")));
+    filters.add(new ColumnPrefixFilter(Bytes.toBytes("q03")));
+    filters.add(new ColumnRangeFilter(Bytes.toBytes("q05"), true, Bytes.toBytes("q07"), false));
+    filters.add(new QualifierFilter(CompareOp.EQUAL, new BinaryComparator(Bytes.toBytes("q08"))));
+    filters.add(new ValueFilter(CompareOp.EQUAL, new BinaryComparator(Bytes.toBytes("v1"))));
+    filters.add(new InclusiveStopFilter(Bytes.toBytes("abb")));
+    return filters;
+  }
+
+  private static List<Cell> scan(Filter filter) throws IOException {
+    Scan scan = new Scan();
+    scan.setMaxVersions();
+    scan.setFilter(filter);
+    List<Cell> results = new ArrayList<Cell>();
+    InternalScanner scanner = region.getScanner(scan);
+    try {
+      while (scanner.next(results)) {
+        // Keep on
+      }
+    } finally {
+      scanner.close();
+    }
+    return results;
+  }
+
+  /**
+   * Scans with the filters at the given indexes in a MUST_PASS_ONE list, and alone.
+   */
+  private static void assertUnion(int... indexes) throws IOException {
+    TreeSet<Cell> expected = new TreeSet<Cell>(CellComparator.COMPARATOR);
+    FilterList list = new FilterList(Operator.MUST_PASS_ONE);
+    for (int index : indexes) {
+      expected.addAll(scan(createFilters().get(index)));
+      list.addFilter(createFilters().get(index));
+    }
+    List<Cell> actual = scan(list);
+    String message = "filters " + Arrays.toString(indexes);
+    assertEquals(message, expected.size(), actual.size());
+    int i = 0;
+    for (Cell cell : expected) {
+      assertTrue(message + ": " + cell + " vs " + actual.get(i),
+        CellUtil.equals(cell, actual.get(i)));
+      i++;
+    }
+  }
+
+  @Test
+  public void testPairs() throws IOException {
+    int count = createFilters().size();
+    for (int i = 0; i < count; i++) {
+      for (int j = 0; j < count; j++) {
+        if (i != j) {
+          assertUnion(i, j);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testHintsWithRowAndColumnFilters() throws IOException {
+    // Fuzzy row and row ranges with a prefix, as well as column hints with a row filter
+    assertUnion(0, 1, 2);
+    assertUnion(1, 0, 2, 7);
+    assertUnion(3, 4, 2);
+    assertUnion(0, 3, 4, 5);
+    // Nested
+    FilterList inner = new FilterList(Operator.MUST_PASS_ONE, createFilters().get(0),
+        createFilters().get(2));
+    TreeSet<Cell> expected = new TreeSet<Cell>(CellComparator.COMPARATOR);
+    expected.addAll(scan(createFilters().get(0)));
+    expected.addAll(scan(createFilters().get(2)));
+    List<Cell> actual = scan(new FilterList(Operator.MUST_PASS_ALL, inner,
+        new ColumnRangeFilter(null, false, null, false)));
+    assertEquals(expected.size(), actual.size());
+    int i = 0;
+    for (Cell cell : expected) {
+      assertTrue(CellUtil.equals(cell, actual.get(i++)));
+    }
+  }
+}
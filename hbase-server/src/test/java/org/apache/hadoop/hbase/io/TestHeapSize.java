@@ -181,6 +181,15 @@ public class TestHeapSize  {
       assertEquals(expected, actual);
     }
 
+    // CellChunkMap
+    cl = CellChunkMap.class;
+    expected = ClassSize.estimateBase(cl, false);
+    actual = ClassSize.CELL_CHUNK_MAP;
+    if(expected != actual) {
+      ClassSize.estimateBase(cl, true);
+      assertEquals(expected, actual);
+    }
+
     // ReentrantReadWriteLock
     cl = ReentrantReadWriteLock.class;
     expected = ClassSize.estimateBase(cl, false);
@@ -0,0 +1,173 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.KeyValueUtil;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.regionserver.BloomFilterMetrics;
+import org.apache.hadoop.hbase.regionserver.BloomType;
+import org.apache.hadoop.hbase.regionserver.Store;
+import org.apache.hadoop.hbase.regionserver.StoreFile;
+import org.apache.hadoop.hbase.regionserver.StoreFileReader;
+import org.apache.hadoop.hbase.regionserver.StoreFileScanner;
+import org.apache.hadoop.hbase.regionserver.StoreFileWriter;
+import org.apache.hadoop.hbase.testclassification.IOTests;
+import org.apache.hadoop.hbase.testclassification.MediumTests;
+import org.apache.hadoop.hbase.util.BloomFilterFactory;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests that Bloom filter chunks are kept in the {@link BloomChunkCache} rather than the block
+ * cache when one is configured, and that Bloom filter checks are accounted.
+ */
+@Category({ IOTests.class, MediumTests.class })
+public class TestBloomChunkCache {
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+  private static final int NUM_KV = 1000;
+
+  private Configuration conf;
+  private FileSystem fs;
+
+  @Before
+  public void setUp() throws IOException {
+    CacheConfig.clearGlobalInstances();
+    conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setFloat(CacheConfig.BLOOM_CHUNK_CACHE_SIZE_KEY, 1);
+    conf.setInt(BloomFilterFactory.IO_STOREFILE_BLOOM_BLOCK_SIZE, 128);
+    fs = FileSystem.get(conf);
+  }
+
+  @After
+  public void tearDown() {
+    CacheConfig.clearGlobalInstances();
+  }
+
+  @Test
+  public void testChunksCachedApartAndChecksAccounted() throws IOException {
+    CacheConfig cacheConf = new CacheConfig(conf);
+    BloomChunkCache chunkCache = cacheConf.getBloomChunkCache();
+    assertNotNull(chunkCache);
+    List<KeyValue> kvs = createSortedKeyValues(new Random(2319), NUM_KV);
+    Path path = writeStoreFile(cacheConf, kvs);
+
+    StoreFile sf = new StoreFile(fs, path, conf, cacheConf, BloomType.ROW);
+    StoreFileReader r = sf.createReader();
+    BloomFilterMetrics metrics = new BloomFilterMetrics();
+    r.setBloomFilterMetrics(metrics);
+    StoreFileScanner scanner = r.getStoreFileScanner(true, true, false, 0, 0, false);
+    Set<byte[]> rows = new TreeSet<>(Bytes.BYTES_COMPARATOR);
+    for (KeyValue kv : kvs) {
+      byte[] row = CellUtil.cloneRow(kv);
+      rows.add(row);
+      assertTrue(shouldUseScanner(scanner, row));
+      scanner.seek(KeyValueUtil.createFirstOnRow(row));
+    }
+    assertEquals(NUM_KV, metrics.getRequestCount());
+    assertEquals(0, metrics.getNegativeCount());
+    assertEquals(0, metrics.getFalsePositiveCount());
+
+    // Chunks went to the chunk cache and none to the block cache.
+    assertTrue(chunkCache.getBlockCount() > 1);
+    for (CachedBlock cb : cacheConf.getBlockCache()) {
+      assertTrue(cb.getBlockType() != BlockType.BLOOM_CHUNK);
+    }
+
+    // Rows not in the file are either skipped, or found missing when the scanner seeks.
+    int absent = 0;
+    Random rand = new Random(135);
+    for (int i = 0; i < NUM_KV; i++) {
+      byte[] row = RandomKeyValueUtil.randomRowOrQualifier(rand);
+      if (rows.contains(row)) {
+        continue;
+      }
+      absent++;
+      if (shouldUseScanner(scanner, row)) {
+        scanner.seek(KeyValueUtil.createFirstOnRow(row));
+      }
+    }
+    assertEquals(NUM_KV + absent, metrics.getRequestCount());
+    assertEquals(absent, metrics.getNegativeCount() + metrics.getFalsePositiveCount());
+    assertTrue(metrics.getNegativeCount() > 0);
+    assertTrue(metrics.getCheckTime() > 0);
+    assertTrue(chunkCache.getStats().getHitCount() > 0);
+
+    scanner.close();
+    r.close(false);
+    // Chunks of a closed file are dropped even when blocks are not evicted on close.
+    assertEquals(0, chunkCache.getBlockCount());
+  }
+
+  private static List<KeyValue> createSortedKeyValues(Random rand, int n) {
+    List<KeyValue> kvs = new ArrayList<>(n);
+    for (int i = 0; i < n; i++) {
+      kvs.add(RandomKeyValueUtil.randomKeyValue(rand));
+    }
+    Collections.sort(kvs, CellComparator.COMPARATOR);
+    return kvs;
+  }
+
+  private Path writeStoreFile(CacheConfig cacheConf, List<KeyValue> kvs) throws IOException {
+    HFileContext meta = new HFileContextBuilder().withBlockSize(1024).build();
+    StoreFileWriter w = new StoreFileWriter.Builder(conf, cacheConf, fs)
+        .withOutputDir(TEST_UTIL.getDataTestDir())
+        .withBloomType(BloomType.ROW)
+        .withFileContext(meta)
+        .build();
+    for (KeyValue kv : kvs) {
+      w.append(kv);
+    }
+    w.close();
+    return w.getPath();
+  }
+
+  private static boolean shouldUseScanner(StoreFileScanner scanner, byte[] row) {
+    Scan scan = new Scan(row, row);
+    Store store = mock(Store.class);
+    HColumnDescriptor hcd = mock(HColumnDescriptor.class);
+    when(hcd.getName()).thenReturn(Bytes.toBytes(RandomKeyValueUtil.COLUMN_FAMILY_NAME));
+    when(store.getFamily()).thenReturn(hcd);
+    return scanner.shouldUseScanner(scan, store, Long.MIN_VALUE);
+  }
+}
@@ -20,6 +20,7 @@ package org.apache.hadoop.hbase.io.hfile;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
@@ -317,6 +318,24 @@ public class TestCacheConfig {
     }
   }
 
+  @Test
+  public void testTieredBucketCacheConfig() {
+    this.conf.set(HConstants.BUCKET_CACHE_IOENGINE_KEY, "offheap");
+    this.conf.setInt(HConstants.BUCKET_CACHE_SIZE_KEY, 100);
+    this.conf.setInt(CacheConfig.BUCKET_CACHE_TIERS_KEY, 2);
+    this.conf.set(CacheConfig.getBucketCacheTierKey(2, "ioengine"), "heap");
+    this.conf.setInt(CacheConfig.getBucketCacheTierKey(2, "size"), 50);
+    CacheConfig cc = new CacheConfig(this.conf);
+    basicBlockCacheOps(cc, false, false);
+    BlockCache [] bcs = ((CombinedBlockCache) cc.getBlockCache()).getBlockCaches();
+    assertEquals(3, bcs.length);
+    BucketCache l2 = (BucketCache) bcs[1];
+    assertEquals(100, l2.getMaxSize() / (1024 * 1024));
+    assertSame(bcs[2], l2.getVictimCache());
+    assertEquals(50, ((BucketCache) bcs[2]).getMaxSize() / (1024 * 1024));
+    assertEquals(l2.size() + bcs[2].size() + bcs[0].size(), cc.getBlockCache().size());
+  }
+
   private void doBucketCacheConfigTest() {
     final int bcSize = 100;
     this.conf.setInt(HConstants.BUCKET_CACHE_SIZE_KEY, bcSize);
@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.io.FSDataInputStreamWrapper;
+import org.apache.hadoop.hbase.io.hfile.HFileStreamPool.PooledStream;
+import org.apache.hadoop.hbase.testclassification.IOTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.ManualEnvironmentEdge;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({IOTests.class, SmallTests.class})
+public class TestHFileStreamPool {
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final int NUM_KV = 5000;
+  private static final int POOL_SIZE = 2;
+
+  private Configuration conf;
+  private FileSystem fs;
+  private Path path;
+
+  @Before
+  public void setUp() throws IOException {
+    conf = new Configuration(TEST_UTIL.getConfiguration());
+    conf.setInt(HFileStreamPool.STREAM_POOL_SIZE_KEY, POOL_SIZE);
+    fs = FileSystem.get(conf);
+    path = new Path(TEST_UTIL.getDataTestDir("TestHFileStreamPool"), "file");
+    HFileContext meta = new HFileContextBuilder().withBlockSize(1024).build();
+    HFile.Writer writer = HFile.getWriterFactoryNoCache(conf).withPath(fs, path)
+        .withFileContext(meta).withComparator(CellComparator.COMPARATOR).create();
+    for (int i = 0; i < NUM_KV; i++) {
+      writer.append(new KeyValue(getRow(i), Bytes.toBytes("f"), Bytes.toBytes("q"),
+          Bytes.toBytes(i)));
+    }
+    writer.close();
+  }
+
+  @After
+  public void tearDown() {
+    EnvironmentEdgeManager.reset();
+  }
+
+  @Test
+  public void testBorrowReuseAndIdleClose() throws IOException {
+    ManualEnvironmentEdge edge = new ManualEnvironmentEdge();
+    edge.setValue(1);
+    EnvironmentEdgeManager.injectEdge(edge);
+    FSDataInputStreamWrapper wrapper = new FSDataInputStreamWrapper(fs, path);
+    HFileStreamPool pool = new HFileStreamPool(wrapper, POOL_SIZE, 1000);
+    long fallbacks = HFileStreamPool.getFallbackCount();
+
+    PooledStream first = pool.borrow(false);
+    PooledStream second = pool.borrow(false);
+    assertEquals(2, pool.getOpenStreams());
+    // All busy: the caller has to do a positional read instead.
+    assertNull(pool.borrow(false));
+    assertEquals(fallbacks + 1, HFileStreamPool.getFallbackCount());
+
+    pool.release(first, true);
+    assertSame(first, pool.borrow(false));
+    pool.release(first, true);
+    edge.setValue(5000);
+    // Handing back the second stream closes the first, unused for longer than the timeout.
+    pool.release(second, true);
+    assertEquals(1, pool.getOpenStreams());
+    assertEquals(1, pool.getIdleStreams());
+
+    // A failed read does not give its stream back to the pool.
+    PooledStream failed = pool.borrow(false);
+    pool.release(failed, false);
+    assertEquals(0, pool.getOpenStreams());
+
+    pool.borrow(false);
+    pool.close();
+    assertEquals(1, pool.getOpenStreams());
+    wrapper.close();
+  }
+
+  @Test
+  public void testConcurrentStreamingScans() throws Exception {
+    long openStreams = HFileStreamPool.getOpenStreamCount();
+    final HFile.Reader reader = HFile.createReader(fs, path, new CacheConfig(conf), conf);
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Integer>> scans = new ArrayList<Future<Integer>>();
+      for (int i = 0; i < 8; i++) {
+        scans.add(executor.submit(() -> {
+          // Neither cached nor positional, so every block is read with seek+read.
+          HFileScanner scanner = reader.getScanner(false, false);
+          int count = 0;
+          if (scanner.seekTo()) {
+            do {
+              assertTrue(CellUtil.matchingRow(scanner.getCell(), getRow(count)));
+              count++;
+            } while (scanner.next());
+          }
+          scanner.close();
+          return count;
+        }));
+      }
+      for (Future<Integer> scan : scans) {
+        assertEquals(NUM_KV, scan.get().intValue());
+      }
+    } finally {
+      executor.shutdown();
+    }
+    assertTrue(HFileStreamPool.getOpenStreamCount() - openStreams <= POOL_SIZE);
+    reader.close();
+    assertEquals(openStreams, HFileStreamPool.getOpenStreamCount());
+  }
+
+  private static byte[] getRow(int i) {
+    return Bytes.toBytes(String.format("row%06d", i));
+  }
+}
@@ -228,4 +228,42 @@ public class TestLazyDataBlockDecompression {
       "disabledEvictedCount=" + disabledEvictedCount + ", enabledEvictedCount=" +
       enabledEvictedCount, enabledEvictedCount < disabledEvictedCount);
   }
+
+  @Test
+  public void testUnpackedCopiesAreReused() throws Exception {
+    Path hfilePath = new Path(TEST_UTIL.getDataTestDir(), "testUnpackedCopiesAreReused");
+    HFileContext context = new HFileContextBuilder()
+      .withCompression(Compression.Algorithm.GZ)
+      .build();
+    Configuration conf = HBaseConfiguration.create(TEST_UTIL.getConfiguration());
+    conf.setBoolean(CacheConfig.CACHE_BLOCKS_ON_WRITE_KEY, cacheOnWrite);
+    conf.setBoolean(CacheConfig.CACHE_DATA_BLOCKS_COMPRESSED_KEY, true);
+    // room for everything in both caches
+    long maxSize = HConstants.DEFAULT_BLOCKSIZE * 16;
+    CacheConfig.GLOBAL_BLOCK_CACHE_INSTANCE =
+      new LruBlockCache(maxSize, HConstants.DEFAULT_BLOCKSIZE, false, conf);
+    UnpackedBlockCache unpackedCache =
+      new UnpackedBlockCache(maxSize, HConstants.DEFAULT_BLOCKSIZE, conf);
+    CacheConfig.GLOBAL_UNPACKED_CACHE_INSTANCE = unpackedCache;
+    CacheConfig cc = new CacheConfig(conf);
+    assertSame(unpackedCache, cc.getUnpackedBlockCache());
+
+    writeHFile(conf, cc, fs, hfilePath, context, 2000);
+    cacheBlocks(conf, cc, fs, hfilePath, context);
+    assertTrue("no unpacked copies kept", unpackedCache.getBlockCount() > 0);
+    long unpackCount = unpackedCache.getUnpackCount();
+    long hitCount = unpackedCache.getStats().getHitCount();
+
+    // Every data block is now cached packed and unpacked; reading again must not unpack.
+    cacheBlocks(conf, cc, fs, hfilePath, context);
+    assertEquals(unpackCount, unpackedCache.getUnpackCount());
+    assertTrue(unpackedCache.getStats().getHitCount() > hitCount);
+    for (Map.Entry<BlockCacheKey, LruCachedBlock> e :
+        ((LruBlockCache) cc.getBlockCache()).getMapForTests().entrySet()) {
+      HFileBlock block = (HFileBlock) e.getValue().getBuffer();
+      if (cc.shouldCacheCompressed(block.getBlockType().getCategory())) {
+        assertFalse("block cache holds an unpacked block=" + block, block.isUnpacked());
+      }
+    }
+  }
 }
@@ -24,12 +24,16 @@ import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
 import org.apache.hadoop.hbase.testclassification.IOTests;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
 import org.apache.hadoop.hbase.io.HeapSize;
@@ -590,6 +594,73 @@ public class TestLruBlockCache {
 
   }
 
+  @Test
+  public void testClockEviction() throws Exception {
+    long maxSize = 100000;
+    long blockSize = calculateBlockSizeDefault(maxSize, 10);
+    Configuration conf = HBaseConfiguration.create();
+    conf.set(LruBlockCache.LRU_EVICTION_MODE_CONFIG_NAME, "clock");
+    conf.setInt(LruBlockCache.LRU_CLOCK_SHARDS_CONFIG_NAME, 4);
+    LruBlockCache cache = new LruBlockCache(maxSize, blockSize, false, conf);
+
+    CachedItem [] blocks = generateFixedBlocks(20, blockSize, "block");
+    for (int i = 0; i < 9; i++) {
+      cache.cacheBlock(blocks[i].cacheKey, blocks[i]);
+    }
+    assertEquals(0, cache.getStats().getEvictionCount());
+    // Read the first half again; the clock should pass over them.
+    for (int i = 0; i < 5; i++) {
+      assertEquals(blocks[i], cache.getBlock(blocks[i].cacheKey, true, false, true));
+    }
+    for (int i = 9; i < 12; i++) {
+      cache.cacheBlock(blocks[i].cacheKey, blocks[i]);
+    }
+    assertTrue(cache.getStats().getEvictionCount() > 0);
+    assertTrue(cache.getStats().getEvictedCount() > 0);
+    assertTrue(cache.heapSize() < maxSize * LruBlockCache.DEFAULT_ACCEPTABLE_FACTOR);
+    for (int i = 0; i < 5; i++) {
+      assertTrue(cache.containsBlock(blocks[i].cacheKey));
+    }
+    assertTrue(cache.getStats().getEvictionTimeSnapshot().getMax() >= 0);
+
+    // Blocks evicted for other reasons must not confuse the clock.
+    assertTrue(cache.evictBlock(blocks[11].cacheKey));
+    for (int i = 12; i < 20; i++) {
+      cache.cacheBlock(blocks[i].cacheKey, blocks[i]);
+    }
+    assertTrue(cache.heapSize() < maxSize * LruBlockCache.DEFAULT_ACCEPTABLE_FACTOR);
+    assertEquals(cache.getBlockCount(), cache.getMapForTests().size());
+  }
+
+  @Test
+  public void testClockRingsSkipRemovedAndGrow() {
+    ClockEvictionRings rings = new ClockEvictionRings(1, 4);
+    assertEquals(1, rings.getShardCount());
+    LruCachedBlock [] cbs = new LruCachedBlock[40];
+    for (int i = 0; i < cbs.length; i++) {
+      cbs[i] = new LruCachedBlock(new BlockCacheKey("ring", i), new CachedItem("ring", 100, i),
+          i, i % 10 == 0);
+      rings.add(cbs[i]);
+    }
+    for (int i = 0; i < cbs.length; i += 2) {
+      rings.remove(cbs[i]);
+    }
+    assertEquals(0, rings.getMemorySize());
+    cbs[1].reference();
+    List<LruCachedBlock> victims = new ArrayList<>();
+    rings.sweep(cbs[3].heapSize() * 3, Long.MAX_VALUE, victims);
+    // Oldest first, skipping what was removed and what was referenced.
+    assertEquals(3, victims.size());
+    assertTrue(victims.get(0) == cbs[3]);
+    assertTrue(victims.get(1) == cbs[5]);
+    assertTrue(victims.get(2) == cbs[7]);
+    // The referenced block went round again and is now the newest.
+    victims.clear();
+    rings.sweep(Long.MAX_VALUE, Long.MAX_VALUE, victims);
+    assertEquals(cbs.length / 2 - 3, victims.size());
+    assertTrue(victims.get(victims.size() - 1) == cbs[1]);
+  }
+
   @Test
   public void testMaxBlockSize() throws Exception {
     long maxSize = 100000;
@@ -0,0 +1,155 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.CellComparator;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.fs.HFileSystem;
+import org.apache.hadoop.hbase.io.hfile.HFileReaderImpl.HFileScannerImpl;
+import org.apache.hadoop.hbase.testclassification.IOTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({IOTests.class, SmallTests.class})
+public class TestScanReadahead {
+
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final int DATA_BLOCK_SIZE = 1024;
+  private static final int NUM_KV = 2000;
+  private static final int MAX_BLOCKS = 4;
+
+  private Configuration conf;
+  private CacheConfig cacheConf;
+  private FileSystem fs;
+
+  @Before
+  public void setUp() throws IOException {
+    conf = TEST_UTIL.getConfiguration();
+    conf.setInt(CacheConfig.READAHEAD_MAX_BLOCKS_KEY, MAX_BLOCKS);
+    fs = HFileSystem.get(conf);
+    CacheConfig.blockCacheDisabled = false;
+    cacheConf = new CacheConfig(conf);
+  }
+
+  @Test(timeout=60000)
+  public void testSequentialScanReadsAhead() throws Exception {
+    Path path = writeHFile("sequential");
+    HFile.Reader reader = HFile.createReader(fs, path, cacheConf, conf);
+    CacheStats stats = cacheConf.getBlockCache().getStats();
+    long readahead = stats.getReadaheadCount();
+    long hits = stats.getReadaheadHitCount();
+    long wasted = stats.getReadaheadWastedCount();
+
+    HFileScannerImpl scanner = (HFileScannerImpl) reader.getScanner(true, true);
+    ScanReadahead ahead = scanner.getReadahead();
+    assertNotNull(ahead);
+    assertTrue(scanner.seekTo());
+    long blockOffset = -1;
+    int blocksSeen = 0;
+    while (scanner.next()) {
+      // Let each load finish before moving on so that the counts do not depend on timing.
+      while (ahead.isLoading()) {
+        Thread.sleep(1);
+      }
+      if (scanner.curBlock.getOffset() != blockOffset) {
+        blockOffset = scanner.curBlock.getOffset();
+        blocksSeen++;
+        // Ship a batch every two blocks; the window follows the batch size.
+        if (blocksSeen % 2 == 0) {
+          scanner.shipped();
+        }
+        // Stop part way through, leaving loaded blocks the scanner never gets to.
+        if (blocksSeen == 20) {
+          break;
+        }
+      }
+    }
+    scanner.close();
+
+    long loaded = stats.getReadaheadCount() - readahead;
+    long hit = stats.getReadaheadHitCount() - hits;
+    long waste = stats.getReadaheadWastedCount() - wasted;
+    assertTrue("loaded=" + loaded, loaded > 0);
+    assertTrue("hit=" + hit, hit > 0);
+    // Blocks still ahead of the scanner when it closed are wasted; never more than a window.
+    assertTrue("waste=" + waste, waste > 0 && waste <= MAX_BLOCKS);
+    assertEquals(loaded, hit + waste);
+    reader.close(true);
+  }
+
+  @Test
+  public void testNoReadaheadWithoutCaching() throws Exception {
+    Path path = writeHFile("nocache");
+    HFile.Reader reader = HFile.createReader(fs, path, cacheConf, conf);
+    assertNull(((HFileScannerImpl) reader.getScanner(false, true)).getReadahead());
+    assertNull(((HFileScannerImpl) reader.getScanner(true, false, true)).getReadahead());
+    reader.close(true);
+  }
+
+  @Test
+  public void testSeeksDoNotReadAhead() throws Exception {
+    Path path = writeHFile("seeks");
+    HFile.Reader reader = HFile.createReader(fs, path, cacheConf, conf);
+    CacheStats stats = cacheConf.getBlockCache().getStats();
+    long readahead = stats.getReadaheadCount();
+    HFileScanner scanner = reader.getScanner(true, true);
+    // Jump back and forth through the file; no two reads are of neighbouring blocks.
+    for (int i = 0; i < 10; i++) {
+      int row = (i % 2 == 0 ? i : NUM_KV - 1 - i) * (NUM_KV / 20) % NUM_KV;
+      scanner.seekTo(CellUtil.createFirstOnRow(getRow(row)));
+    }
+    scanner.close();
+    assertEquals(readahead, stats.getReadaheadCount());
+    reader.close(true);
+  }
+
+  private Path writeHFile(String name) throws IOException {
+    Path path = new Path(TEST_UTIL.getDataTestDir("TestScanReadahead"), name);
+    HFileContext meta = new HFileContextBuilder().withBlockSize(DATA_BLOCK_SIZE).build();
+    HFile.Writer writer = HFile.getWriterFactory(conf, cacheConf).withPath(fs, path)
+        .withFileContext(meta).withComparator(CellComparator.COMPARATOR).create();
+    byte[] family = Bytes.toBytes("f");
+    byte[] qualifier = Bytes.toBytes("q");
+    byte[] value = new byte[100];
+    for (int i = 0; i < NUM_KV; i++) {
+      writer.append(new KeyValue(getRow(i), family, qualifier, value));
+    }
+    writer.close();
+    return path;
+  }
+
+  private static byte[] getRow(int i) {
+    return Bytes.toBytes(String.format("row%06d", i));
+  }
+}
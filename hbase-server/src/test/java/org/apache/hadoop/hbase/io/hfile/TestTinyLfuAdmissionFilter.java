@@ -0,0 +1,197 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.testclassification.IOTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.ClassSize;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests the frequency sketch and the TinyLFU admission filter, alone and in front of an
+ * {@link LruBlockCache}.
+ */
+@Category({ IOTests.class, SmallTests.class })
+public class TestTinyLfuAdmissionFilter {
+
+  private static final long MAX_SIZE = 1024 * 1024;
+  private static final int BLOCK_SIZE = 10 * 1024;
+  private static final int HOT_BLOCKS = 60;
+  private static final int SCAN_BLOCKS = 300;
+
+  @Test
+  public void testSketchCountsAndAges() {
+    FrequencySketch sketch = new FrequencySketch(1024);
+    for (int i = 0; i < 6; i++) {
+      sketch.increment(42);
+    }
+    assertEquals(6, sketch.frequency(42));
+    for (int i = 0; i < 20; i++) {
+      sketch.increment(7);
+    }
+    assertEquals(FrequencySketch.MAX_FREQUENCY, sketch.frequency(7));
+    sketch.reset();
+    assertEquals(3, sketch.frequency(42));
+    assertEquals(FrequencySketch.MAX_FREQUENCY / 2, sketch.frequency(7));
+  }
+
+  @Test
+  public void testSketchAgesAfterSample() {
+    FrequencySketch sketch = new FrequencySketch(16);
+    for (int i = 0; i < 4; i++) {
+      sketch.increment(-1);
+    }
+    for (int i = 0; sketch.getSize() > 0 && i < sketch.getSampleSize(); i++) {
+      sketch.increment(i);
+    }
+    // Reaching the sample size must have halved the counters at least once.
+    assertTrue(sketch.frequency(-1) <= 2);
+  }
+
+  @Test
+  public void testOnlyDataBlocksAreFiltered() {
+    CacheStats stats = new CacheStats("test");
+    TinyLfuAdmissionFilter filter = new TinyLfuAdmissionFilter(1024, stats);
+    BlockCacheKey victim = new BlockCacheKey("victim", 0, true, BlockType.DATA);
+    for (int i = 0; i < 5; i++) {
+      filter.recordAccess(victim, true);
+    }
+    for (int i = 0; i < 32; i++) {
+      filter.onEviction(victim);
+    }
+    BlockCacheKey data = new BlockCacheKey("f", 0, true, BlockType.DATA);
+    BlockCacheKey index = new BlockCacheKey("f", 1, true, BlockType.LEAF_INDEX);
+    filter.recordAccess(data, false);
+    filter.recordAccess(index, false);
+    assertTrue(filter.admit(index, false));
+    assertTrue(filter.admit(data, true));
+    assertTrue(!filter.admit(data, false));
+    assertEquals(1, stats.getRejectedCount());
+    // Asking again for what was turned away is counted, and eventually gets it in.
+    for (int i = 0; i < 5; i++) {
+      filter.recordAccess(data, false);
+    }
+    assertEquals(5, stats.getRejectedRequestCount());
+    assertTrue(filter.admit(data, false));
+    assertEquals(1, stats.getAdmittedCount());
+  }
+
+  @Test
+  public void testCreateFromConfiguration() {
+    Configuration conf = HBaseConfiguration.create();
+    CacheStats stats = new CacheStats("test");
+    assertSame(BlockCacheAdmissionFilter.NONE, BlockCacheAdmissionFilter.create(conf, 10, stats));
+    conf.set(CacheConfig.BLOCKCACHE_ADMISSION_POLICY_KEY, "TinyLFU");
+    assertTrue(BlockCacheAdmissionFilter.create(conf, 10, stats)
+        instanceof TinyLfuAdmissionFilter);
+  }
+
+  @Test
+  public void testScanDoesNotFlushHotBlocks() {
+    int hotWithoutFilter = runHotThenScan("none");
+    int hotWithFilter = runHotThenScan("tinylfu");
+    String msg = "without=" + hotWithoutFilter + ", with=" + hotWithFilter;
+    // The sketch overestimates some one-off blocks, so a few of them still get in.
+    assertTrue(msg, hotWithFilter >= HOT_BLOCKS * 3 / 4);
+    assertTrue(msg, hotWithFilter > hotWithoutFilter);
+  }
+
+  /**
+   * Reads a hot set a few times among other reads, then runs a scan over many more blocks than
+   * fit in the cache.
+   * @return how many hot blocks are still cached afterwards
+   */
+  private static int runHotThenScan(String policy) {
+    Configuration conf = HBaseConfiguration.create();
+    conf.set(CacheConfig.BLOCKCACHE_ADMISSION_POLICY_KEY, policy);
+    LruBlockCache cache = new LruBlockCache(MAX_SIZE, BLOCK_SIZE, false, conf);
+    // Fill the cache with a mix of hot blocks and one-off reads so that it has had to evict.
+    for (int round = 0; round < 4; round++) {
+      for (int i = 0; i < HOT_BLOCKS; i++) {
+        readThrough(cache, new Block("hot", i));
+        readThrough(cache, new Block("cold", round * HOT_BLOCKS + i));
+      }
+    }
+    for (int i = 0; i < SCAN_BLOCKS; i++) {
+      readThrough(cache, new Block("scan", i));
+    }
+    if ("tinylfu".equals(policy)) {
+      assertTrue(cache.getStats().getRejectedCount() > 0);
+    }
+    int hot = 0;
+    for (int i = 0; i < HOT_BLOCKS; i++) {
+      if (cache.containsBlock(new Block("hot", i).cacheKey)) {
+        hot++;
+      }
+    }
+    return hot;
+  }
+
+  private static void readThrough(LruBlockCache cache, Block block) {
+    if (cache.getBlock(block.cacheKey, true, false, true) == null) {
+      cache.cacheBlock(block.cacheKey, block);
+    }
+  }
+
+  private static class Block implements Cacheable {
+    final BlockCacheKey cacheKey;
+
+    Block(String hfileName, int index) {
+      this.cacheKey = new BlockCacheKey(hfileName, (long) index * BLOCK_SIZE, true,
+          BlockType.DATA);
+    }
+
+    @Override
+    public long heapSize() {
+      return ClassSize.align(BLOCK_SIZE);
+    }
+
+    @Override
+    public int getSerializedLength() {
+      return 0;
+    }
+
+    @Override
+    public CacheableDeserializer<Cacheable> getDeserializer() {
+      return null;
+    }
+
+    @Override
+    public void serialize(ByteBuffer destination) {
+    }
+
+    @Override
+    public BlockType getBlockType() {
+      return BlockType.DATA;
+    }
+
+    @Override
+    public MemoryType getMemoryType() {
+      return MemoryType.EXCLUSIVE;
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright The Apache Software Foundation
+ *
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile.bucket;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.hbase.io.hfile.bucket.TestByteBufferIOEngine.BufferGrabbingDeserializer;
+import org.apache.hadoop.hbase.nio.ByteBuff;
+import org.apache.hadoop.hbase.testclassification.IOTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests that {@link BatchingIOEngine} merges writes to neighbouring allocations.
+ */
+@Category({IOTests.class, SmallTests.class})
+public class TestBatchingIOEngine {
+
+  private static final int SMALL = 8 * 1024;
+  private static final int LARGE = 16 * 1024;
+
+  /** Counts the writes that reach the engine. */
+  private static class CountingIOEngine extends ByteBufferIOEngine {
+    int writes;
+
+    CountingIOEngine(long capacity) throws IOException {
+      super(capacity, false);
+    }
+
+    @Override
+    public void write(ByteBuffer srcBuffer, long offset) throws IOException {
+      writes++;
+      super.write(srcBuffer, offset);
+    }
+
+    @Override
+    public void write(ByteBuffer[] srcBuffers, long offset) throws IOException {
+      writes++;
+      for (ByteBuffer srcBuffer : srcBuffers) {
+        int length = srcBuffer.remaining();
+        super.write(srcBuffer, offset);
+        offset += length;
+      }
+    }
+  }
+
+  @Test
+  public void testNeighbouringAllocationsAreMerged() throws Exception {
+    long capacity = 16 * 4 * LARGE;
+    BucketAllocator allocator = new BucketAllocator(capacity, new int[] { SMALL, LARGE });
+    CountingIOEngine engine = new CountingIOEngine(capacity);
+    BatchingIOEngine batch = new BatchingIOEngine(engine, allocator);
+
+    // Three blocks that do not fill their allocations, each written as data then metadata the
+    // way BucketCache writes HFileBlocks, and one block off in a bucket of its own.
+    int blockSize = SMALL - 500;
+    byte[][] blocks = new byte[4][];
+    long[] offsets = new long[4];
+    for (int i = 0; i < blocks.length; i++) {
+      int size = i < 3 ? blockSize : LARGE - 100;
+      blocks[i] = new byte[size];
+      for (int j = 0; j < size; j++) {
+        blocks[i][j] = (byte) (i * 31 + j);
+      }
+      offsets[i] = allocator.allocateBlock(size);
+      batch.write(ByteBuffer.wrap(blocks[i], 0, size - 10), offsets[i]);
+      batch.write(ByteBuffer.wrap(blocks[i], size - 10, 10), offsets[i] + size - 10);
+    }
+    assertEquals(0, engine.writes);
+    assertEquals(2, batch.flush());
+    assertEquals(2, engine.writes);
+    for (int i = 0; i < blocks.length; i++) {
+      BufferGrabbingDeserializer deserializer = new BufferGrabbingDeserializer();
+      engine.read(offsets[i], blocks[i].length, deserializer);
+      ByteBuff data = deserializer.getDeserializedByteBuff();
+      for (int j = 0; j < blocks[i].length; j++) {
+        assertEquals(blocks[i][j], data.get(j));
+      }
+    }
+    // Flushing forgets what was written.
+    assertEquals(0, batch.flush());
+  }
+}
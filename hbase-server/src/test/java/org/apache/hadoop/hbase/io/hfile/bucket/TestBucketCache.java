@@ -268,4 +268,87 @@ public class TestBucketCache {
 
     TEST_UTIL.cleanupTestDir();
   }
+
+  @Test
+  public void testEvictionsDemotedToLowerTier() throws Exception {
+    int bucketSize = 10 * 1024;
+    // Four buckets of four blocks each
+    BucketCache upper = new BucketCache(ioEngineName, 16 * bucketSize, 8192,
+        new int[] { bucketSize }, 1, writerQLen, persistencePath);
+    BucketCache lower = new BucketCache(ioEngineName, capacitySize, 8192,
+        new int[] { bucketSize }, 1, writerQLen, persistencePath);
+    upper.setVictimCache(lower);
+    try {
+      HFileBlockPair[] blocks = CacheTestUtils.generateHFileBlocks(8192, 40);
+      for (HFileBlockPair block : blocks) {
+        upper.cacheBlockWithWait(block.getBlockName(), block.getBlock(), false, true);
+        waitUntilWritten(upper);
+      }
+      while (upper.getPendingDemotionCount() > 0) {
+        Thread.sleep(10);
+      }
+      waitUntilWritten(lower);
+      long demoted = upper.getStats().getDemotedCount();
+      assertTrue(demoted > 0);
+      HFileBlockPair lowerOnly = null;
+      int inLower = 0;
+      for (HFileBlockPair block : blocks) {
+        if (lower.backingMap.containsKey(block.getBlockName())) {
+          inLower++;
+          assertTrue(!upper.backingMap.containsKey(block.getBlockName()));
+          lowerOnly = block;
+        }
+      }
+      assertEquals(demoted, inLower);
+
+      // A hit in the lower tier is counted there, and promotes the block.
+      assertEquals(lowerOnly.getBlock(),
+        upper.getBlock(lowerOnly.getBlockName(), true, false, true));
+      assertEquals(1, upper.getStats().getPromotedCount());
+      assertEquals(0, upper.getStats().getMissCount());
+      assertEquals(1, lower.getStats().getHitCount());
+      waitUntilWritten(upper);
+      assertTrue(upper.backingMap.containsKey(lowerOnly.getBlockName()));
+
+      // A miss is only counted by the lowest tier.
+      BlockCacheKey absent = new BlockCacheKey("absent", 0);
+      assertEquals(null, upper.getBlock(absent, true, false, true));
+      assertEquals(0, upper.getStats().getMissCount());
+      assertEquals(1, lower.getStats().getMissCount());
+
+      // Evicting a block takes it out of every tier.
+      assertTrue(upper.evictBlock(lowerOnly.getBlockName()));
+      assertTrue(!upper.backingMap.containsKey(lowerOnly.getBlockName()));
+      assertTrue(!lower.backingMap.containsKey(lowerOnly.getBlockName()));
+    } finally {
+      upper.shutdown();
+    }
+  }
+
+  @Test
+  public void testPromotionKeepsInMemory() throws Exception {
+    BucketCache upper = new BucketCache(ioEngineName, capacitySize, 8192,
+        constructedBlockSizes, 1, writerQLen, persistencePath);
+    BucketCache lower = new BucketCache(ioEngineName, capacitySize, 8192,
+        constructedBlockSizes, 1, writerQLen, persistencePath);
+    upper.setVictimCache(lower);
+    try {
+      HFileBlockPair[] blocks = CacheTestUtils.generateHFileBlocks(8192, 1);
+      lower.cacheBlockWithWait(blocks[0].getBlockName(), blocks[0].getBlock(), true, true);
+      waitUntilWritten(lower);
+      assertEquals(blocks[0].getBlock(),
+        upper.getBlock(blocks[0].getBlockName(), true, false, true));
+      waitUntilWritten(upper);
+      assertTrue(upper.backingMap.containsKey(blocks[0].getBlockName()));
+      assertTrue(upper.isInMemory(blocks[0].getBlockName()));
+    } finally {
+      upper.shutdown();
+    }
+  }
+
+  private static void waitUntilWritten(BucketCache cache) throws InterruptedException {
+    while (!cache.ramCache.isEmpty()) {
+      Thread.sleep(10);
+    }
+  }
 }
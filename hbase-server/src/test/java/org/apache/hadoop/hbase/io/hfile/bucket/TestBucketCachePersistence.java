@@ -0,0 +1,242 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements. See the NOTICE file distributed with this
+ * work for additional information regarding copyright ownership. The ASF
+ * licenses this file to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.hadoop.hbase.io.hfile.bucket;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.io.hfile.BlockCacheKey;
+import org.apache.hadoop.hbase.io.hfile.CacheTestUtils;
+import org.apache.hadoop.hbase.io.hfile.CacheTestUtils.HFileBlockPair;
+import org.apache.hadoop.hbase.io.hfile.Cacheable;
+import org.apache.hadoop.hbase.testclassification.IOTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Tests the checkpoint and journal based persistence of the BucketCache index, simulating
+ * crashes by abandoning a cache without shutting it down.
+ */
+@Category({ IOTests.class, SmallTests.class })
+public class TestBucketCachePersistence {
+  private static final HBaseTestingUtility TEST_UTIL = new HBaseTestingUtility();
+
+  private static final int BLOCK_SIZE = 8192;
+  private static final long CAPACITY_SIZE = 32 * 1024 * 1024;
+
+  private Path testDir;
+  private String persistencePath;
+  private Configuration conf;
+
+  @Before
+  public void setUp() throws IOException {
+    testDir = TEST_UTIL.getDataTestDir();
+    new File(testDir.toString()).mkdirs();
+    persistencePath = testDir + "/bucket.persistence";
+    conf = HBaseConfiguration.create();
+    // Tests drive checkpoints by hand.
+    conf.setLong(BucketCache.BUCKETCACHE_PERSIST_INTERVAL_KEY, 60 * 60 * 1000);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    TEST_UTIL.cleanupTestDir();
+  }
+
+  private BucketCache newCache() throws IOException {
+    return new BucketCache("file:" + testDir + "/bucket.cache", CAPACITY_SIZE, BLOCK_SIZE, null,
+        BucketCache.DEFAULT_WRITER_THREADS, BucketCache.DEFAULT_WRITER_QUEUE_ITEMS,
+        persistencePath, BucketCache.DEFAULT_ERROR_TOLERATION_DURATION, conf);
+  }
+
+  /**
+   * The generated blocks say they live at offset BLOCK_SIZE; key them the same way a reader would.
+   */
+  private static BlockCacheKey keyOf(HFileBlockPair pair) {
+    return new BlockCacheKey(pair.getBlockName().getHfileName(), BLOCK_SIZE);
+  }
+
+  private static void cacheAndWaitUntilFlushed(BucketCache cache, BlockCacheKey key,
+      Cacheable block) throws InterruptedException {
+    cache.cacheBlock(key, block);
+    while (!cache.backingMap.containsKey(key)) {
+      Thread.sleep(100);
+    }
+  }
+
+  @Test
+  public void testRecoverFromCheckpointAndJournal() throws Exception {
+    BucketCache crashed = newCache();
+    HFileBlockPair[] blocks = CacheTestUtils.generateHFileBlocks(BLOCK_SIZE, 6);
+    for (int i = 0; i < 3; i++) {
+      cacheAndWaitUntilFlushed(crashed, keyOf(blocks[i]), blocks[i].getBlock());
+    }
+    crashed.checkpoint();
+    // These only make it into the journal.
+    for (int i = 3; i < 6; i++) {
+      cacheAndWaitUntilFlushed(crashed, keyOf(blocks[i]), blocks[i].getBlock());
+    }
+    crashed.syncJournal();
+    crashed.stopWithoutPersisting();
+
+    BucketCache recovered = newCache();
+    try {
+      assertEquals(6, recovered.backingMap.size());
+      assertEquals(6, recovered.getBlockCount());
+      for (HFileBlockPair pair : blocks) {
+        assertEquals(pair.getBlock(), recovered.getBlock(keyOf(pair), false, false, true));
+      }
+    } finally {
+      recovered.shutdown();
+    }
+  }
+
+  @Test
+  public void testEvictionSurvivesCrash() throws Exception {
+    BucketCache crashed = newCache();
+    HFileBlockPair[] blocks = CacheTestUtils.generateHFileBlocks(BLOCK_SIZE, 3);
+    for (HFileBlockPair pair : blocks) {
+      cacheAndWaitUntilFlushed(crashed, keyOf(pair), pair.getBlock());
+    }
+    crashed.checkpoint();
+    assertTrue(crashed.evictBlock(keyOf(blocks[0])));
+    HFileBlockPair[] more = CacheTestUtils.generateHFileBlocks(BLOCK_SIZE, 1);
+    cacheAndWaitUntilFlushed(crashed, keyOf(more[0]), more[0].getBlock());
+    crashed.syncJournal();
+    crashed.stopWithoutPersisting();
+
+    BucketCache recovered = newCache();
+    try {
+      assertNull(recovered.getBlock(keyOf(blocks[0]), false, false, true));
+      assertEquals(blocks[1].getBlock(), recovered.getBlock(keyOf(blocks[1]), false, false, true));
+      assertEquals(more[0].getBlock(), recovered.getBlock(keyOf(more[0]), false, false, true));
+    } finally {
+      recovered.shutdown();
+    }
+  }
+
+  @Test
+  public void testCorruptCheckpointIsDiscarded() throws Exception {
+    BucketCache crashed = newCache();
+    HFileBlockPair[] blocks = CacheTestUtils.generateHFileBlocks(BLOCK_SIZE, 3);
+    for (HFileBlockPair pair : blocks) {
+      cacheAndWaitUntilFlushed(crashed, keyOf(pair), pair.getBlock());
+    }
+    crashed.checkpoint();
+    crashed.stopWithoutPersisting();
+
+    RandomAccessFile raf = new RandomAccessFile(persistencePath, "rw");
+    try {
+      long pos = raf.length() - 10;
+      raf.seek(pos);
+      int b = raf.read();
+      raf.seek(pos);
+      raf.write(b ^ 0xFF);
+    } finally {
+      raf.close();
+    }
+
+    BucketCache recovered = newCache();
+    try {
+      assertEquals(0, recovered.backingMap.size());
+    } finally {
+      recovered.shutdown();
+    }
+  }
+
+  @Test
+  public void testStaleRestoredEntryIsDropped() throws Exception {
+    BucketCache crashed = newCache();
+    HFileBlockPair[] blocks = CacheTestUtils.generateHFileBlocks(BLOCK_SIZE, 2);
+    for (HFileBlockPair pair : blocks) {
+      cacheAndWaitUntilFlushed(crashed, keyOf(pair), pair.getBlock());
+    }
+    crashed.checkpoint();
+    // Scribble over the first block behind the index's back.
+    BucketCache.BucketEntry entry = crashed.backingMap.get(keyOf(blocks[0]));
+    crashed.ioEngine.write(ByteBuffer.allocate(entry.getLength()), entry.offset());
+    crashed.ioEngine.sync();
+    crashed.stopWithoutPersisting();
+
+    BucketCache recovered = newCache();
+    try {
+      assertNull(recovered.getBlock(keyOf(blocks[0]), false, false, true));
+      assertNull(recovered.backingMap.get(keyOf(blocks[0])));
+      assertEquals(1, ((BucketCacheStats) recovered.getStats()).getStaleRestoredBlockCount());
+      assertEquals(blocks[1].getBlock(), recovered.getBlock(keyOf(blocks[1]), false, false, true));
+    } finally {
+      recovered.shutdown();
+    }
+  }
+
+  @Test
+  public void testRestoredEntryHoldingAnotherFilesBlockIsDropped() throws Exception {
+    BucketCache crashed = newCache();
+    HFileBlockPair[] blocks = CacheTestUtils.generateHFileBlocks(BLOCK_SIZE, 2);
+    cacheAndWaitUntilFlushed(crashed, keyOf(blocks[0]), blocks[0].getBlock());
+    crashed.checkpoint();
+    // A block of another hfile, at the same offset in its file, takes over the bucket.
+    BucketCache.BucketEntry entry = crashed.backingMap.get(keyOf(blocks[0]));
+    ByteBuffer other = ByteBuffer.allocate(blocks[1].getBlock().getSerializedLength());
+    blocks[1].getBlock().serialize(other);
+    assertEquals(entry.getLength(), other.limit());
+    crashed.ioEngine.write(other, entry.offset());
+    crashed.ioEngine.sync();
+    crashed.stopWithoutPersisting();
+
+    BucketCache recovered = newCache();
+    try {
+      assertNull(recovered.getBlock(keyOf(blocks[0]), false, false, true));
+      assertNull(recovered.backingMap.get(keyOf(blocks[0])));
+      assertEquals(1, ((BucketCacheStats) recovered.getStats()).getStaleRestoredBlockCount());
+    } finally {
+      recovered.shutdown();
+    }
+  }
+
+  @Test
+  public void testCleanShutdownRestores() throws Exception {
+    BucketCache cache = newCache();
+    HFileBlockPair[] blocks = CacheTestUtils.generateHFileBlocks(BLOCK_SIZE, 3);
+    for (HFileBlockPair pair : blocks) {
+      cacheAndWaitUntilFlushed(cache, keyOf(pair), pair.getBlock());
+    }
+    cache.shutdown();
+
+    BucketCache recovered = newCache();
+    try {
+      for (HFileBlockPair pair : blocks) {
+        assertEquals(pair.getBlock(), recovered.getBlock(keyOf(pair), false, false, true));
+      }
+    } finally {
+      recovered.shutdown();
+    }
+  }
+}
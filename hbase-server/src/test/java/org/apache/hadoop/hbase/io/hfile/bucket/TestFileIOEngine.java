@@ -18,10 +18,12 @@
  */
 package org.apache.hadoop.hbase.io.hfile.bucket;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
 
 import org.apache.hadoop.hbase.io.hfile.bucket.TestByteBufferIOEngine.BufferGrabbingDeserializer;
@@ -65,4 +67,63 @@ public class TestFileIOEngine {
     }
 
   }
+
+  @Test
+  public void testStripedFileIOEngine() throws IOException {
+    int size = 5 * FileIOEngine.STRIPE_SIZE + 1234;
+    String[] filePaths = { "testStripedFileIOEngine0", "testStripedFileIOEngine1",
+      "testStripedFileIOEngine2" };
+    try {
+      FileIOEngine fileIOEngine = new FileIOEngine(size, filePaths);
+      for (String filePath : filePaths) {
+        assertEquals(2 * FileIOEngine.STRIPE_SIZE, new File(filePath).length());
+      }
+      // Writes that straddle stripes, single and gathered.
+      long offset = FileIOEngine.STRIPE_SIZE - 100;
+      byte[] data1 = randomBytes(300);
+      fileIOEngine.write(ByteBuffer.wrap(data1), offset);
+      assertRead(fileIOEngine, data1, offset);
+      byte[] head = randomBytes(150);
+      byte[] tail = randomBytes(FileIOEngine.STRIPE_SIZE + 50);
+      offset = 2L * FileIOEngine.STRIPE_SIZE - 100;
+      fileIOEngine.write(new ByteBuffer[] { ByteBuffer.wrap(head), ByteBuffer.wrap(tail) },
+        offset);
+      assertRead(fileIOEngine, head, offset);
+      assertRead(fileIOEngine, tail, offset + head.length);
+      fileIOEngine.shutdown();
+      // The second stripe is the start of the second file.
+      try (RandomAccessFile raf = new RandomAccessFile(filePaths[1], "r")) {
+        byte[] onDisk = new byte[200];
+        raf.readFully(onDisk);
+        for (int j = 0; j < onDisk.length; ++j) {
+          assertEquals(data1[100 + j], onDisk[j]);
+        }
+      }
+    } finally {
+      for (String filePath : filePaths) {
+        File file = new File(filePath);
+        if (file.exists()) {
+          file.delete();
+        }
+      }
+    }
+  }
+
+  private static byte[] randomBytes(int len) {
+    byte[] data = new byte[len];
+    for (int j = 0; j < data.length; ++j) {
+      data[j] = (byte) (Math.random() * 255);
+    }
+    return data;
+  }
+
+  private static void assertRead(FileIOEngine fileIOEngine, byte[] expected, long offset)
+      throws IOException {
+    BufferGrabbingDeserializer deserializer = new BufferGrabbingDeserializer();
+    fileIOEngine.read(offset, expected.length, deserializer);
+    ByteBuff data = deserializer.getDeserializedByteBuff();
+    for (int j = 0; j < expected.length; ++j) {
+      assertEquals(expected[j], data.get(j));
+    }
+  }
 }
@@ -91,6 +91,27 @@ public class TestBufferChain {
     assertNoRemaining(bufs);
   }
 
+  @Test
+  public void testEmptyBuffersBetween() throws IOException {
+    ByteBuffer[] bufs = new ByteBuffer[] {
+        stringBuf("hello", 0, 5),
+        ByteBuffer.allocate(0),
+        stringBuf(" ", 0, 1),
+        ByteBuffer.allocate(0),
+        stringBuf("world", 0, 5),
+        ByteBuffer.allocate(0) };
+    BufferChain chain = new BufferChain(bufs);
+    writeAndVerify(chain, "hello world", 8192);
+    assertNoRemaining(bufs);
+    bufs = new ByteBuffer[] {
+        stringBuf("hello", 0, 5),
+        ByteBuffer.allocate(0),
+        stringBuf(" world", 0, 6) };
+    chain = new BufferChain(bufs);
+    writeAndVerify(chain, "hello world", 3);
+    assertNoRemaining(bufs);
+  }
+
   @Test
   public void testWithSpy() throws IOException {
     ByteBuffer[] bufs = new ByteBuffer[] {
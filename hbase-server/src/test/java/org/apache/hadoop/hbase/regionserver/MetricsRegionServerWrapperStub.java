@@ -260,6 +260,156 @@ public class MetricsRegionServerWrapperStub implements MetricsRegionServerWrappe
     return 36;
   }
 
+  @Override
+  public long getBlockCacheWriterQueueFullCount() {
+    return 43;
+  }
+
+  @Override
+  public long getBlockCacheReadaheadCount() {
+    return 44;
+  }
+
+  @Override
+  public long getBlockCacheReadaheadHitCount() {
+    return 45;
+  }
+
+  @Override
+  public long getBlockCacheReadaheadWastedCount() {
+    return 46;
+  }
+
+  @Override
+  public long getHFileStreamPoolReadCount() {
+    return 47;
+  }
+
+  @Override
+  public long getHFileStreamPoolFallbackCount() {
+    return 48;
+  }
+
+  @Override
+  public long getHFileStreamPoolOpenCount() {
+    return 49;
+  }
+
+  @Override
+  public long getHFileStreamPoolBusyCount() {
+    return 50;
+  }
+
+  @Override
+  public long getBloomChunkCacheSize() {
+    return 51;
+  }
+
+  @Override
+  public long getBloomChunkCacheHitCount() {
+    return 52;
+  }
+
+  @Override
+  public long getBloomChunkCacheMissCount() {
+    return 53;
+  }
+
+  @Override
+  public long getInMemoryFlattenCount() {
+    return 54;
+  }
+
+  @Override
+  public long getInMemoryMergeCount() {
+    return 55;
+  }
+
+  @Override
+  public long getInMemoryCompactionCount() {
+    return 56;
+  }
+
+  @Override
+  public long getInMemoryFlattenTime() {
+    return 57;
+  }
+
+  @Override
+  public long getInMemoryMergeTime() {
+    return 58;
+  }
+
+  @Override
+  public long getInMemoryCompactionTime() {
+    return 59;
+  }
+
+  @Override
+  public long getInMemoryFlattenFreedSize() {
+    return 60;
+  }
+
+  @Override
+  public long getInMemoryMergeFreedSize() {
+    return 61;
+  }
+
+  @Override
+  public long getInMemoryCompactionFreedSize() {
+    return 62;
+  }
+
+  @Override
+  public double getScanRequestsPerSecond() {
+    return 63;
+  }
+
+  @Override
+  public long getScanBytesPerRequest() {
+    return 64;
+  }
+
+  @Override
+  public long getScanSizeLimitInUse() {
+    return 65;
+  }
+
+  @Override
+  public long getScanSizeLimitReducedCount() {
+    return 66;
+  }
+
+  @Override
+  public long getBlockCacheUnpackCount() {
+    return 40;
+  }
+
+  @Override
+  public long getBlockCacheUnpackTime() {
+    return 41;
+  }
+
+  @Override
+  public long getBlockCacheUnpackedHitCount() {
+    return 42;
+  }
+
+  @Override
+  public long getBlockCacheAdmittedCount() {
+    return 37;
+  }
+
+  @Override
+  public long getBlockCacheRejectedCount() {
+    return 38;
+  }
+
+  @Override
+  public long getBlockCacheRejectedRequestCount() {
+    return 39;
+  }
+
   @Override
   public long getUpdatesBlockedTime() {
     return 419;
@@ -18,6 +18,9 @@
 
 package org.apache.hadoop.hbase.regionserver;
 
+import java.util.Collection;
+import java.util.Collections;
+
 public class MetricsRegionWrapperStub implements MetricsRegionWrapper {
   int replicaid = 0;
 
@@ -135,6 +138,61 @@ public class MetricsRegionWrapperStub implements MetricsRegionWrapper {
     return 42;
   }
 
+  @Override
+  public long getRowLockContentionCount() {
+    return 7;
+  }
+
+  @Override
+  public long getRowLockWaitTime() {
+    return 700;
+  }
+
+  @Override
+  public long getCoalescedIncrementCount() {
+    return 12;
+  }
+
+  @Override
+  public long getCoalescedIncrementApplyCount() {
+    return 4;
+  }
+
+  @Override
+  public long getColumnStatsScanCount() {
+    return 20;
+  }
+
+  @Override
+  public long getColumnStatsPrunedFilesCount() {
+    return 30;
+  }
+
+  @Override
+  public Collection<String> getBloomFilterFamilies() {
+    return Collections.singletonList("cf");
+  }
+
+  @Override
+  public long getBloomFilterRequestCount(String family) {
+    return 110;
+  }
+
+  @Override
+  public long getBloomFilterNegativeCount(String family) {
+    return 90;
+  }
+
+  @Override
+  public long getBloomFilterFalsePositiveCount(String family) {
+    return 10;
+  }
+
+  @Override
+  public long getBloomFilterCheckTime(String family) {
+    return 111;
+  }
+
   /**
    * Get the replica id of this region.
    */
@@ -0,0 +1,188 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HBaseTestingUtility;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.HTableDescriptor;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.hbase.client.Delete;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Mutation;
+import org.apache.hadoop.hbase.client.Put;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+/**
+ * Measures how many bytes the write path of {@link HRegion} allocates per mutation, for puts,
+ * deletes and increments. Each kind is warmed up first and then run on one thread, whose
+ * allocations are read from the {@link com.sun.management.ThreadMXBean}. With
+ * <code>-budget</code> the tool fails when any kind allocates more per mutation, so the write
+ * path can be held to an allocation budget.
+ * See usage for this tool by running:
+ * <code>$ hbase org.apache.hadoop.hbase.regionserver.MiniBatchAllocationEvaluation -h</code>
+ */
+@InterfaceAudience.Private
+public final class MiniBatchAllocationEvaluation extends Configured implements Tool {
+  private static final Log LOG = LogFactory.getLog(MiniBatchAllocationEvaluation.class);
+
+  static final byte[] FAMILY = Bytes.toBytes("cf");
+  static final byte[] QUALIFIER = Bytes.toBytes("q");
+
+  private int numRows = 1000;
+  private int batchSize = 1;
+  private int valueSize = 16;
+
+  @Override
+  public int run(String[] args) throws Exception {
+    long iterations = 100000;
+    long budget = -1;
+    for (int i = 0; i < args.length; i++) {
+      String cmd = args[i];
+      try {
+        if (cmd.equals("-iterations")) {
+          iterations = Long.parseLong(args[++i]);
+        } else if (cmd.equals("-rows")) {
+          numRows = Integer.parseInt(args[++i]);
+        } else if (cmd.equals("-batch")) {
+          batchSize = Integer.parseInt(args[++i]);
+        } else if (cmd.equals("-valueSize")) {
+          valueSize = Integer.parseInt(args[++i]);
+        } else if (cmd.equals("-budget")) {
+          budget = Long.parseLong(args[++i]);
+        } else if (cmd.equals("-h") || cmd.equals("--help")) {
+          printUsageAndExit();
+        } else {
+          System.err.println("UNEXPECTED: " + cmd);
+          printUsageAndExit();
+        }
+      } catch (Exception e) {
+        printUsageAndExit();
+      }
+    }
+
+    com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    if (!threads.isThreadAllocatedMemorySupported()) {
+      System.err.println("Thread allocated memory is not supported by this JVM");
+      return 1;
+    }
+    threads.setThreadAllocatedMemoryEnabled(true);
+
+    HBaseTestingUtility util = new HBaseTestingUtility(getConf());
+    HTableDescriptor htd =
+        new HTableDescriptor(TableName.valueOf(MiniBatchAllocationEvaluation.class.getSimpleName()));
+    htd.addFamily(new HColumnDescriptor(FAMILY));
+    HRegionInfo hri = new HRegionInfo(htd.getTableName());
+    HRegion region = HBaseTestingUtility.createRegionAndWAL(hri, util.getDataTestDir(),
+      util.getConfiguration(), htd);
+    boolean withinBudget = true;
+    try {
+      for (Kind kind : Kind.values()) {
+        // Warm up so that the JIT and the per handler structures are in place
+        write(region, kind, iterations / 10);
+        long before = threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        long start = System.nanoTime();
+        long mutations = write(region, kind, iterations);
+        long took = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+        long perMutation = allocated / mutations;
+        LOG.info(String.format("%s: %d mutations in %.3fs, %d bytes allocated per mutation",
+          kind, mutations, took / 1e9, perMutation));
+        if (budget >= 0 && perMutation > budget) {
+          LOG.error(kind + " allocated " + perMutation + " bytes per mutation, budget is "
+              + budget);
+          withinBudget = false;
+        }
+      }
+    } finally {
+      HBaseTestingUtility.closeRegionAndWAL(region);
+      util.cleanupTestDir();
+    }
+    return withinBudget ? 0 : 1;
+  }
+
+  private enum Kind {
+    PUT, DELETE, INCREMENT
+  }
+
+  /**
+   * @return the number of mutations written
+   */
+  private long write(HRegion region, Kind kind, long iterations) throws IOException {
+    byte[] value = new byte[valueSize];
+    long mutations = 0;
+    Mutation[] batch = new Mutation[batchSize];
+    for (long i = 0; i < iterations; i++) {
+      byte[] row = Bytes.toBytes((int) (i % numRows));
+      switch (kind) {
+        case INCREMENT:
+          region.increment(new Increment(row).addColumn(FAMILY, QUALIFIER, 1));
+          mutations++;
+          continue;
+        case PUT:
+          batch[(int) (i % batchSize)] = new Put(row).addColumn(FAMILY, QUALIFIER, value);
+          break;
+        case DELETE:
+          batch[(int) (i % batchSize)] = new Delete(row).addColumns(FAMILY, QUALIFIER);
+          break;
+        default:
+          throw new IllegalArgumentException(kind.toString());
+      }
+      if ((i + 1) % batchSize == 0) {
+        region.batchMutate(batch);
+        mutations += batchSize;
+      }
+    }
+    return mutations;
+  }
+
+  private void printUsageAndExit() {
+    System.err.printf("Usage: bin/hbase %s [options]\n", getClass().getName());
+    System.err.println(" where [options] are:");
+    System.err.println("  -h|-help          Show this help and exit.");
+    System.err.println("  -iterations <N>   Number of mutations of each kind. Default: 100000");
+    System.err.println("  -rows <N>         Number of distinct rows written. Default: 1000");
+    System.err.println("  -batch <N>        Puts and deletes per batch. Default: 1");
+    System.err.println("  -valueSize <N>    Put value size in bytes. Default: 16");
+    System.err.println("  -budget <N>       Fail if any kind allocates more than N bytes per "
+        + "mutation.");
+    System.exit(1);
+  }
+
+  /**
+   * Call this method to avoid the {@link #main(String[])} System.exit.
+   */
+  static int innerMain(final String[] args) throws Exception {
+    return ToolRunner.run(HBaseConfiguration.create(), new MiniBatchAllocationEvaluation(), args);
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.exit(innerMain(args));
+  }
+}
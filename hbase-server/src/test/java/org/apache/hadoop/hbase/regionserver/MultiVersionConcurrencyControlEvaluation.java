@@ -0,0 +1,156 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.apache.hadoop.conf.Configured;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.classification.InterfaceAudience;
+import org.apache.hadoop.util.Tool;
+import org.apache.hadoop.util.ToolRunner;
+
+/**
+ * Measures the throughput of {@link MultiVersionConcurrencyControl} with many writers of one
+ * region: each writer begins a write, does some work, and completes it waiting for the read
+ * point, like a handler does around its WAL append. Each number of writers is warmed up first.
+ * Compare builds by running the tool against each.
+ * See usage for this tool by running:
+ * <code>$ hbase org.apache.hadoop.hbase.regionserver.MultiVersionConcurrencyControlEvaluation
+ * -h</code>
+ */
+@InterfaceAudience.Private
+public final class MultiVersionConcurrencyControlEvaluation extends Configured implements Tool {
+  private static final Log LOG =
+      LogFactory.getLog(MultiVersionConcurrencyControlEvaluation.class);
+
+  private long durationMs = 10000;
+  private long workNs = 1000;
+
+  @Override
+  public int run(String[] args) throws Exception {
+    String threads = "16,64,256";
+    for (int i = 0; i < args.length; i++) {
+      String cmd = args[i];
+      try {
+        if (cmd.equals("-threads")) {
+          threads = args[++i];
+        } else if (cmd.equals("-duration")) {
+          durationMs = Long.parseLong(args[++i]) * 1000;
+        } else if (cmd.equals("-work")) {
+          workNs = Long.parseLong(args[++i]);
+        } else if (cmd.equals("-h") || cmd.equals("--help")) {
+          printUsageAndExit();
+        } else {
+          System.err.println("UNEXPECTED: " + cmd);
+          printUsageAndExit();
+        }
+      } catch (Exception e) {
+        printUsageAndExit();
+      }
+    }
+
+    for (String count : threads.split(",")) {
+      int writers = Integer.parseInt(count.trim());
+      // Warm up so that the JIT is done
+      write(writers, durationMs / 5);
+      long writes = write(writers, durationMs);
+      LOG.info(String.format("%d writers: %d writes in %.3fs, %.0f writes/s", writers, writes,
+        durationMs / 1e3, writes * 1e3 / durationMs));
+    }
+    return 0;
+  }
+
+  /**
+   * @return the number of writes completed
+   */
+  private long write(int writers, long ms) throws InterruptedException {
+    final MultiVersionConcurrencyControl mvcc = new MultiVersionConcurrencyControl();
+    final AtomicBoolean stop = new AtomicBoolean(false);
+    final LongAdder writes = new LongAdder();
+    final CountDownLatch start = new CountDownLatch(1);
+    Thread[] threads = new Thread[writers];
+    for (int i = 0; i < writers; i++) {
+      threads[i] = new Thread("writer-" + i) {
+        @Override
+        public void run() {
+          try {
+            start.await();
+          } catch (InterruptedException e) {
+            return;
+          }
+          while (!stop.get()) {
+            MultiVersionConcurrencyControl.WriteEntry e = mvcc.begin();
+            work();
+            mvcc.completeAndWait(e);
+            writes.increment();
+          }
+        }
+      };
+      threads[i].start();
+    }
+    start.countDown();
+    Thread.sleep(ms);
+    stop.set(true);
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    return writes.sum();
+  }
+
+  /**
+   * Busy for about {@link #workNs}, varied so that writes complete out of order.
+   */
+  private void work() {
+    if (workNs <= 0) {
+      return;
+    }
+    long until = System.nanoTime() + ThreadLocalRandom.current().nextLong(2 * workNs);
+    while (System.nanoTime() < until) {
+      // Spin
+    }
+  }
+
+  private void printUsageAndExit() {
+    System.err.printf("Usage: bin/hbase %s [options]\n", getClass().getName());
+    System.err.println(" where [options] are:");
+    System.err.println("  -h|-help          Show this help and exit.");
+    System.err.println("  -threads <N,..>   Comma separated numbers of writers to run with. "
+        + "Default: 16,64,256");
+    System.err.println("  -duration <N>     Seconds to run each number of writers. Default: 10");
+    System.err.println("  -work <N>         Average nanoseconds of work per write. Default: 1000");
+    System.exit(1);
+  }
+
+  /**
+   * Call this method to avoid the {@link #main(String[])} System.exit.
+   */
+  static int innerMain(final String[] args) throws Exception {
+    return ToolRunner.run(HBaseConfiguration.create(),
+      new MultiVersionConcurrencyControlEvaluation(), args);
+  }
+
+  public static void main(String[] args) throws Exception {
+    System.exit(innerMain(args));
+  }
+}
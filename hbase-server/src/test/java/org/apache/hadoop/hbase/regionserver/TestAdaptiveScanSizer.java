@@ -0,0 +1,125 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.regionserver.AdaptiveScanSizer.ScannerRate;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({RegionServerTests.class, SmallTests.class})
+public class TestAdaptiveScanSizer {
+
+  private static final long MAX_RESULT_SIZE = 1024 * 1024;
+
+  private Configuration conf;
+
+  @Before
+  public void setUp() {
+    conf = HBaseConfiguration.create();
+    conf.setBoolean(AdaptiveScanSizer.ENABLED_KEY, true);
+    conf.setLong(AdaptiveScanSizer.INTERVAL_MS_KEY, 100);
+    conf.setLong(AdaptiveScanSizer.MIN_RESULT_SIZE_KEY, 1024);
+    conf.setFloat(AdaptiveScanSizer.MEMORY_BUDGET_KEY, 0.5f);
+  }
+
+  @Test
+  public void testDisabledByDefault() {
+    assertFalse(new AdaptiveScanSizer(HBaseConfiguration.create()).isEnabled());
+  }
+
+  @Test
+  public void testFollowsClientRate() {
+    AdaptiveScanSizer sizer = new AdaptiveScanSizer(conf, Long.MAX_VALUE);
+    ScannerRate rate = new ScannerRate();
+    // Nothing known of the client yet
+    long granted = sizer.acquire(rate, MAX_RESULT_SIZE, 0);
+    assertEquals(MAX_RESULT_SIZE, granted);
+    sizer.release(rate, granted, 10000, 0);
+
+    // A slow client, 10 bytes/ms, gets the minimum
+    granted = sizer.acquire(rate, MAX_RESULT_SIZE, 1000);
+    assertEquals(1024, granted);
+    assertEquals(1024, sizer.getMemoryInUse());
+    sizer.release(rate, granted, 1024, 1000);
+    assertEquals(0, sizer.getMemoryInUse());
+
+    // The client speeds up to 1024 bytes/ms, averaging 517 bytes/ms over 100ms
+    granted = sizer.acquire(rate, MAX_RESULT_SIZE, 1001);
+    assertEquals(51700, granted);
+    sizer.release(rate, granted, 51700, 1001);
+
+    // A fast client gets no more than it asked for
+    granted = sizer.acquire(rate, MAX_RESULT_SIZE, 1002);
+    assertEquals(MAX_RESULT_SIZE, granted);
+    sizer.release(rate, granted, MAX_RESULT_SIZE, 1002);
+    assertEquals(2, sizer.getReducedCount());
+    assertEquals(0, sizer.getMemoryInUse());
+  }
+
+  @Test
+  public void testServerTimeIsNotClientTime() {
+    AdaptiveScanSizer sizer = new AdaptiveScanSizer(conf, Long.MAX_VALUE);
+    ScannerRate rate = new ScannerRate();
+    long granted = sizer.acquire(rate, MAX_RESULT_SIZE, 0);
+    // The server takes 900ms to build the response, the client 100ms to consume it
+    sizer.release(rate, granted, 10000, 900);
+    // 100 bytes/ms, not 10
+    assertEquals(10000, sizer.acquire(rate, MAX_RESULT_SIZE, 1000));
+  }
+
+  @Test
+  public void testEmptyResponseKeepsRate() {
+    AdaptiveScanSizer sizer = new AdaptiveScanSizer(conf, Long.MAX_VALUE);
+    ScannerRate rate = new ScannerRate();
+    sizer.release(rate, sizer.acquire(rate, MAX_RESULT_SIZE, 0), 0, 0);
+    // Nothing was sent, so nothing is known of the client yet
+    assertEquals(MAX_RESULT_SIZE, sizer.acquire(rate, MAX_RESULT_SIZE, 1000));
+  }
+
+  @Test
+  public void testMemoryBudget() {
+    // Budget of 3000 bytes
+    AdaptiveScanSizer sizer = new AdaptiveScanSizer(conf, 6000);
+    ScannerRate rate1 = new ScannerRate();
+    ScannerRate rate2 = new ScannerRate();
+    ScannerRate rate3 = new ScannerRate();
+    long granted1 = sizer.acquire(rate1, 2000, 0);
+    assertEquals(2000, granted1);
+    // What is left, but at least the minimum
+    long granted2 = sizer.acquire(rate2, 2000, 0);
+    assertEquals(1024, granted2);
+    long granted3 = sizer.acquire(rate3, 2000, 0);
+    assertEquals(1024, granted3);
+    assertEquals(4048, sizer.getMemoryInUse());
+    assertEquals(2, sizer.getReducedCount());
+
+    sizer.release(rate1, granted1, 2000, 0);
+    sizer.release(rate2, granted2, 1024, 0);
+    sizer.release(rate3, granted3, 1024, 0);
+    assertEquals(0, sizer.getMemoryInUse());
+    assertEquals(2000, sizer.acquire(new ScannerRate(), 2000, 0));
+  }
+}
@@ -82,6 +82,61 @@ public class TestCellFlatSet extends TestCase {
     testCellBlocks(cs);
     testIterators(cs);
   }
+  /* Create and test CellSet based on CellChunkMap, over Cells copied into an MSLAB */
+  @Test
+  public void testCellChunkMap() throws Exception {
+    MemStoreLAB mslab = new MemStoreLABImpl(CONF);
+    Cell[] copies = new Cell[NUM_OF_CELLS];
+    for (int i = 0; i < NUM_OF_CELLS; i++) {
+      copies[i] = mslab.copyCellInto(ascCells[i]);
+    }
+    CellChunkMap map = CellChunkMap.create(CellComparator.COMPARATOR, copies, NUM_OF_CELLS, mslab);
+    assertNotNull(map);
+    CellSet cs = new CellSet(map);
+    testCellBlocks(cs);
+    testIterators(cs);
+    testSubSet(cs);
+    mslab.close();
+  }
+
+  /* The index takes several chunks when small chunks are used */
+  @Test
+  public void testCellChunkMapOverManyChunks() throws Exception {
+    Configuration conf = new Configuration(CONF);
+    conf.setInt(MemStoreLAB.CHUNK_SIZE_KEY, 200);
+    conf.setInt(MemStoreLAB.MAX_ALLOC_KEY, 100);
+    MemStoreLAB mslab = new MemStoreLABImpl(conf);
+    final byte[] f = Bytes.toBytes("f");
+    final byte[] q = Bytes.toBytes("q");
+    int numOfCells = 50;
+    Cell[] cells = new Cell[numOfCells];
+    for (int i = 0; i < numOfCells; i++) {
+      KeyValue kv = new KeyValue(Bytes.toBytes(1000 + i), f, q, i, Bytes.toBytes(i));
+      kv.setSequenceId(i);
+      // Every other Cell stays where it was written, so the map spans several buffers.
+      cells[i] = i % 2 == 0 ? mslab.copyCellInto(kv) : kv;
+    }
+    CellChunkMap map = CellChunkMap.create(CellComparator.COMPARATOR, cells, numOfCells, mslab);
+    assertNotNull(map);
+    assertEquals(numOfCells, map.size());
+    int i = 0;
+    for (Cell cell : map.values()) {
+      assertTrue(CellUtil.equals(cells[i], cell));
+      assertEquals(i, cell.getSequenceId());
+      i++;
+    }
+    NavigableMap<Cell, Cell> sub = map.subMap(cells[10], true, cells[40], false);
+    assertEquals(30, sub.size());
+    assertTrue(CellUtil.equals(cells[39], sub.lastKey()));
+    assertTrue(CellUtil.equals(cells[25], map.floorKey(cells[25])));
+    mslab.close();
+  }
+
+  @Test
+  public void testCellChunkMapWithoutMSLAB() throws Exception {
+    assertNull(CellChunkMap.create(CellComparator.COMPARATOR, ascCells, NUM_OF_CELLS, null));
+  }
+
   @Test
   public void testAsc() throws Exception {
     CellSet ascCs = new CellSet(ascCbOnHeap);
@@ -0,0 +1,140 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.ColumnRangeFilter;
+import org.apache.hadoop.hbase.filter.FilterList;
+import org.apache.hadoop.hbase.filter.PrefixFilter;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({RegionServerTests.class, SmallTests.class})
+public class TestColumnStatsTracker {
+  private static final byte[] FAMILY = Bytes.toBytes("cf");
+
+  private static ColumnStatsTracker write(int maxQualifiers, String... qualifiers)
+      throws IOException {
+    ColumnStatsTracker tracker = new ColumnStatsTracker(maxQualifiers);
+    for (int row = 0; row < 3; row++) {
+      for (String qualifier : qualifiers) {
+        for (long ts = 2; ts > 0; ts--) {
+          tracker.track(new KeyValue(Bytes.toBytes("row" + row), FAMILY,
+            Bytes.toBytes(qualifier), ts, Bytes.toBytes("value")));
+        }
+      }
+    }
+    return ColumnStatsTracker.parseFrom(tracker.toByteArray());
+  }
+
+  private static NavigableSet<byte[]> columns(String... qualifiers) {
+    NavigableSet<byte[]> columns = new TreeSet<byte[]>(Bytes.BYTES_COMPARATOR);
+    for (String qualifier : qualifiers) {
+      columns.add(Bytes.toBytes(qualifier));
+    }
+    return columns;
+  }
+
+  private static boolean mayContainRange(ColumnStatsTracker stats, String min,
+      boolean minInclusive, String max, boolean maxInclusive) {
+    return stats.mayContainRange(min == null ? null : Bytes.toBytes(min), minInclusive,
+      max == null ? null : Bytes.toBytes(max), maxInclusive);
+  }
+
+  @Test
+  public void testQualifierList() throws IOException {
+    ColumnStatsTracker stats = write(10, "b", "d", "f");
+    assertTrue(stats.mayContainAny(columns("d")));
+    assertTrue(stats.mayContainAny(columns("a", "f")));
+    assertFalse(stats.mayContainAny(columns("c", "e")));
+    assertFalse(stats.mayContainAny(columns("a", "g")));
+
+    assertTrue(mayContainRange(stats, "c", true, "d", true));
+    assertFalse(mayContainRange(stats, "c", true, "d", false));
+    assertFalse(mayContainRange(stats, "d", false, "e", true));
+    assertTrue(mayContainRange(stats, "d", true, "d", true));
+    assertFalse(mayContainRange(stats, "g", true, null, false));
+    assertTrue(mayContainRange(stats, null, false, "b", true));
+    assertFalse(mayContainRange(stats, null, false, "b", false));
+  }
+
+  @Test
+  public void testQualifierRange() throws IOException {
+    // Too many qualifiers to list, only the range is kept
+    ColumnStatsTracker stats = write(2, "b", "d", "f");
+    assertTrue(stats.mayContainAny(columns("c")));
+    assertFalse(stats.mayContainAny(columns("a", "g")));
+    assertTrue(mayContainRange(stats, "c", true, "c", true));
+    assertFalse(mayContainRange(stats, "f", false, null, false));
+    assertFalse(mayContainRange(stats, "a", true, "b", false));
+    assertTrue(mayContainRange(stats, "a", true, "b", true));
+
+    stats = write(0, "b", "d", "f");
+    assertFalse(stats.mayContainAny(columns("a")));
+    assertTrue(stats.mayContainAny(columns("e")));
+  }
+
+  @Test
+  public void testFamilyDeletes() throws IOException {
+    ColumnStatsTracker tracker = new ColumnStatsTracker(10);
+    tracker.track(new KeyValue(Bytes.toBytes("row"), FAMILY, Bytes.toBytes("q"), 1,
+      Bytes.toBytes("value")));
+    tracker.track(new KeyValue(Bytes.toBytes("row"), FAMILY, null, 1,
+      KeyValue.Type.DeleteFamily));
+    // The family delete hides every column, so the file cannot be skipped by column
+    assertNull(tracker.toByteArray());
+    // Nothing tracked
+    assertNull(new ColumnStatsTracker(10).toByteArray());
+  }
+
+  @Test
+  public void testScans() throws IOException {
+    ColumnStatsTracker stats = write(10, "b", "d");
+    Scan scan = new Scan();
+    assertFalse(ColumnStatsTracker.isApplicable(scan, null));
+    assertFalse(ColumnStatsTracker.isApplicable(scan.setFilter(
+      new PrefixFilter(Bytes.toBytes("row"))), null));
+
+    scan = new Scan().setFilter(new ColumnRangeFilter(Bytes.toBytes("e"), true, null, false));
+    assertTrue(ColumnStatsTracker.isApplicable(scan, null));
+    assertFalse(stats.passesScan(scan, null));
+    scan.setFilter(new FilterList(new PrefixFilter(Bytes.toBytes("row")),
+      new ColumnRangeFilter(Bytes.toBytes("c"), true, Bytes.toBytes("d"), true)));
+    assertTrue(stats.passesScan(scan, null));
+    // Either filter may let a cell through
+    scan.setFilter(new FilterList(FilterList.Operator.MUST_PASS_ONE,
+      new PrefixFilter(Bytes.toBytes("row")),
+      new ColumnRangeFilter(Bytes.toBytes("e"), true, null, false)));
+    assertFalse(ColumnStatsTracker.isApplicable(scan, null));
+
+    assertTrue(stats.passesScan(new Scan(), columns("b", "c")));
+    assertFalse(stats.passesScan(new Scan(), columns("c")));
+  }
+}
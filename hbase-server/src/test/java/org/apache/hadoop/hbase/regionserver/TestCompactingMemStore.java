@@ -723,6 +723,46 @@ public class TestCompactingMemStore extends TestDefaultMemStore {
     //assertTrue(tstStr, false);
   }
 
+  @Test
+  public void testAdaptiveCompaction() throws IOException {
+
+    // merge or flatten unless enough of the data is overwritten versions
+    HColumnDescriptor.MemoryCompaction compactionType =
+        HColumnDescriptor.MemoryCompaction.ADAPTIVE;
+    memstore.getConfiguration().set(CompactingMemStore.COMPACTING_MEMSTORE_TYPE_KEY,
+        String.valueOf(compactionType));
+    ((CompactingMemStore)memstore).initiateType(compactionType);
+    MemStoreCompactionMetrics metrics = store.getMemStoreCompactionMetrics();
+
+    String[] keys1 = { "A", "B", "C", "D" }; // nothing to remove, only flattened
+    addRowsByKeys(memstore, keys1);
+    ((CompactingMemStore)memstore).flushInMemory();
+    assertEquals(1, metrics.getFlattenCount());
+    assertEquals(0, metrics.getCompactCount());
+    int counter = 0;
+    for (Segment s : memstore.getSegments()) {
+      counter += s.getCellsCount();
+    }
+    assertEquals(4, counter);
+
+    String[] keys2 = { "E", "E", "E", "E", "F" }; // 3 out of 5 cells are old versions
+    addRowsByKeys(memstore, keys2);
+    ((CompactingMemStore)memstore).flushInMemory();
+    assertEquals(1, metrics.getCompactCount());
+    assertTrue(metrics.getCompactFreedSize() > 0);
+    counter = 0;
+    for (Segment s : memstore.getSegments()) {
+      counter += s.getCellsCount();
+    }
+    assertEquals(6, counter);
+
+    MemstoreSize size = memstore.getFlushableSize();
+    MemStoreSnapshot snapshot = memstore.snapshot();
+    region.decrMemstoreSize(size);  // simulate flusher
+    assertEquals(6, memstore.getSnapshot().getCellsCount());
+    memstore.clearSnapshot(snapshot.getId());
+  }
+
   private int addRowsByKeys(final AbstractMemStore hmc, String[] keys) {
     byte[] fam = Bytes.toBytes("testfamily");
     byte[] qf = Bytes.toBytes("testqualifier");
@@ -371,6 +371,38 @@ public class TestCompactingToCellArrayMapMemStore extends TestCompactingMemStore
     assertEquals("the count should be ", cnt, 150);
   }
 
+  @Test
+  public void testFlatteningToCellChunkMap() throws IOException {
+    Configuration conf = HBaseConfiguration.create();
+    conf.set(CompactingMemStore.COMPACTING_MEMSTORE_INDEX_KEY, "chunk");
+    memstore = new CompactingMemStore(conf, CellComparator.COMPARATOR, store,
+        regionServicesForStores, HColumnDescriptor.MemoryCompaction.EAGER);
+    String[] keys1 = { "A", "B", "C" }; // A, B, C
+    addRowsByKeysWith50Cols(memstore, keys1);
+    // this should only flatten as there are no duplicates
+    ((CompactingMemStore) memstore).flushInMemory();
+    while (((CompactingMemStore) memstore).isMemStoreFlushingInMemory()) {
+      Threads.sleep(10);
+    }
+    // The Cell objects are gone, only their entries in the index chunks are left
+    assertEquals(150 * ClassSize.CELL_CHUNK_MAP_ENTRY,
+        ((CompactingMemStore) memstore).heapOverhead());
+    List<KeyValueScanner> scanners = memstore.getScanners(Long.MAX_VALUE);
+    scanners.get(0).seek(KeyValue.LOWESTKEY);
+    int count = 0;
+    Cell prev = null;
+    Cell cell;
+    while ((cell = scanners.get(0).next()) != null) {
+      if (prev != null) {
+        assertTrue(CellComparator.COMPARATOR.compare(prev, cell) < 0);
+      }
+      prev = cell;
+      count++;
+    }
+    assertEquals("the count should be ", 150, count);
+    scanners.get(0).close();
+  }
+
 
   private void addRowsByKeysWith50Cols(AbstractMemStore hmc, String[] keys) {
     byte[] fam = Bytes.toBytes("testfamily");
@@ -17,13 +17,19 @@
  */
 package org.apache.hadoop.hbase.regionserver;
 
+import static org.junit.Assert.assertEquals;
+
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.apache.hadoop.hbase.HConstants;
 import org.apache.hadoop.hbase.regionserver.compactions.CompactionConfiguration;
+import org.apache.hadoop.hbase.regionserver.compactions.DateTieredCompactionPolicy;
 import org.apache.hadoop.hbase.regionserver.compactions.ExponentialCompactionWindowFactory;
 import org.apache.hadoop.hbase.testclassification.RegionServerTests;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.ManualEnvironmentEdge;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
@@ -265,4 +271,24 @@ public class TestDateTieredCompactionPolicy extends AbstractTestDateTieredCompac
         41, 42, 33, 30, 31, 2, 1 },
       new long[] { Long.MIN_VALUE, -144, -120, -96, -72, -48, -24, 0, 6, 12 }, true, true);
   }
+
+  /**
+   * Boundaries a flush is split into by window
+   */
+  @Test
+  public void flushBoundaries() {
+    ManualEnvironmentEdge timeMachine = new ManualEnvironmentEdge();
+    EnvironmentEdgeManager.injectEdge(timeMachine);
+    timeMachine.setValue(161);
+    DateTieredCompactionPolicy policy =
+        (DateTieredCompactionPolicy) store.storeEngine.getCompactionPolicy();
+    assertEquals(Arrays.asList(Long.MIN_VALUE, 24L, 48L, 72L, 96L, 120L, 144L, 150L, 156L),
+      policy.getFlushBoundaries(0, 100));
+    // Bounded outputs, the earliest takes all older cells
+    assertEquals(Arrays.asList(Long.MIN_VALUE, 144L, 150L, 156L),
+      policy.getFlushBoundaries(0, 4));
+    // All in the incoming window
+    assertEquals(Arrays.asList(Long.MIN_VALUE), policy.getFlushBoundaries(158, 100));
+    assertEquals(Arrays.asList(Long.MIN_VALUE), policy.getFlushBoundaries(0, 1));
+  }
 }
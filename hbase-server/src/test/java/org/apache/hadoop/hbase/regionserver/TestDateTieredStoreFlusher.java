@@ -0,0 +1,242 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HColumnDescriptor;
+import org.apache.hadoop.hbase.HRegionInfo;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.io.compress.Compression;
+import org.apache.hadoop.hbase.monitoring.MonitoredTask;
+import org.apache.hadoop.hbase.regionserver.compactions.CompactionConfiguration;
+import org.apache.hadoop.hbase.regionserver.compactions.DateTieredCompactionPolicy;
+import org.apache.hadoop.hbase.regionserver.compactions.ExponentialCompactionWindowFactory;
+import org.apache.hadoop.hbase.regionserver.compactions.TestCompactor.Scanner;
+import org.apache.hadoop.hbase.regionserver.compactions.TestCompactor.StoreFileWritersCapture;
+import org.apache.hadoop.hbase.regionserver.throttle.NoLimitThroughputController;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.apache.hadoop.hbase.util.EnvironmentEdgeManager;
+import org.apache.hadoop.hbase.util.ManualEnvironmentEdge;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({ RegionServerTests.class, SmallTests.class })
+public class TestDateTieredStoreFlusher {
+
+  private static final byte[] NAME_OF_THINGS = Bytes.toBytes("foo");
+
+  private static final TableName TABLE_NAME = TableName.valueOf(NAME_OF_THINGS, NAME_OF_THINGS);
+
+  private static final long FLUSH_ID = 42L;
+
+  // With the windows below and the clock at 161, a flush from 10 on is split at these boundaries
+  private static final List<Long> BOUNDARIES =
+      Arrays.asList(Long.MIN_VALUE, 144L, 150L, 156L, Long.MAX_VALUE);
+
+  private static final KeyValue KV_A = new KeyValue(Bytes.toBytes("aaa"), 10L);
+
+  private static final KeyValue KV_B = new KeyValue(Bytes.toBytes("bbb"), 140L);
+
+  private static final KeyValue KV_C = new KeyValue(Bytes.toBytes("ccc"), 146L);
+
+  private static final KeyValue KV_D = new KeyValue(Bytes.toBytes("ddd"), 152L);
+
+  private static final KeyValue KV_E = new KeyValue(Bytes.toBytes("eee"), 158L);
+
+  @Before
+  public void setUp() {
+    ManualEnvironmentEdge timeMachine = new ManualEnvironmentEdge();
+    timeMachine.setValue(161);
+    EnvironmentEdgeManager.injectEdge(timeMachine);
+  }
+
+  @After
+  public void tearDown() {
+    EnvironmentEdgeManager.reset();
+  }
+
+  private Store createStore(StoreFileWritersCapture writers) throws IOException {
+    HColumnDescriptor col = new HColumnDescriptor(NAME_OF_THINGS);
+    Store store = mock(Store.class);
+    when(store.getFamily()).thenReturn(col);
+    when(store.getFileSystem()).thenReturn(mock(FileSystem.class));
+    when(store.getRegionInfo()).thenReturn(new HRegionInfo(TABLE_NAME));
+    when(store.createWriterInTmp(anyLong(), any(Compression.Algorithm.class), anyBoolean(),
+      anyBoolean(), anyBoolean(), anyBoolean())).thenAnswer(writers);
+    when(store.createWriterInTmp(anyLong(), any(Compression.Algorithm.class), anyBoolean(),
+      anyBoolean(), anyBoolean(), anyBoolean(), any(TimeRangeTracker.class))).thenAnswer(writers);
+    return store;
+  }
+
+  private DateTieredStoreFlusher createFlusher(Store store, final InternalScanner scanner,
+      int maxOutputs) throws IOException {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setLong(CompactionConfiguration.DATE_TIERED_MAX_AGE_MILLIS_KEY, 100);
+    conf.setLong(CompactionConfiguration.DATE_TIERED_INCOMING_WINDOW_MIN_KEY, 3);
+    conf.setLong(ExponentialCompactionWindowFactory.BASE_WINDOW_MILLIS_KEY, 6);
+    conf.setInt(ExponentialCompactionWindowFactory.WINDOWS_PER_TIER_KEY, 4);
+    conf.setInt(CompactionConfiguration.DATE_TIERED_FLUSH_MAX_OUTPUTS_KEY, maxOutputs);
+    DateTieredCompactionPolicy policy = new DateTieredCompactionPolicy(conf, store);
+    return new DateTieredStoreFlusher(conf, store, policy) {
+      @Override
+      protected InternalScanner createScanner(KeyValueScanner snapshotScanner,
+          long smallestReadPoint) throws IOException {
+        return scanner;
+      }
+    };
+  }
+
+  private static MemStoreSnapshot createSnapshot(KeyValue... input) {
+    TimeRangeTracker tracker = new TimeRangeTracker();
+    for (KeyValue kv : input) {
+      tracker.includeTimestamp(kv);
+    }
+    MemStoreSnapshot snapshot = mock(MemStoreSnapshot.class);
+    when(snapshot.getCellsCount()).thenReturn(input.length);
+    when(snapshot.getTimeRangeTracker()).thenReturn(tracker);
+    return snapshot;
+  }
+
+  private void verifyFlush(KeyValue[] input, int maxOutputs, KeyValue[][] output,
+      List<Long> boundaries) throws Exception {
+    StoreFileWritersCapture writers = new StoreFileWritersCapture();
+    Store store = createStore(writers);
+    DateTieredStoreFlusher flusher = createFlusher(store, new Scanner(input), maxOutputs);
+    List<Path> paths = flusher.flushSnapshot(createSnapshot(input), FLUSH_ID,
+      mock(MonitoredTask.class), NoLimitThroughputController.INSTANCE);
+    int files = 0;
+    for (KeyValue[] kvs : output) {
+      if (kvs != null) {
+        files++;
+      }
+    }
+    assertEquals(files, paths.size());
+    // Each file holds the cells of its own window only
+    writers.verifyKvs(output, files == output.length, boundaries);
+    for (StoreFileWritersCapture.Writer writer : writers.getWriters()) {
+      assertTrue(writer.hasMetadata);
+      assertEquals(FLUSH_ID, writer.maxSequenceId);
+      assertFalse(writer.majorCompaction);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T[] a(T... a) {
+    return a;
+  }
+
+  @Test
+  public void test() throws Exception {
+    verifyFlush(a(KV_A, KV_B, KV_C, KV_D, KV_E), 4, a(a(KV_A, KV_B), a(KV_C), a(KV_D), a(KV_E)),
+      BOUNDARIES);
+    // Fewer outputs, the earliest file takes all older cells
+    verifyFlush(a(KV_A, KV_B, KV_C, KV_D, KV_E), 2, a(a(KV_A, KV_B, KV_C, KV_D), a(KV_E)),
+      Arrays.asList(Long.MIN_VALUE, 156L, Long.MAX_VALUE));
+    // Windows without cells get no file
+    verifyFlush(a(KV_A, KV_E), 4, a(a(KV_A), null, null, a(KV_E)), BOUNDARIES);
+  }
+
+  @Test
+  public void testFilesTrackTheirOwnTimeRange() throws Exception {
+    StoreFileWritersCapture writers = new StoreFileWritersCapture();
+    Store store = createStore(writers);
+    KeyValue[] input = a(KV_A, KV_C, KV_E);
+    DateTieredStoreFlusher flusher = createFlusher(store, new Scanner(input), 4);
+    flusher.flushSnapshot(createSnapshot(input), FLUSH_ID, mock(MonitoredTask.class),
+      NoLimitThroughputController.INSTANCE);
+    // The time range of the whole snapshot would span all the windows
+    verify(store, times(3)).createWriterInTmp(anyLong(), any(Compression.Algorithm.class),
+      eq(false), eq(true), anyBoolean(), eq(false));
+    verify(store, never()).createWriterInTmp(anyLong(), any(Compression.Algorithm.class),
+      anyBoolean(), anyBoolean(), anyBoolean(), anyBoolean(), any(TimeRangeTracker.class));
+  }
+
+  @Test
+  public void testSingleWindow() throws Exception {
+    StoreFileWritersCapture writers = new StoreFileWritersCapture();
+    Store store = createStore(writers);
+    KeyValue[] input = a(KV_E);
+    DateTieredStoreFlusher flusher = createFlusher(store, new Scanner(input), 4);
+    MemStoreSnapshot snapshot = createSnapshot(input);
+    TimeRangeTracker tracker = snapshot.getTimeRangeTracker();
+    List<Path> paths = flusher.flushSnapshot(snapshot, FLUSH_ID, mock(MonitoredTask.class),
+      NoLimitThroughputController.INSTANCE);
+    assertEquals(1, paths.size());
+    assertEquals(FLUSH_ID, writers.getWriters().get(0).maxSequenceId);
+    // Written like a default flush, with the time range of the snapshot
+    verify(store).createWriterInTmp(anyLong(), any(Compression.Algorithm.class), eq(false),
+      eq(true), anyBoolean(), eq(false), eq(tracker));
+  }
+
+  @Test
+  public void testFailedFlushDeletesFiles() throws Exception {
+    StoreFileWritersCapture writers = new StoreFileWritersCapture();
+    Store store = createStore(writers);
+    KeyValue[] input = a(KV_A, KV_E);
+    InternalScanner scanner = new Scanner(KV_A, KV_E) {
+      private int calls;
+
+      @Override
+      public boolean next(List<Cell> results) throws IOException {
+        if (calls++ > 0) {
+          throw new IOException("injected");
+        }
+        return super.next(results);
+      }
+    };
+    DateTieredStoreFlusher flusher = createFlusher(store, scanner, 4);
+    try {
+      flusher.flushSnapshot(createSnapshot(input), FLUSH_ID, mock(MonitoredTask.class),
+        NoLimitThroughputController.INSTANCE);
+      fail("Expected the flush to fail");
+    } catch (IOException e) {
+      assertEquals("injected", e.getMessage());
+    }
+    // The file of the first window was started; it is dropped, not committed
+    assertEquals(1, writers.getWriters().size());
+    assertFalse(writers.getWriters().get(0).hasMetadata);
+    verify(store.getFileSystem()).delete(new Path("foo"), false);
+  }
+}
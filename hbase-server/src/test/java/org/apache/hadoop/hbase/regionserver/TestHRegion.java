@@ -65,6 +65,7 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -128,6 +129,7 @@ import org.apache.hadoop.hbase.filter.PrefixFilter;
 import org.apache.hadoop.hbase.filter.SingleColumnValueExcludeFilter;
 import org.apache.hadoop.hbase.filter.SingleColumnValueFilter;
 import org.apache.hadoop.hbase.io.hfile.HFile;
+import org.apache.hadoop.hbase.io.util.MemorySizeUtil;
 import org.apache.hadoop.hbase.monitoring.MonitoredRPCHandler;
 import org.apache.hadoop.hbase.monitoring.MonitoredTask;
 import org.apache.hadoop.hbase.monitoring.TaskMonitor;
@@ -6296,6 +6298,136 @@ public class TestHRegion {
     return wal;
   }
 
+  /**
+   * With an off heap memstore the region flushes, and then blocks updates, on the heap overhead of
+   * its cells even when its data size is far below the flush size.
+   */
+  @Test
+  public void testFlushOnHeapOverheadOfOffheapMemstore() throws Exception {
+    Configuration conf = new Configuration(CONF);
+    conf.setLong(MemorySizeUtil.OFFHEAP_MEMSTORE_SIZE_KEY, 1024); // in MB
+    conf.setLong(HRegion.MEMSTORE_HEAP_FLUSH_SIZE, 10 * 1024);
+    conf.setLong(HConstants.HREGION_MEMSTORE_BLOCK_MULTIPLIER, 2);
+    RegionServerAccounting accounting = new RegionServerAccounting(conf);
+    assertTrue(accounting.isOffheap());
+    FlushRequester flushRequester = mock(FlushRequester.class);
+    RegionServerServices rss = mock(RegionServerServices.class);
+    when(rss.getServerName()).thenReturn(ServerName.valueOf("foo", 1, 1));
+    when(rss.getConfiguration()).thenReturn(conf);
+    when(rss.getRegionServerAccounting()).thenReturn(accounting);
+    when(rss.getFlushRequester()).thenReturn(flushRequester);
+
+    HTableDescriptor htd = new HTableDescriptor(tableName);
+    htd.addFamily(new HColumnDescriptor(fam1));
+    HRegionInfo hri = new HRegionInfo(htd.getTableName(),
+      HConstants.EMPTY_BYTE_ARRAY, HConstants.EMPTY_BYTE_ARRAY);
+    region = HRegion.openHRegion(hri, htd, mockWAL(), conf, rss, null);
+
+    int i = 0;
+    while (region.getMemstoreHeapOverhead() <= 10 * 1024) {
+      region.put(new Put(Bytes.toBytes(i++)).addColumn(fam1, qual1, value1));
+    }
+    assertTrue(region.getMemstoreSize() < region.getMemstoreFlushSize());
+    assertEquals(region.getMemstoreHeapOverhead(), accounting.getGlobalMemstoreHeapOverhead());
+    // The put that went over the heap flush size asked for a flush
+    verify(flushRequester, times(1)).requestFlush(region, false);
+
+    try {
+      while (i < 10000) {
+        region.put(new Put(Bytes.toBytes(i++)).addColumn(fam1, qual1, value1));
+      }
+      fail("Should throw RegionTooBusyException");
+    } catch (RegionTooBusyException e) {
+      // Good, expected
+    }
+    assertTrue(region.getMemstoreHeapOverhead() > 20 * 1024);
+  }
+
+  /**
+   * With a store flush pool on the server the stores of a region are written in parallel, and
+   * still all committed by the one flush.
+   */
+  @Test
+  public void testParallelStoreFlush() throws Exception {
+    final ServerName serverName = ServerName.valueOf("testParallelStoreFlush", 100, 42);
+    final RegionServerServices rss = spy(TEST_UTIL.createMockRegionServerService(serverName));
+    ThreadPoolExecutor pool = Threads.getBoundedCachedThreadPool(2, 30, TimeUnit.SECONDS,
+      Threads.newDaemonThreadFactory("testParallelStoreFlush"));
+    when(rss.getStoreFlushPool()).thenReturn(pool);
+
+    byte[][] families = { fam1, fam2, fam3 };
+    HTableDescriptor htd = new HTableDescriptor(tableName);
+    for (byte[] family : families) {
+      htd.addFamily(new HColumnDescriptor(family));
+    }
+    HRegionInfo hri = new HRegionInfo(htd.getTableName(),
+      HConstants.EMPTY_BYTE_ARRAY, HConstants.EMPTY_BYTE_ARRAY);
+    try {
+      region = HRegion.openHRegion(hri, htd, mockWAL(), TEST_UTIL.getConfiguration(), rss, null);
+      for (int i = 0; i < 100; i++) {
+        Put put = new Put(Bytes.toBytes(i));
+        for (byte[] family : families) {
+          put.addColumn(family, qual1, value1);
+        }
+        region.put(put);
+      }
+      region.flush(true);
+
+      assertEquals(families.length, pool.getTaskCount());
+      assertEquals(0, region.getMemstoreSize());
+      for (byte[] family : families) {
+        assertEquals(1, region.getStore(family).getStorefilesCount());
+      }
+      Result result = region.get(new Get(Bytes.toBytes(42)));
+      assertEquals(families.length, result.size());
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * With row lock stripes, locking a row goes through the stripe, nothing is kept per row, and
+   * waiting for a lock is accounted.
+   */
+  @Test
+  public void testStripedRowLocks() throws Exception {
+    Configuration conf = new Configuration(CONF);
+    conf.setInt(StripedRowLocks.STRIPES_KEY, 16);
+    this.region = initHRegion(tableName, method, conf, fam1);
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final byte[] row = Bytes.toBytes("row");
+      region.put(new Put(row).addColumn(fam1, qual1, value1));
+      assertEquals(0, region.getLockedRows().size());
+      assertEquals(0, region.getRowLockContentionCount());
+
+      RowLock writeLock = region.getRowLock(row, false);
+      // A read lock has to be released by the thread that took it
+      Future<Boolean> reader = executor.submit(new Callable<Boolean>() {
+        @Override
+        public Boolean call() throws IOException {
+          region.getRowLock(row, true).release();
+          return true;
+        }
+      });
+      while (region.getRowLockContentionCount() == 0) {
+        Thread.sleep(10);
+      }
+      assertFalse(reader.isDone());
+      writeLock.release();
+      assertTrue(reader.get());
+
+      assertEquals(1, region.getRowLockContentionCount());
+      assertTrue(region.getRowLockWaitTime() > 0);
+      assertEquals(0, region.getLockedRows().size());
+      assertEquals(1, region.get(new Get(row)).size());
+    } finally {
+      executor.shutdownNow();
+      HBaseTestingUtility.closeRegionAndWAL(this.region);
+      this.region = null;
+    }
+  }
+
   @Test
   public void testCloseRegionWrittenToWAL() throws Exception {
     final ServerName serverName = ServerName.valueOf("testCloseRegionWrittenToWAL", 100, 42);
@@ -0,0 +1,324 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.Cell;
+import org.apache.hadoop.hbase.CellUtil;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.HConstants;
+import org.apache.hadoop.hbase.KeyValue;
+import org.apache.hadoop.hbase.client.Durability;
+import org.apache.hadoop.hbase.client.Increment;
+import org.apache.hadoop.hbase.client.Result;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.apache.hadoop.hbase.util.Bytes;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({RegionServerTests.class, SmallTests.class})
+public class TestIncrementCoalescer {
+  private static final byte[] ROW = Bytes.toBytes("row");
+  private static final byte[] FAMILY = Bytes.toBytes("cf");
+  private static final byte[] Q1 = Bytes.toBytes("q1");
+  private static final byte[] Q2 = Bytes.toBytes("q2");
+
+  /**
+   * Applies increments to in-memory counters, one at a time and slowly like a contended row.
+   */
+  private static class Counters implements IncrementCoalescer.DeltaApplier {
+    private final TreeMap<byte[], Long> values = new TreeMap<byte[], Long>(Bytes.BYTES_COMPARATOR);
+    private final long sleepMs;
+    private final AtomicInteger applies = new AtomicInteger();
+    private IOException failure;
+
+    Counters(long sleepMs) {
+      this.sleepMs = sleepMs;
+    }
+
+    @Override
+    public void check(Increment increment) throws IOException {
+      for (byte[] family : increment.getFamilyCellMap().keySet()) {
+        if (!Bytes.equals(FAMILY, family)) {
+          throw new NoSuchColumnFamilyException(Bytes.toString(family));
+        }
+      }
+    }
+
+    @Override
+    public synchronized Result apply(Increment merged, long nonceGroup, long nonce)
+        throws IOException {
+      if (failure != null) {
+        throw failure;
+      }
+      try {
+        Thread.sleep(sleepMs);
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      applies.incrementAndGet();
+      List<Cell> cells = new ArrayList<Cell>();
+      for (Cell cell : merged.getFamilyCellMap().get(FAMILY)) {
+        byte[] qualifier = CellUtil.cloneQualifier(cell);
+        Long value = values.get(qualifier);
+        long sum = (value == null ? 0 : value) + Bytes.toLong(CellUtil.cloneValue(cell));
+        values.put(qualifier, sum);
+        cells.add(CellUtil.createCell(merged.getRow(), FAMILY, qualifier, 1,
+          KeyValue.Type.Put.getCode(), Bytes.toBytes(sum)));
+      }
+      return Result.create(cells);
+    }
+
+    synchronized long get(byte[] qualifier) {
+      Long value = values.get(qualifier);
+      return value == null ? 0 : value;
+    }
+  }
+
+  private static long value(Result result, byte[] qualifier) {
+    return Bytes.toLong(result.getValue(FAMILY, qualifier));
+  }
+
+  @Test
+  public void testSingleIncrement() throws IOException {
+    Counters counters = new Counters(0);
+    IncrementCoalescer coalescer =
+        new IncrementCoalescer(HBaseConfiguration.create(), counters);
+    Result result = coalescer.increment(new Increment(ROW).addColumn(FAMILY, Q1, 5)
+        .addColumn(FAMILY, Q2, 7), HConstants.NO_NONCE, HConstants.NO_NONCE);
+    assertEquals(5, value(result, Q1));
+    assertEquals(7, value(result, Q2));
+    assertEquals(1, coalescer.getIncrementCount());
+    assertEquals(1, coalescer.getApplyCount());
+  }
+
+  @Test
+  public void testConcurrentIncrementsSeeOwnValues() throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setLong(IncrementCoalescer.WINDOW_US_KEY, 100000);
+    final Counters counters = new Counters(2);
+    final IncrementCoalescer coalescer = new IncrementCoalescer(conf, counters);
+    final int threads = 8;
+    final int perThread = 50;
+    final Set<Long> seen = new ConcurrentSkipListSet<Long>();
+    final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+    Thread[] writers = new Thread[threads];
+    for (int i = 0; i < threads; i++) {
+      writers[i] = new Thread() {
+        @Override
+        public void run() {
+          try {
+            for (int j = 0; j < perThread; j++) {
+              Result result = coalescer.increment(new Increment(ROW).addColumn(FAMILY, Q1, 1)
+                  .addColumn(FAMILY, Q2, 2), HConstants.NO_NONCE, HConstants.NO_NONCE);
+              long q1 = value(result, Q1);
+              assertEquals(2 * q1, value(result, Q2));
+              // Every increment sees the counter right after itself, so no value repeats
+              assertTrue(seen.add(q1));
+            }
+          } catch (Throwable t) {
+            error.compareAndSet(null, t);
+          }
+        }
+      };
+      writers[i].start();
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    if (error.get() != null) {
+      throw new AssertionError(error.get());
+    }
+    long total = threads * perThread;
+    assertEquals(total, counters.get(Q1));
+    assertEquals(2 * total, counters.get(Q2));
+    assertEquals(total, seen.size());
+    assertEquals(1, (long) ((ConcurrentSkipListSet<Long>) seen).first());
+    assertEquals(total, (long) ((ConcurrentSkipListSet<Long>) seen).last());
+    assertEquals(total, coalescer.getIncrementCount());
+    assertEquals(counters.applies.get(), coalescer.getApplyCount());
+    assertTrue("Expected merged increments, got " + coalescer.getApplyCount() + " applies",
+      coalescer.getApplyCount() < total);
+  }
+
+  @Test
+  public void testNoResults() throws IOException {
+    IncrementCoalescer coalescer =
+        new IncrementCoalescer(HBaseConfiguration.create(), new Counters(0));
+    Increment increment = new Increment(ROW).addColumn(FAMILY, Q1, 1);
+    increment.setReturnResults(false);
+    assertTrue(coalescer.increment(increment, HConstants.NO_NONCE, HConstants.NO_NONCE)
+        .isEmpty());
+  }
+
+  @Test
+  public void testFailure() throws IOException {
+    Counters counters = new Counters(0);
+    counters.failure = new IOException("failed");
+    IncrementCoalescer coalescer = new IncrementCoalescer(HBaseConfiguration.create(), counters);
+    try {
+      coalescer.increment(new Increment(ROW).addColumn(FAMILY, Q1, 1), HConstants.NO_NONCE,
+        HConstants.NO_NONCE);
+      fail("Expected the failure of the apply");
+    } catch (IOException e) {
+      assertEquals("failed", e.getMessage());
+    }
+    // The row is usable again
+    counters.failure = null;
+    Result result = coalescer.increment(new Increment(ROW).addColumn(FAMILY, Q1, 1),
+      HConstants.NO_NONCE, HConstants.NO_NONCE);
+    assertEquals(1, value(result, Q1));
+  }
+
+  @Test
+  public void testBadMemberFailsAlone() throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    conf.setLong(IncrementCoalescer.WINDOW_US_KEY, 1000000);
+    final Counters counters = new Counters(200);
+    final IncrementCoalescer coalescer = new IncrementCoalescer(conf, counters);
+    final CountDownLatch applying = new CountDownLatch(1);
+    final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+    final List<Result> results = new ArrayList<Result>();
+    Runnable good = new Runnable() {
+      @Override
+      public void run() {
+        try {
+          applying.countDown();
+          Result result = coalescer.increment(new Increment(ROW).addColumn(FAMILY, Q1, 1),
+            HConstants.NO_NONCE, HConstants.NO_NONCE);
+          synchronized (results) {
+            results.add(result);
+          }
+        } catch (Throwable t) {
+          error.compareAndSet(null, t);
+        }
+      }
+    };
+    // The first increment applies slowly, so the next ones of the row wait in a batch
+    Thread first = new Thread(good);
+    first.start();
+    applying.await();
+    Thread.sleep(50);
+    Thread second = new Thread(good);
+    second.start();
+    Thread.sleep(50);
+    try {
+      coalescer.increment(new Increment(ROW).addColumn(FAMILY, Q1, 1)
+          .addColumn(Bytes.toBytes("missing"), Q1, 1), HConstants.NO_NONCE, HConstants.NO_NONCE);
+      fail("Expected the increment of a missing family to fail");
+    } catch (NoSuchColumnFamilyException e) {
+      // expected
+    }
+    first.join();
+    second.join();
+    if (error.get() != null) {
+      throw new AssertionError(error.get());
+    }
+    assertEquals(2, results.size());
+    assertEquals(2, counters.get(Q1));
+    assertEquals(2, coalescer.getIncrementCount());
+  }
+
+  @Test
+  public void testInterruptedLeaderDoesNotHoldRow() throws Exception {
+    Configuration conf = HBaseConfiguration.create();
+    final long windowMs = 10000;
+    conf.setLong(IncrementCoalescer.WINDOW_US_KEY, TimeUnit.MILLISECONDS.toMicros(windowMs));
+    final IncrementCoalescer coalescer = new IncrementCoalescer(conf, new Counters(1000));
+    final AtomicReference<Throwable> error = new AtomicReference<Throwable>();
+    final AtomicReference<Throwable> leaderError = new AtomicReference<Throwable>();
+    // Applies slowly, so the next leader of the row waits for it
+    Thread first = new Thread() {
+      @Override
+      public void run() {
+        try {
+          coalescer.increment(new Increment(ROW).addColumn(FAMILY, Q1, 1), HConstants.NO_NONCE,
+            HConstants.NO_NONCE);
+        } catch (Throwable t) {
+          error.compareAndSet(null, t);
+        }
+      }
+    };
+    first.start();
+    while (coalescer.getIncrementCount() < 1) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(50);
+    Thread leader = new Thread() {
+      @Override
+      public void run() {
+        try {
+          coalescer.increment(new Increment(ROW).addColumn(FAMILY, Q1, 1), HConstants.NO_NONCE,
+            HConstants.NO_NONCE);
+        } catch (Throwable t) {
+          leaderError.set(t);
+        }
+      }
+    };
+    leader.start();
+    while (coalescer.getIncrementCount() < 2) {
+      Thread.sleep(10);
+    }
+    Thread.sleep(50);
+    leader.interrupt();
+    leader.join();
+    assertTrue(leaderError.get() instanceof InterruptedIOException);
+    first.join();
+    if (error.get() != null) {
+      throw new AssertionError(error.get());
+    }
+    // Nothing is applying any more, so the next increment goes ahead at once
+    long start = System.currentTimeMillis();
+    Result result = coalescer.increment(new Increment(ROW).addColumn(FAMILY, Q1, 1),
+      HConstants.NO_NONCE, HConstants.NO_NONCE);
+    assertTrue(System.currentTimeMillis() - start < windowMs / 2);
+    assertEquals(2, value(result, Q1));
+  }
+
+  @Test
+  public void testCanCoalesce() throws IOException {
+    assertTrue(IncrementCoalescer.canCoalesce(new Increment(ROW).addColumn(FAMILY, Q1, 1)));
+    assertFalse(IncrementCoalescer.canCoalesce(
+      new Increment(ROW).addColumn(FAMILY, Q1, 1).setTimeRange(0, 10)));
+    assertFalse(IncrementCoalescer.canCoalesce(
+      new Increment(ROW).addColumn(FAMILY, Q1, 1).setTTL(1000)));
+    assertFalse(IncrementCoalescer.canCoalesce(
+      new Increment(ROW).addColumn(FAMILY, Q1, 1).setDurability(Durability.SKIP_WAL)));
+    Increment withAttribute = new Increment(ROW).addColumn(FAMILY, Q1, 1);
+    withAttribute.setAttribute("a", Bytes.toBytes("b"));
+    assertFalse(IncrementCoalescer.canCoalesce(withAttribute));
+  }
+}
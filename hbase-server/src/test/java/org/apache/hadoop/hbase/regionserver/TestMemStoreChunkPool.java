@@ -249,4 +249,37 @@ public class TestMemStoreChunkPool {
       MemStoreChunkPool.GLOBAL_INSTANCE = oldPool;
     }
   }
+
+  @Test
+  public void testUnpooledOffheapChunksAreCapped() throws Exception {
+    MemStoreChunkPool oldPool = MemStoreChunkPool.GLOBAL_INSTANCE;
+    final int maxCount = 10;
+    final int chunkSize = 100;
+    MemStoreChunkPool pool = new MemStoreChunkPool(chunkSize, maxCount, 0, 1, true);
+    MemStoreChunkPool.GLOBAL_INSTANCE = pool;
+    Configuration localConf = new Configuration(conf);
+    localConf.setInt(MemStoreLAB.CHUNK_SIZE_KEY, chunkSize);
+    localConf.setInt(MemStoreLAB.MAX_ALLOC_KEY, chunkSize);
+    // Bigger than half a chunk, so every copy needs a chunk of its own
+    KeyValue kv = new KeyValue(Bytes.toBytes("r"), Bytes.toBytes("f"), Bytes.toBytes("q"),
+        new byte[40]);
+    try {
+      MemStoreLAB memStoreLAB = new MemStoreLABImpl(localConf);
+      for (int i = 0; i < maxCount; i++) {
+        memStoreLAB.copyCellInto(kv);
+      }
+      assertEquals(0, pool.getUnpooledOffheapSize());
+      // The pool is dry. The cap is a tenth of the pool, so one chunk of our own is off heap and
+      // the rest are on heap.
+      for (int i = 0; i < 3; i++) {
+        memStoreLAB.copyCellInto(kv);
+      }
+      assertEquals(chunkSize, pool.getUnpooledOffheapSize());
+      memStoreLAB.close();
+      assertEquals(0, pool.getUnpooledOffheapSize());
+      assertEquals(maxCount, pool.getPoolSize());
+    } finally {
+      MemStoreChunkPool.GLOBAL_INSTANCE = oldPool;
+    }
+  }
 }
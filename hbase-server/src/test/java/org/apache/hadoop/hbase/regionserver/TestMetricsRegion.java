@@ -64,6 +64,22 @@ public class TestMetricsRegion {
     HELPER.assertCounter(
       "namespace_TestNS_table_MetricsRegionWrapperStub_region_DEADBEEF001_metric_replicaid", 
       0, agg);
+    String metric = "namespace_TestNS_table_MetricsRegionWrapperStub_region_DEADBEEF001_metric_";
+    HELPER.assertCounter(metric + "rowLockContentionCount", 7, agg);
+    HELPER.assertCounter(metric + "rowLockWaitTime", 700, agg);
+    HELPER.assertCounter(metric + "coalescedIncrementCount", 12, agg);
+    HELPER.assertCounter(metric + "coalescedIncrementApplyCount", 4, agg);
+    HELPER.assertGauge(metric + "incrementCoalescingRatio", 3.0, agg);
+    HELPER.assertCounter(metric + "columnStatsScanCount", 20, agg);
+    HELPER.assertCounter(metric + "columnStatsPrunedFilesCount", 30, agg);
+    HELPER.assertGauge(metric + "columnStatsPrunedFilesPerScan", 1.5, agg);
+    String family = "namespace_TestNS_table_MetricsRegionWrapperStub_region_DEADBEEF001_" +
+        "family_cf_metric_";
+    HELPER.assertCounter(family + "bloomFilterRequestCount", 110, agg);
+    HELPER.assertCounter(family + "bloomFilterNegativeCount", 90, agg);
+    HELPER.assertCounter(family + "bloomFilterFalsePositiveCount", 10, agg);
+    HELPER.assertCounter(family + "bloomFilterCheckTime", 111, agg);
+    HELPER.assertGauge(family + "bloomFilterFalsePositivePercent", 10.0, agg);
     mr.close();
 
     // test region with replica id > 0
@@ -95,6 +95,36 @@ public class TestMetricsRegionServer {
     HELPER.assertGauge("blockCacheCountHitPercent", 98, serverSource);
     HELPER.assertGauge("blockCacheExpressHitPercent", 97, serverSource);
     HELPER.assertCounter("blockCacheFailedInsertionCount", 36, serverSource);
+    HELPER.assertCounter("blockCacheWriterQueueFullCount", 43, serverSource);
+    HELPER.assertCounter("blockCacheReadaheadCount", 44, serverSource);
+    HELPER.assertCounter("blockCacheReadaheadHitCount", 45, serverSource);
+    HELPER.assertCounter("blockCacheReadaheadWastedCount", 46, serverSource);
+    HELPER.assertCounter("hfileStreamPoolReadCount", 47, serverSource);
+    HELPER.assertCounter("hfileStreamPoolFallbackCount", 48, serverSource);
+    HELPER.assertGauge("hfileStreamPoolOpenCount", 49, serverSource);
+    HELPER.assertGauge("hfileStreamPoolBusyCount", 50, serverSource);
+    HELPER.assertGauge("bloomChunkCacheSize", 51, serverSource);
+    HELPER.assertCounter("bloomChunkCacheHitCount", 52, serverSource);
+    HELPER.assertCounter("bloomChunkCacheMissCount", 53, serverSource);
+    HELPER.assertCounter("inMemoryFlattenCount", 54, serverSource);
+    HELPER.assertCounter("inMemoryMergeCount", 55, serverSource);
+    HELPER.assertCounter("inMemoryCompactionCount", 56, serverSource);
+    HELPER.assertCounter("inMemoryFlattenTime", 57, serverSource);
+    HELPER.assertCounter("inMemoryMergeTime", 58, serverSource);
+    HELPER.assertCounter("inMemoryCompactionTime", 59, serverSource);
+    HELPER.assertCounter("inMemoryFlattenFreedSize", 60, serverSource);
+    HELPER.assertCounter("inMemoryMergeFreedSize", 61, serverSource);
+    HELPER.assertCounter("inMemoryCompactionFreedSize", 62, serverSource);
+    HELPER.assertGauge("scanRequestsPerSecond", 63, serverSource);
+    HELPER.assertGauge("scanBytesPerRequest", 64, serverSource);
+    HELPER.assertGauge("scanSizeLimitInUse", 65, serverSource);
+    HELPER.assertCounter("scanSizeLimitReducedCount", 66, serverSource);
+    HELPER.assertCounter("blockCacheUnpackCount", 40, serverSource);
+    HELPER.assertCounter("blockCacheUnpackTime", 41, serverSource);
+    HELPER.assertCounter("blockCacheUnpackedHitCount", 42, serverSource);
+    HELPER.assertCounter("blockCacheAdmittedCount", 37, serverSource);
+    HELPER.assertCounter("blockCacheRejectedCount", 38, serverSource);
+    HELPER.assertCounter("blockCacheRejectedRequestCount", 39, serverSource);
     HELPER.assertCounter("updatesBlockedTime", 419, serverSource);
   }
 
@@ -167,6 +197,9 @@ public class TestMetricsRegionServer {
     HELPER.assertCounter("flushOutputSize_num_ops", 2, serverSource);
     HELPER.assertCounter("flushedMemstoreBytes", 22, serverSource);
     HELPER.assertCounter("flushedOutputBytes", 33, serverSource);
+
+    rsm.updateStoreFlush(4);
+    HELPER.assertCounter("storeFlushTime_num_ops", 1, serverSource);
   }
 
   @Test
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Collections;
+
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({RegionServerTests.class, SmallTests.class})
+public class TestMiniBatchContext {
+
+  @Test
+  public void testReusedByThread() {
+    MiniBatchContext context = MiniBatchContext.acquire(10);
+    assertTrue(context.getFamilyMaps().length >= 10);
+    context.getFamilyMaps()[3] = Collections.emptyMap();
+    context.getObservedExceptions().sawWrongRegion();
+    context.release();
+
+    MiniBatchContext again = MiniBatchContext.acquire(5);
+    assertSame(context, again);
+    // Nothing of the last batch is left behind
+    assertNull(again.getFamilyMaps()[3]);
+    assertFalse(again.getObservedExceptions().hasSeenWrongRegion());
+    again.release();
+  }
+
+  @Test
+  public void testNestedBatchGetsOwnContext() {
+    MiniBatchContext outer = MiniBatchContext.acquire(1);
+    MiniBatchContext inner = MiniBatchContext.acquire(1);
+    assertNotSame(outer, inner);
+    inner.release();
+    outer.release();
+    assertSame(outer, MiniBatchContext.acquire(1));
+    outer.release();
+  }
+
+  @Test
+  public void testHugeBatchNotRetained() {
+    int size = MiniBatchContext.MAX_RETAINED_BATCH_SIZE + 1;
+    MiniBatchContext huge = MiniBatchContext.acquire(size);
+    assertTrue(huge.getFamilyMaps().length >= size);
+    huge.release();
+    MiniBatchContext context = MiniBatchContext.acquire(1);
+    assertNotSame(huge, context);
+    assertTrue(context.getFamilyMaps().length <= MiniBatchContext.MAX_RETAINED_BATCH_SIZE);
+    context.release();
+  }
+}
@@ -18,6 +18,11 @@
 package org.apache.hadoop.hbase.regionserver;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
 
 import org.apache.hadoop.hbase.testclassification.RegionServerTests;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
@@ -42,4 +47,51 @@ public class TestMultiVersionConcurrencyControlBasic {
     mvcc.complete(writeEntry);
     assertEquals(readPoint + 2, mvcc.getWritePoint());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testOutOfOrderComplete() {
+    MultiVersionConcurrencyControl mvcc = new MultiVersionConcurrencyControl();
+    MultiVersionConcurrencyControl.WriteEntry first = mvcc.begin();
+    MultiVersionConcurrencyControl.WriteEntry second = mvcc.begin();
+    MultiVersionConcurrencyControl.WriteEntry third = mvcc.begin();
+    assertFalse(mvcc.complete(third));
+    assertFalse(mvcc.complete(second));
+    assertEquals(0, mvcc.getReadPoint());
+    // The first write to begin carries the read point over the ones completed before it
+    assertTrue(mvcc.complete(first));
+    assertEquals(3, mvcc.getReadPoint());
+  }
+
+  @Test
+  public void testMoreWritesThanSlots() {
+    MultiVersionConcurrencyControl mvcc = new MultiVersionConcurrencyControl();
+    MultiVersionConcurrencyControl.WriteEntry first = mvcc.begin();
+    List<MultiVersionConcurrencyControl.WriteEntry> entries =
+        new ArrayList<MultiVersionConcurrencyControl.WriteEntry>();
+    int count = 3 * MultiVersionConcurrencyControl.SLOTS;
+    for (int i = 0; i < count; i++) {
+      entries.add(mvcc.begin());
+    }
+    // Complete all but the first, so that slots are wanted twice before the read point moves
+    for (MultiVersionConcurrencyControl.WriteEntry entry : entries) {
+      assertFalse(mvcc.complete(entry));
+    }
+    assertEquals(0, mvcc.getReadPoint());
+    mvcc.completeAndWait(first);
+    assertEquals(count + 1, mvcc.getReadPoint());
+    mvcc.completeAndWait(mvcc.begin());
+    assertEquals(count + 2, mvcc.getReadPoint());
+  }
+
+  @Test
+  public void testAdvanceTo() {
+    MultiVersionConcurrencyControl mvcc = new MultiVersionConcurrencyControl();
+    mvcc.advanceTo(100);
+    assertEquals(100, mvcc.getReadPoint());
+    assertEquals(100, mvcc.getWritePoint());
+    MultiVersionConcurrencyControl.WriteEntry writeEntry = mvcc.begin();
+    assertEquals(101, writeEntry.getWriteNumber());
+    mvcc.completeAndWait(writeEntry);
+    assertEquals(101, mvcc.getReadPoint());
+  }
+}
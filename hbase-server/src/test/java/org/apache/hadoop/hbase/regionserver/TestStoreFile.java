@@ -43,7 +43,9 @@ import org.apache.hadoop.hbase.HRegionInfo;
 import org.apache.hadoop.hbase.KeyValue;
 import org.apache.hadoop.hbase.KeyValueUtil;
 import org.apache.hadoop.hbase.TableName;
+import org.apache.hadoop.hbase.client.Get;
 import org.apache.hadoop.hbase.client.Scan;
+import org.apache.hadoop.hbase.filter.ColumnRangeFilter;
 import org.apache.hadoop.hbase.io.HFileLink;
 import org.apache.hadoop.hbase.io.encoding.DataBlockEncoding;
 import org.apache.hadoop.hbase.io.hfile.BlockCache;
@@ -57,6 +59,7 @@ import org.apache.hadoop.hbase.io.hfile.HFileScanner;
 import org.apache.hadoop.hbase.testclassification.RegionServerTests;
 import org.apache.hadoop.hbase.testclassification.SmallTests;
 import org.apache.hadoop.hbase.util.BloomFilterFactory;
+import org.apache.hadoop.hbase.util.BloomFilterUtil;
 import org.apache.hadoop.hbase.util.Bytes;
 import org.apache.hadoop.hbase.util.ChecksumType;
 import org.apache.hadoop.hbase.util.FSUtils;
@@ -740,6 +743,163 @@ public class TestStoreFile extends HBaseTestCase {
     }
   }
 
+  @Test
+  public void testRowPrefixBloomFilters() throws Exception {
+    float err = (float) 0.01;
+    FileSystem fs = FileSystem.getLocal(conf);
+    conf.setFloat(BloomFilterFactory.IO_STOREFILE_BLOOM_ERROR_RATE, err);
+    conf.setBoolean(BloomFilterFactory.IO_STOREFILE_BLOOM_ENABLED, true);
+    // Both cut "0012|0003" to "0012|"
+    conf.setInt(BloomFilterUtil.PREFIX_LENGTH_KEY, 5);
+    conf.set(BloomFilterUtil.DELIMITER_KEY, "|");
+    String prefixFormat = "%04d|";
+    int prefixCount = 200;
+    int rowsPerPrefix = 10;
+
+    for (BloomType bt : new BloomType[] { BloomType.ROWPREFIX_FIXED_LENGTH,
+        BloomType.ROWPREFIX_DELIMITED }) {
+      // write the file
+      Path f = new Path(ROOT_DIR, getName() + bt);
+      HFileContext meta = new HFileContextBuilder().withBlockSize(BLOCKSIZE_SMALL)
+          .withChecksumType(CKTYPE)
+          .withBytesPerCheckSum(CKBYTES).build();
+      StoreFileWriter writer = new StoreFileWriter.Builder(conf, cacheConf, this.fs)
+              .withFilePath(f)
+              .withBloomType(bt)
+              .withMaxKeyCount(prefixCount * rowsPerPrefix / 2)
+              .withFileContext(meta)
+              .build();
+      long now = System.currentTimeMillis();
+      for (int i = 0; i < prefixCount; i += 2) {
+        for (int j = 0; j < rowsPerPrefix; j++) {
+          String row = String.format(prefixFormat, i) + String.format("%04d", j);
+          writer.append(new KeyValue(Bytes.toBytes(row), Bytes.toBytes("family"),
+            Bytes.toBytes("col"), now, Bytes.toBytes("value")));
+        }
+      }
+      writer.close();
+
+      StoreFileReader reader = new StoreFileReader(fs, f, cacheConf, conf);
+      reader.loadFileInfo();
+      reader.loadBloomfilter();
+      StoreFileScanner scanner = getStoreFileScanner(reader, false, false);
+      assertEquals(bt, reader.getBloomFilterType());
+      assertEquals(prefixCount / 2, reader.generalBloomFilter.getKeyCount());
+
+      Store store = mock(Store.class);
+      HColumnDescriptor hcd = mock(HColumnDescriptor.class);
+      when(hcd.getName()).thenReturn(Bytes.toBytes("family"));
+      when(store.getFamily()).thenReturn(hcd);
+      int falsePos = 0;
+      int falseNeg = 0;
+      for (int i = 0; i < prefixCount; i++) {
+        byte[] prefix = Bytes.toBytes(String.format(prefixFormat, i));
+        Scan prefixScan = new Scan().setRowPrefixFilter(prefix);
+        Scan reversedScan = new Scan(Bytes.add(prefix, Bytes.toBytes("9999")), prefix)
+            .setReversed(true);
+        Scan get = new Scan(new Get(Bytes.add(prefix, Bytes.toBytes("0003"))));
+        for (Scan scan : new Scan[] { prefixScan, reversedScan, get }) {
+          boolean exists = scanner.shouldUseScanner(scan, store, Long.MIN_VALUE);
+          if (i % 2 == 0) {
+            if (!exists) falseNeg++;
+          } else {
+            if (exists) falsePos++;
+          }
+        }
+      }
+      // Scans over several prefixes, or from a row shorter than a prefix, cannot use the filter
+      assertTrue(scanner.shouldUseScanner(new Scan(Bytes.toBytes("0001|"), Bytes.toBytes("0003|")),
+        store, Long.MIN_VALUE));
+      assertTrue(scanner.shouldUseScanner(new Scan(Bytes.toBytes("0001"), Bytes.toBytes("0001}")),
+        store, Long.MIN_VALUE));
+      assertTrue(scanner.shouldUseScanner(new Scan(Bytes.toBytes("0001|")), store,
+        Long.MIN_VALUE));
+      reader.close(true); // evict because we are about to delete the file
+      fs.delete(f, true);
+      assertEquals(bt + " false negatives", 0, falseNeg);
+      int maxFalsePos = (int) (2 * 3 * prefixCount * err);
+      assertTrue(bt + " too many false positives: " + falsePos, falsePos <= maxFalsePos);
+    }
+  }
+
+  @Test
+  public void testRowPrefixBloomFilterParam() throws Exception {
+    Configuration bloomConf = new Configuration(false);
+    try {
+      BloomFilterUtil.getBloomFilterParam(BloomType.ROWPREFIX_FIXED_LENGTH, bloomConf);
+      fail("Expected the missing prefix length to be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    bloomConf.setInt(BloomFilterUtil.PREFIX_LENGTH_KEY, 0);
+    try {
+      BloomFilterUtil.getBloomFilterParam(BloomType.ROWPREFIX_FIXED_LENGTH, bloomConf);
+      fail("Expected a prefix length of 0 to be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    bloomConf.setInt(BloomFilterUtil.PREFIX_LENGTH_KEY, 4);
+    byte[] length =
+        BloomFilterUtil.getBloomFilterParam(BloomType.ROWPREFIX_FIXED_LENGTH, bloomConf);
+    assertEquals(4, BloomFilterUtil.getRowPrefixLength(Bytes.toBytes("abcdef"),
+      BloomType.ROWPREFIX_FIXED_LENGTH, length));
+    assertEquals(2, BloomFilterUtil.getRowPrefixLength(Bytes.toBytes("ab"),
+      BloomType.ROWPREFIX_FIXED_LENGTH, length));
+    assertNull(BloomFilterUtil.getBloomFilterParam(BloomType.ROW, bloomConf));
+
+    bloomConf.set(BloomFilterUtil.DELIMITER_KEY, "::");
+    byte[] delimiter =
+        BloomFilterUtil.getBloomFilterParam(BloomType.ROWPREFIX_DELIMITED, bloomConf);
+    assertEquals(5, BloomFilterUtil.getRowPrefixLength(Bytes.toBytes("abc::d::e"),
+      BloomType.ROWPREFIX_DELIMITED, delimiter));
+    assertEquals(3, BloomFilterUtil.getRowPrefixLength(Bytes.toBytes("a:b"),
+      BloomType.ROWPREFIX_DELIMITED, delimiter));
+  }
+
+  @Test
+  public void testColumnStats() throws Exception {
+    FileSystem fs = FileSystem.getLocal(conf);
+    Path f = new Path(ROOT_DIR, getName());
+    HFileContext meta = new HFileContextBuilder().withBlockSize(BLOCKSIZE_SMALL).build();
+    StoreFileWriter writer = new StoreFileWriter.Builder(conf, cacheConf, this.fs)
+            .withFilePath(f)
+            .withFileContext(meta)
+            .build();
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < 100; i++) {
+      for (int j = 0; j < 10; j += 2) {
+        writer.append(new KeyValue(Bytes.toBytes(String.format(localFormatter, i)),
+          Bytes.toBytes("family"), Bytes.toBytes("col" + j), now, Bytes.toBytes("value")));
+      }
+    }
+    writer.close();
+
+    StoreFileReader reader = new StoreFileReader(fs, f, cacheConf, conf);
+    reader.loadFileInfo();
+    ColumnStatsMetrics metrics = new ColumnStatsMetrics();
+    reader.setColumnStatsMetrics(metrics);
+    StoreFileScanner scanner = getStoreFileScanner(reader, false, false);
+    Store store = mock(Store.class);
+    HColumnDescriptor hcd = mock(HColumnDescriptor.class);
+    when(hcd.getName()).thenReturn(Bytes.toBytes("family"));
+    when(store.getFamily()).thenReturn(hcd);
+
+    assertTrue(scanner.shouldUseScanner(new Scan(), store, Long.MIN_VALUE));
+    assertTrue(scanner.shouldUseScanner(
+      new Scan().addColumn(Bytes.toBytes("family"), Bytes.toBytes("col4")), store,
+      Long.MIN_VALUE));
+    assertFalse(scanner.shouldUseScanner(
+      new Scan().addColumn(Bytes.toBytes("family"), Bytes.toBytes("col5")), store,
+      Long.MIN_VALUE));
+    assertFalse(scanner.shouldUseScanner(new Scan().setFilter(
+      new ColumnRangeFilter(Bytes.toBytes("col9"), true, null, false)), store, Long.MIN_VALUE));
+    // Only scans that can use the statistics are counted
+    assertEquals(3, metrics.getCheckCount());
+    assertEquals(2, metrics.getPrunedCount());
+    reader.close(true); // evict because we are about to delete the file
+    fs.delete(f, true);
+  }
+
   @Test
   public void testSeqIdComparator() {
     assertOrdering(StoreFile.Comparators.SEQ_ID, mockStoreFile(true, 100, 1000, -1, "/foo/123"),
@@ -85,6 +85,8 @@ public class TestCompactor {
       public ArrayList<KeyValue> kvs = new ArrayList<KeyValue>();
       public TreeMap<byte[], byte[]> data = new TreeMap<byte[], byte[]>(Bytes.BYTES_COMPARATOR);
       public boolean hasMetadata;
+      public long maxSequenceId;
+      public boolean majorCompaction;
     }
 
     private List<Writer> writers = new ArrayList<Writer>();
@@ -109,6 +111,8 @@ public class TestCompactor {
         @Override
         public Void answer(InvocationOnMock invocation) throws Throwable {
           realWriter.hasMetadata = true;
+          realWriter.maxSequenceId = (Long) invocation.getArguments()[0];
+          realWriter.majorCompaction = (Boolean) invocation.getArguments()[1];
           return null;
         }
       }).when(writer).appendMetadata(any(long.class), any(boolean.class));
@@ -55,6 +55,14 @@ public class TestMetricsWAL {
     verify(source, times(1)).incrementSyncTime(145);
   }
 
+  @Test
+  public void testPostSyncBatch() throws Exception {
+    MetricsWALSource source = mock(MetricsWALSourceImpl.class);
+    MetricsWAL metricsWAL = new MetricsWAL(source);
+    metricsWAL.postSyncBatch(12, 3400);
+    verify(source, times(1)).incrementSyncBatch(12, 3400);
+  }
+
   @Test
   public void testSlowAppend() throws Exception {
     MetricsWALSource source = new MetricsWALSourceImpl();
@@ -0,0 +1,74 @@
+/**
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.apache.hadoop.hbase.regionserver.wal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.concurrent.TimeUnit;
+
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.hbase.HBaseConfiguration;
+import org.apache.hadoop.hbase.testclassification.RegionServerTests;
+import org.apache.hadoop.hbase.testclassification.SmallTests;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+@Category({RegionServerTests.class, SmallTests.class})
+public class TestSyncLinger {
+
+  @Test
+  public void testDisabledByDefault() {
+    Configuration conf = HBaseConfiguration.create();
+    SyncLinger linger = new SyncLinger(conf);
+    assertFalse(linger.isEnabled());
+    linger.syncDone(TimeUnit.MILLISECONDS.toNanos(10), 100);
+    assertEquals(0, linger.getLingerNs(1));
+  }
+
+  @Test
+  public void testLingerFollowsSyncTime() {
+    long max = TimeUnit.MICROSECONDS.toNanos(200);
+    SyncLinger linger = new SyncLinger(max, 0.5);
+    // Nothing known about syncs yet
+    assertEquals(0, linger.getLingerNs(1));
+
+    linger.syncDone(TimeUnit.MICROSECONDS.toNanos(100), 10);
+    assertEquals(TimeUnit.MICROSECONDS.toNanos(50), linger.getLingerNs(1));
+    // Capped on slow syncs
+    for (int i = 0; i < 100; i++) {
+      linger.syncDone(TimeUnit.MILLISECONDS.toNanos(10), 10);
+    }
+    assertEquals(max, linger.getLingerNs(1));
+  }
+
+  @Test
+  public void testNoLingerWithoutConcurrentWriters() {
+    SyncLinger linger = new SyncLinger(TimeUnit.MICROSECONDS.toNanos(200), 0.5);
+    linger.syncDone(TimeUnit.MILLISECONDS.toNanos(1), 1);
+    assertEquals(0, linger.getLingerNs(1));
+
+    linger.syncDone(TimeUnit.MILLISECONDS.toNanos(1), 8);
+    assertTrue(linger.getLingerNs(1) > 0);
+    // As many pending as the last sync covered, no need to wait
+    assertEquals(0, linger.getLingerNs(8));
+    assertFalse(linger.isBatchFull(7));
+    assertTrue(linger.isBatchFull(8));
+  }
+}